@@ -0,0 +1,101 @@
+package com.gmiedlar.moviereviewer.config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletException;
+
+import com.gmiedlar.moviereviewer.domain.CustomUser;
+import com.gmiedlar.moviereviewer.domain.SigningKey;
+import com.gmiedlar.moviereviewer.repository.SigningKeyRepository;
+import com.gmiedlar.moviereviewer.repository.TokenRevocationRepository;
+import com.gmiedlar.moviereviewer.service.InMemoryInvalidationBus;
+import com.gmiedlar.moviereviewer.service.TokenRevocationList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Cost of authenticating one request with a repeated bearer token, with the {@link VerifiedTokenCache} on and off.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenFilterBenchmark {
+
+    @Param({"0", "10000"})
+    private long tokenCacheSize;
+
+    @Param({"claims", "database"})
+    private String authenticationMode;
+
+    private JwtTokenFilter filter;
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        List<SigningKey> signingKeys = new ArrayList<>();
+        SigningKeyRepository signingKeyRepository = mock(SigningKeyRepository.class);
+        given(signingKeyRepository.insert(any(SigningKey.class))).willAnswer(invocation -> {
+            signingKeys.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        given(signingKeyRepository.findByExpiresAtAfter(any(Date.class))).willAnswer(invocation -> new ArrayList<>(signingKeys));
+        SigningKeyRing keyRing = new SigningKeyRing(signingKeyRepository, new SigningKeyCipher(""), 604800000, 86400000);
+        keyRing.load();
+
+        TokenRevocationList revocationList = new TokenRevocationList(mock(TokenRevocationRepository.class),
+            new InMemoryInvalidationBus(new SimpleMeterRegistry()), 86400000);
+        JwtTokenProvider provider = new JwtTokenProvider(
+            username -> User.withUsername(username).password("hash").authorities("USER").build(),
+            keyRing,
+            revocationList,
+            new VerifiedTokenCache(new SimpleMeterRegistry(), tokenCacheSize),
+            86400000,
+            authenticationMode
+        );
+        filter = new JwtTokenFilter(provider);
+
+        String token = provider.generateToken(CustomUser.builder()
+                                                        .id("benchmark")
+                                                        .username("benchmark")
+                                                        .role("USER")
+                                                        .enabled(true)
+                                                        .build());
+        request = new MockHttpServletRequest("GET", "/movie");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @Benchmark
+    public Object filterRequest() throws ServletException, IOException {
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
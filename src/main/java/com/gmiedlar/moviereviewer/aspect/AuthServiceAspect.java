@@ -1,5 +1,8 @@
 package com.gmiedlar.moviereviewer.aspect;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import com.gmiedlar.moviereviewer.dto.UserLoginDto;
 import com.gmiedlar.moviereviewer.dto.UserRegisterDto;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -19,9 +22,13 @@ public class AuthServiceAspect {
     public Object invokeRegister(ProceedingJoinPoint joinPoint, UserRegisterDto user) throws Throwable {
         LOGGER.info("Trying to register new user [username={}, email={}]", user.getUsername(), user.getEmail());
         try {
-            Object result = joinPoint.proceed();
-            LOGGER.info("Successfully registered new user [username={}].", user.getUsername());
-            return result;
+            CompletableFuture<?> result = (CompletableFuture<?>) joinPoint.proceed();
+            return result.whenComplete((value, e) -> {
+                if(e == null)
+                    LOGGER.info("Successfully registered new user [username={}].", user.getUsername());
+                else
+                    LOGGER.warn("Exception thrown while registering new user: "+ unwrap(e).getMessage());
+            });
         } catch(Throwable e) {
             LOGGER.warn("Exception thrown while registering new user: "+ e.getMessage());
             throw e;
@@ -31,12 +38,30 @@ public class AuthServiceAspect {
     @Around(value = "execution(* com.gmiedlar.moviereviewer.service.AuthServiceImpl.loginUser(..)) && args(user)")
     public Object invokeLogin(ProceedingJoinPoint joinPoint, UserLoginDto user) throws Throwable {
         LOGGER.info("Trying to log in user [username={}]", user.getUsername());
+        try {
+            CompletableFuture<?> result = (CompletableFuture<?>) joinPoint.proceed();
+            return result.whenComplete((value, e) -> {
+                if(e == null)
+                    LOGGER.info("Successfully logged in user [username={}]", user.getUsername());
+                else
+                    LOGGER.warn("Exception thrown while log in user: "+ unwrap(e).getMessage());
+            });
+        } catch(Throwable e) {
+            LOGGER.warn("Exception thrown while log in user: "+ e.getMessage());
+            throw e;
+        }
+    }
+
+    // The bearer token itself is not logged.
+    @Around(value = "execution(* com.gmiedlar.moviereviewer.service.AuthServiceImpl.logoutUser(..))")
+    public Object invokeLogout(ProceedingJoinPoint joinPoint) throws Throwable {
+        LOGGER.info("Trying to log out user");
         try {
             Object result = joinPoint.proceed();
-            LOGGER.info("Successfully logged in user [username={}]", user.getUsername());
+            LOGGER.info("Successfully logged out user");
             return result;
         } catch(Throwable e) {
-            LOGGER.warn("Exception thrown while log in user: "+ e.getMessage());
+            LOGGER.warn("Exception thrown while log out user: "+ e.getMessage());
             throw e;
         }
     }
@@ -66,4 +91,8 @@ public class AuthServiceAspect {
             throw e;
         }
     }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
 }
@@ -1,5 +1,7 @@
 package com.gmiedlar.moviereviewer.aspect;
 
+import java.util.List;
+
 import com.gmiedlar.moviereviewer.domain.Comment;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -41,10 +43,23 @@ public class CommentServiceAspect {
         }
     }
 
-    @Around(value = "execution(* com.gmiedlar.moviereviewer.service.CommentServiceImpl.updateComment(..)) && args(id, commentUpdate)")
-    public Object invokeUpdateComment(ProceedingJoinPoint joinPoint, String id, Comment commentUpdate) throws Throwable {
-        LOGGER.info("Trying to update comment [id={}] with values [rating={}, text={}]",
-            id, commentUpdate.getRating(), commentUpdate.getText());
+    @Around(value = "execution(* com.gmiedlar.moviereviewer.service.CommentServiceImpl.getCommentsByIds(..)) && args(ids)")
+    public Object invokeGetComments(ProceedingJoinPoint joinPoint, List<String> ids) throws Throwable {
+        LOGGER.info("Trying to get comments [count={}]", ids.size());
+        try {
+            Object result = joinPoint.proceed();
+            LOGGER.info("Successfully get comments [count={}].", ids.size());
+            return result;
+        } catch(Throwable e) {
+            LOGGER.warn("Exception thrown while getting comments: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    @Around(value = "execution(* com.gmiedlar.moviereviewer.service.CommentServiceImpl.updateComment(..)) && args(movieId, id, commentUpdate)")
+    public Object invokeUpdateComment(ProceedingJoinPoint joinPoint, String movieId, String id, Comment commentUpdate) throws Throwable {
+        LOGGER.info("Trying to update comment [id={}] of movie [id={}] with values [rating={}, text={}]",
+            id, movieId, commentUpdate.getRating(), commentUpdate.getText());
         try {
             Object result = joinPoint.proceed();
             LOGGER.info("Successfully updated comment [id={}].", id);
@@ -55,9 +70,9 @@ public class CommentServiceAspect {
         }
     }
 
-    @Around(value = "execution(* com.gmiedlar.moviereviewer.service.CommentServiceImpl.deleteComment(..)) && args(id)")
-    public Object invokeDeleteComment(ProceedingJoinPoint joinPoint, String id) throws Throwable {
-        LOGGER.info("Trying to delete comment [id={}]", id);
+    @Around(value = "execution(* com.gmiedlar.moviereviewer.service.CommentServiceImpl.deleteComment(..)) && args(movieId, id)")
+    public Object invokeDeleteComment(ProceedingJoinPoint joinPoint, String movieId, String id) throws Throwable {
+        LOGGER.info("Trying to delete comment [id={}] of movie [id={}]", id, movieId);
         try {
             Object result = joinPoint.proceed();
             LOGGER.info("Successfully deleted comment [id={}].", id);
@@ -67,4 +82,30 @@ public class CommentServiceAspect {
             throw e;
         }
     }
+
+    @Around(value = "execution(* com.gmiedlar.moviereviewer.service.CommentServiceImpl.deleteComments(..)) && args(ids)")
+    public Object invokeDeleteComments(ProceedingJoinPoint joinPoint, List<String> ids) throws Throwable {
+        LOGGER.info("Trying to delete comments [count={}]", ids.size());
+        try {
+            Object result = joinPoint.proceed();
+            LOGGER.info("Successfully deleted comments [count={}].", ids.size());
+            return result;
+        } catch(Throwable e) {
+            LOGGER.warn("Exception thrown while deleting comments: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    @Around(value = "execution(* com.gmiedlar.moviereviewer.service.CommentServiceImpl.deleteMovieComments(..)) && args(movieId)")
+    public Object invokeDeleteMovieComments(ProceedingJoinPoint joinPoint, String movieId) throws Throwable {
+        LOGGER.info("Trying to delete comments of movie [id={}]", movieId);
+        try {
+            Object result = joinPoint.proceed();
+            LOGGER.info("Successfully deleted comments of movie [id={}].", movieId);
+            return result;
+        } catch(Throwable e) {
+            LOGGER.warn("Exception thrown while deleting movie comments: " + e.getMessage());
+            throw e;
+        }
+    }
 }
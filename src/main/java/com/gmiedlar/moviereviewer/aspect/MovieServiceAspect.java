@@ -1,6 +1,9 @@
 package com.gmiedlar.moviereviewer.aspect;
 
+import java.util.List;
+
 import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.MovieImportDto;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -28,6 +31,19 @@ public class MovieServiceAspect {
         }
     }
 
+    @Around(value = "execution(* com.gmiedlar.moviereviewer.service.MovieServiceImpl.importMovies(..)) && args(username, movies)")
+    public Object invokeImportMovies(ProceedingJoinPoint joinPoint, String username, List<MovieImportDto> movies) throws Throwable {
+        LOGGER.info("Trying to import movies [count={}] by user [username={}]...", movies.size(), username);
+        try {
+            Object result = joinPoint.proceed();
+            LOGGER.info("Successfully imported movies batch [count={}] by user [username={}].", movies.size(), username);
+            return result;
+        } catch(Throwable e) {
+            LOGGER.warn("Exception thrown while importing movies: " + e.getMessage());
+            throw e;
+        }
+    }
+
     @Around(value = "execution(* com.gmiedlar.moviereviewer.service.MovieServiceImpl.getAllMovies(..))")
     public Object invokeGetAllMovies(ProceedingJoinPoint joinPoint) throws Throwable {
         LOGGER.info("Trying to get all movies...");
@@ -1,6 +1,9 @@
 package com.gmiedlar.moviereviewer.aspect;
 
+import java.util.List;
+
 import com.gmiedlar.moviereviewer.domain.Comment;
+import com.gmiedlar.moviereviewer.dto.BulkReviewDto;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -41,6 +44,19 @@ public class ReviewServiceAspect {
         }
     }
 
+    @Around(value = "execution(* com.gmiedlar.moviereviewer.service.MovieServiceImpl.importMovieComments(..)) && args(reviews)")
+    public Object invokeImportMovieComments(ProceedingJoinPoint joinPoint, List<BulkReviewDto> reviews) throws Throwable {
+        LOGGER.info("Trying to import movie comments [count={}]...", reviews.size());
+        try {
+            Object result = joinPoint.proceed();
+            LOGGER.info("Successfully imported movie comments batch [count={}].", reviews.size());
+            return result;
+        } catch(Throwable e) {
+            LOGGER.warn("Exception thrown while importing movie comments: " + e.getMessage());
+            throw e;
+        }
+    }
+
     @Around(value = "execution(* com.gmiedlar.moviereviewer.service.MovieServiceImpl.updateMovieComment(..)) && args(id, commentId, commentUpdate)")
     public Object invokeUpdateMovieComment(ProceedingJoinPoint joinPoint, String id, String commentId, Comment commentUpdate) throws Throwable {
         LOGGER.info("Trying to update comment [id={}] to movie [id={}] with values [rating={}, text={}].",
@@ -1,5 +1,8 @@
 package com.gmiedlar.moviereviewer.aspect;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -43,9 +46,13 @@ public class UserServiceAspect {
     public Object invokeUpdateUserPassword(ProceedingJoinPoint joinPoint, String username) throws Throwable {
         LOGGER.info("Trying to update user [username={}] password", username);
         try {
-            Object result = joinPoint.proceed();
-            LOGGER.info("Successfully updated user [username={}] password.", username);
-            return result;
+            CompletableFuture<?> result = (CompletableFuture<?>) joinPoint.proceed();
+            return result.whenComplete((value, e) -> {
+                if(e == null)
+                    LOGGER.info("Successfully updated user [username={}] password.", username);
+                else
+                    LOGGER.warn("Exception thrown while updating user password: "+ unwrap(e).getMessage());
+            });
         } catch(Throwable e) {
             LOGGER.warn("Exception thrown while updating user password: "+ e.getMessage());
             throw e;
@@ -56,9 +63,13 @@ public class UserServiceAspect {
     public Object invokeResetUserPassword(ProceedingJoinPoint joinPoint, String id) throws Throwable {
         LOGGER.info("Trying to reset user [id={}] password", id);
         try {
-            Object result = joinPoint.proceed();
-            LOGGER.info("Successfully reset user [id={}] password.", id);
-            return result;
+            CompletableFuture<?> result = (CompletableFuture<?>) joinPoint.proceed();
+            return result.whenComplete((value, e) -> {
+                if(e == null)
+                    LOGGER.info("Successfully reset user [id={}] password.", id);
+                else
+                    LOGGER.warn("Exception thrown while resetting user password: "+ unwrap(e).getMessage());
+            });
         } catch(Throwable e) {
             LOGGER.warn("Exception thrown while resetting user password: "+ e.getMessage());
             throw e;
@@ -77,4 +88,21 @@ public class UserServiceAspect {
             throw e;
         }
     }
+
+    @Around(value = "execution(* com.gmiedlar.moviereviewer.service.UserServiceImpl.revokeUserSessions(..)) && args(id)")
+    public Object invokeRevokeUserSessions(ProceedingJoinPoint joinPoint, String id) throws Throwable {
+        LOGGER.info("Trying to revoke user [id={}] sessions", id);
+        try {
+            Object result = joinPoint.proceed();
+            LOGGER.info("Successfully revoked user [id={}] sessions.", id);
+            return result;
+        } catch(Throwable e) {
+            LOGGER.warn("Exception thrown while revoking user sessions: "+ e.getMessage());
+            throw e;
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
 }
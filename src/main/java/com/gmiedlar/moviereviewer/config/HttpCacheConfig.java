@@ -0,0 +1,20 @@
+package com.gmiedlar.moviereviewer.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class HttpCacheConfig {
+
+    // Content-hash ETags for the public read endpoints that do not set a validator themselves. Responses marked
+    // no-store are left alone by the filter; the NDJSON streams opt out through NdjsonResponseWriter, as the filter
+    // would otherwise buffer them whole.
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> shallowEtagHeaderFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/movie/*", "/review/*", "/comment/*", "/user/*");
+        return registration;
+    }
+}
@@ -0,0 +1,17 @@
+package com.gmiedlar.moviereviewer.config;
+
+/**
+ * A catalog import from the command line starts the application only to write the file and exit, see
+ * {@code MovieImportRunner}. The startup work that only serving needs, such as building the in-memory indexes or
+ * running the background migrations, is skipped then with
+ * {@code @EventListener(value = ApplicationReadyEvent.class, condition = ImportMode.SERVING)}.
+ */
+public final class ImportMode {
+
+    public static final String FILE_OPTION = "import-movies";
+
+    public static final String SERVING = "!@environment.containsProperty('" + FILE_OPTION + "')";
+
+    private ImportMode() {
+    }
+}
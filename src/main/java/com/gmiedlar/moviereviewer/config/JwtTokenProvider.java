@@ -1,55 +1,97 @@
 package com.gmiedlar.moviereviewer.config;
 
 import java.security.Key;
+import java.util.Collections;
 import java.util.Date;
+import java.util.UUID;
 
+import com.gmiedlar.moviereviewer.config.VerifiedTokenCache.VerifiedToken;
 import com.gmiedlar.moviereviewer.domain.CustomUser;
+import com.gmiedlar.moviereviewer.service.TokenRevocationList;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolver;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 
+/**
+ * Issues and verifies the bearer tokens, signed with the keys of the {@link SigningKeyRing}.
+ * <p>
+ * In {@code claims} mode the {@link Authentication} is built from the verified token alone, so authenticated requests
+ * do not touch the database; a changed or deleted account is caught by the {@link TokenRevocationList}. In
+ * {@code database} mode the user is loaded for every request, as before. Verified tokens are kept in the
+ * {@link VerifiedTokenCache}; expiry and revocation are checked on every request.
+ */
 @Component
 public class JwtTokenProvider {
 
-    private final Key secretKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private static final String CLAIMS_MODE = "claims";
 
-    @Value("${jwt.token.expiration-time}")
-    private long expirationTime;
+    private final SigningKeyRing keyRing;
+
+    private final SigningKeyResolver keyResolver = new SigningKeyResolverAdapter() {
+        // jjwt declares the raw type, which a JwsHeader<?> parameter would not override.
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            JwsHeader<?> jwsHeader = header;
+            return keyRing.getKey(jwsHeader.getKeyId());
+        }
+    };
+
+    private final long expirationTime;
 
     private final UserDetailsService userDetailsService;
 
-    public JwtTokenProvider(@Qualifier("userDetailsServiceImpl") UserDetailsService userDetailsService) {
+    private final TokenRevocationList revocationList;
+
+    private final VerifiedTokenCache tokenCache;
+
+    private final boolean claimsMode;
+
+    public JwtTokenProvider(@Qualifier("userDetailsServiceImpl") UserDetailsService userDetailsService, SigningKeyRing keyRing,
+                            TokenRevocationList revocationList, VerifiedTokenCache tokenCache, @Value("${jwt.token.expiration-time}") long expirationTime,
+                            @Value("${jwt.authentication.mode}") String mode) {
         this.userDetailsService = userDetailsService;
+        this.keyRing = keyRing;
+        this.revocationList = revocationList;
+        this.tokenCache = tokenCache;
+        this.expirationTime = expirationTime;
+        this.claimsMode = CLAIMS_MODE.equalsIgnoreCase(mode);
     }
 
     public String generateToken(CustomUser user) {
-        Claims claims = Jwts.claims().setSubject(user.getUsername());
+        Claims claims = Jwts.claims().setSubject(user.getUsername()).setId(UUID.randomUUID().toString());
         claims.put("id", user.getId());
         claims.put("email", user.getEmail());
         claims.put("role", user.getRole());
 
         Date now = new Date();
         Date expirationDate = new Date(now.getTime() + expirationTime);
+        String keyId = keyRing.getCurrentKeyId();
 
         return Jwts.builder()
+                   .setHeaderParam(JwsHeader.KEY_ID, keyId)
                    .setClaims(claims)
                    .setIssuedAt(now)
                    .setExpiration(expirationDate)
-                   .signWith(secretKey, SignatureAlgorithm.HS256)
+                   .signWith(keyRing.getKey(keyId), SignatureAlgorithm.HS256)
                    .compact();
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody();
+        return Jwts.parser().setSigningKeyResolver(keyResolver).parseClaimsJws(token).getBody();
     }
 
     public String getUsernameFromToken(String token) {
@@ -57,14 +99,39 @@ public class JwtTokenProvider {
     }
 
     public Authentication getAuthentication(String token) {
-        UserDetails userDetails = userDetailsService.loadUserByUsername(getUsernameFromToken(token));
+        VerifiedToken verified = getValidToken(token);
+        if(verified.getAuthentication() != null)
+            return verified.getAuthentication();
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername(verified.getClaims().getSubject());
         return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
     }
 
-    public boolean validateToken(String token) {
+    public Claims getValidClaims(String token) {
+        return getValidToken(token).getClaims();
+    }
+
+    private VerifiedToken getValidToken(String token) {
+        VerifiedToken verified = tokenCache.get(token, this::verify);
+        Claims claims = verified.getClaims();
+        if(verified.isExpired() || revocationList.isRevoked(claims.getSubject(), claims.getId(), claims.getIssuedAt()))
+            throw new RuntimeException("Expired or invalid JWT token");
+        return verified;
+    }
+
+    // Parses the token and verifies its signature, once per token while it stays cached. The Authentication built in
+    // claims mode is shared by all requests with the token and must not be modified.
+    private VerifiedToken verify(String token) {
         try {
             Claims claims = getAllClaimsFromToken(token);
-            return !claims.getExpiration().before(new Date());
+            String role = claims.get("role", String.class);
+            if(claims.getSubject() == null || role == null)
+                throw new JwtException("Missing claims");
+            if(!claimsMode)
+                return new VerifiedToken(claims, null);
+
+            UserDetails userDetails = new User(claims.getSubject(), "", Collections.singletonList(new SimpleGrantedAuthority(role)));
+            return new VerifiedToken(claims, new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities()));
         } catch (JwtException | IllegalArgumentException e) {
             throw new RuntimeException("Expired or invalid JWT token");
         }
@@ -0,0 +1,140 @@
+package com.gmiedlar.moviereviewer.config;
+
+import com.gmiedlar.moviereviewer.domain.Comment;
+import com.gmiedlar.moviereviewer.domain.Movie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+@Configuration
+public class MongoIndexConfig {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexConfig(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Before the other startup listeners, a catalog import run from the command line relies on catalog_key_index.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void ensureIndexes() {
+        // Partial, so that comments written before movieId existed do not collide on (null, authorId).
+        mongoTemplate
+            .indexOps(Comment.class)
+            .ensureIndex(new Index()
+                .named("movie_author_index")
+                .on("movieId", Sort.Direction.ASC)
+                .on("authorId", Sort.Direction.ASC)
+                .unique()
+                .partial(PartialIndexFilter.of(Criteria.where("movieId").exists(true))));
+
+        // Keyset pagination of a movie's reviews, see ReviewSort.
+        mongoTemplate
+            .indexOps(Comment.class)
+            .ensureIndex(new Index()
+                .named("movie_add_date_index")
+                .on("movieId", Sort.Direction.ASC)
+                .on("addDate", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC));
+        mongoTemplate
+            .indexOps(Comment.class)
+            .ensureIndex(new Index()
+                .named("movie_rating_index")
+                .on("movieId", Sort.Direction.ASC)
+                .on("rating", Sort.Direction.ASC)
+                .on("addDate", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC));
+
+        // Reviews added since a point in time, see TrendingMovieIndex; the projected fields are in the index, so the
+        // query is covered.
+        mongoTemplate
+            .indexOps(Comment.class)
+            .ensureIndex(new Index()
+                .named("add_date_movie_index")
+                .on("addDate", Sort.Direction.ASC)
+                .on("movieId", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC));
+
+        // Movie catalog, see MovieSort. Equality filters (genre, director) come first, then the sort key, so that
+        // a page is read straight off the index; year and rating ranges are applied on the same index scan.
+        for(String sortKey : new String[] { "avgRating", "year", "title" }) {
+            ensureMovieIndex("catalog_" + sortKey + "_index", sortKey);
+            ensureMovieIndex("catalog_genre_" + sortKey + "_index", "genre", sortKey);
+            ensureMovieIndex("catalog_director_" + sortKey + "_index", "director", sortKey);
+        }
+
+        // Deduplicates movies on normalized title and year, see Movie.catalogKey.
+        mongoTemplate
+            .indexOps(Movie.class)
+            .ensureIndex(new Index()
+                .named("catalog_key_index")
+                .on("catalogKey", Sort.Direction.ASC)
+                .unique()
+                .partial(PartialIndexFilter.of(Criteria.where("catalogKey").exists(true))));
+        backfillCatalogKeys();
+    }
+
+    // Movies saved before catalogKey existed get theirs here. Of legacy movies that already collide, the first keeps
+    // the key and the others stay without one, so they are not deduplicated against.
+    private void backfillCatalogKeys() {
+        Query unkeyed = Query.query(Criteria.where("catalogKey").exists(false));
+        unkeyed.fields().include("title").include("year");
+
+        long assigned = 0;
+        try (CloseableIterator<Movie> iterator = mongoTemplate.stream(unkeyed, Movie.class)) {
+            while(iterator.hasNext()) {
+                BulkOperations batch = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Movie.class);
+                int size = 0;
+                while(iterator.hasNext() && size < BACKFILL_BATCH_SIZE) {
+                    Movie movie = iterator.next();
+                    String catalogKey = Movie.catalogKey(movie.getTitle(), movie.getYear());
+                    if(catalogKey == null)
+                        continue;
+                    batch.updateOne(Query.query(Criteria.where("id").is(movie.getId())), Update.update("catalogKey", catalogKey));
+                    size++;
+                }
+                if(size > 0)
+                    assigned += size - failedWrites(batch);
+            }
+        }
+        if(assigned > 0)
+            LOGGER.info("Assigned catalog keys to existing movies [movies={}]", assigned);
+    }
+
+    private int failedWrites(BulkOperations batch) {
+        try {
+            batch.execute();
+            return 0;
+        } catch (BulkOperationException e) {
+            return e.getErrors().size();
+        }
+    }
+
+    private void ensureMovieIndex(String name, String... keys) {
+        Index index = new Index().named(name);
+        for(String key : keys)
+            index.on(key, Sort.Direction.ASC);
+        mongoTemplate
+            .indexOps(Movie.class)
+            .ensureIndex(index.on("_id", Sort.Direction.ASC));
+    }
+}
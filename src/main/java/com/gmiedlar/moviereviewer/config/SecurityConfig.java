@@ -69,6 +69,14 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 .and()
             .authorizeRequests()
+                .antMatchers("/movie/import")
+                    .hasAuthority("ADMIN")
+                .antMatchers("/review/bulk")
+                    .hasAuthority("ADMIN")
+                .antMatchers(HttpMethod.DELETE, "/user/*/sessions")
+                    .hasAuthority("ADMIN")
+                .antMatchers(HttpMethod.POST, "/auth/logout")
+                    .authenticated()
                 .antMatchers("/auth/**")
                     .permitAll()
                 .antMatchers(HttpMethod.GET, "/confirmation")
@@ -0,0 +1,84 @@
+package com.gmiedlar.moviereviewer.config;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Encrypts the token signing keys before they are stored in the {@code signing_key} collection, with AES-GCM under
+ * {@code jwt.signing-key.encryption-key}: a Base64 AES key of 16, 24 or 32 bytes, supplied from the environment through
+ * {@code JWT_SIGNING_KEY_ENCRYPTION_KEY} and never stored in the database. The key id is bound to the ciphertext, so a
+ * stored secret cannot be moved to another key. Without an encryption key the signing keys are stored in plain text.
+ */
+@Component
+public class SigningKeyCipher {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final int IV_LENGTH = 12;
+
+    private static final int TAG_LENGTH_BITS = 128;
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final SecretKey encryptionKey;
+
+    public SigningKeyCipher(@Value("${jwt.signing-key.encryption-key}") String encryptionKey) {
+        if(encryptionKey == null || encryptionKey.isBlank()) {
+            this.encryptionKey = null;
+            LOGGER.warn("No signing key encryption key configured, signing keys are stored in plain text");
+            return;
+        }
+        byte[] decoded = Base64.getDecoder().decode(encryptionKey.trim());
+        if(decoded.length != 16 && decoded.length != 24 && decoded.length != 32)
+            throw new IllegalArgumentException("Signing key encryption key must be 16, 24 or 32 bytes!");
+        this.encryptionKey = new SecretKeySpec(decoded, "AES");
+    }
+
+    public boolean isEnabled() {
+        return encryptionKey != null;
+    }
+
+    // Base64 of the IV followed by the ciphertext and tag.
+    public String encrypt(String keyId, byte[] secret) {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        try {
+            byte[] encrypted = cipher(Cipher.ENCRYPT_MODE, keyId, iv).doFinal(secret);
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(IV_LENGTH + encrypted.length).put(iv).put(encrypted).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot encrypt signing key " + keyId + "!", e);
+        }
+    }
+
+    public byte[] decrypt(String keyId, String secret) {
+        byte[] stored = Base64.getDecoder().decode(secret);
+        try {
+            return cipher(Cipher.DECRYPT_MODE, keyId, stored).doFinal(stored, IV_LENGTH, stored.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot decrypt signing key " + keyId + "!", e);
+        }
+    }
+
+    private Cipher cipher(int mode, String keyId, byte[] iv) throws GeneralSecurityException {
+        if(encryptionKey == null)
+            throw new IllegalStateException("No signing key encryption key configured!");
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(mode, encryptionKey, new GCMParameterSpec(TAG_LENGTH_BITS, iv, 0, IV_LENGTH));
+        cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+        return cipher;
+    }
+}
@@ -0,0 +1,145 @@
+package com.gmiedlar.moviereviewer.config;
+
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+
+import com.gmiedlar.moviereviewer.domain.SigningKey;
+import com.gmiedlar.moviereviewer.repository.SigningKeyRepository;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Token signing keys shared by all instances through the {@code signing_key} collection, so that any instance verifies
+ * the tokens of any other and tokens survive restarts.
+ * <p>
+ * Time is split into periods of {@code jwt.signing-key.rotation-period}, each with its own key named after the period.
+ * Tokens are signed with the key of the current period. Each key is created one period before it is first used, by
+ * whichever instance gets there first, so every instance has loaded it by the time a token signed with it arrives.
+ * After its period a key is kept for one token lifetime, until the last token signed with it has expired, and then a
+ * TTL index drops it. Keys are reloaded every {@code jwt.signing-key.refresh-interval}, which must be well below the
+ * rotation period; verification only reads the keys held in memory.
+ * <p>
+ * New keys are stored encrypted by the {@link SigningKeyCipher} when an encryption key is configured. Keys stored in
+ * plain text before that are still read, until they expire.
+ */
+@Component
+public class SigningKeyRing {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final SigningKeyRepository repository;
+
+    private final SigningKeyCipher cipher;
+
+    private final long rotationPeriodMillis;
+
+    private final long tokenLifetimeMillis;
+
+    // Replaced as a whole on refresh, before currentKeyId, so the current key is always among the keys.
+    private volatile Map<String, Key> keys = new HashMap<>();
+
+    private volatile String currentKeyId;
+
+    public SigningKeyRing(SigningKeyRepository repository, SigningKeyCipher cipher,
+                          @Value("${jwt.signing-key.rotation-period}") long rotationPeriodMillis,
+                          @Value("${jwt.token.expiration-time}") long tokenLifetimeMillis) {
+        this.repository = repository;
+        this.cipher = cipher;
+        this.rotationPeriodMillis = rotationPeriodMillis;
+        this.tokenLifetimeMillis = tokenLifetimeMillis;
+    }
+
+    // No token can be issued without a key, so a failure here fails the startup.
+    @PostConstruct
+    public void load() {
+        refresh(System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.signing-key.refresh-interval}", initialDelayString = "${jwt.signing-key.refresh-interval}")
+    public void refresh() {
+        try {
+            refresh(System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            LOGGER.warn("Failed to refresh signing keys: " + e.getMessage());
+        }
+    }
+
+    void refresh(long now) {
+        long period = now / rotationPeriodMillis;
+        Map<String, Key> loaded = loadKeys(now);
+
+        boolean created = false;
+        for(long upcoming = period; upcoming <= period + 1; upcoming++) {
+            if(!loaded.containsKey(keyId(upcoming))) {
+                create(upcoming);
+                created = true;
+            }
+        }
+        if(created)
+            loaded = loadKeys(now);
+        if(!loaded.containsKey(keyId(period)))
+            throw new IllegalStateException("No signing key for the current period!");
+
+        keys = loaded;
+        currentKeyId = keyId(period);
+    }
+
+    public String getCurrentKeyId() {
+        return currentKeyId;
+    }
+
+    public Key getKey(String keyId) {
+        Key key = keyId != null ? keys.get(keyId) : null;
+        if(key == null)
+            throw new JwtException("Unknown signing key");
+        return key;
+    }
+
+    private Map<String, Key> loadKeys(long now) {
+        Map<String, Key> loaded = new HashMap<>();
+        for(SigningKey key : repository.findByExpiresAtAfter(new Date(now)))
+            loaded.put(key.getId(), Keys.hmacShaKeyFor(secret(key)));
+        return loaded;
+    }
+
+    private byte[] secret(SigningKey key) {
+        return key.isEncrypted() ? cipher.decrypt(key.getId(), key.getSecret()) : Base64.getDecoder().decode(key.getSecret());
+    }
+
+    private void create(long period) {
+        long activeFrom = period * rotationPeriodMillis;
+        long activeUntil = activeFrom + rotationPeriodMillis;
+        String keyId = keyId(period);
+        byte[] secret = Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded();
+        SigningKey key = SigningKey.builder()
+                                   .id(keyId)
+                                   .secret(cipher.isEnabled() ? cipher.encrypt(keyId, secret) : Base64.getEncoder().encodeToString(secret))
+                                   .encrypted(cipher.isEnabled())
+                                   .activeFrom(new Date(activeFrom))
+                                   .activeUntil(new Date(activeUntil))
+                                   .expiresAt(new Date(activeUntil + tokenLifetimeMillis))
+                                   .build();
+        try {
+            repository.insert(key);
+            LOGGER.info("Created signing key [kid={}]", key.getId());
+        } catch (DuplicateKeyException e) {
+            // Another instance created it first.
+        }
+    }
+
+    private static String keyId(long period) {
+        return "key-" + period;
+    }
+}
@@ -0,0 +1,97 @@
+package com.gmiedlar.moviereviewer.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bearer tokens whose signature has been verified, so a client polling with the same token pays for verification and
+ * claims parsing once.
+ * <p>
+ * Entries are keyed by a SHA-256 hash of the token, so the tokens themselves are not kept, and expire at the token's
+ * {@code exp}. They are only ever added after a successful verification. Callers still check expiry and revocation
+ * on every hit, since both can change while an entry is cached. A {@code jwt.token-cache.max-size} of 0 turns the
+ * cache off.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry, @Value("${jwt.token-cache.max-size}") long maxSize) {
+        if(maxSize <= 0) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maxSize)
+                             .expireAfter(new UntilTokenExpires())
+                             .recordStats()
+                             .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "tokens");
+    }
+
+    public VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+        if(cache == null)
+            return verifier.apply(token);
+        return cache.get(hash(token), key -> verifier.apply(token));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class VerifiedToken {
+
+        private final Claims claims;
+
+        // Only when it can be built from the claims alone; otherwise the user is loaded for every request.
+        private final Authentication authentication;
+
+        public boolean isExpired() {
+            return claims.getExpiration().before(new Date());
+        }
+    }
+
+    private static class UntilTokenExpires implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            long remainingMillis = token.getClaims().getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
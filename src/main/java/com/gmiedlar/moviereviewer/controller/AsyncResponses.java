@@ -0,0 +1,59 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Responses of the endpoints whose service calls complete asynchronously, like those waiting for password hashing.
+ * <p>
+ * An exception is mapped the same way whether the service throws it right away or completes with it. When the
+ * work is turned away because its executor is saturated, the client gets a 503 with a {@code Retry-After} of
+ * {@code password.hashing.retry-after} seconds. Exceptions the endpoint does not map are rethrown.
+ */
+@Component
+public class AsyncResponses {
+
+    private final String retryAfterSeconds;
+
+    public AsyncResponses(@Value("${password.hashing.retry-after}") long retryAfterSeconds) {
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
+    public <T> CompletableFuture<ResponseEntity<?>> respond(Supplier<CompletableFuture<T>> call,
+                                                            Function<T, ResponseEntity<?>> onSuccess,
+                                                            Function<Throwable, ResponseEntity<?>> onError) {
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        return result.handle((value, e) -> {
+            if(e == null)
+                return onSuccess.apply(value);
+
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if(cause instanceof RejectedExecutionException)
+                return serviceUnavailable();
+            ResponseEntity<?> response = onError.apply(cause);
+            if(response == null)
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+            return response;
+        });
+    }
+
+    private ResponseEntity<?> serviceUnavailable() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        return new ResponseEntity<>("Server is busy, please try again later", headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
@@ -1,8 +1,11 @@
 package com.gmiedlar.moviereviewer.controller;
 
+import java.util.concurrent.CompletableFuture;
 import javax.mail.MessagingException;
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
+import com.gmiedlar.moviereviewer.config.JwtTokenFilter;
 import com.gmiedlar.moviereviewer.dto.UserLoginDto;
 import com.gmiedlar.moviereviewer.dto.UserRegisterDto;
 import com.gmiedlar.moviereviewer.service.AuthService;
@@ -23,28 +26,41 @@ public class AuthController {
 
     private final AuthService service;
 
-    public AuthController(AuthService service) {
+    private final AsyncResponses asyncResponses;
+
+    public AuthController(AuthService service, AsyncResponses asyncResponses) {
         this.service = service;
+        this.asyncResponses = asyncResponses;
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody UserRegisterDto user) {
-        try {
-            service.registerUser(user);
-            return new ResponseEntity<>("Account successfully created", HttpStatus.CREATED);
-        } catch(IllegalArgumentException e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
-        } catch (MessagingException | MailSendException e) {
-            return new ResponseEntity<>("Failed to send verification e-mail!", HttpStatus.BAD_GATEWAY);
-        }
+    public CompletableFuture<ResponseEntity<?>> registerUser(@Valid @RequestBody UserRegisterDto user) {
+        return asyncResponses.respond(
+            () -> service.registerUser(user),
+            savedUser -> new ResponseEntity<>("Account successfully created", HttpStatus.CREATED),
+            e -> {
+                if(e instanceof IllegalArgumentException)
+                    return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+                if(e instanceof MessagingException || e instanceof MailSendException)
+                    return new ResponseEntity<>("Failed to send verification e-mail!", HttpStatus.BAD_GATEWAY);
+                return null;
+            });
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody UserLoginDto userLoginDto) {
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody UserLoginDto userLoginDto) {
+        return asyncResponses.respond(
+            () -> service.loginUser(userLoginDto),
+            token -> new ResponseEntity<>(token, HttpStatus.OK),
+            e -> e instanceof AuthenticationException ? new ResponseEntity<>(e.getMessage(), HttpStatus.UNAUTHORIZED) : null);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(HttpServletRequest request) {
         try {
-            return new ResponseEntity<>(service.loginUser(userLoginDto), HttpStatus.OK);
-        } catch (AuthenticationException e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.UNAUTHORIZED);
+            return new ResponseEntity<>(service.logoutUser(JwtTokenFilter.resolveToken(request)), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
     }
 
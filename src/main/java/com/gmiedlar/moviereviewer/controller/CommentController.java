@@ -1,6 +1,8 @@
 package com.gmiedlar.moviereviewer.controller;
 
+import com.gmiedlar.moviereviewer.domain.Comment;
 import com.gmiedlar.moviereviewer.service.CommentService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,14 +16,22 @@ public class CommentController {
 
     private final CommentService service;
 
-    public CommentController(CommentService service) {
+    private final HttpCacheHeaders cacheHeaders;
+
+    public CommentController(CommentService service, HttpCacheHeaders cacheHeaders) {
         this.service = service;
+        this.cacheHeaders = cacheHeaders;
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> getCommentById(@PathVariable(value="id") String id) {
         try {
-            return new ResponseEntity<>(service.getCommentById(id), HttpStatus.OK);
+            Comment comment = service.getCommentById(id);
+            // Comments not yet migrated to movieId are only purged by their own key.
+            HttpHeaders headers = comment.getMovieId() != null
+                ? cacheHeaders.shared(HttpCacheHeaders.commentKey(id), HttpCacheHeaders.reviewsKey(comment.getMovieId()))
+                : cacheHeaders.shared(HttpCacheHeaders.commentKey(id));
+            return new ResponseEntity<>(comment, cacheHeaders.withLastModified(headers, comment.getAddDate(), comment.getUpdatedAt()), HttpStatus.OK);
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
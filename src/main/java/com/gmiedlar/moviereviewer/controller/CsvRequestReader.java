@@ -0,0 +1,70 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CsvRequestReader {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    static final String UNREADABLE_ROW_MESSAGE = "Malformed row, the rest of the file was not read!";
+
+    private final CsvMapper csvMapper = new CsvMapper();
+
+    /**
+     * Parses the body row by row with the columns named by its header row, and hands it over in batches, so the
+     * whole document is never held in memory. Columns the type does not know are ignored. Line numbers count the
+     * header, so they match the client's file. A blank line is read as a row of empty columns; the parser's own
+     * SKIP_EMPTY_LINES drops rows at buffer boundaries in the Jackson version we build with.
+     */
+    public <T> void read(InputStream body, Class<T> type, int batchSize, Consumer<List<RequestLine<T>>> batchConsumer) throws IOException {
+        ObjectReader reader = csvMapper
+            .readerFor(type)
+            .with(CsvSchema.emptySchema().withHeader())
+            .with(CsvParser.Feature.TRIM_SPACES)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+        List<RequestLine<T>> batch = new ArrayList<>(batchSize);
+        try (MappingIterator<T> rows = reader.readValues(body)) {
+            while(hasNextRow(rows, batch)) {
+                int number = rows.getParser().getCurrentLocation().getLineNr();
+                try {
+                    batch.add(new RequestLine<>(number, rows.nextValue(), null));
+                } catch (JsonProcessingException e) {
+                    batch.add(new RequestLine<>(number, null, "Malformed row!"));
+                }
+                if(batch.size() == batchSize) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if(!batch.isEmpty())
+            batchConsumer.accept(batch);
+    }
+
+    // A row that cannot even be tokenized, such as an unterminated quote, ends the document. It is rejected, so that
+    // the import is not taken for complete.
+    private <T> boolean hasNextRow(MappingIterator<T> rows, List<RequestLine<T>> batch) throws IOException {
+        try {
+            return rows.hasNextValue();
+        } catch (JsonProcessingException e) {
+            int number = e.getLocation() != null ? e.getLocation().getLineNr() : rows.getParser().getCurrentLocation().getLineNr();
+            batch.add(new RequestLine<>(number, null, UNREADABLE_ROW_MESSAGE));
+            return false;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caching headers for the public read endpoints.
+ * <p>
+ * Shared responses may be kept by a reverse proxy for {@code http.cache.shared-max-age} seconds and are tagged with
+ * {@code Surrogate-Key}s ({@code movies}, {@code movie-<id>}, {@code reviews-<movieId>}, {@code comment-<id>},
+ * {@code user-<id>}) so the proxy can purge exactly what a write touched. Browsers always revalidate; responses without
+ * a validator of their own get a content-hash ETag from the {@code ShallowEtagHeaderFilter}. Responses whose body
+ * depends on the caller carry {@code Vary: Authorization}.
+ */
+@Component
+public class HttpCacheHeaders {
+
+    public static final String SURROGATE_KEY = "Surrogate-Key";
+
+    public static final String MOVIES_KEY = "movies";
+
+    private final CacheControl sharedCacheControl;
+
+    public HttpCacheHeaders(@Value("${http.cache.shared-max-age}") long sharedMaxAgeSeconds) {
+        this.sharedCacheControl = CacheControl.maxAge(0, TimeUnit.SECONDS)
+                                              .sMaxAge(sharedMaxAgeSeconds, TimeUnit.SECONDS)
+                                              .cachePublic();
+    }
+
+    public HttpHeaders shared(String... surrogateKeys) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(sharedCacheControl);
+        headers.set(SURROGATE_KEY, String.join(" ", surrogateKeys));
+        return headers;
+    }
+
+    // Responses that depend on who is asking must never be served to someone else.
+    public HttpHeaders personal() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        return headers;
+    }
+
+    // The anonymous body is shared, so caches must not serve it to a request carrying a token.
+    public HttpHeaders forUser(String username, String... surrogateKeys) {
+        HttpHeaders headers = username != null ? personal() : shared(surrogateKeys);
+        headers.setVary(Collections.singletonList(HttpHeaders.AUTHORIZATION));
+        return headers;
+    }
+
+    public HttpHeaders withLastModified(HttpHeaders headers, Date... dates) {
+        long lastModified = lastModified(dates);
+        if(lastModified > 0)
+            headers.setLastModified(lastModified);
+        return headers;
+    }
+
+    public static String movieKey(String movieId) {
+        return "movie-" + movieId;
+    }
+
+    public static String reviewsKey(String movieId) {
+        return "reviews-" + movieId;
+    }
+
+    public static String commentKey(String commentId) {
+        return "comment-" + commentId;
+    }
+
+    public static String userKey(String userId) {
+        return "user-" + userId;
+    }
+
+    /**
+     * Strong validator of a movie representation: the revision changes with every write to the details or rating
+     * counters, the average is stored by a later write that does not bump it. Per-user fields make the tag user-specific.
+     */
+    public static String movieETag(Movie version, String username) {
+        String tag = version.getRevision() + "-" + Long.toHexString(Double.doubleToLongBits(version.getAvgRating()));
+        if(username != null)
+            tag += "-" + Integer.toHexString(username.hashCode());
+        return "\"" + tag + "\"";
+    }
+
+    public static long lastModified(Date... dates) {
+        long lastModified = -1;
+        for(Date date : dates) {
+            if(date != null)
+                lastModified = Math.max(lastModified, date.getTime());
+        }
+        return lastModified;
+    }
+}
@@ -0,0 +1,106 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.BulkImportReportDto;
+import com.gmiedlar.moviereviewer.dto.MovieImportDto;
+import com.gmiedlar.moviereviewer.dto.MovieImportResultDto;
+import com.gmiedlar.moviereviewer.service.MovieService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Streams a movie catalog file into {@link MovieService#importMovies} in batches, shared by the import endpoint and
+ * the command line import.
+ * <p>
+ * Rows are checked against the constraints of {@link Movie} before they reach the service. The report counts every
+ * row but only lists the first {@code MAX_REPORTED_REJECTIONS} rejected ones, so its size does not grow with the file.
+ */
+@Component
+public class MovieCatalogImporter {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    private final MovieService service;
+
+    private final CsvRequestReader csvReader;
+
+    private final NdjsonRequestReader ndjsonReader;
+
+    private final Validator validator;
+
+    public MovieCatalogImporter(MovieService service, CsvRequestReader csvReader, NdjsonRequestReader ndjsonReader, Validator validator) {
+        this.service = service;
+        this.csvReader = csvReader;
+        this.ndjsonReader = ndjsonReader;
+        this.validator = validator;
+    }
+
+    public BulkImportReportDto<MovieImportResultDto> importMovies(String username, InputStream body, Format format) throws IOException {
+        long[] counts = new long[2];
+        List<MovieImportResultDto> rejections = new ArrayList<>();
+        Consumer<List<RequestLine<MovieImportDto>>> importBatch = batch -> {
+            List<MovieImportResultDto> results = new ArrayList<>(batch.size());
+            List<MovieImportDto> movies = new ArrayList<>(batch.size());
+            for(RequestLine<MovieImportDto> line : batch) {
+                String error = line.getError() != null ? line.getError() : validate(line.getValue());
+                if(error != null) {
+                    results.add(MovieImportResultDto.builder().line(line.getNumber()).error(error).build());
+                } else {
+                    line.getValue().setLine(line.getNumber());
+                    movies.add(line.getValue());
+                }
+            }
+            results.addAll(service.importMovies(username, movies));
+            results.sort(Comparator.comparingInt(MovieImportResultDto::getLine));
+
+            for(MovieImportResultDto result : results) {
+                if(result.isCreated()) {
+                    counts[0]++;
+                } else {
+                    counts[1]++;
+                    if(rejections.size() < MAX_REPORTED_REJECTIONS)
+                        rejections.add(result);
+                }
+            }
+        };
+
+        if(format == Format.CSV)
+            csvReader.read(body, MovieImportDto.class, BATCH_SIZE, importBatch);
+        else
+            ndjsonReader.read(body, MovieImportDto.class, BATCH_SIZE, importBatch);
+
+        return BulkImportReportDto.<MovieImportResultDto>builder()
+                                  .created(counts[0])
+                                  .rejected(counts[1])
+                                  .results(rejections)
+                                  .build();
+    }
+
+    private String validate(MovieImportDto movie) {
+        Set<ConstraintViolation<Movie>> violations = validator.validate(Movie.builder()
+                                                                             .title(movie.getTitle())
+                                                                             .genre(movie.getGenre())
+                                                                             .year(movie.getYear())
+                                                                             .director(movie.getDirector())
+                                                                             .build());
+        return violations
+            .stream()
+            .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+            .sorted()
+            .findFirst()
+            .orElse(null);
+    }
+}
@@ -1,9 +1,14 @@
 package com.gmiedlar.moviereviewer.controller;
 
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.MovieCatalogFilter;
+import com.gmiedlar.moviereviewer.dto.MovieDto;
 import com.gmiedlar.moviereviewer.service.MovieService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -15,7 +20,10 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/movie")
@@ -23,31 +31,138 @@ public class MovieController {
 
     private final MovieService service;
 
-    public MovieController(MovieService service) {
+    private final NdjsonResponseWriter ndjsonWriter;
+
+    private final HttpCacheHeaders cacheHeaders;
+
+    public MovieController(MovieService service, NdjsonResponseWriter ndjsonWriter, HttpCacheHeaders cacheHeaders) {
         this.service = service;
+        this.ndjsonWriter = ndjsonWriter;
+        this.cacheHeaders = cacheHeaders;
     }
 
     @PostMapping
     public ResponseEntity<?> addMovie(@AuthenticationPrincipal UserDetails userDetails, @Valid @RequestBody Movie movie) {
-        Movie newMovie =  service.addMovie(userDetails.getUsername(), movie);
-        return new ResponseEntity<>(newMovie, HttpStatus.OK);
+        try {
+            Movie newMovie =  service.addMovie(userDetails.getUsername(), movie);
+            return new ResponseEntity<>(newMovie, HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        }
     }
 
     @GetMapping("/all")
     public ResponseEntity<?> getAllMovies() {
-        return new ResponseEntity<>(service.getAllMovies(), HttpStatus.OK);
+        return new ResponseEntity<>(service.getAllMovies(), cacheHeaders.shared(HttpCacheHeaders.MOVIES_KEY), HttpStatus.OK);
+    }
+
+    @GetMapping(value="/all", produces=NdjsonResponseWriter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllMovies(HttpServletRequest request) {
+        return new ResponseEntity<>(ndjsonWriter.write(request, service::streamAllMovies), HttpStatus.OK);
+    }
+
+    @GetMapping("/catalog")
+    public ResponseEntity<?> getMovieCatalogPage(@RequestParam(value="genre", required=false) String genre,
+                                                 @RequestParam(value="director", required=false) String director,
+                                                 @RequestParam(value="yearFrom", required=false) Integer yearFrom,
+                                                 @RequestParam(value="yearTo", required=false) Integer yearTo,
+                                                 @RequestParam(value="minRating", required=false) Double minRating,
+                                                 @RequestParam(value="sort", defaultValue="avgRating,desc") String sort,
+                                                 @RequestParam(value="cursor", required=false) String cursor,
+                                                 @RequestParam(value="size", defaultValue="20") int size) {
+        MovieCatalogFilter filter = MovieCatalogFilter.builder()
+                                                      .genre(genre)
+                                                      .director(director)
+                                                      .yearFrom(yearFrom)
+                                                      .yearTo(yearTo)
+                                                      .minRating(minRating)
+                                                      .build();
+        try {
+            return new ResponseEntity<>(service.getMovieCatalogPage(filter, sort, cursor, size), cacheHeaders.shared(HttpCacheHeaders.MOVIES_KEY), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<?> getMovieFacets(@RequestParam(value="genre", required=false) String genre,
+                                            @RequestParam(value="director", required=false) String director,
+                                            @RequestParam(value="yearFrom", required=false) Integer yearFrom,
+                                            @RequestParam(value="yearTo", required=false) Integer yearTo,
+                                            @RequestParam(value="minRating", required=false) Double minRating) {
+        MovieCatalogFilter filter = MovieCatalogFilter.builder()
+                                                      .genre(genre)
+                                                      .director(director)
+                                                      .yearFrom(yearFrom)
+                                                      .yearTo(yearTo)
+                                                      .minRating(minRating)
+                                                      .build();
+        try {
+            return new ResponseEntity<>(service.getMovieFacets(filter), cacheHeaders.shared(HttpCacheHeaders.MOVIES_KEY), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/top")
+    public ResponseEntity<?> getTopRatedMovies(@RequestParam(value="limit", defaultValue="10") int limit,
+                                               @RequestParam(value="minReviews", defaultValue="1") int minReviews,
+                                               @RequestParam(value="genre", required=false) String genre) {
+        try {
+            return new ResponseEntity<>(service.getTopRatedMovies(limit, minReviews, genre), cacheHeaders.shared(HttpCacheHeaders.MOVIES_KEY), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrendingMovies(@RequestParam(value="window", defaultValue="24h") String window,
+                                               @RequestParam(value="limit", defaultValue="10") int limit) {
+        try {
+            return new ResponseEntity<>(service.getTrendingMovies(window, limit), cacheHeaders.shared(HttpCacheHeaders.MOVIES_KEY), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/search/suggest")
+    public ResponseEntity<?> suggestMovies(@RequestParam(value="prefix") String prefix,
+                                           @RequestParam(value="limit", defaultValue="10") int limit) {
+        try {
+            return new ResponseEntity<>(service.suggestMovies(prefix, limit), cacheHeaders.shared(HttpCacheHeaders.MOVIES_KEY), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
     }
 
     @GetMapping
     public ResponseEntity<?> getAllUserMovies(@AuthenticationPrincipal UserDetails userDetails) {
-        return new ResponseEntity<>(service.getAllUserMovies(userDetails.getUsername()), HttpStatus.OK);
+        return new ResponseEntity<>(service.getAllUserMovies(userDetails.getUsername()), cacheHeaders.personal(), HttpStatus.OK);
+    }
+
+    @GetMapping("/details")
+    public ResponseEntity<?> getMoviesDetails(@AuthenticationPrincipal UserDetails userDetails, @RequestParam(value="ids") List<String> ids) {
+        try {
+            String username =  userDetails!=null ? userDetails.getUsername() : null;
+            List<MovieDto> movies = service.getMoviesDetails(username, ids);
+            String[] surrogateKeys = ids.stream().distinct().map(HttpCacheHeaders::movieKey).toArray(String[]::new);
+            return new ResponseEntity<>(movies, cacheHeaders.forUser(username, surrogateKeys), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getMovieById(@AuthenticationPrincipal UserDetails userDetails, @PathVariable(value="id") String id) {
+    public ResponseEntity<?> getMovieById(@AuthenticationPrincipal UserDetails userDetails, @PathVariable(value="id") String id, WebRequest request) {
         try {
             String username =  userDetails!=null ? userDetails.getUsername() : null;
-            return new ResponseEntity<>(service.getMovieDetails(username, id), HttpStatus.OK);
+            // Validators come from the version fields alone, so a matching If-None-Match is answered without loading
+            // the movie. A write landing in between only makes the body newer than its tag, costing one extra fetch.
+            Movie version = service.getMovieVersion(id);
+            HttpHeaders headers = cacheHeaders.forUser(username, HttpCacheHeaders.movieKey(id));
+            if(request.checkNotModified(HttpCacheHeaders.movieETag(version, username), HttpCacheHeaders.lastModified(version.getUpdatedAt())))
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            return new ResponseEntity<>(service.getMovieDetails(username, id), headers, HttpStatus.OK);
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -59,6 +174,8 @@ public class MovieController {
             return new ResponseEntity<>(service.updateMovie(id, movie), HttpStatus.OK);
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
         }
     }
 
@@ -0,0 +1,33 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/movie/import")
+public class MovieImportController {
+
+    private final MovieCatalogImporter importer;
+
+    public MovieImportController(MovieCatalogImporter importer) {
+        this.importer = importer;
+    }
+
+    @PostMapping(consumes=CsvRequestReader.TEXT_CSV_VALUE)
+    public ResponseEntity<?> importCsv(@AuthenticationPrincipal UserDetails userDetails, InputStream body) throws IOException {
+        return new ResponseEntity<>(importer.importMovies(userDetails.getUsername(), body, MovieCatalogImporter.Format.CSV), HttpStatus.OK);
+    }
+
+    @PostMapping(consumes=NdjsonResponseWriter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> importNdjson(@AuthenticationPrincipal UserDetails userDetails, InputStream body) throws IOException {
+        return new ResponseEntity<>(importer.importMovies(userDetails.getUsername(), body, MovieCatalogImporter.Format.NDJSON), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,87 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+
+import com.gmiedlar.moviereviewer.config.ImportMode;
+import com.gmiedlar.moviereviewer.dto.BulkImportReportDto;
+import com.gmiedlar.moviereviewer.dto.MovieImportResultDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command line catalog import, for seeding a database without going through HTTP:
+ * <pre>
+ * java -jar movie-reviewer.jar --spring.main.web-application-type=none --import-movies=movies.csv --import-user=admin
+ * </pre>
+ * Files ending in {@code .csv} are read as CSV with a header row, anything else as NDJSON. The movies are owned by
+ * {@code --import-user}. The application exits once the file is imported, with status 1 if any row was rejected.
+ * The in-memory indexes are not built and the background migrations do not run, see {@link ImportMode}.
+ */
+@Component
+public class MovieImportRunner {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    private static final String USER_OPTION = "import-user";
+
+    private final ApplicationArguments arguments;
+
+    private final MovieCatalogImporter importer;
+
+    private final ConfigurableApplicationContext context;
+
+    public MovieImportRunner(ApplicationArguments arguments, MovieCatalogImporter importer, ConfigurableApplicationContext context) {
+        this.arguments = arguments;
+        this.importer = importer;
+        this.context = context;
+    }
+
+    // After the other startup listeners, so that catalog_key_index exists.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void run() {
+        if(!arguments.containsOption(ImportMode.FILE_OPTION))
+            return;
+
+        int exitCode = 1;
+        try {
+            Path file = Paths.get(singleOption(ImportMode.FILE_OPTION));
+            MovieCatalogImporter.Format format = file.toString().toLowerCase(Locale.ROOT).endsWith(".csv")
+                ? MovieCatalogImporter.Format.CSV
+                : MovieCatalogImporter.Format.NDJSON;
+            BulkImportReportDto<MovieImportResultDto> report;
+            try (InputStream body = Files.newInputStream(file)) {
+                report = importer.importMovies(singleOption(USER_OPTION), body, format);
+            }
+            report.getResults().forEach(result -> LOGGER.warn("Rejected movie [line={}]: {}", result.getLine(), result.getError()));
+            LOGGER.info("Imported movies from [file={}] [created={}, rejected={}]", file, report.getCreated(), report.getRejected());
+            exitCode = report.getRejected() == 0 ? 0 : 1;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Exception thrown while importing movies: " + e.getMessage());
+        }
+
+        int status = exitCode;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+
+    private String singleOption(String name) {
+        List<String> values = arguments.getOptionValues(name);
+        if(values == null || values.size() != 1)
+            throw new IllegalArgumentException("Exactly one --" + name + " is required!");
+        return values.get(0);
+    }
+}
@@ -0,0 +1,53 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.stereotype.Component;
+
+@Component
+public class NdjsonRequestReader {
+
+    private final ObjectMapper objectMapper;
+
+    public NdjsonRequestReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Parses the body line by line and hands it over in batches, so the whole document is never held in memory.
+     * Blank lines are skipped but still counted, so line numbers match the client's file.
+     */
+    public <T> void read(InputStream body, Class<T> type, int batchSize, Consumer<List<RequestLine<T>>> batchConsumer) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(type);
+        BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<RequestLine<T>> batch = new ArrayList<>(batchSize);
+        int number = 0;
+        String line;
+        while((line = lines.readLine()) != null) {
+            number++;
+            if(line.isBlank())
+                continue;
+            try {
+                batch.add(new RequestLine<>(number, reader.readValue(line), null));
+            } catch (JsonProcessingException e) {
+                batch.add(new RequestLine<>(number, null, "Malformed JSON!"));
+            }
+            if(batch.size() == batchSize) {
+                batchConsumer.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if(!batch.isEmpty())
+            batchConsumer.accept(batch);
+    }
+}
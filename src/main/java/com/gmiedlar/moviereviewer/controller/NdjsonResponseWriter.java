@@ -0,0 +1,69 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javax.servlet.http.HttpServletRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Component
+public class NdjsonResponseWriter {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private static final byte LINE_SEPARATOR = '\n';
+
+    private static final String TIMEOUT_INTERCEPTOR = NdjsonResponseWriter.class.getName() + ".TIMEOUT";
+
+    private final ObjectWriter writer;
+
+    private final CallableProcessingInterceptor streamTimeout;
+
+    public NdjsonResponseWriter(ObjectMapper objectMapper, @Value("${http.ndjson.timeout}") long timeoutMillis) {
+        this.writer = objectMapper.writer();
+        this.streamTimeout = new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                ((AsyncWebRequest) request).setTimeout(timeoutMillis);
+            }
+        };
+    }
+
+    // The body is written document by document, so it must reach the client as it is written: the ETag filter would
+    // otherwise hold the whole stream in memory to hash it. Exporting a large collection takes longer than the
+    // container's default async timeout, so streams get http.ndjson.timeout, every other async request keeps it.
+    public <T> StreamingResponseBody write(HttpServletRequest request, Supplier<Stream<T>> source) {
+        ShallowEtagHeaderFilter.disableContentCaching(request);
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(TIMEOUT_INTERCEPTOR, streamTimeout);
+        return out -> {
+            try (Stream<T> documents = source.get()) {
+                for(T document : (Iterable<T>) documents::iterator) {
+                    out.write(writer.writeValueAsBytes(document));
+                    out.write(LINE_SEPARATOR);
+                }
+            }
+        };
+    }
+
+    // For errors found before streaming starts, answered with the message as the JSON endpoints do.
+    public ResponseEntity<StreamingResponseBody> error(String message, HttpStatus status) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        return new ResponseEntity<>(out -> out.write(message.getBytes(StandardCharsets.UTF_8)), headers, status);
+    }
+}
@@ -0,0 +1,19 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One record of a streamed request body, with its line number in the client's file and either the parsed value or
+ * the reason it could not be parsed.
+ */
+@Data
+@AllArgsConstructor
+public class RequestLine<T> {
+
+    private int number;
+
+    private T value;
+
+    private String error;
+}
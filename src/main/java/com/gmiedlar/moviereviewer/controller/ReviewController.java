@@ -1,6 +1,8 @@
 package com.gmiedlar.moviereviewer.controller;
 
 import java.util.List;
+import java.util.stream.Stream;
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 import com.gmiedlar.moviereviewer.domain.Comment;
@@ -17,7 +19,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/review/{movieId}")
@@ -25,20 +29,68 @@ public class ReviewController {
 
     private final ReviewService service;
 
-    public ReviewController(ReviewService service) {
+    private final NdjsonResponseWriter ndjsonWriter;
+
+    private final HttpCacheHeaders cacheHeaders;
+
+    public ReviewController(ReviewService service, NdjsonResponseWriter ndjsonWriter, HttpCacheHeaders cacheHeaders) {
         this.service = service;
+        this.ndjsonWriter = ndjsonWriter;
+        this.cacheHeaders = cacheHeaders;
     }
 
     @GetMapping
     public ResponseEntity<?> getMovieReviews(@PathVariable(value="movieId") String id) {
-        List<Comment> comments =  service.getMovieComments(id);
-        return new ResponseEntity<>(comments, HttpStatus.OK);
+        try {
+            List<Comment> comments =  service.getMovieComments(id);
+            return new ResponseEntity<>(comments, cacheHeaders.shared(HttpCacheHeaders.reviewsKey(id)), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping(produces=NdjsonResponseWriter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamMovieReviews(@PathVariable(value="movieId") String id,
+                                                                    HttpServletRequest request) {
+        try {
+            Stream<Comment> comments = service.streamMovieComments(id);
+            return new ResponseEntity<>(ndjsonWriter.write(request, () -> comments), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ndjsonWriter.error(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<?> getMovieReviewsPage(@PathVariable(value="movieId") String id,
+                                                 @RequestParam(value="sort", defaultValue="newest") String sort,
+                                                 @RequestParam(value="cursor", required=false) String cursor,
+                                                 @RequestParam(value="size", defaultValue="20") int size) {
+        try {
+            return new ResponseEntity<>(service.getMovieCommentsPage(id, sort, cursor, size), cacheHeaders.shared(HttpCacheHeaders.reviewsKey(id)), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/histogram")
+    public ResponseEntity<?> getMovieRatingHistogram(@PathVariable(value="movieId") String id) {
+        try {
+            return new ResponseEntity<>(service.getMovieRatingHistogram(id), cacheHeaders.shared(HttpCacheHeaders.movieKey(id)), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
     }
 
     @PostMapping
     public ResponseEntity<?> addMovieReview(@AuthenticationPrincipal UserDetails userDetails, @PathVariable(value="movieId") String id, @Valid @RequestBody Comment comment) {
-        Movie newMovie = service.addMovieComment(userDetails.getUsername(), id, comment);
-        return new ResponseEntity<>(newMovie, HttpStatus.OK);
+        try {
+            Movie newMovie = service.addMovieComment(userDetails.getUsername(), id, comment);
+            return new ResponseEntity<>(newMovie, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        }
     }
 
     @PutMapping("/comment/{commentId}")
@@ -0,0 +1,74 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.gmiedlar.moviereviewer.dto.BulkImportReportDto;
+import com.gmiedlar.moviereviewer.dto.BulkReviewDto;
+import com.gmiedlar.moviereviewer.dto.BulkReviewResultDto;
+import com.gmiedlar.moviereviewer.service.ReviewService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Imports reviews written as any user, so it is open to administrators only.
+ * <p>
+ * The report counts every line but only lists the results of the first {@code MAX_REPORTED_RESULTS} lines, so its
+ * size does not grow with the file.
+ */
+@RestController
+@RequestMapping("/review/bulk")
+public class ReviewImportController {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final int MAX_REPORTED_RESULTS = 1000;
+
+    private final ReviewService service;
+
+    private final NdjsonRequestReader ndjsonReader;
+
+    public ReviewImportController(ReviewService service, NdjsonRequestReader ndjsonReader) {
+        this.service = service;
+        this.ndjsonReader = ndjsonReader;
+    }
+
+    @PostMapping(consumes=NdjsonResponseWriter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<?> importReviews(InputStream body) throws IOException {
+        long[] counts = new long[2];
+        List<BulkReviewResultDto> reported = new ArrayList<>();
+        ndjsonReader.read(body, BulkReviewDto.class, BATCH_SIZE, batch -> {
+            List<BulkReviewResultDto> results = new ArrayList<>(batch.size());
+            List<BulkReviewDto> reviews = new ArrayList<>(batch.size());
+            for(RequestLine<BulkReviewDto> line : batch) {
+                if(line.getError() != null) {
+                    results.add(BulkReviewResultDto.builder().line(line.getNumber()).error(line.getError()).build());
+                } else {
+                    line.getValue().setLine(line.getNumber());
+                    reviews.add(line.getValue());
+                }
+            }
+            results.addAll(service.importMovieComments(reviews));
+            results.sort(Comparator.comparingInt(BulkReviewResultDto::getLine));
+
+            for(BulkReviewResultDto result : results) {
+                counts[result.isCreated() ? 0 : 1]++;
+                if(reported.size() < MAX_REPORTED_RESULTS)
+                    reported.add(result);
+            }
+        });
+
+        BulkImportReportDto<BulkReviewResultDto> report = BulkImportReportDto.<BulkReviewResultDto>builder()
+                                                                             .created(counts[0])
+                                                                             .rejected(counts[1])
+                                                                             .results(reported)
+                                                                             .build();
+        return new ResponseEntity<>(report, HttpStatus.OK);
+    }
+}
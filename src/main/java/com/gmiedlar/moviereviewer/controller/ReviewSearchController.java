@@ -0,0 +1,32 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import com.gmiedlar.moviereviewer.service.CommentService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/review/search")
+public class ReviewSearchController {
+
+    private final CommentService service;
+
+    public ReviewSearchController(CommentService service) {
+        this.service = service;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> searchReviews(@RequestParam(value="q") String query,
+                                           @RequestParam(value="movieId", required=false) String movieId,
+                                           @RequestParam(value="page", defaultValue="0") int page,
+                                           @RequestParam(value="size", defaultValue="20") int size) {
+        try {
+            return new ResponseEntity<>(service.searchComments(query, movieId, page, size), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.gmiedlar.moviereviewer.controller;
 
+import java.util.concurrent.CompletableFuture;
 import javax.validation.Valid;
 
 import com.gmiedlar.moviereviewer.dto.PasswordDto;
@@ -23,36 +24,48 @@ public class UserController {
 
     private final UserService service;
 
-    public UserController(UserService service) {
+    private final HttpCacheHeaders cacheHeaders;
+
+    private final AsyncResponses asyncResponses;
+
+    public UserController(UserService service, HttpCacheHeaders cacheHeaders, AsyncResponses asyncResponses) {
         this.service = service;
+        this.cacheHeaders = cacheHeaders;
+        this.asyncResponses = asyncResponses;
     }
 
     @GetMapping("/me")
     public ResponseEntity<?> getCurrentUser(@AuthenticationPrincipal UserDetails userDetails) {
         UserDto userDto = service.getUserByUsername(userDetails.getUsername());
-        return new ResponseEntity<>(userDto, HttpStatus.OK);
+        return new ResponseEntity<>(userDto, cacheHeaders.personal(), HttpStatus.OK);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> getUserInfo(@PathVariable(value="id") String id) {
         UserDto userDto = service.getUserById(id);
-        return new ResponseEntity<>(userDto, HttpStatus.OK);
+        return new ResponseEntity<>(userDto, cacheHeaders.shared(HttpCacheHeaders.userKey(id)), HttpStatus.OK);
     }
 
     @PutMapping("/me/password")
-    public ResponseEntity<?> updateCurrentUserPassword(@AuthenticationPrincipal UserDetails currentUser, @Valid @RequestBody PasswordDto passwords) {
-        try {
-            String msg = service.updateUserPassword(currentUser.getUsername(), passwords);
-            return new ResponseEntity<>(msg, HttpStatus.OK);
-        } catch (IllegalArgumentException e) {
-            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
-        }
+    public CompletableFuture<ResponseEntity<?>> updateCurrentUserPassword(@AuthenticationPrincipal UserDetails currentUser, @Valid @RequestBody PasswordDto passwords) {
+        return asyncResponses.respond(
+            () -> service.updateUserPassword(currentUser.getUsername(), passwords),
+            msg -> new ResponseEntity<>(msg, HttpStatus.OK),
+            e -> e instanceof IllegalArgumentException ? new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST) : null);
     }
 
     @PutMapping("/{id}/password")
-    public ResponseEntity<?> resetUserPassword(@PathVariable(value="id") String id, @Valid @RequestBody PasswordDto passwords) {
+    public CompletableFuture<ResponseEntity<?>> resetUserPassword(@PathVariable(value="id") String id, @Valid @RequestBody PasswordDto passwords) {
+        return asyncResponses.respond(
+            () -> service.resetUserPassword(id, passwords),
+            msg -> new ResponseEntity<>(msg, HttpStatus.OK),
+            e -> e instanceof IllegalArgumentException ? new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST) : null);
+    }
+
+    @DeleteMapping("/{id}/sessions")
+    public ResponseEntity<?> revokeUserSessions(@PathVariable(value="id") String id) {
         try {
-            String msg = service.resetUserPassword(id, passwords);
+            String msg = service.revokeUserSessions(id);
             return new ResponseEntity<>(msg, HttpStatus.OK);
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
@@ -7,6 +7,7 @@ import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
@@ -28,8 +29,16 @@ public class Comment {
 
     private String authorId;
 
+    private String movieId;
+
     private Date addDate;
 
+    private Date updatedAt;
+
+    // Whether the rating is included in the movie's rating counters, see RatingCountersBackfill.
+    @JsonIgnore
+    private boolean ratingCounted;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -43,11 +52,14 @@ public class Comment {
             Objects.equals(rating, comment.rating) &&
             Objects.equals(text, comment.text) &&
             Objects.equals(authorId, comment.authorId) &&
-            Objects.equals(addDate, comment.addDate);
+            Objects.equals(movieId, comment.movieId) &&
+            Objects.equals(addDate, comment.addDate) &&
+            Objects.equals(updatedAt, comment.updatedAt) &&
+            ratingCounted == comment.ratingCounted;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, rating, text, authorId, addDate);
+        return Objects.hash(id, rating, text, authorId, movieId, addDate, updatedAt, ratingCounted);
     }
 }
@@ -0,0 +1,33 @@
+package com.gmiedlar.moviereviewer.domain;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Document(collection="migration")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MigrationState {
+
+    @Id
+    private String id;
+
+    private String lastMovieId;
+
+    private long migratedMovies;
+
+    private long migratedComments;
+
+    private long conflictingComments;
+
+    private boolean completed;
+
+    private Date updatedAt;
+}
@@ -1,10 +1,16 @@
 package com.gmiedlar.moviereviewer.domain;
 
+import java.text.Normalizer;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Pattern;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.sun.jdi.IntegerValue;
 import lombok.Builder;
 import lombok.Data;
@@ -16,6 +22,8 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @Builder
 public class Movie {
 
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     @Id
     private String id;
 
@@ -35,8 +43,33 @@ public class Movie {
 
     private double avgRating;
 
+    private long ratingSum;
+
+    private int ratingCount;
+
+    private Map<String, Long> ratingHistogram;
+
     private String userId;
 
+    private long revision;
+
+    private Date updatedAt;
+
+    // Unique among movies that have one, see catalogKey(String, Integer).
+    @JsonIgnore
+    private String catalogKey;
+
+    // Titles that differ only in case, spacing or Unicode composition are the same movie.
+    public static String catalogKey(String title, Integer year) {
+        if(title == null || year == null)
+            return null;
+        String normalizedTitle = WHITESPACE
+            .matcher(Normalizer.normalize(title, Normalizer.Form.NFKC).trim())
+            .replaceAll(" ")
+            .toLowerCase(Locale.ROOT);
+        return normalizedTitle + "|" + year;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -48,16 +81,22 @@ public class Movie {
         Movie movie = (Movie) o;
         return year.equals(movie.year) &&
             Double.compare(movie.avgRating, avgRating) == 0 &&
+            ratingSum == movie.ratingSum &&
+            ratingCount == movie.ratingCount &&
+            Objects.equals(ratingHistogram, movie.ratingHistogram) &&
             Objects.equals(id, movie.id) &&
             Objects.equals(title, movie.title) &&
             Objects.equals(genre, movie.genre) &&
             Objects.equals(director, movie.director) &&
             Objects.equals(commentIds, movie.commentIds) &&
-            Objects.equals(userId, movie.userId);
+            Objects.equals(userId, movie.userId) &&
+            revision == movie.revision &&
+            Objects.equals(updatedAt, movie.updatedAt) &&
+            Objects.equals(catalogKey, movie.catalogKey);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, title, genre, year, director, commentIds, avgRating, userId);
+        return Objects.hash(id, title, genre, year, director, commentIds, avgRating, ratingSum, ratingCount, ratingHistogram, userId, revision, updatedAt, catalogKey);
     }
 }
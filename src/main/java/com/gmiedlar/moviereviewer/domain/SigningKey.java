@@ -0,0 +1,37 @@
+package com.gmiedlar.moviereviewer.domain;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A token signing key, shared by all instances. Its id is the {@code kid} header of the tokens signed with it.
+ */
+@Document(collection="signing_key")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SigningKey {
+
+    @Id
+    private String id;
+
+    // Base64 of the HMAC-SHA256 key, or of its AES-GCM encryption when encrypted.
+    private String secret;
+
+    private boolean encrypted;
+
+    private Date activeFrom;
+
+    private Date activeUntil;
+
+    @Indexed(name = "expires_at_ttl_index", expireAfterSeconds = 0)
+    private Date expiresAt;
+}
@@ -0,0 +1,35 @@
+package com.gmiedlar.moviereviewer.domain;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Either one revoked token, by its {@code jti}, or all tokens of a user issued before {@code notBefore}. Kept until
+ * the last token it can match has expired.
+ */
+@Document(collection="token_revocation")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRevocation {
+
+    @Id
+    private String id;
+
+    private String username;
+
+    private String tokenId;
+
+    private Date notBefore;
+
+    @Indexed(name = "expires_at_ttl_index", expireAfterSeconds = 0)
+    private Date expiresAt;
+}
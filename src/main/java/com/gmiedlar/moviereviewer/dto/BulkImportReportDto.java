@@ -0,0 +1,21 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkImportReportDto<T> {
+
+    private long created;
+
+    private long rejected;
+
+    private List<T> results;
+}
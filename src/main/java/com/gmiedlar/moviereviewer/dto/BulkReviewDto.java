@@ -0,0 +1,25 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkReviewDto {
+
+    @JsonIgnore
+    private int line;
+
+    private String movieId;
+
+    private String username;
+
+    private Integer rating;
+
+    private String text;
+}
@@ -0,0 +1,25 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkReviewResultDto {
+
+    private int line;
+
+    private String movieId;
+
+    private String commentId;
+
+    private String error;
+
+    public boolean isCreated() {
+        return error == null;
+    }
+}
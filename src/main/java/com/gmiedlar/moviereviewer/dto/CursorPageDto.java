@@ -0,0 +1,19 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageDto<T> {
+
+    private List<T> content;
+
+    private String nextCursor;
+}
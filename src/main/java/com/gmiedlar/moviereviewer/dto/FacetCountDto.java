@@ -0,0 +1,17 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FacetCountDto {
+
+    private String value;
+
+    private long count;
+}
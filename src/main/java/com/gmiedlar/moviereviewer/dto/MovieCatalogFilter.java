@@ -0,0 +1,23 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovieCatalogFilter {
+
+    private String genre;
+
+    private String director;
+
+    private Integer yearFrom;
+
+    private Integer yearTo;
+
+    private Double minRating;
+}
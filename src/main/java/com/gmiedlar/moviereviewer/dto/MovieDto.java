@@ -1,7 +1,5 @@
 package com.gmiedlar.moviereviewer.dto;
 
-import java.util.List;
-
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,9 +21,9 @@ public class MovieDto {
 
     private String director;
 
-    private List<String> commentIds;
-
     private double avgRating;
 
+    private int ratingCount;
+
     private boolean canComment;
 }
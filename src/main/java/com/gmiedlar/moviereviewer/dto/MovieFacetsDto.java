@@ -0,0 +1,21 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovieFacetsDto {
+
+    private List<FacetCountDto> genres;
+
+    private List<FacetCountDto> decades;
+
+    private List<FacetCountDto> directors;
+}
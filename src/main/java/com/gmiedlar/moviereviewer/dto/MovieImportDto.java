@@ -0,0 +1,25 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovieImportDto {
+
+    @JsonIgnore
+    private int line;
+
+    private String title;
+
+    private String genre;
+
+    private Integer year;
+
+    private String director;
+}
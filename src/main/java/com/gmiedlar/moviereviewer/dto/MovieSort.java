@@ -0,0 +1,42 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import java.util.Arrays;
+
+import org.springframework.data.domain.Sort;
+
+import static org.springframework.data.domain.Sort.Direction.ASC;
+import static org.springframework.data.domain.Sort.Direction.DESC;
+
+public enum MovieSort {
+    AVG_RATING_DESC("avgRating,desc", Sort.by(DESC, "avgRating", "id")),
+    AVG_RATING_ASC("avgRating,asc", Sort.by(ASC, "avgRating", "id")),
+    YEAR_DESC("year,desc", Sort.by(DESC, "year", "id")),
+    YEAR_ASC("year,asc", Sort.by(ASC, "year", "id")),
+    TITLE_ASC("title,asc", Sort.by(ASC, "title", "id")),
+    TITLE_DESC("title,desc", Sort.by(DESC, "title", "id"));
+
+    private final String value;
+
+    private final Sort sort;
+
+    MovieSort(String value, Sort sort) {
+        this.value = value;
+        this.sort = sort;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public String getProperty() {
+        return sort.iterator().next().getProperty();
+    }
+
+    public static MovieSort fromString(String value) {
+        return Arrays.stream(values())
+                     .filter(sort -> sort.value.equalsIgnoreCase(value))
+                     .findFirst()
+                     .orElseThrow(() -> new IllegalArgumentException(
+                         "Invalid sort order! Use one of: avgRating,desc, avgRating,asc, year,desc, year,asc, title,asc, title,desc."));
+    }
+}
@@ -0,0 +1,23 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovieSuggestionDto {
+
+    private String id;
+
+    private String title;
+
+    private String director;
+
+    private Integer year;
+
+    private int reviewCount;
+}
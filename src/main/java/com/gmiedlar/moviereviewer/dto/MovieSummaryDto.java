@@ -0,0 +1,27 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovieSummaryDto {
+
+    private String id;
+
+    private String title;
+
+    private String genre;
+
+    private Integer year;
+
+    private String director;
+
+    private double avgRating;
+
+    private int reviewCount;
+}
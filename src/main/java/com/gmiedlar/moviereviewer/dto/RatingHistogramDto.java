@@ -0,0 +1,25 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RatingHistogramDto {
+
+    private String movieId;
+
+    private List<Long> counts;
+
+    private long total;
+
+    private double avgRating;
+
+    private double median;
+}
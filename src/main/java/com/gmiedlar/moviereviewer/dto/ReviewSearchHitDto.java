@@ -0,0 +1,29 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReviewSearchHitDto {
+
+    private String commentId;
+
+    private String movieId;
+
+    private String authorId;
+
+    private Integer rating;
+
+    private Date addDate;
+
+    private double score;
+
+    private String snippet;
+}
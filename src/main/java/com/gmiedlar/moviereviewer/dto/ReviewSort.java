@@ -0,0 +1,33 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import java.util.Arrays;
+
+import org.springframework.data.domain.Sort;
+
+import static org.springframework.data.domain.Sort.Direction.ASC;
+import static org.springframework.data.domain.Sort.Direction.DESC;
+
+public enum ReviewSort {
+    NEWEST(Sort.by(DESC, "addDate", "id")),
+    OLDEST(Sort.by(ASC, "addDate", "id")),
+    HIGHEST(Sort.by(DESC, "rating", "addDate", "id")),
+    LOWEST(Sort.by(ASC, "rating", "addDate", "id"));
+
+    private final Sort sort;
+
+    ReviewSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    // Not valueOf(value.toUpperCase()): under a Turkish default locale "highest" would become "HİGHEST".
+    public static ReviewSort fromString(String value) {
+        return Arrays.stream(values())
+                     .filter(sort -> sort.name().equalsIgnoreCase(value))
+                     .findFirst()
+                     .orElseThrow(() -> new IllegalArgumentException("Invalid sort order! Use one of: newest, oldest, highest, lowest."));
+    }
+}
@@ -0,0 +1,23 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SearchPageDto<T> {
+
+    private List<T> content;
+
+    private int page;
+
+    private int size;
+
+    private long totalHits;
+}
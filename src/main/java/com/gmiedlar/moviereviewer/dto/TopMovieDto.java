@@ -0,0 +1,29 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TopMovieDto {
+
+    private String id;
+
+    private String title;
+
+    private String genre;
+
+    private Integer year;
+
+    private String director;
+
+    private double avgRating;
+
+    private int ratingCount;
+
+    private double score;
+}
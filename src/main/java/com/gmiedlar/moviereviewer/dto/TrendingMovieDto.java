@@ -0,0 +1,25 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrendingMovieDto {
+
+    private String id;
+
+    private String title;
+
+    private String genre;
+
+    private Integer year;
+
+    private String director;
+
+    private long reviewCount;
+}
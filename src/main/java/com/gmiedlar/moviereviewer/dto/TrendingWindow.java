@@ -0,0 +1,37 @@
+package com.gmiedlar.moviereviewer.dto;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public enum TrendingWindow {
+    HOUR("1h", TimeUnit.MINUTES, 60),
+    DAY("24h", TimeUnit.HOURS, 24),
+    WEEK("7d", TimeUnit.HOURS, 168);
+
+    private final String label;
+
+    private final TimeUnit bucketUnit;
+
+    private final int buckets;
+
+    TrendingWindow(String label, TimeUnit bucketUnit, int buckets) {
+        this.label = label;
+        this.bucketUnit = bucketUnit;
+        this.buckets = buckets;
+    }
+
+    public TimeUnit getBucketUnit() {
+        return bucketUnit;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public static TrendingWindow fromString(String value) {
+        return Arrays.stream(values())
+                     .filter(window -> window.label.equalsIgnoreCase(value))
+                     .findFirst()
+                     .orElseThrow(() -> new IllegalArgumentException("Invalid trending window! Use one of: 1h, 24h, 7d."));
+    }
+}
@@ -0,0 +1,24 @@
+package com.gmiedlar.moviereviewer.event;
+
+import java.util.Date;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheInvalidation {
+
+    private InvalidationTarget target;
+
+    private List<String> ids;
+
+    private String origin;
+
+    private Date publishedAt;
+}
@@ -0,0 +1,8 @@
+package com.gmiedlar.moviereviewer.event;
+
+public enum InvalidationTarget {
+    MOVIE,
+    COMMENT,
+    USER,
+    TOKEN
+}
@@ -0,0 +1,11 @@
+package com.gmiedlar.moviereviewer.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MovieDeletedEvent {
+
+    private String movieId;
+}
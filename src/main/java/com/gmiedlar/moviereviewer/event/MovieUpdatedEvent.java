@@ -0,0 +1,12 @@
+package com.gmiedlar.moviereviewer.event;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MovieUpdatedEvent {
+
+    private Movie movie;
+}
@@ -0,0 +1,15 @@
+package com.gmiedlar.moviereviewer.event;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ReviewAddedEvent {
+
+    private String movieId;
+
+    private Date addDate;
+}
@@ -1,8 +1,31 @@
 package com.gmiedlar.moviereviewer.repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
 import com.gmiedlar.moviereviewer.domain.Comment;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
-public interface CommentRepository extends MongoRepository<Comment, String> {
-
+public interface CommentRepository extends MongoRepository<Comment, String>, CommentRepositoryCustom {
+    List<Comment> findByIdIn(Collection<String> ids);
+    Long deleteByIdIn(Collection<String> ids);
+    Stream<Comment> streamByMovieIdOrderByAddDateAscIdAsc(String movieId);
+    List<Comment> findByMovieIdOrderByAddDateAscIdAsc(String movieId);
+    @Query(value = "{ 'movieId': ?0 }", fields = "{ '_id': 1 }")
+    List<Comment> findIdsByMovieId(String movieId);
+    @Query(value = "{ 'movieId': ?0, 'ratingCounted': { $ne: true } }", fields = "{ '_id': 1 }")
+    List<Comment> findUncountedIdsByMovieId(String movieId);
+    Boolean existsByMovieIdAndAuthorId(String movieId, String authorId);
+    Boolean existsByIdInAndAuthorId(Collection<String> ids, String authorId);
+    @Query(fields = "{ 'movieId': 1 }")
+    List<Comment> findByAuthorIdAndMovieIdIn(String authorId, Collection<String> movieIds);
+    @Query(fields = "{ '_id': 1 }")
+    List<Comment> findByIdInAndAuthorId(Collection<String> ids, String authorId);
+    @Query(value = "{ 'addDate': { $gt: ?0 } }", fields = "{ 'movieId': 1, 'addDate': 1 }")
+    Stream<Comment> streamMovieIdsByAddDateAfter(Date since);
+    @Query(value = "{}", fields = "{ 'movieId': 1, 'text': 1 }")
+    Stream<Comment> streamAllForSearch();
 }
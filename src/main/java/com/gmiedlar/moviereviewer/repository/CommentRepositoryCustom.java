@@ -0,0 +1,18 @@
+package com.gmiedlar.moviereviewer.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import com.gmiedlar.moviereviewer.domain.Comment;
+import com.mongodb.BulkWriteError;
+import com.gmiedlar.moviereviewer.dto.ReviewSort;
+
+public interface CommentRepositoryCustom {
+    List<Comment> findMovieCommentsAfter(String movieId, ReviewSort sort, Comment after, int limit);
+    List<BulkWriteError> insertUnordered(List<Comment> comments);
+    void assignMovieId(String movieId, Collection<String> ids);
+    Optional<Comment> updateMovieComment(String movieId, String id, Comment update);
+    Optional<Comment> removeMovieComment(String movieId, String id);
+    Optional<Comment> markRatingCounted(String id);
+}
@@ -0,0 +1,87 @@
+package com.gmiedlar.moviereviewer.repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import com.gmiedlar.moviereviewer.domain.Comment;
+import com.gmiedlar.moviereviewer.dto.ReviewSort;
+import com.mongodb.BulkWriteError;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class CommentRepositoryImpl implements CommentRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public CommentRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Comment> findMovieCommentsAfter(String movieId, ReviewSort sort, Comment after, int limit) {
+        Criteria criteria = Criteria.where("movieId").is(movieId);
+        if(after != null)
+            criteria = new Criteria().andOperator(criteria, KeysetCriteria.after(mongoTemplate.getConverter().getMappingContext(), sort.getSort(), after));
+
+        Query query = Query.query(criteria)
+                           .with(sort.getSort())
+                           .limit(limit);
+        return mongoTemplate.find(query, Comment.class);
+    }
+
+    @Override
+    public List<BulkWriteError> insertUnordered(List<Comment> comments) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Comment.class)
+                         .insert(comments)
+                         .execute();
+            return Collections.emptyList();
+        } catch (BulkOperationException e) {
+            return e.getErrors();
+        }
+    }
+
+    @Override
+    public void assignMovieId(String movieId, Collection<String> ids) {
+        Query unassigned = Query.query(Criteria.where("id").in(ids).and("movieId").exists(false));
+        mongoTemplate.updateMulti(unassigned, Update.update("movieId", movieId), Comment.class);
+    }
+
+    // Returns the comment as it was before the update, or nothing when no comment of the movie was changed. Comments
+    // the migration has not linked to a movie yet are matched too; callers check those against the movie first.
+    @Override
+    public Optional<Comment> updateMovieComment(String movieId, String id, Comment update) {
+        Criteria changed = new Criteria().orOperator(Criteria.where("rating").ne(update.getRating()),
+                                                     Criteria.where("text").ne(update.getText()));
+        Query query = Query.query(new Criteria().andOperator(Criteria.where("id").is(id), ofMovie(movieId), changed));
+        Update set = new Update()
+            .set("rating", update.getRating())
+            .set("text", update.getText())
+            .set("updatedAt", update.getUpdatedAt());
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, set, Comment.class));
+    }
+
+    // Returns the removed comment, so that of concurrent deletes only the one that removed it sees it.
+    @Override
+    public Optional<Comment> removeMovieComment(String movieId, String id) {
+        Query query = Query.query(new Criteria().andOperator(Criteria.where("id").is(id), ofMovie(movieId)));
+        return Optional.ofNullable(mongoTemplate.findAndRemove(query, Comment.class));
+    }
+
+    // Returns the comment only if it was not counted yet, so its rating is added to the counters exactly once.
+    @Override
+    public Optional<Comment> markRatingCounted(String id) {
+        Query uncounted = Query.query(Criteria.where("id").is(id).and("ratingCounted").ne(true));
+        return Optional.ofNullable(mongoTemplate.findAndModify(uncounted, Update.update("ratingCounted", true), Comment.class));
+    }
+
+    private Criteria ofMovie(String movieId) {
+        return new Criteria().orOperator(Criteria.where("movieId").is(movieId), Criteria.where("movieId").exists(false));
+    }
+}
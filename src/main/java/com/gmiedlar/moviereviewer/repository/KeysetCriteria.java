@@ -0,0 +1,43 @@
+package com.gmiedlar.moviereviewer.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Keyset pagination: matches the documents that come after {@code after} in {@code sort}, which must end with a
+ * unique key such as the id. For a sort on (a, b, id) that is
+ * {@code a > x || (a == x && b > y) || (a == x && b == y && id > z)}, with {@code <} for descending keys.
+ */
+final class KeysetCriteria {
+
+    private KeysetCriteria() {
+    }
+
+    static Criteria after(MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext,
+                          Sort sort, Object after) {
+        MongoPersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(after.getClass());
+        PersistentPropertyAccessor<Object> accessor = entity.getPropertyAccessor(after);
+
+        List<Criteria> branches = new ArrayList<>();
+        List<Criteria> equalPrefix = new ArrayList<>();
+        for(Sort.Order order : sort) {
+            Object value = accessor.getProperty(entity.getRequiredPersistentProperty(order.getProperty()));
+            Criteria next = order.isAscending()
+                ? Criteria.where(order.getProperty()).gt(value)
+                : Criteria.where(order.getProperty()).lt(value);
+
+            List<Criteria> branch = new ArrayList<>(equalPrefix);
+            branch.add(next);
+            branches.add(new Criteria().andOperator(branch.toArray(new Criteria[0])));
+            equalPrefix.add(Criteria.where(order.getProperty()).is(value));
+        }
+        return new Criteria().orOperator(branches.toArray(new Criteria[0]));
+    }
+}
@@ -0,0 +1,7 @@
+package com.gmiedlar.moviereviewer.repository;
+
+import com.gmiedlar.moviereviewer.domain.MigrationState;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface MigrationStateRepository extends MongoRepository<MigrationState, String> {
+}
@@ -1,10 +1,32 @@
 package com.gmiedlar.moviereviewer.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 import com.gmiedlar.moviereviewer.domain.Movie;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
-public interface MovieRepository extends MongoRepository<Movie, String> {
-    List<Movie> findByUserId(String userId);
+public interface MovieRepository extends MongoRepository<Movie, String>, MovieRepositoryCustom {
+    // The fields list views need; everything else, the commentIds array in particular, stays in the database.
+    String SUMMARY_FIELDS = "{ 'title': 1, 'genre': 1, 'year': 1, 'director': 1, 'avgRating': 1, 'ratingCount': 1 }";
+
+    @Query(value = "{ 'userId': ?0 }", fields = SUMMARY_FIELDS)
+    List<Movie> findSummariesByUserId(String userId);
+    @Query(value = "{}", fields = SUMMARY_FIELDS)
+    List<Movie> findAllSummaries();
+    @Query(value = "{}", fields = SUMMARY_FIELDS)
+    Stream<Movie> streamAllSummaries();
+    @Query("{}")
+    Stream<Movie> streamAll();
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'avgRating': 1, 'ratingCount': 1, 'ratingHistogram': 1 }")
+    Optional<Movie> findRatingsById(String id);
+    // Everything a response validator is derived from; the average is stored separately from the revision bump.
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'revision': 1, 'avgRating': 1, 'updatedAt': 1 }")
+    Optional<Movie> findVersionById(String id);
+    @Query(value = "{ '_id': { $in: ?0 } }", fields = "{ '_id': 1 }")
+    List<Movie> findIdsByIdIn(Collection<String> ids);
+    Boolean existsByIdAndCommentIds(String id, String commentId);
 }
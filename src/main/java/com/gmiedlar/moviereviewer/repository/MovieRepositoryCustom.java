@@ -0,0 +1,28 @@
+package com.gmiedlar.moviereviewer.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.MovieCatalogFilter;
+import com.gmiedlar.moviereviewer.dto.MovieFacetsDto;
+import com.gmiedlar.moviereviewer.dto.MovieSort;
+import com.mongodb.BulkWriteError;
+
+public interface MovieRepositoryCustom {
+    List<Movie> findCatalogPage(MovieCatalogFilter filter, MovieSort sort, Movie after, int limit);
+    MovieFacetsDto aggregateFacets(MovieCatalogFilter filter, int maxDirectors);
+    Optional<Movie> updateMovieDetails(String id, Movie movieUpdate);
+    List<BulkWriteError> insertUnordered(List<Movie> movies);
+    Optional<Movie> addRating(String id, int rating);
+    Optional<Movie> addRatings(String id, Map<Integer, Long> ratingCounts);
+    Optional<Movie> changeRating(String id, int oldRating, int newRating);
+    Optional<Movie> removeRating(String id, String commentId, int rating);
+    List<Movie> findLegacyCommentRefsAfter(String afterId, int limit);
+    List<Movie> findCommentRefsAfter(String afterId, int limit);
+    void pullLegacyCommentRefs(String id, Collection<String> commentIds);
+    void storeAvgRating(Movie movie);
+    Optional<Movie> refreshAvgRating(String id);
+}
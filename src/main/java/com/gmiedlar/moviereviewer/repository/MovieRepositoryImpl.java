@@ -0,0 +1,245 @@
+package com.gmiedlar.moviereviewer.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.FacetCountDto;
+import com.gmiedlar.moviereviewer.dto.MovieCatalogFilter;
+import com.gmiedlar.moviereviewer.dto.MovieFacetsDto;
+import com.gmiedlar.moviereviewer.dto.MovieSort;
+import com.mongodb.BulkWriteError;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class MovieRepositoryImpl implements MovieRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public MovieRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Movie> findCatalogPage(MovieCatalogFilter filter, MovieSort sort, Movie after, int limit) {
+        List<Criteria> criteria = catalogCriteria(filter);
+        if(after != null)
+            criteria.add(KeysetCriteria.after(mongoTemplate.getConverter().getMappingContext(), sort.getSort(), after));
+
+        Query query = (criteria.isEmpty() ? new Query() : Query.query(new Criteria().andOperator(criteria.toArray(new Criteria[0]))))
+            .with(sort.getSort())
+            .limit(limit);
+        query.fields().include("title").include("genre").include("year").include("director").include("avgRating").include("ratingCount");
+        return mongoTemplate.find(query, Movie.class);
+    }
+
+    @Override
+    public MovieFacetsDto aggregateFacets(MovieCatalogFilter filter, int maxDirectors) {
+        List<Criteria> criteria = catalogCriteria(filter);
+        Criteria match = criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria.toArray(new Criteria[0]));
+
+        // One pass over the matching movies for all three facets.
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(match),
+            Aggregation.facet(Aggregation.sortByCount("genre")).as("genres")
+                       .and(Aggregation.project()
+                                       .and(ArithmeticOperators.valueOf("year").subtract(ArithmeticOperators.valueOf("year").mod(10)))
+                                       .as("decade"),
+                            Aggregation.sortByCount("decade")).as("decades")
+                       .and(Aggregation.sortByCount("director"), Aggregation.limit(maxDirectors)).as("directors"));
+        Document facets = mongoTemplate.aggregate(aggregation, Movie.class, Document.class).getUniqueMappedResult();
+
+        return MovieFacetsDto.builder()
+                             .genres(facetCounts(facets, "genres"))
+                             .decades(facetCounts(facets, "decades"))
+                             .directors(facetCounts(facets, "directors"))
+                             .build();
+    }
+
+    private List<Criteria> catalogCriteria(MovieCatalogFilter filter) {
+        List<Criteria> criteria = new ArrayList<>();
+        if(filter.getGenre() != null)
+            criteria.add(Criteria.where("genre").is(filter.getGenre()));
+        if(filter.getDirector() != null)
+            criteria.add(Criteria.where("director").is(filter.getDirector()));
+        if(filter.getYearFrom() != null)
+            criteria.add(Criteria.where("year").gte(filter.getYearFrom()));
+        if(filter.getYearTo() != null)
+            criteria.add(Criteria.where("year").lte(filter.getYearTo()));
+        if(filter.getMinRating() != null)
+            criteria.add(Criteria.where("avgRating").gte(filter.getMinRating()));
+        return criteria;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<FacetCountDto> facetCounts(Document facets, String name) {
+        if(facets == null)
+            return new ArrayList<>();
+        return ((List<Document>) facets.get(name, List.class))
+            .stream()
+            .filter(bucket -> bucket.get("_id") != null)
+            .map(bucket -> new FacetCountDto(String.valueOf(bucket.get("_id")), ((Number) bucket.get("count")).longValue()))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Movie> updateMovieDetails(String id, Movie movieUpdate) {
+        Update update = new Update()
+            .set("title", movieUpdate.getTitle())
+            .set("genre", movieUpdate.getGenre())
+            .set("year", movieUpdate.getYear())
+            .set("director", movieUpdate.getDirector())
+            .set("catalogKey", movieUpdate.getCatalogKey())
+            .inc("revision", 1)
+            .currentDate("updatedAt");
+
+        return Optional.ofNullable(findAndModify(Query.query(Criteria.where("id").is(id)), update));
+    }
+
+    @Override
+    public List<BulkWriteError> insertUnordered(List<Movie> movies) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Movie.class)
+                         .insert(movies)
+                         .execute();
+            return Collections.emptyList();
+        } catch (BulkOperationException e) {
+            return e.getErrors();
+        }
+    }
+
+    @Override
+    public Optional<Movie> addRating(String id, int rating) {
+        Update update = new Update()
+            .inc("ratingSum", rating)
+            .inc("ratingCount", 1)
+            .inc(histogramBucket(rating), 1);
+
+        return applyRatingUpdate(Query.query(Criteria.where("id").is(id)), update);
+    }
+
+    @Override
+    public Optional<Movie> addRatings(String id, Map<Integer, Long> ratingCounts) {
+        long ratingSum = 0;
+        long count = 0;
+        Update update = new Update();
+        for(Map.Entry<Integer, Long> ratingCount : ratingCounts.entrySet()) {
+            ratingSum += ratingCount.getKey() * ratingCount.getValue();
+            count += ratingCount.getValue();
+            update.inc(histogramBucket(ratingCount.getKey()), ratingCount.getValue());
+        }
+        update.inc("ratingSum", ratingSum)
+              .inc("ratingCount", count);
+
+        return applyRatingUpdate(Query.query(Criteria.where("id").is(id)), update);
+    }
+
+    @Override
+    public Optional<Movie> changeRating(String id, int oldRating, int newRating) {
+        Update update = new Update()
+            .inc("ratingSum", newRating - oldRating)
+            .inc(histogramBucket(oldRating), -1)
+            .inc(histogramBucket(newRating), 1);
+
+        return applyRatingUpdate(Query.query(Criteria.where("id").is(id)), update);
+    }
+
+    @Override
+    public Optional<Movie> removeRating(String id, String commentId, int rating) {
+        // Called once the comment itself was removed, so each review is taken off once. The pull only matters for
+        // movies the comment migration has not reached yet.
+        Update update = new Update()
+            .pull("commentIds", commentId)
+            .inc("ratingSum", -rating)
+            .inc("ratingCount", -1)
+            .inc(histogramBucket(rating), -1);
+
+        return applyRatingUpdate(Query.query(Criteria.where("id").is(id)), update);
+    }
+
+    @Override
+    public List<Movie> findLegacyCommentRefsAfter(String afterId, int limit) {
+        return findCommentRefsAfter(Criteria.where("commentIds").exists(true), afterId, limit);
+    }
+
+    @Override
+    public List<Movie> findCommentRefsAfter(String afterId, int limit) {
+        return findCommentRefsAfter(new Criteria(), afterId, limit);
+    }
+
+    private List<Movie> findCommentRefsAfter(Criteria criteria, String afterId, int limit) {
+        if(afterId != null)
+            criteria = criteria.and("id").gt(afterId);
+
+        Query query = Query.query(criteria)
+                           .with(Sort.by(Sort.Direction.ASC, "id"))
+                           .limit(limit);
+        query.fields().include("commentIds");
+        return mongoTemplate.find(query, Movie.class);
+    }
+
+    @Override
+    public void pullLegacyCommentRefs(String id, Collection<String> commentIds) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(id)),
+                                  new Update().pullAll("commentIds", commentIds.toArray()), Movie.class);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(id).and("commentIds").size(0)),
+                                  new Update().unset("commentIds"), Movie.class);
+    }
+
+    @Override
+    public void storeAvgRating(Movie movie) {
+        // Compare-and-set on the counters the average was computed from: if another review landed in the meantime,
+        // its own update will store the newer average, so the stored value always matches the counters.
+        Query unchanged = Query.query(Criteria.where("id").is(movie.getId())
+                                              .and("ratingSum").is(movie.getRatingSum())
+                                              .and("ratingCount").is(movie.getRatingCount()));
+        mongoTemplate.updateFirst(unchanged, Update.update("avgRating", movie.getAvgRating()).currentDate("updatedAt"), Movie.class);
+    }
+
+    @Override
+    public Optional<Movie> refreshAvgRating(String id) {
+        Movie movie = mongoTemplate.findById(id, Movie.class);
+        if(movie == null)
+            return Optional.empty();
+
+        movie.setAvgRating(calculateAvgRating(movie));
+        storeAvgRating(movie);
+        return Optional.of(movie);
+    }
+
+    // Only the counters are written here; the average is derived from them and stored separately by storeAvgRating.
+    private Optional<Movie> applyRatingUpdate(Query query, Update update) {
+        Movie movie = findAndModify(query, update.inc("revision", 1).currentDate("updatedAt"));
+        if(movie == null)
+            return Optional.empty();
+
+        movie.setAvgRating(calculateAvgRating(movie));
+        return Optional.of(movie);
+    }
+
+    private double calculateAvgRating(Movie movie) {
+        return movie.getRatingCount() > 0 ? (double) movie.getRatingSum() / movie.getRatingCount() : 0.0;
+    }
+
+    private String histogramBucket(int rating) {
+        return "ratingHistogram." + rating;
+    }
+
+    private Movie findAndModify(Query query, Update update) {
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Movie.class);
+    }
+}
@@ -0,0 +1,11 @@
+package com.gmiedlar.moviereviewer.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import com.gmiedlar.moviereviewer.domain.SigningKey;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface SigningKeyRepository extends MongoRepository<SigningKey, String> {
+    List<SigningKey> findByExpiresAtAfter(Date date);
+}
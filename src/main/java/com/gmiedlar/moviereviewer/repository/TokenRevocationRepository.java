@@ -0,0 +1,11 @@
+package com.gmiedlar.moviereviewer.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import com.gmiedlar.moviereviewer.domain.TokenRevocation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface TokenRevocationRepository extends MongoRepository<TokenRevocation, String> {
+    List<TokenRevocation> findByExpiresAtAfter(Date date);
+}
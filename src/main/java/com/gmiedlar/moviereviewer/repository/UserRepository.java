@@ -1,5 +1,7 @@
 package com.gmiedlar.moviereviewer.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import com.gmiedlar.moviereviewer.domain.CustomUser;
@@ -8,6 +10,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 public interface UserRepository extends MongoRepository<CustomUser, String> {
     Optional<CustomUser> findByEmail(String email);
     Optional<CustomUser> findByUsername(String username);
+    List<CustomUser> findByUsernameIn(Collection<String> usernames);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
 }
@@ -0,0 +1,132 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.gmiedlar.moviereviewer.event.CacheInvalidation;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local delivery, loop suppression and metrics shared by the {@link InvalidationBus} transports.
+ * <p>
+ * {@code cache.invalidation.lag} is the time from publishing on one instance to applying on another, measured with the
+ * clocks of both, so it includes their skew.
+ */
+public abstract class AbstractInvalidationBus implements InvalidationBus {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<InvalidationTarget, List<InvalidationListener>> listeners = new EnumMap<>(InvalidationTarget.class);
+
+    private final Map<InvalidationTarget, List<InvalidationListener>> remoteListeners = new EnumMap<>(InvalidationTarget.class);
+
+    private final Counter published;
+
+    private final Counter received;
+
+    private final Counter failed;
+
+    private final Counter flushes;
+
+    private final Timer lag;
+
+    protected AbstractInvalidationBus(MeterRegistry meterRegistry) {
+        for(InvalidationTarget target : InvalidationTarget.values()) {
+            listeners.put(target, new CopyOnWriteArrayList<>());
+            remoteListeners.put(target, new CopyOnWriteArrayList<>());
+        }
+
+        this.published = Counter.builder("cache.invalidation.published")
+                                .description("Invalidations published by this instance")
+                                .register(meterRegistry);
+        this.received = Counter.builder("cache.invalidation.received")
+                               .description("Invalidations from other instances applied here")
+                               .register(meterRegistry);
+        this.failed = Counter.builder("cache.invalidation.failed")
+                             .description("Invalidations that could not be sent to other instances")
+                             .register(meterRegistry);
+        this.flushes = Counter.builder("cache.invalidation.flushes")
+                              .description("Caches dropped entirely because invalidations may have been missed")
+                              .register(meterRegistry);
+        this.lag = Timer.builder("cache.invalidation.lag")
+                        .description("Time from publishing an invalidation to applying it on another instance")
+                        .register(meterRegistry);
+    }
+
+    @Override
+    public void publish(InvalidationTarget target, Collection<String> ids) {
+        if(ids.isEmpty())
+            return;
+
+        CacheInvalidation invalidation = CacheInvalidation.builder()
+                                                          .target(target)
+                                                          .ids(new ArrayList<>(ids))
+                                                          .origin(nodeId)
+                                                          .publishedAt(new Date())
+                                                          .build();
+        apply(invalidation);
+        published.increment();
+        try {
+            send(invalidation);
+        } catch (RuntimeException e) {
+            // The write itself succeeded; other instances fall back on their cache TTL.
+            failed.increment();
+            LOGGER.warn("Exception thrown while sending {} invalidation [ids={}]: " + e.getMessage(), target, ids);
+        }
+    }
+
+    @Override
+    public void subscribe(InvalidationTarget target, InvalidationListener listener) {
+        listeners.get(target).add(listener);
+    }
+
+    @Override
+    public void subscribeRemote(InvalidationTarget target, InvalidationListener listener) {
+        remoteListeners.get(target).add(listener);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    protected abstract void send(CacheInvalidation invalidation);
+
+    protected void receive(CacheInvalidation invalidation) {
+        if(nodeId.equals(invalidation.getOrigin()))
+            return;
+        apply(invalidation);
+        remoteListeners.get(invalidation.getTarget()).forEach(listener -> listener.invalidateAll(invalidation.getIds()));
+        received.increment();
+        if(invalidation.getPublishedAt() != null)
+            lag.record(Math.max(0, System.currentTimeMillis() - invalidation.getPublishedAt().getTime()), TimeUnit.MILLISECONDS);
+    }
+
+    protected void flushAll() {
+        listeners.values().forEach(targetListeners -> targetListeners.forEach(InvalidationListener::invalidateAll));
+        flushes.increment();
+    }
+
+    // Invalidations were missed and delivery has resumed. The remote listeners reload everything from the database, so
+    // this is not part of flushAll, which may run over and over while the database is unreachable.
+    protected void resynchronize() {
+        remoteListeners.values().forEach(targetListeners -> targetListeners.forEach(InvalidationListener::invalidateAll));
+    }
+
+    private void apply(CacheInvalidation invalidation) {
+        listeners.get(invalidation.getTarget()).forEach(listener -> listener.invalidateAll(invalidation.getIds()));
+    }
+}
@@ -1,6 +1,7 @@
 package com.gmiedlar.moviereviewer.service;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import javax.mail.MessagingException;
 
 import com.gmiedlar.moviereviewer.domain.CustomUser;
@@ -9,8 +10,9 @@ import com.gmiedlar.moviereviewer.dto.UserRegisterDto;
 
 public interface AuthService {
 
-    CustomUser registerUser(UserRegisterDto user) throws MessagingException;
-    Map<String,String> loginUser(UserLoginDto userDto);
+    CompletableFuture<CustomUser> registerUser(UserRegisterDto user);
+    CompletableFuture<Map<String,String>> loginUser(UserLoginDto userDto);
+    String logoutUser(String token);
     String confirmUserAccount(String token);
     String sendResetPasswordEmail(String email) throws MessagingException;
 }
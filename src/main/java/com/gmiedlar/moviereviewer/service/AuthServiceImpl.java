@@ -3,6 +3,8 @@ package com.gmiedlar.moviereviewer.service;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
 
@@ -12,13 +14,13 @@ import com.gmiedlar.moviereviewer.domain.CustomUser;
 import com.gmiedlar.moviereviewer.dto.EmailDto;
 import com.gmiedlar.moviereviewer.dto.UserLoginDto;
 import com.gmiedlar.moviereviewer.dto.UserRegisterDto;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
 import com.gmiedlar.moviereviewer.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import org.springframework.mail.MailSendException;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -26,9 +28,7 @@ public class AuthServiceImpl implements AuthService {
 
     private final UserRepository repository;
 
-    private final AuthenticationManager authenticationManager;
-
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
 
     private final JwtTokenProvider tokenProvider;
 
@@ -36,18 +36,23 @@ public class AuthServiceImpl implements AuthService {
 
     private final EmailSenderService emailSenderService;
 
+    private final InvalidationBus invalidationBus;
+
+    private final TokenRevocationList revocationList;
+
     private final static String APP_URL = "http://movie-reviewer.us-east.mybluemix.net";
 
 
-    public AuthServiceImpl(UserRepository repository, AuthenticationManager authenticationManager,
-                           PasswordEncoder passwordEncoder, JwtTokenProvider tokenProvider,
-                           ConfirmationTokenService confirmationTokenService, EmailSenderService emailSenderService) {
+    public AuthServiceImpl(UserRepository repository, PasswordHasher passwordHasher, JwtTokenProvider tokenProvider,
+                           ConfirmationTokenService confirmationTokenService, EmailSenderService emailSenderService,
+                           InvalidationBus invalidationBus, TokenRevocationList revocationList) {
         this.repository = repository;
-        this.authenticationManager = authenticationManager;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.tokenProvider = tokenProvider;
         this.confirmationTokenService = confirmationTokenService;
         this.emailSenderService = emailSenderService;
+        this.invalidationBus = invalidationBus;
+        this.revocationList = revocationList;
     }
 
     private Optional<CustomUser> findUserByEmailOrUsername(String emailOrUsername) {
@@ -58,11 +63,13 @@ public class AuthServiceImpl implements AuthService {
 
     private CustomUser enableUser(CustomUser user) {
         user.setEnabled(true);
-        return repository.save(user);
+        CustomUser enabledUser = repository.save(user);
+        invalidationBus.publish(InvalidationTarget.USER, user.getUsername());
+        return enabledUser;
     }
 
     @Override
-    public CustomUser registerUser(UserRegisterDto user) throws MessagingException {
+    public CompletableFuture<CustomUser> registerUser(UserRegisterDto user) {
         if(repository.existsByEmail(user.getEmail())) {
             throw new IllegalArgumentException("User with this email already exists!");
         }
@@ -73,10 +80,16 @@ public class AuthServiceImpl implements AuthService {
             throw new IllegalArgumentException("The Password confirmation must match Password!");
         }
 
+        return passwordHasher
+            .encode(user.getPassword())
+            .thenApply(password -> createUser(user, password));
+    }
+
+    private CustomUser createUser(UserRegisterDto user, String encodedPassword) {
         CustomUser newUser = CustomUser.builder()
                                        .email(user.getEmail())
                                        .username(user.getUsername())
-                                       .password(passwordEncoder.encode(user.getPassword()))
+                                       .password(encodedPassword)
                                        .role("USER")
                                        .build();
         CustomUser savedUser = repository.save(newUser);
@@ -92,32 +105,42 @@ public class AuthServiceImpl implements AuthService {
             emailSenderService.sendEmail(mail);
         } catch (MessagingException | MailSendException e) {
             repository.delete(savedUser);
-            throw e;
+            invalidationBus.publish(InvalidationTarget.USER, savedUser.getUsername());
+            throw new CompletionException(e);
         }
 
         return savedUser;
     }
 
     @Override
-    public Map<String,String> loginUser(UserLoginDto userDto) {
+    public CompletableFuture<Map<String,String>> loginUser(UserLoginDto userDto) {
         CustomUser user = findUserByEmailOrUsername(userDto.getUsername())
             .orElseThrow(() -> new UsernameNotFoundException("No user with that email or username exists!"));
 
-        authenticationManager.authenticate(
-            new UsernamePasswordAuthenticationToken(
-                userDto.getUsername(),
-                userDto.getPassword()
-            )
-        );
-
-        if(!user.isEnabled())
-            throw new DisabledException("User account is locked!");
+        // Only the password check runs on the hashing threads, the user is already loaded.
+        return passwordHasher
+            .matches(userDto.getPassword(), user.getPassword())
+            .thenApply(matches -> {
+                if(!matches)
+                    throw new BadCredentialsException("Bad credentials");
+                if(!user.isEnabled())
+                    throw new DisabledException("User account is locked!");
+
+                Map<String,String> response = new HashMap<>();
+                response.put("tokenType", "Bearer");
+                response.put("token", tokenProvider.generateToken(user));
+                return response;
+            });
+    }
 
-        Map<String,String> response = new HashMap<>();
-        response.put("tokenType", "Bearer");
-        response.put("token", tokenProvider.generateToken(user));
+    @Override
+    public String logoutUser(String token) {
+        Claims claims = tokenProvider.getValidClaims(token);
+        if(claims.getId() == null)
+            throw new IllegalArgumentException("Token cannot be revoked!");
 
-        return response;
+        revocationList.revokeToken(claims.getSubject(), claims.getId(), claims.getExpiration());
+        return "Successfully logged out";
     }
 
     @Override
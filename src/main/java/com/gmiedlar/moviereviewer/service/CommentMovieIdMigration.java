@@ -0,0 +1,194 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.PreDestroy;
+
+import com.gmiedlar.moviereviewer.config.ImportMode;
+import com.gmiedlar.moviereviewer.domain.MigrationState;
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import com.gmiedlar.moviereviewer.repository.CommentRepository;
+import com.gmiedlar.moviereviewer.repository.MigrationStateRepository;
+import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves review ownership from the legacy {@link Movie#getCommentIds()} array to {@code Comment.movieId}.
+ * <p>
+ * Runs in the background once the application is ready. Movies are visited in id order; for each one the referenced
+ * comments get their {@code movieId} in batches of {@code movie.comment-migration.batch-size}, with a pause of
+ * {@code movie.comment-migration.pause} after every batch, and the migrated ids are pulled from the array. The last
+ * finished movie is checkpointed in the {@code migration} collection, so a restart resumes where it stopped.
+ * <p>
+ * A comment whose backfill would break the unique (movieId, authorId) index - a duplicate review from before that
+ * index existed - stays in the array and is reported as a conflict. Readers treat array entries and
+ * {@code movieId} matches as one set until then.
+ */
+@Component
+public class CommentMovieIdMigration {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    static final String MIGRATION_ID = "comment-movie-id";
+
+    private final MovieRepository movieRepository;
+
+    private final CommentRepository commentRepository;
+
+    private final MigrationStateRepository stateRepository;
+
+    private final InvalidationBus invalidationBus;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final long pauseMillis;
+
+    private final AtomicReference<MigrationState> state = new AtomicReference<>(MigrationState.builder().id(MIGRATION_ID).build());
+
+    private ExecutorService executor;
+
+    public CommentMovieIdMigration(MovieRepository movieRepository, CommentRepository commentRepository,
+                                   MigrationStateRepository stateRepository, InvalidationBus invalidationBus, MeterRegistry meterRegistry,
+                                   @Value("${movie.comment-migration.enabled}") boolean enabled,
+                                   @Value("${movie.comment-migration.batch-size}") int batchSize,
+                                   @Value("${movie.comment-migration.pause}") long pauseMillis) {
+        this.movieRepository = movieRepository;
+        this.commentRepository = commentRepository;
+        this.stateRepository = stateRepository;
+        this.invalidationBus = invalidationBus;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+
+        Gauge.builder("movie.comment-migration.movies", state, s -> s.get().getMigratedMovies())
+             .description("Movies whose comment references have been migrated")
+             .register(meterRegistry);
+        Gauge.builder("movie.comment-migration.comments", state, s -> s.get().getMigratedComments())
+             .description("Comments that received their movieId")
+             .register(meterRegistry);
+        Gauge.builder("movie.comment-migration.conflicts", state, s -> s.get().getConflictingComments())
+             .description("Comments left in the legacy array because of a duplicate review")
+             .register(meterRegistry);
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = ImportMode.SERVING)
+    public void start() {
+        if(!enabled)
+            return;
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "comment-migration");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(() -> {
+            try {
+                run();
+            } catch (InterruptedException e) {
+                LOGGER.info("Comment migration paused at movie [id={}].", state.get().getLastMovieId());
+            } catch (RuntimeException e) {
+                LOGGER.warn("Exception thrown while migrating comment references, will resume on next start: " + e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if(executor == null)
+            return;
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public MigrationState getState() {
+        return state.get();
+    }
+
+    void run() throws InterruptedException {
+        MigrationState current = stateRepository.findById(MIGRATION_ID).orElse(state.get());
+        state.set(current);
+        if(current.isCompleted())
+            return;
+
+        LOGGER.info("Migrating comment references [resumeAfter={}, movies={}, comments={}]",
+            current.getLastMovieId(), current.getMigratedMovies(), current.getMigratedComments());
+        List<Movie> movies;
+        while(!(movies = movieRepository.findLegacyCommentRefsAfter(current.getLastMovieId(), batchSize)).isEmpty()) {
+            for(Movie movie : movies) {
+                migrateMovie(movie, current);
+                current.setLastMovieId(movie.getId());
+                current.setMigratedMovies(current.getMigratedMovies() + 1);
+                checkpoint(current);
+            }
+            LOGGER.info("Migrated comment references [movies={}, comments={}, conflicts={}, lastMovieId={}]",
+                current.getMigratedMovies(), current.getMigratedComments(), current.getConflictingComments(), current.getLastMovieId());
+        }
+
+        current.setCompleted(true);
+        checkpoint(current);
+        LOGGER.info("Comment migration completed [movies={}, comments={}, conflicts={}]",
+            current.getMigratedMovies(), current.getMigratedComments(), current.getConflictingComments());
+    }
+
+    private void migrateMovie(Movie movie, MigrationState current) throws InterruptedException {
+        List<String> commentIds = movie.getCommentIds() != null ? movie.getCommentIds() : List.of();
+        for(int from = 0; from < commentIds.size(); from += batchSize) {
+            List<String> batch = commentIds.subList(from, Math.min(from + batchSize, commentIds.size()));
+            List<String> migrated = assignMovieId(movie.getId(), batch);
+            // Cached copies still lack the movieId, and their legacy reference is about to be pulled.
+            invalidationBus.publish(InvalidationTarget.COMMENT, migrated);
+            movieRepository.pullLegacyCommentRefs(movie.getId(), migrated);
+            current.setMigratedComments(current.getMigratedComments() + migrated.size());
+            current.setConflictingComments(current.getConflictingComments() + batch.size() - migrated.size());
+            throttle();
+        }
+        if(commentIds.isEmpty())
+            movieRepository.pullLegacyCommentRefs(movie.getId(), commentIds);
+    }
+
+    private List<String> assignMovieId(String movieId, List<String> batch) {
+        try {
+            commentRepository.assignMovieId(movieId, batch);
+            return batch;
+        } catch (DuplicateKeyException e) {
+            // Find the offending comments one by one; the rest of the batch still gets migrated.
+            List<String> migrated = new ArrayList<>(batch.size());
+            for(String commentId : batch) {
+                try {
+                    commentRepository.assignMovieId(movieId, List.of(commentId));
+                    migrated.add(commentId);
+                } catch (DuplicateKeyException duplicate) {
+                    LOGGER.warn("Comment [id={}] duplicates another review of movie [id={}], leaving it unmigrated.", commentId, movieId);
+                }
+            }
+            return migrated;
+        }
+    }
+
+    private void throttle() throws InterruptedException {
+        if(Thread.currentThread().isInterrupted())
+            throw new InterruptedException();
+        if(pauseMillis > 0)
+            Thread.sleep(pauseMillis);
+    }
+
+    private void checkpoint(MigrationState current) {
+        current.setUpdatedAt(new Date());
+        stateRepository.save(current);
+    }
+}
@@ -0,0 +1,18 @@
+package com.gmiedlar.moviereviewer.service;
+
+import com.gmiedlar.moviereviewer.domain.Comment;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CommentNearCache extends NearCache<Comment> {
+
+    public CommentNearCache(MeterRegistry meterRegistry, InvalidationBus invalidationBus,
+                            @Value("${near-cache.comment.max-size}") long maxSize,
+                            @Value("${near-cache.comment.ttl}") long ttlMillis) {
+        super("comments", maxSize, ttlMillis, meterRegistry);
+        invalidationBus.subscribe(InvalidationTarget.COMMENT, this);
+    }
+}
@@ -1,10 +1,31 @@
 package com.gmiedlar.moviereviewer.service;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
 import com.gmiedlar.moviereviewer.domain.Comment;
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.CursorPageDto;
+import com.gmiedlar.moviereviewer.dto.ReviewSearchHitDto;
+import com.gmiedlar.moviereviewer.dto.ReviewSort;
+import com.gmiedlar.moviereviewer.dto.SearchPageDto;
 
 public interface CommentService {
     Comment addComment(String username, Comment comment);
+    Map<Integer, String> addComments(List<Comment> comments);
     Comment getCommentById(String id);
-    Comment updateComment(String id, Comment commentUpdate);
-    String deleteComment(String id);
+    List<Comment> getCommentsByIds(List<String> ids);
+    List<Comment> getMovieComments(String movieId);
+    Stream<Comment> streamMovieComments(String movieId);
+    CursorPageDto<Comment> getMovieCommentsPage(String movieId, ReviewSort sort, String cursor, int size);
+    SearchPageDto<ReviewSearchHitDto> searchComments(String query, String movieId, int page, int size);
+    boolean hasUserCommented(String authorId, Movie movie);
+    Set<String> getCommentedMovieIds(String authorId, Collection<Movie> movies);
+    Comment updateComment(String movieId, String id, Comment commentUpdate);
+    Comment deleteComment(String movieId, String id);
+    String deleteComments(List<String> ids);
+    String deleteMovieComments(String movieId);
 }
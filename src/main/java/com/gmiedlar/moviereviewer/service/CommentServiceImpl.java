@@ -1,22 +1,62 @@
 package com.gmiedlar.moviereviewer.service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.gmiedlar.moviereviewer.domain.Comment;
 import com.gmiedlar.moviereviewer.domain.CustomUser;
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.CursorPageDto;
+import com.gmiedlar.moviereviewer.dto.ReviewSearchHitDto;
+import com.gmiedlar.moviereviewer.dto.ReviewSort;
+import com.gmiedlar.moviereviewer.dto.SearchPageDto;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
 import com.gmiedlar.moviereviewer.repository.CommentRepository;
+import com.mongodb.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
 @Service
 public class CommentServiceImpl implements CommentService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final String CURSOR_SEPARATOR = ":";
+
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+    private static final int MAX_SEARCH_DEPTH = 1000;
+
     private final CommentRepository repository;
 
     private final UserFinderService userFinderService;
 
-    public CommentServiceImpl(CommentRepository repository, UserFinderService userFinderService) {
+    private final ReviewSearchIndex searchIndex;
+
+    private final CommentNearCache commentCache;
+
+    private final InvalidationBus invalidationBus;
+
+    public CommentServiceImpl(CommentRepository repository, UserFinderService userFinderService, ReviewSearchIndex searchIndex,
+                              CommentNearCache commentCache, InvalidationBus invalidationBus) {
         this.repository = repository;
         this.userFinderService = userFinderService;
+        this.searchIndex = searchIndex;
+        this.commentCache = commentCache;
+        this.invalidationBus = invalidationBus;
     }
 
     @Override
@@ -24,34 +64,253 @@ public class CommentServiceImpl implements CommentService {
         CustomUser currentUser = userFinderService.findUserByUsername(username);
         comment.setAuthorId(currentUser.getId());
         comment.setAddDate(new Date());
-        return repository.save(comment);
+        comment.setUpdatedAt(comment.getAddDate());
+        comment.setRatingCounted(true);
+        Comment newComment;
+        try {
+            newComment = repository.save(comment);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateException("You have already reviewed this movie!");
+        }
+        invalidationBus.publish(InvalidationTarget.COMMENT, newComment.getId());
+        searchIndex.index(newComment);
+        return newComment;
+    }
+
+    @Override
+    public Map<Integer, String> addComments(List<Comment> comments) {
+        if(comments.isEmpty())
+            return Collections.emptyMap();
+
+        // Ids are assigned up front because bulk inserts do not write generated ids back to the entities.
+        Date addDate = new Date();
+        comments.forEach(comment -> {
+            comment.setId(new ObjectId().toHexString());
+            comment.setAddDate(addDate);
+            comment.setUpdatedAt(addDate);
+            comment.setRatingCounted(true);
+        });
+
+        Map<Integer, String> errors = repository
+            .insertUnordered(comments)
+            .stream()
+            .collect(Collectors.toMap(BulkWriteError::getIndex, this::describeWriteError));
+        List<String> insertedIds = new ArrayList<>(comments.size());
+        for(int i = 0; i < comments.size(); i++) {
+            if(!errors.containsKey(i)) {
+                insertedIds.add(comments.get(i).getId());
+                searchIndex.index(comments.get(i));
+            }
+        }
+        invalidationBus.publish(InvalidationTarget.COMMENT, insertedIds);
+        return errors;
     }
 
     @Override
     public Comment getCommentById(String id) {
-        return repository
-            .findById(id)
+        return commentCache
+            .get(id, repository::findById)
             .orElseThrow(() -> new IllegalArgumentException("No comment with that id exists!"));
     }
 
     @Override
-    public Comment updateComment(String id, Comment commentUpdate) {
-        Comment comment = getCommentById(id);
+    public List<Comment> getCommentsByIds(List<String> ids) {
+        if(ids.isEmpty())
+            return Collections.emptyList();
+
+        Map<String, Comment> commentsById = commentCache.getAll(ids, missingIds -> repository
+            .findByIdIn(missingIds)
+            .stream()
+            .collect(Collectors.toMap(Comment::getId, Function.identity())));
+
+        return ids.stream()
+                  .map(id -> Optional.ofNullable(commentsById.get(id))
+                                     .orElseThrow(() -> new IllegalArgumentException("No comment with that id exists!")))
+                  .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Comment> getMovieComments(String movieId) {
+        return repository.findByMovieIdOrderByAddDateAscIdAsc(movieId);
+    }
+
+    @Override
+    public Stream<Comment> streamMovieComments(String movieId) {
+        return repository.streamByMovieIdOrderByAddDateAscIdAsc(movieId);
+    }
+
+    @Override
+    public CursorPageDto<Comment> getMovieCommentsPage(String movieId, ReviewSort sort, String cursor, int size) {
+        if(size < 1 || size > MAX_PAGE_SIZE)
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + "!");
+
+        Comment after = cursor != null ? decodeCursor(cursor) : null;
+        List<Comment> comments = repository.findMovieCommentsAfter(movieId, sort, after, size + 1);
+
+        String nextCursor = null;
+        if(comments.size() > size) {
+            comments = comments.subList(0, size);
+            nextCursor = encodeCursor(comments.get(size - 1));
+        }
+
+        return CursorPageDto.<Comment>builder()
+                            .content(comments)
+                            .nextCursor(nextCursor)
+                            .build();
+    }
+
+    @Override
+    public SearchPageDto<ReviewSearchHitDto> searchComments(String query, String movieId, int page, int size) {
+        if(query == null || query.isBlank())
+            throw new IllegalArgumentException("Search query must not be empty!");
+        if(size < 1 || size > MAX_PAGE_SIZE)
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + "!");
+        if(page < 0 || (page + 1) * size > MAX_SEARCH_DEPTH)
+            throw new IllegalArgumentException("Only the first " + MAX_SEARCH_DEPTH + " search results can be paged through!");
+
+        ReviewSearchIndex.SearchResult result = searchIndex.search(query, movieId, page * size, size);
+        Map<String, Comment> commentsById = result.getHits().isEmpty()
+            ? Collections.emptyMap()
+            : repository
+                .findByIdIn(result.getHits().stream().map(ReviewSearchIndex.Hit::getCommentId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Comment::getId, Function.identity()));
+
+        List<ReviewSearchHitDto> hits = result.getHits().stream()
+                                              .filter(hit -> commentsById.containsKey(hit.getCommentId()))
+                                              .map(hit -> toSearchHit(commentsById.get(hit.getCommentId()), hit.getScore(), query))
+                                              .collect(Collectors.toList());
+
+        return SearchPageDto.<ReviewSearchHitDto>builder()
+                            .content(hits)
+                            .page(page)
+                            .size(size)
+                            .totalHits(result.getTotalHits())
+                            .build();
+    }
+
+    // Reviews of movies CommentMovieIdMigration has not visited yet may only be linked through Movie.commentIds.
+    @Override
+    public boolean hasUserCommented(String authorId, Movie movie) {
+        if(repository.existsByMovieIdAndAuthorId(movie.getId(), authorId))
+            return true;
+        List<String> legacyCommentIds = Optional.ofNullable(movie.getCommentIds()).orElse(Collections.emptyList());
+        return !legacyCommentIds.isEmpty() && repository.existsByIdInAndAuthorId(legacyCommentIds, authorId);
+    }
+
+    @Override
+    public Set<String> getCommentedMovieIds(String authorId, Collection<Movie> movies) {
+        if(movies.isEmpty())
+            return Collections.emptySet();
+
+        Set<String> movieIds = movies.stream().map(Movie::getId).collect(Collectors.toSet());
+        Set<String> commentedMovieIds = repository
+            .findByAuthorIdAndMovieIdIn(authorId, movieIds)
+            .stream()
+            .map(Comment::getMovieId)
+            .collect(Collectors.toSet());
+
+        Map<String, String> movieIdsByLegacyCommentId = new HashMap<>();
+        movies.stream()
+              .filter(movie -> movie.getCommentIds() != null)
+              .forEach(movie -> movie.getCommentIds().forEach(commentId -> movieIdsByLegacyCommentId.put(commentId, movie.getId())));
+        if(!movieIdsByLegacyCommentId.isEmpty()) {
+            repository
+                .findByIdInAndAuthorId(movieIdsByLegacyCommentId.keySet(), authorId)
+                .forEach(comment -> commentedMovieIds.add(movieIdsByLegacyCommentId.get(comment.getId())));
+        }
+        return commentedMovieIds;
+    }
+
+    // Returns the comment as the update found it in the database, and completes commentUpdate into the comment as
+    // stored. Callers derive rating changes from the returned comment, never from a cached copy.
+    @Override
+    public Comment updateComment(String movieId, String id, Comment commentUpdate) {
+        commentUpdate.setUpdatedAt(new Date());
+        Optional<Comment> updated = repository.updateMovieComment(movieId, id, commentUpdate);
+
+        // Nothing matched: either the update changes nothing, or there is no such comment for this movie.
+        Comment comment = updated.orElseGet(() -> repository
+            .findById(id)
+            .filter(unchanged -> unchanged.getMovieId() == null || unchanged.getMovieId().equals(movieId))
+            .orElseThrow(() -> new IllegalArgumentException("No comment with that id exists!")));
 
         commentUpdate.setId(id);
         commentUpdate.setAuthorId(comment.getAuthorId());
+        commentUpdate.setMovieId(comment.getMovieId());
         commentUpdate.setAddDate(comment.getAddDate());
-        if(commentUpdate.equals(comment))
+        commentUpdate.setRatingCounted(comment.isRatingCounted());
+        if(updated.isEmpty()) {
+            commentUpdate.setUpdatedAt(comment.getUpdatedAt());
             return comment;
+        }
 
-        return repository.save(commentUpdate);
+        invalidationBus.publish(InvalidationTarget.COMMENT, id);
+        searchIndex.index(commentUpdate);
+        return comment;
     }
 
+    // Returns the comment as it was removed from the database.
     @Override
-    public String deleteComment(String id) {
-        if(!repository.existsById(id))
-            throw new IllegalArgumentException("No comment with that id exists!");
-        repository.deleteById(id);
-        return "Comment successfully deleted";
+    public Comment deleteComment(String movieId, String id) {
+        Comment comment = repository
+            .removeMovieComment(movieId, id)
+            .orElseThrow(() -> new IllegalArgumentException("No comment with that id exists!"));
+        invalidationBus.publish(InvalidationTarget.COMMENT, id);
+        searchIndex.remove(List.of(id));
+        return comment;
+    }
+
+    @Override
+    public String deleteComments(List<String> ids) {
+        if(!ids.isEmpty()) {
+            repository.deleteByIdIn(ids);
+            invalidationBus.publish(InvalidationTarget.COMMENT, ids);
+            searchIndex.remove(ids);
+        }
+        return "Comments successfully deleted";
+    }
+
+    @Override
+    public String deleteMovieComments(String movieId) {
+        return deleteComments(repository
+            .findIdsByMovieId(movieId)
+            .stream()
+            .map(Comment::getId)
+            .collect(Collectors.toList()));
+    }
+
+    private ReviewSearchHitDto toSearchHit(Comment comment, double score, String query) {
+        return ReviewSearchHitDto.builder()
+                                 .commentId(comment.getId())
+                                 .movieId(comment.getMovieId())
+                                 .authorId(comment.getAuthorId())
+                                 .rating(comment.getRating())
+                                 .addDate(comment.getAddDate())
+                                 .score(score)
+                                 .snippet(searchIndex.highlight(comment.getText(), query))
+                                 .build();
+    }
+
+    private String describeWriteError(BulkWriteError error) {
+        return error.getCode() == DUPLICATE_KEY_ERROR_CODE ? "You have already reviewed this movie!" : error.getMessage();
+    }
+
+    private String encodeCursor(Comment last) {
+        String key = last.getRating() + CURSOR_SEPARATOR + last.getAddDate().getTime() + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Comment decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(CURSOR_SEPARATOR, 3);
+            return Comment.builder()
+                          .rating(Integer.parseInt(key[0]))
+                          .addDate(new Date(Long.parseLong(key[1])))
+                          .id(key[2])
+                          .build();
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor!");
+        }
     }
 }
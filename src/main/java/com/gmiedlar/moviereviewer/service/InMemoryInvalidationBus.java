@@ -0,0 +1,34 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.gmiedlar.moviereviewer.event.CacheInvalidation;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers invalidations synchronously to the buses it is connected to in the same JVM. Unconnected, it serves a
+ * single instance, which is the default; tests connect several to stand in for a cluster.
+ */
+@Component
+@ConditionalOnProperty(name="cache.invalidation.bus", havingValue="memory", matchIfMissing=true)
+public class InMemoryInvalidationBus extends AbstractInvalidationBus {
+
+    private final List<InMemoryInvalidationBus> peers = new CopyOnWriteArrayList<>();
+
+    public InMemoryInvalidationBus(MeterRegistry meterRegistry) {
+        super(meterRegistry);
+    }
+
+    public void connect(InMemoryInvalidationBus peer) {
+        peers.add(peer);
+        peer.peers.add(this);
+    }
+
+    @Override
+    protected void send(CacheInvalidation invalidation) {
+        peers.forEach(peer -> peer.receive(invalidation));
+    }
+}
@@ -0,0 +1,27 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+
+/**
+ * Carries cache invalidations between application instances.
+ * <p>
+ * Services publish after every write to a movie, comment or user, and on every token revocation. Listeners on the publishing instance are
+ * invalidated before {@code publish} returns; the other instances apply the invalidation when it reaches them.
+ * Caches never hold misses, so they have nothing to drop for a created document, but the in-memory indexes of the
+ * other instances only learn about new movies and comments this way.
+ * <p>
+ * Listeners subscribed with {@link #subscribeRemote} are only invalidated by the other instances, or when invalidations
+ * may have been missed. They suit the indexes that this instance already updates as it writes.
+ */
+public interface InvalidationBus {
+    void publish(InvalidationTarget target, Collection<String> ids);
+    void subscribe(InvalidationTarget target, InvalidationListener listener);
+    void subscribeRemote(InvalidationTarget target, InvalidationListener listener);
+
+    default void publish(InvalidationTarget target, String id) {
+        publish(target, List.of(id));
+    }
+}
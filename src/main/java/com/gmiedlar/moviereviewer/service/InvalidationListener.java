@@ -0,0 +1,8 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.Collection;
+
+public interface InvalidationListener {
+    void invalidateAll(Collection<String> ids);
+    void invalidateAll();
+}
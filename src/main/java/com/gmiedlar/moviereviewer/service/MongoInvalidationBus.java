@@ -0,0 +1,167 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
+
+import com.gmiedlar.moviereviewer.event.CacheInvalidation;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidation bus over a MongoDB change stream, so it needs a replica set or a sharded cluster; the application does
+ * not start against a standalone server with {@code cache.invalidation.bus=mongo}.
+ * <p>
+ * Each invalidation is inserted into the {@code cache_invalidation} collection, where a TTL index drops it after
+ * {@code cache.invalidation.retention}. Every instance watches the inserts and applies those of other instances. When
+ * the stream fails, invalidations may be missed, so all subscribed caches are dropped. The stream is then reopened
+ * after {@code cache.invalidation.retry-interval}, resuming after the last seen insert if the oplog still has it.
+ * While MongoDB is unreachable the caches are dropped on every attempt, so a remote write stays invisible for at most
+ * one retry interval beyond normal stream latency. When the stream has to be reopened without resuming, the in-memory
+ * indexes subscribed with {@link #subscribeRemote} are rebuilt once it is open again.
+ */
+@Component
+@ConditionalOnProperty(name="cache.invalidation.bus", havingValue="mongo")
+public class MongoInvalidationBus extends AbstractInvalidationBus {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    static final String COLLECTION = "cache_invalidation";
+
+    // ChangeStreamHistoryLost, ChangeStreamFatalError, InvalidResumeToken: the resume token is of no use any more.
+    private static final Set<Integer> LOST_HISTORY_ERROR_CODES = Set.of(286, 280, 260);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final long retentionSeconds;
+
+    private final long retryIntervalMillis;
+
+    private final AtomicBoolean connected = new AtomicBoolean();
+
+    private volatile boolean running;
+
+    private ExecutorService executor;
+
+    public MongoInvalidationBus(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+                                @Value("${cache.invalidation.retention}") long retentionSeconds,
+                                @Value("${cache.invalidation.retry-interval}") long retryIntervalMillis) {
+        super(meterRegistry);
+        this.mongoTemplate = mongoTemplate;
+        this.retentionSeconds = retentionSeconds;
+        this.retryIntervalMillis = retryIntervalMillis;
+
+        Gauge.builder("cache.invalidation.connected", connected, c -> c.get() ? 1 : 0)
+             .description("Whether the invalidation change stream is open")
+             .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // A standalone server rejects every change stream, so the bus would only ever drop the caches.
+        Document server = mongoTemplate.executeCommand(new Document("isMaster", 1));
+        if(!server.containsKey("setName") && !"isdbgrid".equals(server.getString("msg")))
+            throw new IllegalStateException("cache.invalidation.bus=mongo needs a replica set or a sharded cluster, "
+                + "use cache.invalidation.bus=memory for a single instance on a standalone server");
+
+        mongoTemplate
+            .indexOps(COLLECTION)
+            .ensureIndex(new Index()
+                .named("published_at_ttl_index")
+                .on("publishedAt", Sort.Direction.ASC)
+                .expire(retentionSeconds));
+
+        running = true;
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::watch);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if(executor == null)
+            return;
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Override
+    protected void send(CacheInvalidation invalidation) {
+        mongoTemplate.insert(invalidation, COLLECTION);
+    }
+
+    private void watch() {
+        BsonDocument resumeToken = null;
+        boolean missed = false;
+        while(running) {
+            ChangeStreamIterable<Document> changes = mongoTemplate
+                .getCollection(COLLECTION)
+                .watch(List.of(Aggregates.match(Filters.eq("operationType", "insert"))))
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+            if(resumeToken != null)
+                changes = changes.resumeAfter(resumeToken);
+
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changes.cursor()) {
+                connected.set(true);
+                if(missed) {
+                    resynchronize();
+                    missed = false;
+                }
+                while(running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if(change != null && change.getFullDocument() != null)
+                        receive(mongoTemplate.getConverter().read(CacheInvalidation.class, change.getFullDocument()));
+                    if(cursor.getResumeToken() != null)
+                        resumeToken = cursor.getResumeToken();
+                }
+            } catch (MongoException e) {
+                connected.set(false);
+                LOGGER.warn("Exception thrown while watching cache invalidations, dropping caches: " + e.getMessage());
+                if(e instanceof MongoCommandException && LOST_HISTORY_ERROR_CODES.contains(e.getCode()))
+                    resumeToken = null;
+                missed = missed || resumeToken == null;
+                flushAll();
+                if(!pause())
+                    return;
+            }
+        }
+        connected.set(false);
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(retryIntervalMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.MovieCatalogFilter;
+import com.gmiedlar.moviereviewer.dto.MovieFacetsDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches facet counts per normalized catalog filter.
+ * <p>
+ * The whole cache is dropped by {@link MovieService} when a movie is added or deleted, or when its genre, year or
+ * director changes. Rating updates do not invalidate it, so counts for a {@code minRating} filter, like changes made
+ * through another instance, may lag behind by at most {@code movie.facets.ttl}. Computations that overlap an
+ * invalidation are not cached.
+ */
+@Component
+public class MovieFacetCache {
+
+    private final long ttlMillis;
+
+    private final Map<MovieCatalogFilter, CachedFacets> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public MovieFacetCache(@Value("${movie.facets.ttl}") long ttlMillis,
+                           @Value("${movie.facets.max-entries}") int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<MovieCatalogFilter, CachedFacets>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MovieCatalogFilter, CachedFacets> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public MovieFacetsDto get(MovieCatalogFilter filter, Function<MovieCatalogFilter, MovieFacetsDto> loader) {
+        MovieCatalogFilter key = normalize(filter);
+        long now = System.currentTimeMillis();
+
+        CachedFacets cached = cache.get(key);
+        if(cached != null && cached.expiresAt > now)
+            return cached.facets;
+
+        long loadedGeneration = generation.get();
+        MovieFacetsDto facets = loader.apply(key);
+        synchronized(cache) {
+            if(generation.get() == loadedGeneration)
+                cache.put(key, new CachedFacets(facets, now + ttlMillis));
+        }
+        return facets;
+    }
+
+    public void movieChanged(Movie before, Movie after) {
+        if(!Objects.equals(before.getGenre(), after.getGenre())
+            || !Objects.equals(before.getYear(), after.getYear())
+            || !Objects.equals(before.getDirector(), after.getDirector()))
+            invalidate();
+    }
+
+    public void invalidate() {
+        synchronized(cache) {
+            generation.incrementAndGet();
+            cache.clear();
+        }
+    }
+
+    private static MovieCatalogFilter normalize(MovieCatalogFilter filter) {
+        return MovieCatalogFilter.builder()
+                                 .genre(normalize(filter.getGenre()))
+                                 .director(normalize(filter.getDirector()))
+                                 .yearFrom(filter.getYearFrom())
+                                 .yearTo(filter.getYearTo())
+                                 .minRating(filter.getMinRating())
+                                 .build();
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static class CachedFacets {
+
+        private final MovieFacetsDto facets;
+
+        private final long expiresAt;
+
+        CachedFacets(MovieFacetsDto facets, long expiresAt) {
+            this.facets = facets;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
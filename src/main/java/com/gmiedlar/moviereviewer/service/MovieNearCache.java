@@ -0,0 +1,18 @@
+package com.gmiedlar.moviereviewer.service;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MovieNearCache extends NearCache<Movie> {
+
+    public MovieNearCache(MeterRegistry meterRegistry, InvalidationBus invalidationBus,
+                          @Value("${near-cache.movie.max-size}") long maxSize,
+                          @Value("${near-cache.movie.ttl}") long ttlMillis) {
+        super("movies", maxSize, ttlMillis, meterRegistry);
+        invalidationBus.subscribe(InvalidationTarget.MOVIE, this);
+    }
+}
@@ -1,15 +1,34 @@
 package com.gmiedlar.moviereviewer.service;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.CursorPageDto;
+import com.gmiedlar.moviereviewer.dto.MovieCatalogFilter;
 import com.gmiedlar.moviereviewer.dto.MovieDto;
+import com.gmiedlar.moviereviewer.dto.MovieFacetsDto;
+import com.gmiedlar.moviereviewer.dto.MovieImportDto;
+import com.gmiedlar.moviereviewer.dto.MovieImportResultDto;
+import com.gmiedlar.moviereviewer.dto.MovieSuggestionDto;
+import com.gmiedlar.moviereviewer.dto.MovieSummaryDto;
+import com.gmiedlar.moviereviewer.dto.TopMovieDto;
+import com.gmiedlar.moviereviewer.dto.TrendingMovieDto;
 
 public interface MovieService {
     Movie addMovie(String username, Movie movie);
-    List<Movie> getAllMovies();
-    List<Movie> getAllUserMovies(String username);
+    List<MovieImportResultDto> importMovies(String username, List<MovieImportDto> movies);
+    List<MovieSummaryDto> getAllMovies();
+    Stream<MovieSummaryDto> streamAllMovies();
+    CursorPageDto<MovieSummaryDto> getMovieCatalogPage(MovieCatalogFilter filter, String sort, String cursor, int size);
+    MovieFacetsDto getMovieFacets(MovieCatalogFilter filter);
+    List<TopMovieDto> getTopRatedMovies(int limit, int minReviews, String genre);
+    List<TrendingMovieDto> getTrendingMovies(String window, int limit);
+    List<MovieSuggestionDto> suggestMovies(String prefix, int limit);
+    List<MovieSummaryDto> getAllUserMovies(String username);
+    Movie getMovieVersion(String id);
     MovieDto getMovieDetails(String username, String id);
+    List<MovieDto> getMoviesDetails(String username, List<String> ids);
     Movie updateMovie(String id, Movie movieUpdate);
     String deleteMovie(String id);
 }
@@ -1,21 +1,79 @@
 package com.gmiedlar.moviereviewer.service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.gmiedlar.moviereviewer.domain.Comment;
 import com.gmiedlar.moviereviewer.domain.CustomUser;
 import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.BulkReviewDto;
+import com.gmiedlar.moviereviewer.dto.BulkReviewResultDto;
+import com.gmiedlar.moviereviewer.dto.CursorPageDto;
+import com.gmiedlar.moviereviewer.dto.MovieCatalogFilter;
 import com.gmiedlar.moviereviewer.dto.MovieDto;
+import com.gmiedlar.moviereviewer.dto.MovieFacetsDto;
+import com.gmiedlar.moviereviewer.dto.MovieImportDto;
+import com.gmiedlar.moviereviewer.dto.MovieImportResultDto;
+import com.gmiedlar.moviereviewer.dto.MovieSort;
+import com.gmiedlar.moviereviewer.dto.MovieSuggestionDto;
+import com.gmiedlar.moviereviewer.dto.MovieSummaryDto;
+import com.gmiedlar.moviereviewer.dto.RatingHistogramDto;
+import com.gmiedlar.moviereviewer.dto.ReviewSort;
+import com.gmiedlar.moviereviewer.dto.TopMovieDto;
+import com.gmiedlar.moviereviewer.dto.TrendingMovieDto;
+import com.gmiedlar.moviereviewer.dto.TrendingWindow;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import com.gmiedlar.moviereviewer.event.MovieDeletedEvent;
+import com.gmiedlar.moviereviewer.event.MovieUpdatedEvent;
+import com.gmiedlar.moviereviewer.event.ReviewAddedEvent;
 import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import com.mongodb.BulkWriteError;
+import org.bson.types.ObjectId;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
 @Service
 public class MovieServiceImpl implements MovieService, ReviewService {
 
+    private static final int MIN_RATING = 1;
+
+    private static final int MAX_RATING = 10;
+
+    private static final int MAX_TOP_MOVIES = 100;
+
+    private static final int MAX_SUGGESTIONS = 20;
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final int MAX_DETAILS_IDS = 100;
+
+    private static final String CURSOR_SEPARATOR = ":";
+
+    private static final int MAX_DIRECTOR_FACETS = 50;
+
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+    private static final String DUPLICATE_MOVIE_MESSAGE = "Movie with this title and year already exists!";
+
     private final MovieRepository repository;
 
     private final CommentService commentService;
@@ -24,35 +82,177 @@ public class MovieServiceImpl implements MovieService, ReviewService {
 
     private final ModelMapper mapper;
 
-    public MovieServiceImpl(MovieRepository repository, CommentService commentService, UserFinderService userFinderService, ModelMapper mapper) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TopRatedMovieIndex topRatedMovieIndex;
+
+    private final TrendingMovieIndex trendingMovieIndex;
+
+    private final RatingAggregationPipeline ratingAggregation;
+
+    private final MovieSuggestIndex suggestIndex;
+
+    private final MovieFacetCache facetCache;
+
+    private final MovieNearCache movieCache;
+
+    private final InvalidationBus invalidationBus;
+
+    public MovieServiceImpl(MovieRepository repository, CommentService commentService, UserFinderService userFinderService, ModelMapper mapper,
+                            ApplicationEventPublisher eventPublisher, TopRatedMovieIndex topRatedMovieIndex, TrendingMovieIndex trendingMovieIndex,
+                            RatingAggregationPipeline ratingAggregation, MovieSuggestIndex suggestIndex, MovieFacetCache facetCache,
+                            MovieNearCache movieCache, InvalidationBus invalidationBus) {
         this.repository = repository;
         this.commentService = commentService;
         this.userFinderService = userFinderService;
         this.mapper = mapper;
+        this.eventPublisher = eventPublisher;
+        this.topRatedMovieIndex = topRatedMovieIndex;
+        this.trendingMovieIndex = trendingMovieIndex;
+        this.ratingAggregation = ratingAggregation;
+        this.suggestIndex = suggestIndex;
+        this.facetCache = facetCache;
+        this.movieCache = movieCache;
+        this.invalidationBus = invalidationBus;
     }
 
     @Override
     public Movie addMovie(String username, Movie movie) {
         CustomUser currentUser = userFinderService.findUserByUsername(username);
         movie.setUserId(currentUser.getId());
-        movie.setCommentIds(Collections.emptyList());
-        return repository.save(movie);
+        movie.setCommentIds(null);
+        movie.setUpdatedAt(new Date());
+        movie.setCatalogKey(Movie.catalogKey(movie.getTitle(), movie.getYear()));
+        Movie newMovie;
+        try {
+            newMovie = repository.save(movie);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateException(DUPLICATE_MOVIE_MESSAGE);
+        }
+        invalidationBus.publish(InvalidationTarget.MOVIE, newMovie.getId());
+        facetCache.invalidate();
+        return published(newMovie);
+    }
+
+    @Override
+    public List<MovieImportResultDto> importMovies(String username, List<MovieImportDto> movies) {
+        if(movies.isEmpty())
+            return Collections.emptyList();
+
+        // One user lookup per batch; ids are assigned up front because bulk inserts do not write them back.
+        String userId = userFinderService.findUserByUsername(username).getId();
+        Date updatedAt = new Date();
+        List<Movie> newMovies = movies
+            .stream()
+            .map(movie -> Movie.builder()
+                               .id(new ObjectId().toHexString())
+                               .title(movie.getTitle())
+                               .genre(movie.getGenre())
+                               .year(movie.getYear())
+                               .director(movie.getDirector())
+                               .userId(userId)
+                               .updatedAt(updatedAt)
+                               .catalogKey(Movie.catalogKey(movie.getTitle(), movie.getYear()))
+                               .build())
+            .collect(Collectors.toList());
+
+        // Duplicates within the batch, across batches and against the catalog are all rejected by catalog_key_index.
+        Map<Integer, String> errors = repository
+            .insertUnordered(newMovies)
+            .stream()
+            .collect(Collectors.toMap(BulkWriteError::getIndex, this::describeMovieWriteError));
+        List<MovieImportResultDto> results = new ArrayList<>(movies.size());
+        List<String> insertedIds = new ArrayList<>(movies.size());
+        for(int i = 0; i < movies.size(); i++) {
+            MovieImportResultDto.MovieImportResultDtoBuilder result = MovieImportResultDto.builder().line(movies.get(i).getLine());
+            if(errors.containsKey(i)) {
+                results.add(result.error(errors.get(i)).build());
+            } else {
+                insertedIds.add(published(newMovies.get(i)).getId());
+                results.add(result.movieId(newMovies.get(i).getId()).build());
+            }
+        }
+        invalidationBus.publish(InvalidationTarget.MOVIE, insertedIds);
+        if(!insertedIds.isEmpty())
+            facetCache.invalidate();
+        return results;
+    }
+
+    @Override
+    public List<MovieSummaryDto> getAllMovies() {
+        return repository.findAllSummaries().stream().map(this::toSummary).collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<MovieSummaryDto> streamAllMovies() {
+        return repository.streamAllSummaries().map(this::toSummary);
+    }
+
+    @Override
+    public CursorPageDto<MovieSummaryDto> getMovieCatalogPage(MovieCatalogFilter filter, String sort, String cursor, int size) {
+        if(size < 1 || size > MAX_PAGE_SIZE)
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + "!");
+        validateCatalogFilter(filter);
+
+        MovieSort movieSort = MovieSort.fromString(sort);
+        Movie after = cursor != null ? decodeCursor(movieSort, cursor) : null;
+        List<Movie> movies = repository.findCatalogPage(filter, movieSort, after, size + 1);
+
+        String nextCursor = null;
+        if(movies.size() > size) {
+            movies = movies.subList(0, size);
+            nextCursor = encodeCursor(movieSort, movies.get(size - 1));
+        }
+
+        return CursorPageDto.<MovieSummaryDto>builder()
+                            .content(movies.stream().map(this::toSummary).collect(Collectors.toList()))
+                            .nextCursor(nextCursor)
+                            .build();
     }
 
     @Override
-    public List<Movie> getAllMovies() {
-        return repository.findAll();
+    public MovieFacetsDto getMovieFacets(MovieCatalogFilter filter) {
+        validateCatalogFilter(filter);
+        return facetCache.get(filter, normalized -> repository.aggregateFacets(normalized, MAX_DIRECTOR_FACETS));
     }
 
     @Override
-    public List<Movie> getAllUserMovies(String username) {
+    public List<TopMovieDto> getTopRatedMovies(int limit, int minReviews, String genre) {
+        if(limit < 1 || limit > MAX_TOP_MOVIES)
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_TOP_MOVIES + "!");
+        return topRatedMovieIndex.getTopMovies(limit, minReviews, genre);
+    }
+
+    @Override
+    public List<TrendingMovieDto> getTrendingMovies(String window, int limit) {
+        if(limit < 1 || limit > MAX_TOP_MOVIES)
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_TOP_MOVIES + "!");
+        return trendingMovieIndex.getTrendingMovies(TrendingWindow.fromString(window), limit);
+    }
+
+    @Override
+    public List<MovieSuggestionDto> suggestMovies(String prefix, int limit) {
+        if(limit < 1 || limit > MAX_SUGGESTIONS)
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SUGGESTIONS + "!");
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    @Override
+    public List<MovieSummaryDto> getAllUserMovies(String username) {
         CustomUser currentUser = userFinderService.findUserByUsername(username);
-        return repository.findByUserId(currentUser.getId());
+        return repository.findSummariesByUserId(currentUser.getId()).stream().map(this::toSummary).collect(Collectors.toList());
     }
 
     private Movie getMovieById(String id) {
+        return movieCache
+            .get(id, repository::findById)
+            .orElseThrow(() -> new IllegalArgumentException("No movie with that id exists!"));
+    }
+
+    @Override
+    public Movie getMovieVersion(String id) {
         return repository
-            .findById(id)
+            .findVersionById(id)
             .orElseThrow(() -> new IllegalArgumentException("No movie with that id exists!"));
     }
 
@@ -65,16 +265,38 @@ public class MovieServiceImpl implements MovieService, ReviewService {
                 .ifPresent(u -> {
                     CustomUser currentUser = userFinderService.findUserByUsername(u);
 
-                    boolean canComment = movie.getCommentIds().stream()
-                                              .map(commentService::getCommentById)
-                                              .noneMatch(comment -> comment.getAuthorId().equals(currentUser.getId()));
-
-                    movieDto.setCanComment(canComment);
+                    movieDto.setCanComment(!commentService.hasUserCommented(currentUser.getId(), movie));
                 });
 
         return movieDto;
     }
 
+    @Override
+    public List<MovieDto> getMoviesDetails(String username, List<String> ids) {
+        if(ids.size() > MAX_DETAILS_IDS)
+            throw new IllegalArgumentException("At most " + MAX_DETAILS_IDS + " movie ids can be requested at once!");
+
+        Map<String, Movie> moviesById = movieCache.getAll(ids, missingIds -> StreamSupport
+            .stream(repository.findAllById(missingIds).spliterator(), false)
+            .collect(Collectors.toMap(Movie::getId, Function.identity())));
+
+        List<MovieDto> movieDtos = ids.stream()
+                                      .distinct()
+                                      .filter(moviesById::containsKey)
+                                      .map(id -> mapper.map(moviesById.get(id), MovieDto.class))
+                                      .collect(Collectors.toList());
+
+        Optional.ofNullable(username)
+                .ifPresent(u -> {
+                    CustomUser currentUser = userFinderService.findUserByUsername(u);
+                    Set<String> commentedMovieIds = commentService.getCommentedMovieIds(currentUser.getId(), moviesById.values());
+
+                    movieDtos.forEach(movieDto -> movieDto.setCanComment(!commentedMovieIds.contains(movieDto.getId())));
+                });
+
+        return movieDtos;
+    }
+
     @Override
     public Movie updateMovie(String id, Movie movieUpdate) {
         Movie movie = getMovieById(id);
@@ -82,11 +304,27 @@ public class MovieServiceImpl implements MovieService, ReviewService {
         movieUpdate.setId(id);
         movieUpdate.setCommentIds(movie.getCommentIds());
         movieUpdate.setAvgRating(movie.getAvgRating());
+        movieUpdate.setRatingSum(movie.getRatingSum());
+        movieUpdate.setRatingCount(movie.getRatingCount());
+        movieUpdate.setRatingHistogram(movie.getRatingHistogram());
         movieUpdate.setUserId(movie.getUserId());
+        movieUpdate.setRevision(movie.getRevision());
+        movieUpdate.setUpdatedAt(movie.getUpdatedAt());
+        movieUpdate.setCatalogKey(Movie.catalogKey(movieUpdate.getTitle(), movieUpdate.getYear()));
         if(movieUpdate.equals(movie))
             return movie;
 
-        return repository.save(movieUpdate);
+        Movie updated;
+        try {
+            updated = repository
+                .updateMovieDetails(id, movieUpdate)
+                .orElseThrow(() -> new IllegalArgumentException("No movie with that id exists!"));
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateException(DUPLICATE_MOVIE_MESSAGE);
+        }
+        invalidationBus.publish(InvalidationTarget.MOVIE, id);
+        facetCache.movieChanged(movie, updated);
+        return published(updated);
     }
 
     @Override
@@ -96,6 +334,9 @@ public class MovieServiceImpl implements MovieService, ReviewService {
 
         deleteMovieComments(id);
         repository.deleteById(id);
+        invalidationBus.publish(InvalidationTarget.MOVIE, id);
+        facetCache.invalidate();
+        eventPublisher.publishEvent(new MovieDeletedEvent(id));
         return "Movie successfully deleted";
     }
 
@@ -104,31 +345,146 @@ public class MovieServiceImpl implements MovieService, ReviewService {
         return getAllMovieComments(id);
     }
 
+    @Override
+    public Stream<Comment> streamMovieComments(String id) {
+        // The movie is looked up right away, so an unknown id fails before the response starts; the comments are only
+        // read once the stream is consumed. Legacy comments already carrying movieId come with the linked ones.
+        List<String> legacyCommentIds = getLegacyCommentIds(id);
+        Stream<Supplier<Stream<Comment>>> sources = Stream.of(
+            () -> legacyCommentIds.isEmpty()
+                ? Stream.empty()
+                : commentService.getCommentsByIds(legacyCommentIds).stream().filter(comment -> comment.getMovieId() == null),
+            () -> commentService.streamMovieComments(id)
+        );
+        return sources.flatMap(Supplier::get);
+    }
+
+    @Override
+    public CursorPageDto<Comment> getMovieCommentsPage(String id, String sort, String cursor, int size) {
+        return commentService.getMovieCommentsPage(id, ReviewSort.fromString(sort), cursor, size);
+    }
+
+    @Override
+    public RatingHistogramDto getMovieRatingHistogram(String id) {
+        Movie movie = repository
+            .findRatingsById(id)
+            .orElseThrow(() -> new IllegalArgumentException("No movie with that id exists!"));
+
+        Map<String, Long> histogram = Optional.ofNullable(movie.getRatingHistogram()).orElse(Collections.emptyMap());
+        List<Long> counts = IntStream.rangeClosed(MIN_RATING, MAX_RATING)
+                                     .mapToObj(rating -> histogram.getOrDefault(String.valueOf(rating), 0L))
+                                     .collect(Collectors.toList());
+        long total = counts.stream().mapToLong(Long::longValue).sum();
+
+        return RatingHistogramDto.builder()
+                                 .movieId(id)
+                                 .counts(counts)
+                                 .total(total)
+                                 .avgRating(movie.getAvgRating())
+                                 .median(calculateMedian(counts, total))
+                                 .build();
+    }
+
     @Override
     public Movie addMovieComment(String username, String id, Comment comment) {
+        if(!repository.existsById(id))
+            throw new IllegalArgumentException("No movie with that id exists!");
+
+        comment.setMovieId(id);
         Comment newComment = commentService.addComment(username, comment);
 
-        Movie movieUpdate = getMovieById(id);
-        movieUpdate.getCommentIds().add(newComment.getId());
-        double avgRatingUpdate = calculateAvgRating(movieUpdate);
-        movieUpdate.setAvgRating(avgRatingUpdate);
+        Movie movie = repository
+            .addRating(id, newComment.getRating())
+            .map(this::ratingsChanged)
+            .orElseThrow(() -> new IllegalArgumentException("No movie with that id exists!"));
+        eventPublisher.publishEvent(new ReviewAddedEvent(id, newComment.getAddDate()));
+        return movie;
+    }
 
-        repository.save(movieUpdate);
-        return movieUpdate;
+    @Override
+    public List<BulkReviewResultDto> importMovieComments(List<BulkReviewDto> reviews) {
+        Map<String, String> userIdsByUsername = userFinderService
+            .findUsersByUsernames(reviews.stream().map(BulkReviewDto::getUsername).filter(Objects::nonNull).collect(Collectors.toSet()))
+            .stream()
+            .collect(Collectors.toMap(CustomUser::getUsername, CustomUser::getId));
+        Set<String> existingMovieIds = repository
+            .findIdsByIdIn(reviews.stream().map(BulkReviewDto::getMovieId).filter(Objects::nonNull).collect(Collectors.toSet()))
+            .stream()
+            .map(Movie::getId)
+            .collect(Collectors.toSet());
+
+        BulkReviewResultDto[] results = new BulkReviewResultDto[reviews.size()];
+        List<Comment> comments = new ArrayList<>();
+        List<Integer> commentPositions = new ArrayList<>();
+        Set<String> reviewedMovies = new HashSet<>();
+        for(int i = 0; i < reviews.size(); i++) {
+            BulkReviewDto review = reviews.get(i);
+            String authorId = userIdsByUsername.get(review.getUsername());
+            String error = validateBulkReview(review, authorId, existingMovieIds, reviewedMovies);
+            if(error != null) {
+                results[i] = bulkReviewResult(review, null, error);
+                continue;
+            }
+            comments.add(Comment.builder()
+                                .movieId(review.getMovieId())
+                                .authorId(authorId)
+                                .rating(review.getRating())
+                                .text(review.getText())
+                                .build());
+            commentPositions.add(i);
+        }
+
+        // One aggregate update per movie, no matter how many of its reviews are in the batch.
+        Map<Integer, String> insertErrors = commentService.addComments(comments);
+        Map<String, List<Integer>> insertedByMovie = new LinkedHashMap<>();
+        for(int j = 0; j < comments.size(); j++) {
+            int position = commentPositions.get(j);
+            if(insertErrors.containsKey(j))
+                results[position] = bulkReviewResult(reviews.get(position), null, insertErrors.get(j));
+            else
+                insertedByMovie.computeIfAbsent(comments.get(j).getMovieId(), movieId -> new ArrayList<>()).add(j);
+        }
+        insertedByMovie.forEach((movieId, inserted) -> {
+            List<Comment> movieComments = inserted.stream().map(comments::get).collect(Collectors.toList());
+            List<String> commentIds = movieComments.stream().map(Comment::getId).collect(Collectors.toList());
+            Map<Integer, Long> ratingCounts = movieComments.stream().collect(Collectors.groupingBy(Comment::getRating, Collectors.counting()));
+
+            boolean movieExists = repository.addRatings(movieId, ratingCounts).map(this::ratingsChanged).isPresent();
+            if(!movieExists)
+                commentService.deleteComments(commentIds);
+            for(int j : inserted) {
+                int position = commentPositions.get(j);
+                Comment comment = comments.get(j);
+                if(movieExists) {
+                    results[position] = bulkReviewResult(reviews.get(position), comment.getId(), null);
+                    eventPublisher.publishEvent(new ReviewAddedEvent(movieId, comment.getAddDate()));
+                } else {
+                    results[position] = bulkReviewResult(reviews.get(position), null, "No movie with that id exists!");
+                }
+            }
+        });
+
+        return Arrays.asList(results);
     }
 
     @Override
     public Comment updateMovieComment(String id, String commentId, Comment commentUpdate) {
         if(!repository.existsById(id))
             throw new IllegalArgumentException("No movie with that id exists!");
-
-        Comment updatedComment = commentService.updateComment(commentId, commentUpdate);
-        Movie movieUpdate = getMovieById(id);
-        double avgRatingUpdate = calculateAvgRating(movieUpdate);
-        movieUpdate.setAvgRating(avgRatingUpdate);
-
-        repository.save(movieUpdate);
-        return updatedComment;
+        if(!isMovieComment(id, commentService.getCommentById(commentId)))
+            throw new IllegalArgumentException("No comment with that id exists!");
+
+        // The counters move from the rating the update replaced in the database, so concurrent updates of the same
+        // review each undo exactly the rating they overwrote. A review RatingCountersBackfill has not counted yet is
+        // counted later with the rating it has by then.
+        Comment previous = commentService.updateComment(id, commentId, commentUpdate);
+        if(previous.isRatingCounted() && !previous.getRating().equals(commentUpdate.getRating())) {
+            repository
+                .changeRating(id, previous.getRating(), commentUpdate.getRating())
+                .map(this::ratingsChanged)
+                .orElseThrow(() -> new IllegalArgumentException("No movie with that id exists!"));
+        }
+        return commentUpdate;
     }
 
     @Override
@@ -136,37 +492,160 @@ public class MovieServiceImpl implements MovieService, ReviewService {
         if(!repository.existsById(movieId))
             throw new IllegalArgumentException("No movie with that id exists!");
 
-        commentService.deleteComment(commentId);
-        Movie movieUpdate = getMovieById(movieId);
-        movieUpdate.getCommentIds().remove(commentId);
-        double avgRatingUpdate = calculateAvgRating(movieUpdate);
-        movieUpdate.setAvgRating(avgRatingUpdate);
+        if(!isMovieComment(movieId, commentService.getCommentById(commentId)))
+            throw new IllegalArgumentException("No comment with that id exists!");
+
+        // The comment goes first: of concurrent deletes only the one that removed it takes its rating off the counters,
+        // and with the rating it had when it was removed.
+        Comment comment = commentService.deleteComment(movieId, commentId);
+        if(!comment.isRatingCounted()) {
+            repository.pullLegacyCommentRefs(movieId, List.of(commentId));
+            return repository
+                .findById(movieId)
+                .orElseThrow(() -> new IllegalArgumentException("No movie with that id exists!"));
+        }
+        return repository
+            .removeRating(movieId, commentId, comment.getRating())
+            .map(this::ratingsChanged)
+            .orElseThrow(() -> new IllegalArgumentException("No movie with that id exists!"));
+    }
+
+    private String validateBulkReview(BulkReviewDto review, String authorId, Set<String> existingMovieIds, Set<String> reviewedMovies) {
+        if(review.getRating() == null || review.getRating() < MIN_RATING || review.getRating() > MAX_RATING)
+            return "Rating must be between " + MIN_RATING + " and " + MAX_RATING + "!";
+        if(!existingMovieIds.contains(review.getMovieId()))
+            return "No movie with that id exists!";
+        if(authorId == null)
+            return "No user with that username exists!";
+        if(!reviewedMovies.add(review.getMovieId() + ":" + authorId))
+            return "You have already reviewed this movie!";
+        return null;
+    }
+
+    private BulkReviewResultDto bulkReviewResult(BulkReviewDto review, String commentId, String error) {
+        return BulkReviewResultDto.builder()
+                                  .line(review.getLine())
+                                  .movieId(review.getMovieId())
+                                  .commentId(commentId)
+                                  .error(error)
+                                  .build();
+    }
+
+    private String describeMovieWriteError(BulkWriteError error) {
+        return error.getCode() == DUPLICATE_KEY_ERROR_CODE ? DUPLICATE_MOVIE_MESSAGE : error.getMessage();
+    }
+
+    // With asynchronous aggregation the MovieUpdatedEvent only follows once the average is stored, the counters have
+    // changed already. The pipeline invalidates the movie once more when it stores the average.
+    private Movie ratingsChanged(Movie movie) {
+        Movie changed = ratingAggregation.ratingsChanged(movie);
+        invalidationBus.publish(InvalidationTarget.MOVIE, movie.getId());
+        return changed;
+    }
+
+    private Movie published(Movie movie) {
+        eventPublisher.publishEvent(new MovieUpdatedEvent(movie));
+        return movie;
+    }
 
-        repository.save(movieUpdate);
-        return movieUpdate;
+    // Until CommentMovieIdMigration has visited a movie, part of its reviews are only linked through commentIds.
+    private List<String> getLegacyCommentIds(String id) {
+        return Optional.ofNullable(getMovieById(id).getCommentIds()).orElse(Collections.emptyList());
+    }
+
+    private boolean isMovieComment(String movieId, Comment comment) {
+        if(comment.getMovieId() != null)
+            return comment.getMovieId().equals(movieId);
+        return repository.existsByIdAndCommentIds(movieId, comment.getId());
     }
 
     private void deleteMovieComments(String id) {
-        getMovieById(id)
-            .getCommentIds()
-            .forEach(commentService::deleteComment);
+        List<String> legacyCommentIds = getLegacyCommentIds(id);
+        if(!legacyCommentIds.isEmpty())
+            commentService.deleteComments(legacyCommentIds);
+        commentService.deleteMovieComments(id);
     }
 
     private List<Comment> getAllMovieComments(String id) {
-        return getMovieById(id)
-            .getCommentIds()
-            .stream()
-            .map(commentService::getCommentById)
-            .collect(Collectors.toList());
+        List<String> legacyCommentIds = getLegacyCommentIds(id);
+        List<Comment> comments = commentService.getMovieComments(id);
+        if(legacyCommentIds.isEmpty())
+            return comments;
+
+        Set<String> linkedIds = comments.stream().map(Comment::getId).collect(Collectors.toSet());
+        List<Comment> allComments = new ArrayList<>(commentService.getCommentsByIds(
+            legacyCommentIds.stream().filter(commentId -> !linkedIds.contains(commentId)).collect(Collectors.toList())));
+        allComments.addAll(comments);
+        return allComments;
+    }
+
+    private double calculateMedian(List<Long> counts, long total) {
+        if(total == 0)
+            return 0.0;
+        return (ratingAtRank(counts, (total - 1) / 2) + ratingAtRank(counts, total / 2)) / 2.0;
+    }
+
+    private int ratingAtRank(List<Long> counts, long rank) {
+        long cumulative = 0;
+        for(int i = 0; i < counts.size(); i++) {
+            cumulative += counts.get(i);
+            if(rank < cumulative)
+                return MIN_RATING + i;
+        }
+        return MAX_RATING;
+    }
+
+    private void validateCatalogFilter(MovieCatalogFilter filter) {
+        if(filter.getMinRating() != null && (filter.getMinRating() < 0 || filter.getMinRating() > MAX_RATING))
+            throw new IllegalArgumentException("Minimum rating must be between 0 and " + MAX_RATING + "!");
+    }
+
+    private MovieSummaryDto toSummary(Movie movie) {
+        return MovieSummaryDto.builder()
+                              .id(movie.getId())
+                              .title(movie.getTitle())
+                              .genre(movie.getGenre())
+                              .year(movie.getYear())
+                              .director(movie.getDirector())
+                              .avgRating(movie.getAvgRating())
+                              .reviewCount(movie.getRatingCount())
+                              .build();
+    }
 
+    // The cursor carries the sort it was issued for, so it cannot be replayed against a different order.
+    private String encodeCursor(MovieSort sort, Movie last) {
+        Object value;
+        switch(sort.getProperty()) {
+            case "avgRating":
+                value = last.getAvgRating();
+                break;
+            case "year":
+                value = last.getYear();
+                break;
+            default:
+                value = last.getTitle();
+        }
+        String key = sort.name() + CURSOR_SEPARATOR + last.getId() + CURSOR_SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
     }
 
-    private double calculateAvgRating(Movie movie) {
-        return movie.getCommentIds().stream()
-                    .map(commentService::getCommentById)
-                    .map(Comment::getRating)
-                    .mapToDouble(Integer::intValue)
-                    .average()
-                    .orElse(0.0);
+    private Movie decodeCursor(MovieSort sort, String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(CURSOR_SEPARATOR, 3);
+            if(!sort.name().equals(key[0]))
+                throw new IllegalArgumentException();
+
+            Movie.MovieBuilder after = Movie.builder().id(key[1]);
+            switch(sort.getProperty()) {
+                case "avgRating":
+                    return after.avgRating(Double.parseDouble(key[2])).build();
+                case "year":
+                    return after.year(Integer.parseInt(key[2])).build();
+                default:
+                    return after.title(key[2]).build();
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor!");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,374 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.gmiedlar.moviereviewer.config.ImportMode;
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.MovieSuggestionDto;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import com.gmiedlar.moviereviewer.event.MovieDeletedEvent;
+import com.gmiedlar.moviereviewer.event.MovieUpdatedEvent;
+import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Autocomplete over the words of {@link Movie#getTitle()} and {@link Movie#getDirector()}.
+ * <p>
+ * Exact prefixes are looked up in a sorted word map. When a prefix is so short that it matches more than
+ * {@value #MAX_PREFIX_CANDIDATES} movies, the movies are walked in review-count order instead and the walk stops
+ * at the first {@code limit} matches. Typos are handled with a trigram index over the same words: candidates
+ * sharing enough trigrams with the typed prefix are confirmed with a bounded edit distance. Movies written on other
+ * instances are reloaded when their invalidation arrives over the {@link InvalidationBus}.
+ */
+@Component
+public class MovieSuggestIndex implements InvalidationListener {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final int MAX_PREFIX_CANDIDATES = 256;
+
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    private static final String WORD_START = "$";
+
+    private static final Comparator<Entry> POPULARITY = Comparator.comparingInt(Entry::getRatingCount).reversed()
+                                                                  .thenComparing(Entry::getId);
+
+    private final MovieRepository repository;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final NavigableSet<Entry> byPopularity = new ConcurrentSkipListSet<>(POPULARITY);
+
+    private final ConcurrentSkipListMap<String, Set<String>> moviesByWord = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Set<String>> wordsByTrigram = new ConcurrentHashMap<>();
+
+    public MovieSuggestIndex(MovieRepository repository, InvalidationBus invalidationBus) {
+        this.repository = repository;
+        invalidationBus.subscribeRemote(InvalidationTarget.MOVIE, this);
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = ImportMode.SERVING)
+    public void rebuild() {
+        Set<String> removed = new HashSet<>(entries.keySet());
+        try (Stream<Movie> movies = repository.streamAll()) {
+            movies.forEach(movie -> {
+                removed.remove(movie.getId());
+                update(movie);
+            });
+        }
+        removed.forEach(this::remove);
+        LOGGER.info("Built movie suggest index [movies={}, words={}]", entries.size(), moviesByWord.size());
+    }
+
+    // Movies written on another instance.
+    @Override
+    public void invalidateAll(Collection<String> ids) {
+        try {
+            Set<String> removed = new HashSet<>(ids);
+            repository.findAllById(ids).forEach(movie -> {
+                removed.remove(movie.getId());
+                update(movie);
+            });
+            removed.forEach(this::remove);
+        } catch (DataAccessException e) {
+            LOGGER.warn("Failed to reload movies {} into the suggest index: " + e.getMessage(), ids);
+        }
+    }
+
+    // Invalidations from other instances were missed.
+    @Override
+    public void invalidateAll() {
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            LOGGER.warn("Failed to rebuild the suggest index: " + e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onMovieUpdated(MovieUpdatedEvent event) {
+        update(event.getMovie());
+    }
+
+    @EventListener
+    public void onMovieDeleted(MovieDeletedEvent event) {
+        remove(event.getMovieId());
+    }
+
+    public synchronized void update(Movie movie) {
+        Entry current = entries.get(movie.getId());
+        if(current != null && current.revision > movie.getRevision())
+            return;
+
+        List<String> words = Stream.concat(words(movie.getTitle()).stream(), words(movie.getDirector()).stream())
+                                   .distinct()
+                                   .collect(Collectors.toList());
+        Entry entry = new Entry(movie, words);
+        if(current != null) {
+            byPopularity.remove(current);
+            current.words.stream().filter(word -> !entry.words.contains(word)).forEach(word -> unlinkWord(word, current.id));
+        }
+        entry.words.forEach(word -> linkWord(word, entry.id));
+        entries.put(entry.id, entry);
+        byPopularity.add(entry);
+    }
+
+    public synchronized void remove(String movieId) {
+        Entry current = entries.remove(movieId);
+        if(current == null)
+            return;
+        byPopularity.remove(current);
+        current.words.forEach(word -> unlinkWord(word, movieId));
+    }
+
+    public List<MovieSuggestionDto> suggest(String prefix, int limit) {
+        List<String> typed = words(prefix);
+        if(typed.isEmpty())
+            return List.of();
+        String last = typed.get(typed.size() - 1);
+        List<String> leading = typed.subList(0, typed.size() - 1);
+
+        List<Entry> exact = exactMatches(last, leading, limit);
+        List<Entry> suggestions = new ArrayList<>(exact);
+        if(suggestions.size() < limit && last.length() >= MIN_FUZZY_LENGTH) {
+            Set<String> seen = exact.stream().map(Entry::getId).collect(Collectors.toSet());
+            fuzzyMatches(last, leading, limit + seen.size()).stream()
+                                       .filter(entry -> !seen.contains(entry.id))
+                                       .limit(limit - suggestions.size())
+                                       .forEach(suggestions::add);
+        }
+        return suggestions.stream().map(Entry::toDto).collect(Collectors.toList());
+    }
+
+    private List<Entry> exactMatches(String last, List<String> leading, int limit) {
+        // Every typed word has to match, so the most selective one is enough to collect the candidates.
+        Set<String> candidates = null;
+        for(String typed : leading) {
+            candidates = narrower(candidates, prefixCandidates(typed));
+        }
+        candidates = narrower(candidates, prefixCandidates(last));
+        if(candidates == null) {
+            // Too broad to sort: walk in popularity order and stop at the first matches.
+            return byPopularity.stream()
+                               .filter(entry -> entry.matches(last, leading))
+                               .limit(limit)
+                               .collect(Collectors.toList());
+        }
+        return candidates.stream()
+                         .map(entries::get)
+                         .filter(entry -> entry != null && entry.matches(last, leading))
+                         .sorted(POPULARITY)
+                         .limit(limit)
+                         .collect(Collectors.toList());
+    }
+
+    // Movies having a word that starts with the prefix, or null when there are more than MAX_PREFIX_CANDIDATES of them.
+    private Set<String> prefixCandidates(String prefix) {
+        Set<String> candidates = new LinkedHashSet<>();
+        for(Set<String> movieIds : moviesByWord.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            candidates.addAll(movieIds);
+            if(candidates.size() > MAX_PREFIX_CANDIDATES)
+                return null;
+        }
+        return candidates;
+    }
+
+    private static Set<String> narrower(Set<String> current, Set<String> next) {
+        if(current == null)
+            return next;
+        if(next == null)
+            return current;
+        return next.size() < current.size() ? next : current;
+    }
+
+    // q-gram filter: a word whose prefix is within k edits of the typed text shares at least |T| - 3k trigrams with it.
+    private List<Entry> fuzzyMatches(String last, List<String> leading, int limit) {
+        int maxEdits = last.length() > 5 ? 2 : 1;
+        List<String> trigrams = trigrams(last);
+        int required = Math.max(1, trigrams.size() - 3 * maxEdits);
+
+        Map<String, Integer> shared = new HashMap<>();
+        for(String trigram : trigrams) {
+            for(String word : wordsByTrigram.getOrDefault(trigram, Set.of()))
+                shared.merge(word, 1, Integer::sum);
+        }
+
+        Map<String, Integer> similarWords = new HashMap<>();
+        shared.forEach((word, count) -> {
+            if(count < required)
+                return;
+            int distance = prefixDistance(last, word, maxEdits);
+            if(distance <= maxEdits)
+                similarWords.put(word, distance);
+        });
+
+        int movieCount = 0;
+        for(String word : similarWords.keySet()) {
+            movieCount += moviesByWord.getOrDefault(word, Set.of()).size();
+            if(movieCount > MAX_PREFIX_CANDIDATES) {
+                // Same trade-off as for exact prefixes: the first matches in popularity order are good enough.
+                return byPopularity.stream()
+                                   .filter(entry -> entry.matchesLeading(leading) && entry.words.stream().anyMatch(similarWords::containsKey))
+                                   .limit(limit)
+                                   .collect(Collectors.toList());
+            }
+        }
+
+        Map<String, Integer> distances = new HashMap<>();
+        similarWords.forEach((word, distance) -> moviesByWord.getOrDefault(word, Set.of())
+                                                             .forEach(movieId -> distances.merge(movieId, distance, Math::min)));
+        Comparator<Entry> ranking = Comparator.<Entry>comparingInt(entry -> distances.get(entry.id)).thenComparing(POPULARITY);
+        return distances.keySet().stream()
+                        .map(entries::get)
+                        .filter(entry -> entry != null && entry.matchesLeading(leading))
+                        .sorted(ranking)
+                        .limit(limit)
+                        .collect(Collectors.toList());
+    }
+
+    // Smallest Levenshtein distance between the typed text and any prefix of the word.
+    private int prefixDistance(String typed, String word, int maxEdits) {
+        int[] previous = new int[word.length() + 1];
+        int[] current = new int[word.length() + 1];
+        for(int j = 0; j <= word.length(); j++)
+            previous[j] = j;
+        for(int i = 1; i <= typed.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for(int j = 1; j <= word.length(); j++) {
+                int substitution = previous[j - 1] + (typed.charAt(i - 1) == word.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if(rowMin > maxEdits)
+                return rowMin;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Arrays.stream(previous).min().orElse(Integer.MAX_VALUE);
+    }
+
+    private void linkWord(String word, String movieId) {
+        Set<String> movieIds = moviesByWord.computeIfAbsent(word, w -> {
+            trigrams(w).forEach(trigram -> wordsByTrigram.computeIfAbsent(trigram, t -> ConcurrentHashMap.newKeySet()).add(w));
+            return ConcurrentHashMap.newKeySet();
+        });
+        movieIds.add(movieId);
+    }
+
+    private void unlinkWord(String word, String movieId) {
+        Set<String> movieIds = moviesByWord.get(word);
+        if(movieIds == null)
+            return;
+        movieIds.remove(movieId);
+        if(movieIds.isEmpty()) {
+            moviesByWord.remove(word);
+            trigrams(word).forEach(trigram -> {
+                Set<String> words = wordsByTrigram.get(trigram);
+                if(words != null) {
+                    words.remove(word);
+                    if(words.isEmpty())
+                        wordsByTrigram.remove(trigram);
+                }
+            });
+        }
+    }
+
+    private static List<String> words(String text) {
+        if(text == null)
+            return List.of();
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        return NON_WORD.splitAsStream(normalized)
+                       .filter(word -> !word.isEmpty())
+                       .distinct()
+                       .collect(Collectors.toList());
+    }
+
+    private static List<String> trigrams(String word) {
+        String padded = WORD_START + WORD_START + word;
+        List<String> trigrams = new ArrayList<>(word.length());
+        for(int i = 0; i + 3 <= padded.length(); i++)
+            trigrams.add(padded.substring(i, i + 3));
+        return trigrams;
+    }
+
+    private static class Entry {
+
+        private final String id;
+
+        private final MovieSuggestionDto movie;
+
+        private final List<String> words;
+
+        private final long revision;
+
+        Entry(Movie movie, List<String> words) {
+            this.id = movie.getId();
+            this.movie = MovieSuggestionDto.builder()
+                                           .id(movie.getId())
+                                           .title(movie.getTitle())
+                                           .director(movie.getDirector())
+                                           .year(movie.getYear())
+                                           .reviewCount(movie.getRatingCount())
+                                           .build();
+            this.words = words;
+            this.revision = movie.getRevision();
+        }
+
+        boolean matches(String last, List<String> leading) {
+            return matchesLeading(leading) && words.stream().anyMatch(word -> word.startsWith(last));
+        }
+
+        boolean matchesLeading(List<String> leading) {
+            return leading.stream().allMatch(typed -> words.stream().anyMatch(word -> word.startsWith(typed)));
+        }
+
+        String getId() {
+            return id;
+        }
+
+        int getRatingCount() {
+            return movie.getReviewCount();
+        }
+
+        MovieSuggestionDto toDto() {
+            return MovieSuggestionDto.builder()
+                                     .id(movie.getId())
+                                     .title(movie.getTitle())
+                                     .director(movie.getDirector())
+                                     .year(movie.getYear())
+                                     .reviewCount(movie.getReviewCount())
+                                     .build();
+        }
+    }
+}
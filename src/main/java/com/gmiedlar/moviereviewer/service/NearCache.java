@@ -0,0 +1,71 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded in-process cache of documents by id, in front of the repository lookups of a service.
+ * <p>
+ * Eviction is frequency-aware (Caffeine's W-TinyLFU), so a scan over many cold ids does not push out the hot ones.
+ * Writers invalidate through the {@link InvalidationBus} after the database write: an invalidation waits for a load of
+ * the same id that is in flight in {@link #get}, so an older document read before the write is never left behind.
+ * Nothing holds off an invalidation during a bulk load, so {@link #getAll} only serves cached documents and does not
+ * cache the ones it loads. Entries also expire {@code ttl} after they were loaded, a last resort should an
+ * invalidation from another instance be lost. Misses are not cached.
+ * <p>
+ * Cached documents are shared between callers and must not be modified.
+ */
+public class NearCache<T> implements InvalidationListener {
+
+    private final Cache<String, T> cache;
+
+    public NearCache(String name, long maxSize, long ttlMillis, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maxSize)
+                             .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                             .recordStats()
+                             .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    public Optional<T> get(String id, Function<String, Optional<T>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    // Ids that are not cached are loaded with a single call; ids the loader does not return are left out of the result.
+    public Map<String, T> getAll(Collection<String> ids, Function<List<String>, Map<String, T>> loader) {
+        Map<String, T> documents = new HashMap<>(cache.getAllPresent(ids));
+        List<String> missingIds = ids.stream()
+                                     .distinct()
+                                     .filter(id -> !documents.containsKey(id))
+                                     .collect(Collectors.toList());
+        if(!missingIds.isEmpty())
+            documents.putAll(loader.apply(missingIds));
+        return documents;
+    }
+
+    public void invalidate(String id) {
+        cache.invalidate(id);
+    }
+
+    @Override
+    public void invalidateAll(Collection<String> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,104 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs password hashing and verification off the request threads, so a burst of logins cannot occupy the threads
+ * every other endpoint needs.
+ * <p>
+ * The work runs on {@code password.hashing.threads} threads, by default one per CPU, behind a queue of
+ * {@code password.hashing.queue-capacity}. When the queue is full, {@link #submit} throws a
+ * {@link RejectedExecutionException} right away, so the caller can turn the client away instead of making it wait.
+ * Results are completed on a pool of its own, {@code password.hashing.completion-threads} threads behind a queue of
+ * {@code password.hashing.completion-queue-capacity}, so that whatever the caller chains onto them, such as saving the
+ * user or sending an e-mail, never holds a hashing thread nor the executor the async requests are served on.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final ThreadPoolExecutor completionExecutor;
+
+    private final ThreadPoolExecutor executor;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                          @Value("${password.hashing.threads}") int threads,
+                          @Value("${password.hashing.queue-capacity}") int queueCapacity,
+                          @Value("${password.hashing.completion-threads}") int completionThreads,
+                          @Value("${password.hashing.completion-queue-capacity}") int completionQueueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.meterRegistry = meterRegistry;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = newPool("password-hashing-", poolSize, queueCapacity);
+        this.completionExecutor = newPool("password-completion-", completionThreads, completionQueueCapacity);
+
+        Gauge.builder("password.hashing.queue", executor, pool -> pool.getQueue().size())
+             .description("Password hashing tasks waiting for a thread")
+             .register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                               .description("Password hashing tasks turned away because the queue was full")
+                               .register(meterRegistry);
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit("encode", () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return submit("matches", () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public <T> CompletableFuture<T> submit(String operation, Supplier<T> work) {
+        Timer timer = Timer.builder("password.hashing.time")
+                           .description("Time spent hashing or verifying a password")
+                           .tag("operation", operation)
+                           .register(meterRegistry);
+        try {
+            return CompletableFuture
+                .supplyAsync(() -> timer.record(work), executor)
+                .whenCompleteAsync((result, e) -> {}, completionExecutor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        completionExecutor.shutdownNow();
+    }
+
+    private static ThreadPoolExecutor newPool(String threadPrefix, int poolSize, int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, threadPrefix + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+}
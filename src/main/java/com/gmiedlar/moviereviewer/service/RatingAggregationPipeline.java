@@ -0,0 +1,206 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import com.gmiedlar.moviereviewer.event.MovieUpdatedEvent;
+import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finishes a rating change after its counters have been written: stores the derived average and publishes
+ * {@link MovieUpdatedEvent}.
+ * <p>
+ * In {@code sync} mode this happens on the request thread. In {@code async} mode the movie is only marked dirty;
+ * repeated marks within {@code movie.rating.aggregation.window} are merged and a worker refreshes the movie once.
+ * In {@code sync} mode every review costs two writes: the counter findAndModify and the {@code storeAvgRating} update,
+ * followed by the event and the index updates it triggers. {@code async} removes the second write from the review:
+ * the average is stored, and the event and index work done, once per movie per burst instead of once per review. The
+ * counter findAndModify stays synchronous in both modes, so no review is lost if the process stops with movies still
+ * pending - only their stored average is stale until the next review.
+ */
+@Component
+public class RatingAggregationPipeline {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    private static final String ASYNC_MODE = "async";
+
+    private final MovieRepository repository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final InvalidationBus invalidationBus;
+
+    private final boolean async;
+
+    private final long windowMillis;
+
+    private final int workers;
+
+    private final Map<String, Long> dirtySince = new ConcurrentHashMap<>();
+
+    private final DelayQueue<DirtyMovie> queue = new DelayQueue<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong lastFlushLagMillis = new AtomicLong();
+
+    private final Object idleMonitor = new Object();
+
+    private ExecutorService executor;
+
+    public RatingAggregationPipeline(MovieRepository repository, ApplicationEventPublisher eventPublisher,
+                                     InvalidationBus invalidationBus, MeterRegistry meterRegistry,
+                                     @Value("${movie.rating.aggregation.mode}") String mode,
+                                     @Value("${movie.rating.aggregation.window}") long windowMillis,
+                                     @Value("${movie.rating.aggregation.workers}") int workers) {
+        this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.invalidationBus = invalidationBus;
+        this.async = ASYNC_MODE.equalsIgnoreCase(mode);
+        this.windowMillis = windowMillis;
+        this.workers = workers;
+
+        Gauge.builder("movie.rating.aggregation.pending", dirtySince, Map::size)
+             .description("Movies whose rating aggregates have not been refreshed yet")
+             .register(meterRegistry);
+        Gauge.builder("movie.rating.aggregation.lag", this, RatingAggregationPipeline::getLagMillis)
+             .description("Age of the oldest pending rating change")
+             .baseUnit("milliseconds")
+             .register(meterRegistry);
+        Gauge.builder("movie.rating.aggregation.last-flush-lag", lastFlushLagMillis, AtomicLong::get)
+             .description("Time the most recently refreshed movie waited in the queue")
+             .baseUnit("milliseconds")
+             .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if(!async)
+            return;
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "rating-aggregation-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for(int i = 0; i < workers; i++)
+            executor.execute(this::work);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if(executor == null)
+            return;
+        executor.shutdownNow();
+        executor.awaitTermination(windowMillis + 5000, TimeUnit.MILLISECONDS);
+        dirtySince.keySet().forEach(this::flush);
+    }
+
+    public Movie ratingsChanged(Movie movie) {
+        if(!async) {
+            repository.storeAvgRating(movie);
+            eventPublisher.publishEvent(new MovieUpdatedEvent(movie));
+            return movie;
+        }
+        long now = System.currentTimeMillis();
+        if(dirtySince.putIfAbsent(movie.getId(), now) == null)
+            queue.add(new DirtyMovie(movie.getId(), now + windowMillis));
+        return movie;
+    }
+
+    public long getLagMillis() {
+        long now = System.currentTimeMillis();
+        return dirtySince.values().stream().mapToLong(since -> now - since).max().orElse(0L);
+    }
+
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized(idleMonitor) {
+            while(!dirtySince.isEmpty() || inFlight.get() > 0) {
+                long remaining = deadline - System.nanoTime();
+                if(remaining <= 0)
+                    return false;
+                TimeUnit.NANOSECONDS.timedWait(idleMonitor, remaining);
+            }
+        }
+        return true;
+    }
+
+    private void work() {
+        while(!Thread.currentThread().isInterrupted()) {
+            DirtyMovie next;
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            inFlight.incrementAndGet();
+            try {
+                flush(next.movieId);
+            } finally {
+                inFlight.decrementAndGet();
+                synchronized(idleMonitor) {
+                    idleMonitor.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void flush(String movieId) {
+        // Unmarked before reading, so a review landing during the refresh marks the movie again.
+        Long since = dirtySince.remove(movieId);
+        if(since == null)
+            return;
+        lastFlushLagMillis.set(System.currentTimeMillis() - since);
+        try {
+            repository.refreshAvgRating(movieId).ifPresent(movie -> {
+                invalidationBus.publish(InvalidationTarget.MOVIE, movieId);
+                eventPublisher.publishEvent(new MovieUpdatedEvent(movie));
+            });
+        } catch (RuntimeException e) {
+            LOGGER.warn("Exception thrown while refreshing movie [id={}] rating aggregates: " + e.getMessage(), movieId);
+        }
+    }
+
+    private static class DirtyMovie implements Delayed {
+
+        private final String movieId;
+
+        private final long dueAt;
+
+        DirtyMovie(String movieId, long dueAt) {
+            this.movieId = movieId;
+            this.dueAt = dueAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.PreDestroy;
+
+import com.gmiedlar.moviereviewer.config.ImportMode;
+import com.gmiedlar.moviereviewer.domain.Comment;
+import com.gmiedlar.moviereviewer.domain.MigrationState;
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import com.gmiedlar.moviereviewer.repository.CommentRepository;
+import com.gmiedlar.moviereviewer.repository.MigrationStateRepository;
+import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the reviews written before movies kept rating counters to {@code ratingSum}, {@code ratingCount} and
+ * {@code ratingHistogram}.
+ * <p>
+ * Runs in the background once the application is ready, like {@link CommentMovieIdMigration}: movies are visited in id
+ * order, their reviews - linked through {@code movieId} or still through the legacy array - in batches of
+ * {@code movie.rating-backfill.batch-size} with a pause of {@code movie.rating-backfill.pause} after every batch, and
+ * the last finished movie is checkpointed in the {@code migration} collection, so a restart resumes where it stopped.
+ * <p>
+ * Reviews written since carry {@link Comment#isRatingCounted()}. A legacy review is marked with a findAndModify and its
+ * rating added right after, and updates and deletes only move the counters for reviews that are already marked, so a
+ * review is counted once whether a concurrent update or delete reaches it before or after the backfill. Until the
+ * backfill has completed, the counters of legacy movies, and the averages, rankings and histograms built on them, only
+ * reflect the reviews counted so far.
+ */
+@Component
+public class RatingCountersBackfill {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    static final String MIGRATION_ID = "rating-counters";
+
+    private final MovieRepository movieRepository;
+
+    private final CommentRepository commentRepository;
+
+    private final MigrationStateRepository stateRepository;
+
+    private final InvalidationBus invalidationBus;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final long pauseMillis;
+
+    private final AtomicReference<MigrationState> state = new AtomicReference<>(MigrationState.builder().id(MIGRATION_ID).build());
+
+    private ExecutorService executor;
+
+    public RatingCountersBackfill(MovieRepository movieRepository, CommentRepository commentRepository,
+                                  MigrationStateRepository stateRepository, InvalidationBus invalidationBus, MeterRegistry meterRegistry,
+                                  @Value("${movie.rating-backfill.enabled}") boolean enabled,
+                                  @Value("${movie.rating-backfill.batch-size}") int batchSize,
+                                  @Value("${movie.rating-backfill.pause}") long pauseMillis) {
+        this.movieRepository = movieRepository;
+        this.commentRepository = commentRepository;
+        this.stateRepository = stateRepository;
+        this.invalidationBus = invalidationBus;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+
+        Gauge.builder("movie.rating-backfill.movies", state, s -> s.get().getMigratedMovies())
+             .description("Movies whose legacy reviews have been added to the rating counters")
+             .register(meterRegistry);
+        Gauge.builder("movie.rating-backfill.comments", state, s -> s.get().getMigratedComments())
+             .description("Legacy reviews added to the rating counters")
+             .register(meterRegistry);
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = ImportMode.SERVING)
+    public void start() {
+        if(!enabled)
+            return;
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rating-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(() -> {
+            try {
+                run();
+            } catch (InterruptedException e) {
+                LOGGER.info("Rating counters backfill paused at movie [id={}].", state.get().getLastMovieId());
+            } catch (RuntimeException e) {
+                LOGGER.warn("Exception thrown while backfilling rating counters, will resume on next start: " + e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if(executor == null)
+            return;
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public MigrationState getState() {
+        return state.get();
+    }
+
+    void run() throws InterruptedException {
+        MigrationState current = stateRepository.findById(MIGRATION_ID).orElse(state.get());
+        state.set(current);
+        if(current.isCompleted())
+            return;
+
+        LOGGER.info("Backfilling rating counters [resumeAfter={}, movies={}, comments={}]",
+            current.getLastMovieId(), current.getMigratedMovies(), current.getMigratedComments());
+        List<Movie> movies;
+        while(!(movies = movieRepository.findCommentRefsAfter(current.getLastMovieId(), batchSize)).isEmpty()) {
+            for(Movie movie : movies) {
+                backfillMovie(movie, current);
+                current.setLastMovieId(movie.getId());
+                current.setMigratedMovies(current.getMigratedMovies() + 1);
+                checkpoint(current);
+            }
+            LOGGER.info("Backfilled rating counters [movies={}, comments={}, lastMovieId={}]",
+                current.getMigratedMovies(), current.getMigratedComments(), current.getLastMovieId());
+        }
+
+        current.setCompleted(true);
+        checkpoint(current);
+        LOGGER.info("Rating counters backfill completed [movies={}, comments={}]",
+            current.getMigratedMovies(), current.getMigratedComments());
+    }
+
+    private void backfillMovie(Movie movie, MigrationState current) throws InterruptedException {
+        Set<String> uncountedIds = new LinkedHashSet<>(Optional.ofNullable(movie.getCommentIds()).orElse(List.of()));
+        commentRepository.findUncountedIdsByMovieId(movie.getId()).forEach(comment -> uncountedIds.add(comment.getId()));
+        List<String> commentIds = new ArrayList<>(uncountedIds);
+
+        long counted = 0;
+        for(int from = 0; from < commentIds.size(); from += batchSize) {
+            for(String commentId : commentIds.subList(from, Math.min(from + batchSize, commentIds.size()))) {
+                Optional<Comment> comment = commentRepository.markRatingCounted(commentId);
+                if(comment.isPresent()) {
+                    movieRepository.addRating(movie.getId(), comment.get().getRating());
+                    counted++;
+                }
+            }
+            throttle();
+        }
+        if(counted > 0) {
+            movieRepository.refreshAvgRating(movie.getId());
+            invalidationBus.publish(InvalidationTarget.MOVIE, movie.getId());
+        }
+        current.setMigratedComments(current.getMigratedComments() + counted);
+    }
+
+    private void throttle() throws InterruptedException {
+        if(Thread.currentThread().isInterrupted())
+            throw new InterruptedException();
+        if(pauseMillis > 0)
+            Thread.sleep(pauseMillis);
+    }
+
+    private void checkpoint(MigrationState current) {
+        current.setUpdatedAt(new Date());
+        stateRepository.save(current);
+    }
+}
@@ -0,0 +1,615 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.annotation.PreDestroy;
+
+import com.gmiedlar.moviereviewer.config.ImportMode;
+import com.gmiedlar.moviereviewer.domain.Comment;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import com.gmiedlar.moviereviewer.repository.CommentRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory inverted index over {@link Comment#getText()} ranked with Okapi BM25.
+ * <p>
+ * Every comment gets an ordinal; postings hold (ordinal, term frequency) pairs and each document keeps its own
+ * term list, so removals only mark the ordinal dead and fix the document frequencies. Dead ordinals are skipped
+ * while scoring and dropped by a compaction once they make up a quarter of the index. The compaction builds a new
+ * segment from a copy of the documents on a background thread while searches and writes go on against the current
+ * one, then replays the writes made meanwhile and swaps the new segment in.
+ * Only ids and statistics are held in memory; the text needed for snippets is loaded for the returned page only.
+ * Comments written on other instances are reloaded when their invalidation arrives over the {@link InvalidationBus}.
+ */
+@Component
+public class ReviewSearchIndex implements InvalidationListener {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "if", "in", "into", "is", "it", "no", "not",
+        "of", "on", "or", "so", "such", "that", "the", "their", "then", "there", "these", "they", "this", "to",
+        "was", "will", "with"
+    );
+
+    private static final int SNIPPET_LENGTH = 160;
+
+    private static final int SNIPPET_LEAD = 40;
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private final CommentRepository repository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+
+    private final ExecutorService compactionExecutor;
+
+    private List<Postings> postings = new ArrayList<>();
+
+    private Map<String, Integer> ordinals = new HashMap<>();
+
+    private Map<String, List<Integer>> ordinalsByMovie = new HashMap<>();
+
+    private List<Document> documents = new ArrayList<>();
+
+    private long totalLength;
+
+    private int deadDocuments;
+
+    // The compaction in progress, if any; it is told about every removal from the documents it copied.
+    private Compaction compaction;
+
+    private boolean compactionScheduled;
+
+    public ReviewSearchIndex(CommentRepository repository, InvalidationBus invalidationBus) {
+        this.repository = repository;
+        this.compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        invalidationBus.subscribeRemote(InvalidationTarget.COMMENT, this);
+    }
+
+    @PreDestroy
+    public void stop() {
+        compactionExecutor.shutdownNow();
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = ImportMode.SERVING)
+    public void rebuild() {
+        Set<String> removed = indexedIds();
+        try (Stream<Comment> comments = repository.streamAllForSearch()) {
+            comments.forEach(comment -> {
+                removed.remove(comment.getId());
+                index(comment);
+            });
+        }
+        remove(removed);
+        LOGGER.info("Built review search index [documents={}, terms={}]", ordinals.size(), termIds.size());
+    }
+
+    // Comments written on another instance.
+    @Override
+    public void invalidateAll(Collection<String> ids) {
+        try {
+            Set<String> removed = new HashSet<>(ids);
+            repository.findAllById(ids).forEach(comment -> {
+                removed.remove(comment.getId());
+                index(comment);
+            });
+            remove(removed);
+        } catch (DataAccessException e) {
+            LOGGER.warn("Failed to reload comments {} into the search index: " + e.getMessage(), ids);
+        }
+    }
+
+    // Invalidations from other instances were missed.
+    @Override
+    public void invalidateAll() {
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            LOGGER.warn("Failed to rebuild the review search index: " + e.getMessage());
+        }
+    }
+
+    public void index(Comment comment) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(comment.getId());
+            addDocument(comment.getId(), comment.getMovieId(), comment.getText());
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Collection<String> commentIds) {
+        lock.writeLock().lock();
+        try {
+            commentIds.forEach(this::removeDocument);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchResult search(String query, String movieId, int offset, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        lock.readLock().lock();
+        try {
+            int liveDocuments = ordinals.size();
+            if(terms.isEmpty() || liveDocuments == 0)
+                return new SearchResult(0, List.of());
+            double avgLength = (double) totalLength / liveDocuments;
+
+            Map<Integer, Double> termWeights = new HashMap<>();
+            for(String term : terms) {
+                Integer termId = termIds.get(term);
+                if(termId != null && postings.get(termId).documentFrequency > 0)
+                    termWeights.put(termId, idf(postings.get(termId).documentFrequency, liveDocuments));
+            }
+            if(termWeights.isEmpty())
+                return new SearchResult(0, List.of());
+
+            Scores scores = movieId != null
+                ? scoreMovieDocuments(movieId, termWeights, avgLength)
+                : scoreAllDocuments(termWeights, avgLength);
+
+            return new SearchResult(scores.size, topHits(scores, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if(text == null)
+            return tokens;
+        Matcher matcher = TOKEN.matcher(text);
+        while(matcher.find()) {
+            String token = matcher.group().toLowerCase(Locale.ROOT);
+            if(!STOP_WORDS.contains(token))
+                tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Cuts a window of about {@value #SNIPPET_LENGTH} characters around the first matched term and wraps every
+     * matched token in {@code <em>}; the rest of the text is HTML-escaped.
+     */
+    public String highlight(String text, String query) {
+        if(text == null)
+            return null;
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        List<int[]> matches = new ArrayList<>();
+        Matcher matcher = TOKEN.matcher(text);
+        while(matcher.find()) {
+            if(terms.contains(matcher.group().toLowerCase(Locale.ROOT)))
+                matches.add(new int[]{matcher.start(), matcher.end()});
+        }
+
+        int start = matches.isEmpty() ? 0 : Math.max(0, matches.get(0)[0] - SNIPPET_LEAD);
+        if(start > 0) {
+            int wordStart = text.indexOf(' ', start);
+            start = wordStart >= 0 && wordStart < matches.get(0)[0] ? wordStart + 1 : start;
+        }
+        int end = Math.min(text.length(), start + SNIPPET_LENGTH);
+
+        StringBuilder snippet = new StringBuilder();
+        if(start > 0)
+            snippet.append("...");
+        int position = start;
+        for(int[] match : matches) {
+            if(match[0] < start || match[1] > end)
+                continue;
+            snippet.append(escape(text.substring(position, match[0])))
+                   .append("<em>").append(escape(text.substring(match[0], match[1]))).append("</em>");
+            position = match[1];
+        }
+        snippet.append(escape(text.substring(position, end)));
+        if(end < text.length())
+            snippet.append("...");
+        return snippet.toString();
+    }
+
+    // Term-at-a-time over the postings of the query terms, accumulating into a hash table sized by the matching
+    // documents rather than by the whole index.
+    private Scores scoreAllDocuments(Map<Integer, Double> termWeights, double avgLength) {
+        Scores scores = new Scores();
+        termWeights.forEach((termId, weight) -> {
+            Postings termPostings = postings.get(termId);
+            for(int i = 0; i < termPostings.size; i++) {
+                int ordinal = termPostings.ordinals[i];
+                Document document = documents.get(ordinal);
+                if(document == null)
+                    continue;
+                scores.accumulate(ordinal, weight * saturate(termPostings.frequencies[i], document.length, avgLength));
+            }
+        });
+        return scores;
+    }
+
+    // A single movie has few reviews, so its documents are scored directly from their own term lists.
+    private Scores scoreMovieDocuments(String movieId, Map<Integer, Double> termWeights, double avgLength) {
+        Scores scores = new Scores();
+        for(int ordinal : ordinalsByMovie.getOrDefault(movieId, List.of())) {
+            Document document = documents.get(ordinal);
+            if(document == null)
+                continue;
+            double score = 0;
+            for(Map.Entry<Integer, Double> termWeight : termWeights.entrySet()) {
+                int position = Arrays.binarySearch(document.termIds, termWeight.getKey());
+                if(position >= 0)
+                    score += termWeight.getValue() * saturate(document.frequencies[position], document.length, avgLength);
+            }
+            if(score > 0)
+                scores.add(ordinal, score);
+        }
+        return scores;
+    }
+
+    // Bounded min-heap of positions in scores; ties go to the older ordinal so pages are stable.
+    private List<Hit> topHits(Scores scores, int offset, int limit) {
+        Comparator<Integer> ranking = Comparator.<Integer>comparingDouble(i -> scores.values[i])
+                                                .thenComparing(i -> scores.ordinals[i], Comparator.reverseOrder());
+        int capacity = offset + limit;
+        PriorityQueue<Integer> top = new PriorityQueue<>(ranking);
+        for(int i = 0; i < scores.size; i++) {
+            if(top.size() == capacity && ranking.compare(i, top.peek()) <= 0)
+                continue;
+            top.offer(i);
+            if(top.size() > capacity)
+                top.poll();
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        while(!top.isEmpty()) {
+            int position = top.poll();
+            Document document = documents.get(scores.ordinals[position]);
+            hits.add(new Hit(document.commentId, document.movieId, scores.values[position]));
+        }
+        List<Hit> ranked = new ArrayList<>(hits.size());
+        for(int i = hits.size() - 1; i >= 0; i--)
+            ranked.add(hits.get(i));
+        return offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+    }
+
+    private Set<String> indexedIds() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(ordinals.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private double idf(int documentFrequency, int liveDocuments) {
+        return Math.log(1 + (liveDocuments - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private double saturate(int frequency, int length, double avgLength) {
+        return frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / avgLength));
+    }
+
+    private void addDocument(String commentId, String movieId, String text) {
+        Map<Integer, Integer> frequencies = new HashMap<>();
+        List<String> tokens = tokenize(text);
+        for(String token : tokens) {
+            int termId = termIds.computeIfAbsent(token, t -> {
+                postings.add(new Postings());
+                return postings.size() - 1;
+            });
+            frequencies.merge(termId, 1, Integer::sum);
+        }
+
+        int ordinal = documents.size();
+        int[] documentTermIds = frequencies.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[] documentFrequencies = new int[documentTermIds.length];
+        for(int i = 0; i < documentTermIds.length; i++) {
+            documentFrequencies[i] = frequencies.get(documentTermIds[i]);
+            postings.get(documentTermIds[i]).add(ordinal, documentFrequencies[i]);
+        }
+
+        documents.add(new Document(commentId, movieId, tokens.size(), documentTermIds, documentFrequencies));
+        ordinals.put(commentId, ordinal);
+        if(movieId != null)
+            ordinalsByMovie.computeIfAbsent(movieId, id -> new ArrayList<>()).add(ordinal);
+        totalLength += tokens.size();
+    }
+
+    private void removeDocument(String commentId) {
+        Integer ordinal = ordinals.remove(commentId);
+        if(ordinal == null)
+            return;
+        Document document = documents.set(ordinal, null);
+        for(int termId : document.termIds)
+            postings.get(termId).documentFrequency--;
+        totalLength -= document.length;
+        deadDocuments++;
+        if(compaction != null && ordinal < compaction.documents.length)
+            compaction.removed.add(ordinal);
+    }
+
+    // Called with the write lock held.
+    private void compactIfNeeded() {
+        if(!compactionScheduled && deadDocuments > documents.size() / 4) {
+            compactionScheduled = true;
+            compactionExecutor.execute(this::compactInBackground);
+        }
+    }
+
+    private void compactInBackground() {
+        Compaction started = null;
+        try {
+            started = startCompaction();
+            finishCompaction(started);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to compact the review search index: " + e.getMessage());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                compactionScheduled = false;
+                if(compaction == started)
+                    compaction = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Copies the current documents; building the new segment from the copy needs no lock.
+    Compaction startCompaction() {
+        lock.writeLock().lock();
+        try {
+            compaction = new Compaction(documents.toArray(new Document[0]), postings.size());
+            return compaction;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void finishCompaction(Compaction started) {
+        Segment segment = started.build();
+        lock.writeLock().lock();
+        try {
+            // Superseded by a newer compaction.
+            if(compaction != started)
+                return;
+            compaction = null;
+            for(int ordinal : started.removed)
+                segment.remove(started.remap[ordinal]);
+            while(segment.postings.size() < postings.size())
+                segment.postings.add(new Postings());
+            for(int ordinal = started.documents.length; ordinal < documents.size(); ordinal++) {
+                if(documents.get(ordinal) != null)
+                    segment.add(documents.get(ordinal));
+            }
+
+            documents = segment.documents;
+            postings = segment.postings;
+            ordinals = segment.ordinals;
+            ordinalsByMovie = segment.ordinalsByMovie;
+            deadDocuments = segment.deadDocuments;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Hit {
+
+        private String commentId;
+
+        private String movieId;
+
+        private double score;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class SearchResult {
+
+        private long totalHits;
+
+        private List<Hit> hits;
+    }
+
+    private static class Document {
+
+        private final String commentId;
+
+        private final String movieId;
+
+        private final int length;
+
+        private final int[] termIds;
+
+        private final int[] frequencies;
+
+        Document(String commentId, String movieId, int length, int[] termIds, int[] frequencies) {
+            this.commentId = commentId;
+            this.movieId = movieId;
+            this.length = length;
+            this.termIds = termIds;
+            this.frequencies = frequencies;
+        }
+    }
+
+    static class Compaction {
+
+        private final Document[] documents;
+
+        private final int terms;
+
+        // Ordinals among the copied documents removed since the copy was taken.
+        private final List<Integer> removed = new ArrayList<>();
+
+        // Ordinal in the new segment by ordinal among the copied documents, -1 for dead ones.
+        private int[] remap;
+
+        Compaction(Document[] documents, int terms) {
+            this.documents = documents;
+            this.terms = terms;
+        }
+
+        Segment build() {
+            Segment segment = new Segment(terms);
+            remap = new int[documents.length];
+            for(int ordinal = 0; ordinal < documents.length; ordinal++)
+                remap[ordinal] = documents[ordinal] == null ? -1 : segment.add(documents[ordinal]);
+            return segment;
+        }
+    }
+
+    private static class Segment {
+
+        private final List<Document> documents = new ArrayList<>();
+
+        private final List<Postings> postings;
+
+        private final Map<String, Integer> ordinals = new HashMap<>();
+
+        private final Map<String, List<Integer>> ordinalsByMovie = new HashMap<>();
+
+        private int deadDocuments;
+
+        Segment(int terms) {
+            this.postings = new ArrayList<>(terms);
+            for(int i = 0; i < terms; i++)
+                postings.add(new Postings());
+        }
+
+        int add(Document document) {
+            int ordinal = documents.size();
+            for(int i = 0; i < document.termIds.length; i++)
+                postings.get(document.termIds[i]).add(ordinal, document.frequencies[i]);
+            documents.add(document);
+            ordinals.put(document.commentId, ordinal);
+            if(document.movieId != null)
+                ordinalsByMovie.computeIfAbsent(document.movieId, id -> new ArrayList<>()).add(ordinal);
+            return ordinal;
+        }
+
+        void remove(int ordinal) {
+            if(ordinal < 0)
+                return;
+            Document document = documents.set(ordinal, null);
+            for(int termId : document.termIds)
+                postings.get(termId).documentFrequency--;
+            ordinals.remove(document.commentId, ordinal);
+            deadDocuments++;
+        }
+    }
+
+    private static class Scores {
+
+        private int[] ordinals = new int[16];
+
+        private double[] values = new double[16];
+
+        private int size;
+
+        // Open addressing from ordinal to position + 1, only allocated when scores are accumulated.
+        private int[] slots;
+
+        void accumulate(int ordinal, double value) {
+            if(slots == null)
+                slots = new int[32];
+            int slot = slot(ordinal);
+            if(slots[slot] == 0) {
+                add(ordinal, 0);
+                slots[slot] = size;
+                if(size * 2 > slots.length)
+                    resize();
+            }
+            values[slots[slot(ordinal)] - 1] += value;
+        }
+
+        private int slot(int ordinal) {
+            int mask = slots.length - 1;
+            int slot = (ordinal * 0x9E3779B9 >>> 16 ^ ordinal) & mask;
+            while(slots[slot] != 0 && ordinals[slots[slot] - 1] != ordinal)
+                slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        private void resize() {
+            int[] previous = slots;
+            slots = new int[previous.length * 2];
+            for(int position : previous) {
+                if(position != 0)
+                    slots[slot(ordinals[position - 1])] = position;
+            }
+        }
+
+        void add(int ordinal, double value) {
+            if(size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            ordinals[size] = ordinal;
+            values[size] = value;
+            size++;
+        }
+    }
+
+    private static class Postings {
+
+        private int[] ordinals = new int[4];
+
+        private int[] frequencies = new int[4];
+
+        private int size;
+
+        private int documentFrequency;
+
+        void add(int ordinal, int frequency) {
+            if(size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+            documentFrequency++;
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package com.gmiedlar.moviereviewer.service;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import com.gmiedlar.moviereviewer.domain.Comment;
 import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.BulkReviewDto;
+import com.gmiedlar.moviereviewer.dto.BulkReviewResultDto;
+import com.gmiedlar.moviereviewer.dto.CursorPageDto;
+import com.gmiedlar.moviereviewer.dto.RatingHistogramDto;
 
 public interface ReviewService {
     List<Comment> getMovieComments(String id);
+    Stream<Comment> streamMovieComments(String id);
+    CursorPageDto<Comment> getMovieCommentsPage(String id, String sort, String cursor, int size);
+    RatingHistogramDto getMovieRatingHistogram(String id);
     Movie addMovieComment(String username, String id, Comment comment);
+    List<BulkReviewResultDto> importMovieComments(List<BulkReviewDto> reviews);
     Comment updateMovieComment(String id, String commentId, Comment comment);
     Movie deleteMovieComment(String movieId, String commentId);
 }
@@ -0,0 +1,161 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import com.gmiedlar.moviereviewer.domain.TokenRevocation;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import com.gmiedlar.moviereviewer.repository.TokenRevocationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Revokes tokens, so tokens can be trusted without reading the user or the revocations on each request.
+ * <p>
+ * Every {@link InvalidationTarget#USER} invalidation - password change or reset, deletion, revocation of all sessions -
+ * moves the user's not-before time to the time of the change, and tokens issued before it are rejected. The time is
+ * read from the stored revocation rather than taken when the invalidation arrives, so a login on another instance
+ * before the message reaches it is not rejected; only invalidations without a stored revocation use the time of
+ * arrival. Token issue times have second precision, so the not-before time is truncated to the second: a token issued
+ * in the same second as the change stays valid, while a login right after the change is never rejected. A {@link InvalidationTarget#TOKEN} invalidation, sent
+ * on logout, rejects the single token with that {@code jti}.
+ * <p>
+ * Logouts, password changes and resets, deletions and revocations of all sessions are also stored in the
+ * {@code token_revocation} collection until the tokens they match have expired. It is read at startup and whenever the invalidation bus may have missed messages, so a
+ * revocation survives restarts and outages. Lookups only ever touch memory. Entries older than a token lifetime cannot
+ * match a valid token and are dropped.
+ */
+@Component
+public class TokenRevocationList implements InvalidationListener {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final Map<String, Long> notBefore = new ConcurrentHashMap<>();
+
+    // Token id to the time it can be forgotten.
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    private final TokenRevocationRepository repository;
+
+    private final InvalidationBus invalidationBus;
+
+    private final long tokenLifetimeMillis;
+
+    public TokenRevocationList(TokenRevocationRepository repository, InvalidationBus invalidationBus,
+                               @Value("${jwt.token.expiration-time}") long tokenLifetimeMillis) {
+        this.repository = repository;
+        this.invalidationBus = invalidationBus;
+        this.tokenLifetimeMillis = tokenLifetimeMillis;
+        invalidationBus.subscribe(InvalidationTarget.USER, this);
+        invalidationBus.subscribe(InvalidationTarget.TOKEN, new RevokedTokenListener());
+    }
+
+    public boolean isRevoked(String username, String tokenId, Date issuedAt) {
+        if(tokenId != null && revokedTokens.containsKey(tokenId))
+            return true;
+        Long since = notBefore.get(username);
+        return since != null && (issuedAt == null || issuedAt.getTime() < since);
+    }
+
+    public void revokeToken(String username, String tokenId, Date expiresAt) {
+        repository.save(TokenRevocation.builder()
+                                       .id("token:" + tokenId)
+                                       .username(username)
+                                       .tokenId(tokenId)
+                                       .expiresAt(expiresAt)
+                                       .build());
+        revokedTokens.merge(tokenId, expiresAt.getTime(), Math::max);
+        invalidationBus.publish(InvalidationTarget.TOKEN, tokenId);
+    }
+
+    public void revokeAllTokens(String username) {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        repository.save(TokenRevocation.builder()
+                                       .id(userRevocationId(username))
+                                       .username(username)
+                                       .notBefore(new Date(now))
+                                       .expiresAt(new Date(now + tokenLifetimeMillis))
+                                       .build());
+        invalidationBus.publish(InvalidationTarget.USER, username);
+    }
+
+    @Override
+    public void invalidateAll(Collection<String> usernames) {
+        Map<String, Long> changedAt = storedNotBefore(usernames);
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        usernames.forEach(username -> notBefore.merge(username, changedAt.getOrDefault(username, now), Math::max));
+    }
+
+    private Map<String, Long> storedNotBefore(Collection<String> usernames) {
+        Map<String, Long> changedAt = new HashMap<>();
+        try {
+            List<String> ids = usernames.stream().map(TokenRevocationList::userRevocationId).collect(Collectors.toList());
+            for(TokenRevocation revocation : repository.findAllById(ids)) {
+                if(revocation.getNotBefore() != null)
+                    changedAt.put(revocation.getUsername(), revocation.getNotBefore().getTime());
+            }
+        } catch (DataAccessException e) {
+            LOGGER.warn("Failed to read token revocations, using the time of arrival: " + e.getMessage());
+        }
+        return changedAt;
+    }
+
+    // Invalidations were missed. Stored revocations are reloaded; users changed in the meantime in other ways keep
+    // their tokens valid until they expire.
+    @Override
+    public void invalidateAll() {
+        load();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            for(TokenRevocation revocation : repository.findByExpiresAtAfter(new Date())) {
+                if(revocation.getTokenId() != null)
+                    revokedTokens.merge(revocation.getTokenId(), revocation.getExpiresAt().getTime(), Math::max);
+                else
+                    notBefore.merge(revocation.getUsername(), revocation.getNotBefore().getTime(), Math::max);
+            }
+        } catch (DataAccessException e) {
+            LOGGER.warn("Failed to load token revocations: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.token.expiration-time}", initialDelayString = "${jwt.token.expiration-time}")
+    public void purge() {
+        long now = System.currentTimeMillis();
+        long oldest = now - tokenLifetimeMillis;
+        notBefore.values().removeIf(since -> since < oldest);
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+    }
+
+    private static String userRevocationId(String username) {
+        return "user:" + username;
+    }
+
+    // The expiry of a token revoked on another instance is not sent along, so it is kept for a full token lifetime.
+    private class RevokedTokenListener implements InvalidationListener {
+
+        @Override
+        public void invalidateAll(Collection<String> tokenIds) {
+            long forgetAt = System.currentTimeMillis() + tokenLifetimeMillis;
+            tokenIds.forEach(tokenId -> revokedTokens.putIfAbsent(tokenId, forgetAt));
+        }
+
+        // Reloaded by the user listener.
+        @Override
+        public void invalidateAll() {
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.gmiedlar.moviereviewer.config.ImportMode;
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.TopMovieDto;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import com.gmiedlar.moviereviewer.event.MovieDeletedEvent;
+import com.gmiedlar.moviereviewer.event.MovieUpdatedEvent;
+import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory ranking of movies by Bayesian-weighted rating:
+ * {@code score = (v * R + m * C) / (v + m)}, where {@code v} is the number of reviews, {@code R} the movie
+ * average, {@code C} the average over all reviews and {@code m} the configured prior weight.
+ * <p>
+ * Entries are replaced on every rating change. {@code C} is only refreshed by {@link #rerank()}, so between
+ * refreshes all entries are scored against the same prior and stay comparable. Movies written on other instances are
+ * reloaded when their invalidation arrives over the {@link InvalidationBus}.
+ */
+@Component
+public class TopRatedMovieIndex implements InvalidationListener {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingDouble(Entry::getScore).reversed()
+                                                               .thenComparing(Comparator.comparingInt(Entry::getRatingCount).reversed())
+                                                               .thenComparing(Entry::getId);
+
+    private final MovieRepository repository;
+
+    private final double priorWeight;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private volatile NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING);
+
+    private volatile Map<String, NavigableSet<Entry>> rankingByGenre = new ConcurrentHashMap<>();
+
+    private volatile double priorMean;
+
+    public TopRatedMovieIndex(MovieRepository repository, InvalidationBus invalidationBus,
+                              @Value("${movie.ranking.prior-weight}") double priorWeight) {
+        this.repository = repository;
+        this.priorWeight = priorWeight;
+        invalidationBus.subscribeRemote(InvalidationTarget.MOVIE, this);
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = ImportMode.SERVING)
+    public void rebuild() {
+        Set<String> removed = new HashSet<>(entries.keySet());
+        try (Stream<Movie> movies = repository.streamAll()) {
+            movies.forEach(movie -> {
+                removed.remove(movie.getId());
+                update(movie);
+            });
+        }
+        removed.forEach(this::remove);
+        rerank();
+        LOGGER.info("Built top rated movie index [size={}]", entries.size());
+    }
+
+    // Movies written on another instance.
+    @Override
+    public void invalidateAll(Collection<String> ids) {
+        try {
+            Set<String> removed = new HashSet<>(ids);
+            repository.findAllById(ids).forEach(movie -> {
+                removed.remove(movie.getId());
+                update(movie);
+            });
+            removed.forEach(this::remove);
+        } catch (DataAccessException e) {
+            LOGGER.warn("Failed to reload movies {} into the top rated index: " + e.getMessage(), ids);
+        }
+    }
+
+    // Invalidations from other instances were missed.
+    @Override
+    public void invalidateAll() {
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            LOGGER.warn("Failed to rebuild the top rated index: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${movie.ranking.rerank-interval}", initialDelayString = "${movie.ranking.rerank-interval}")
+    public synchronized void rerank() {
+        long ratingSum = entries.values().stream().mapToLong(Entry::getRatingSum).sum();
+        long ratingCount = entries.values().stream().mapToLong(Entry::getRatingCount).sum();
+        priorMean = ratingCount > 0 ? (double) ratingSum / ratingCount : 0.0;
+
+        // Readers keep using the old sets until the rescored ones are swapped in.
+        NavigableSet<Entry> newRanking = new ConcurrentSkipListSet<>(RANKING);
+        Map<String, NavigableSet<Entry>> newRankingByGenre = new ConcurrentHashMap<>();
+        entries.replaceAll((id, entry) -> entry.rescore(score(entry.getRatingSum(), entry.getRatingCount())));
+        entries.values().forEach(entry -> link(entry, newRanking, newRankingByGenre));
+        ranking = newRanking;
+        rankingByGenre = newRankingByGenre;
+    }
+
+    @EventListener
+    public void onMovieUpdated(MovieUpdatedEvent event) {
+        update(event.getMovie());
+    }
+
+    @EventListener
+    public void onMovieDeleted(MovieDeletedEvent event) {
+        remove(event.getMovieId());
+    }
+
+    public synchronized void update(Movie movie) {
+        Entry current = entries.get(movie.getId());
+        if(current != null) {
+            // findAndModify results can arrive out of order under concurrent reviews.
+            if(current.getRevision() > movie.getRevision())
+                return;
+            unlink(current);
+        }
+        Entry entry = new Entry(movie, score(movie.getRatingSum(), movie.getRatingCount()));
+        entries.put(entry.getId(), entry);
+        link(entry, ranking, rankingByGenre);
+    }
+
+    public synchronized void remove(String movieId) {
+        Entry current = entries.remove(movieId);
+        if(current != null)
+            unlink(current);
+    }
+
+    public List<TopMovieDto> getTopMovies(int limit, int minReviews, String genre) {
+        NavigableSet<Entry> source = genre != null
+            ? rankingByGenre.getOrDefault(normalizeGenre(genre), Collections.emptyNavigableSet())
+            : ranking;
+
+        return source.stream()
+                     .filter(entry -> entry.getRatingCount() >= minReviews)
+                     .limit(limit)
+                     .map(Entry::toDto)
+                     .collect(Collectors.toList());
+    }
+
+    private double score(long ratingSum, int ratingCount) {
+        return (ratingSum + priorWeight * priorMean) / (ratingCount + priorWeight);
+    }
+
+    private void link(Entry entry, NavigableSet<Entry> ranking, Map<String, NavigableSet<Entry>> rankingByGenre) {
+        ranking.add(entry);
+        if(entry.getGenre() != null) {
+            rankingByGenre
+                .computeIfAbsent(normalizeGenre(entry.getGenre()), genre -> new ConcurrentSkipListSet<>(RANKING))
+                .add(entry);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        ranking.remove(entry);
+        if(entry.getGenre() != null) {
+            NavigableSet<Entry> genreRanking = rankingByGenre.get(normalizeGenre(entry.getGenre()));
+            if(genreRanking != null)
+                genreRanking.remove(entry);
+        }
+    }
+
+    private String normalizeGenre(String genre) {
+        return genre.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Entry {
+
+        private final TopMovieDto movie;
+
+        private final long ratingSum;
+
+        private final long revision;
+
+        Entry(Movie movie, double score) {
+            this.movie = TopMovieDto.builder()
+                                    .id(movie.getId())
+                                    .title(movie.getTitle())
+                                    .genre(movie.getGenre())
+                                    .year(movie.getYear())
+                                    .director(movie.getDirector())
+                                    .avgRating(movie.getAvgRating())
+                                    .ratingCount(movie.getRatingCount())
+                                    .score(score)
+                                    .build();
+            this.ratingSum = movie.getRatingSum();
+            this.revision = movie.getRevision();
+        }
+
+        private Entry(Entry entry, double score) {
+            this.movie = entry.toDto();
+            this.movie.setScore(score);
+            this.ratingSum = entry.ratingSum;
+            this.revision = entry.revision;
+        }
+
+        Entry rescore(double score) {
+            return new Entry(this, score);
+        }
+
+        String getId() {
+            return movie.getId();
+        }
+
+        String getGenre() {
+            return movie.getGenre();
+        }
+
+        long getRatingSum() {
+            return ratingSum;
+        }
+
+        int getRatingCount() {
+            return movie.getRatingCount();
+        }
+
+        long getRevision() {
+            return revision;
+        }
+
+        double getScore() {
+            return movie.getScore();
+        }
+
+        TopMovieDto toDto() {
+            return TopMovieDto.builder()
+                              .id(movie.getId())
+                              .title(movie.getTitle())
+                              .genre(movie.getGenre())
+                              .year(movie.getYear())
+                              .director(movie.getDirector())
+                              .avgRating(movie.getAvgRating())
+                              .ratingCount(movie.getRatingCount())
+                              .score(movie.getScore())
+                              .build();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.gmiedlar.moviereviewer.config.ImportMode;
+import com.gmiedlar.moviereviewer.domain.Comment;
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.TrendingMovieDto;
+import com.gmiedlar.moviereviewer.dto.TrendingWindow;
+import com.gmiedlar.moviereviewer.event.MovieDeletedEvent;
+import com.gmiedlar.moviereviewer.event.ReviewAddedEvent;
+import com.gmiedlar.moviereviewer.repository.CommentRepository;
+import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-movie review counts kept in time-bucketed ring buffers: 60 one-minute buckets for the last hour and
+ * 168 one-hour buckets for the last day and week.
+ * <p>
+ * Recording a review is a single CAS on one bucket, so the review write path never blocks. Readers never
+ * touch the buckets either: {@link #refresh()} periodically publishes an immutable top-K snapshot per window.
+ * <p>
+ * Only the reviews written on this instance are recorded as they happen. To take in those written on other instances,
+ * the buckets are reloaded from the last week of reviews every {@code movie.trending.reload-interval} and swapped in.
+ */
+@Component
+public class TrendingMovieIndex {
+
+    private final Logger LOGGER = LoggerFactory.getLogger(this.getClass().getName());
+
+    private static final Comparator<MovieActivity> TRENDING = Comparator.comparingLong(MovieActivity::getReviewCount)
+                                                                        .thenComparing(MovieActivity::getId, Comparator.reverseOrder());
+
+    private final MovieRepository movieRepository;
+
+    private final CommentRepository commentRepository;
+
+    private final int snapshotSize;
+
+    private volatile Map<String, ReviewActivity> activity = new ConcurrentHashMap<>();
+
+    private volatile Reload reload;
+
+    private volatile Map<TrendingWindow, List<TrendingMovieDto>> snapshot = emptySnapshot();
+
+    public TrendingMovieIndex(MovieRepository movieRepository, CommentRepository commentRepository,
+                              @Value("${movie.trending.snapshot-size}") int snapshotSize) {
+        this.movieRepository = movieRepository;
+        this.commentRepository = commentRepository;
+        this.snapshotSize = snapshotSize;
+    }
+
+    @EventListener(value = ApplicationReadyEvent.class, condition = ImportMode.SERVING)
+    @Scheduled(fixedDelayString = "${movie.trending.reload-interval}", initialDelayString = "${movie.trending.reload-interval}")
+    public synchronized void rebuild() {
+        // Reviews recorded from here on, and written after the reload started, go into the reloaded buckets as well.
+        Reload current = new Reload(System.currentTimeMillis());
+        reload = current;
+        Date since = new Date(current.until - TimeUnit.HOURS.toMillis(TrendingWindow.WEEK.getBuckets()));
+        try (Stream<Comment> comments = commentRepository.streamMovieIdsByAddDateAfter(since)) {
+            comments.filter(comment -> comment.getMovieId() != null && comment.getAddDate().getTime() <= current.until)
+                    .forEach(comment -> record(current.activity, comment.getMovieId(), comment.getAddDate().getTime()));
+            activity = current.activity;
+        } finally {
+            reload = null;
+        }
+        refresh();
+        LOGGER.info("Built trending movie index [movies={}]", activity.size());
+    }
+
+    @EventListener
+    public void onReviewAdded(ReviewAddedEvent event) {
+        record(event.getMovieId(), event.getAddDate().getTime());
+    }
+
+    @EventListener
+    public void onMovieDeleted(MovieDeletedEvent event) {
+        activity.remove(event.getMovieId());
+        Reload current = reload;
+        if(current != null)
+            current.activity.remove(event.getMovieId());
+    }
+
+    // A review recorded right as a reload swaps its buckets in may be dropped.
+    public void record(String movieId, long timeMillis) {
+        Map<String, ReviewActivity> recorded = activity;
+        record(recorded, movieId, timeMillis);
+        Reload current = reload;
+        if(current != null && current.activity != recorded && timeMillis > current.until)
+            record(current.activity, movieId, timeMillis);
+    }
+
+    @Scheduled(fixedDelayString = "${movie.trending.refresh-interval}", initialDelayString = "${movie.trending.refresh-interval}")
+    public void refresh() {
+        refresh(System.currentTimeMillis());
+    }
+
+    void refresh(long now) {
+        // A review recorded between the idle check and the removal is dropped; the next one re-creates the entry.
+        activity.entrySet().removeIf(entry -> entry.getValue().isIdle(now));
+
+        Map<TrendingWindow, List<MovieActivity>> topByWindow = new EnumMap<>(TrendingWindow.class);
+        for(TrendingWindow window : TrendingWindow.values())
+            topByWindow.put(window, topActivity(window, now));
+
+        Set<String> ids = topByWindow.values().stream()
+                                     .flatMap(List::stream)
+                                     .map(MovieActivity::getId)
+                                     .collect(Collectors.toSet());
+        Map<String, Movie> moviesById = StreamSupport
+            .stream(movieRepository.findAllById(ids).spliterator(), false)
+            .collect(Collectors.toMap(Movie::getId, Function.identity()));
+
+        Map<TrendingWindow, List<TrendingMovieDto>> newSnapshot = new EnumMap<>(TrendingWindow.class);
+        topByWindow.forEach((window, top) -> newSnapshot.put(window, top.stream()
+                                                                        .filter(entry -> moviesById.containsKey(entry.getId()))
+                                                                        .map(entry -> toDto(moviesById.get(entry.getId()), entry.getReviewCount()))
+                                                                        .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList))));
+        snapshot = Collections.unmodifiableMap(newSnapshot);
+    }
+
+    public List<TrendingMovieDto> getTrendingMovies(TrendingWindow window, int limit) {
+        List<TrendingMovieDto> movies = snapshot.get(window);
+        return movies.subList(0, Math.min(limit, movies.size()));
+    }
+
+    private void record(Map<String, ReviewActivity> target, String movieId, long timeMillis) {
+        target.computeIfAbsent(movieId, id -> new ReviewActivity()).record(timeMillis);
+    }
+
+    private List<MovieActivity> topActivity(TrendingWindow window, long now) {
+        PriorityQueue<MovieActivity> top = new PriorityQueue<>(TRENDING);
+        activity.forEach((id, reviews) -> {
+            long reviewCount = reviews.count(window, now);
+            if(reviewCount > 0) {
+                top.offer(new MovieActivity(id, reviewCount));
+                if(top.size() > snapshotSize)
+                    top.poll();
+            }
+        });
+        return top.stream()
+                  .sorted(TRENDING.reversed())
+                  .collect(Collectors.toList());
+    }
+
+    private TrendingMovieDto toDto(Movie movie, long reviewCount) {
+        return TrendingMovieDto.builder()
+                               .id(movie.getId())
+                               .title(movie.getTitle())
+                               .genre(movie.getGenre())
+                               .year(movie.getYear())
+                               .director(movie.getDirector())
+                               .reviewCount(reviewCount)
+                               .build();
+    }
+
+    private static Map<TrendingWindow, List<TrendingMovieDto>> emptySnapshot() {
+        Map<TrendingWindow, List<TrendingMovieDto>> empty = new EnumMap<>(TrendingWindow.class);
+        for(TrendingWindow window : TrendingWindow.values())
+            empty.put(window, Collections.emptyList());
+        return Collections.unmodifiableMap(empty);
+    }
+
+    private static class Reload {
+
+        private final Map<String, ReviewActivity> activity = new ConcurrentHashMap<>();
+
+        private final long until;
+
+        Reload(long until) {
+            this.until = until;
+        }
+    }
+
+    private static class ReviewActivity {
+
+        private final BucketRing minutes = new BucketRing(TimeUnit.MINUTES, TrendingWindow.HOUR.getBuckets());
+
+        private final BucketRing hours = new BucketRing(TimeUnit.HOURS, TrendingWindow.WEEK.getBuckets());
+
+        void record(long timeMillis) {
+            minutes.add(timeMillis);
+            hours.add(timeMillis);
+        }
+
+        long count(TrendingWindow window, long now) {
+            BucketRing ring = window.getBucketUnit() == TimeUnit.MINUTES ? minutes : hours;
+            return ring.sum(now, window.getBuckets());
+        }
+
+        boolean isIdle(long now) {
+            return hours.sum(now, TrendingWindow.WEEK.getBuckets()) == 0;
+        }
+    }
+
+    /**
+     * Each slot packs the bucket epoch into the high 32 bits and its count into the low 32 bits, so moving a
+     * slot to a new epoch and counting into it is one atomic step.
+     */
+    private static class BucketRing {
+
+        private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+        private final long bucketMillis;
+
+        private final AtomicLongArray slots;
+
+        BucketRing(TimeUnit unit, int size) {
+            this.bucketMillis = unit.toMillis(1);
+            this.slots = new AtomicLongArray(size);
+        }
+
+        void add(long timeMillis) {
+            long epoch = timeMillis / bucketMillis;
+            int slot = (int) (epoch % slots.length());
+            long current;
+            long next;
+            do {
+                current = slots.get(slot);
+                long currentEpoch = current >>> 32;
+                if(currentEpoch > epoch)
+                    return;
+                next = currentEpoch == epoch ? current + 1 : (epoch << 32) | 1;
+            } while(!slots.compareAndSet(slot, current, next));
+        }
+
+        long sum(long now, int buckets) {
+            long nowEpoch = now / bucketMillis;
+            long total = 0;
+            for(int i = 0; i < slots.length(); i++) {
+                long value = slots.get(i);
+                long epoch = value >>> 32;
+                if(epoch > nowEpoch - buckets && epoch <= nowEpoch)
+                    total += value & COUNT_MASK;
+            }
+            return total;
+        }
+    }
+
+    private static class MovieActivity {
+
+        private final String id;
+
+        private final long reviewCount;
+
+        MovieActivity(String id, long reviewCount) {
+            this.id = id;
+            this.reviewCount = reviewCount;
+        }
+
+        String getId() {
+            return id;
+        }
+
+        long getReviewCount() {
+            return reviewCount;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.gmiedlar.moviereviewer.service;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -38,4 +39,11 @@ public class UserDetailsServiceImpl implements UserDetailsService, UserFinderSer
             .findByUsername(username)
             .orElseThrow(() -> new UsernameNotFoundException("No user with that username exists!"));
     }
+
+    @Override
+    public List<CustomUser> findUsersByUsernames(Collection<String> usernames) {
+        if(usernames.isEmpty())
+            return Collections.emptyList();
+        return repository.findByUsernameIn(usernames);
+    }
 }
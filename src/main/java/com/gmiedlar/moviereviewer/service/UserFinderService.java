@@ -1,7 +1,11 @@
 package com.gmiedlar.moviereviewer.service;
 
+import java.util.Collection;
+import java.util.List;
+
 import com.gmiedlar.moviereviewer.domain.CustomUser;
 
 public interface UserFinderService {
     CustomUser findUserByUsername(String username);
+    List<CustomUser> findUsersByUsernames(Collection<String> usernames);
 }
@@ -1,11 +1,12 @@
 package com.gmiedlar.moviereviewer.service;
 
+import java.util.concurrent.CompletableFuture;
+
 import com.gmiedlar.moviereviewer.domain.CustomUser;
 import com.gmiedlar.moviereviewer.dto.PasswordDto;
 import com.gmiedlar.moviereviewer.dto.UserDto;
 import com.gmiedlar.moviereviewer.repository.UserRepository;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -13,11 +14,14 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository repository;
 
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+
+    private final TokenRevocationList revocationList;
 
-    public UserServiceImpl(UserRepository repository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository repository, PasswordHasher passwordHasher, TokenRevocationList revocationList) {
         this.repository = repository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.revocationList = revocationList;
     }
 
     @Override
@@ -47,29 +51,40 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public String updateUserPassword(String username, PasswordDto passwords) {
+    public CompletableFuture<String> updateUserPassword(String username, PasswordDto passwords) {
         CustomUser userUpdate = repository.findByUsername(username)
                                           .orElseThrow(() -> new UsernameNotFoundException("No user with that email or username exists!"));
 
-        if(!passwordEncoder.matches(passwords.getOldPassword(), userUpdate.getPassword()))
-            throw new IllegalArgumentException("Wrong password!");
+        // Checked before any hashing, which is what the request waits for.
         if(!passwords.getNewPassword().equals(passwords.getPasswordConfirmation()))
             throw new IllegalArgumentException("The Password confirmation must match New password!");
-        userUpdate.setPassword(passwordEncoder.encode(passwords.getNewPassword()));
-        repository.save(userUpdate);
-        return "Password successfully changed";
+        return passwordHasher
+            .matches(passwords.getOldPassword(), userUpdate.getPassword())
+            .thenCompose(matches -> {
+                if(!matches)
+                    throw new IllegalArgumentException("Wrong password!");
+                return passwordHasher.encode(passwords.getNewPassword());
+            })
+            .thenApply(password -> changePassword(userUpdate, password));
     }
 
     @Override
-    public String resetUserPassword(String id, PasswordDto passwords) {
+    public CompletableFuture<String> resetUserPassword(String id, PasswordDto passwords) {
         CustomUser userUpdate = repository
             .findById(id)
             .orElseThrow(() -> new IllegalArgumentException("No user with that id exists!"));
 
         if(!passwords.getNewPassword().equals(passwords.getPasswordConfirmation()))
             throw new IllegalArgumentException("The Password confirmation must match New password!");
-        userUpdate.setPassword(passwordEncoder.encode(passwords.getNewPassword()));
-        repository.save(userUpdate);
+        return passwordHasher
+            .encode(passwords.getNewPassword())
+            .thenApply(password -> changePassword(userUpdate, password));
+    }
+
+    private String changePassword(CustomUser user, String encodedPassword) {
+        user.setPassword(encodedPassword);
+        repository.save(user);
+        revocationList.revokeAllTokens(user.getUsername());
         return "Password successfully changed";
     }
 
@@ -79,6 +94,16 @@ public class UserServiceImpl implements UserService {
                                     .orElseThrow(() -> new UsernameNotFoundException("No user with that email or username exists!"));
 
         repository.delete(user);
+        revocationList.revokeAllTokens(user.getUsername());
         return "Account successfully deleted";
     }
+
+    @Override
+    public String revokeUserSessions(String id) {
+        CustomUser user = repository.findById(id)
+                                    .orElseThrow(() -> new IllegalArgumentException("No user with that id exists!"));
+
+        revocationList.revokeAllTokens(user.getUsername());
+        return "All sessions successfully revoked";
+    }
 }
@@ -6,6 +6,7 @@ import com.gmiedlar.moviereviewer.domain.Comment;
 import com.gmiedlar.moviereviewer.domain.CustomUser;
 import com.gmiedlar.moviereviewer.domain.Movie;
 import com.gmiedlar.moviereviewer.dto.MovieDto;
+import com.gmiedlar.moviereviewer.dto.MovieSummaryDto;
 
 public class TestData {
     public static final String USER_ID = "userId-1234";
@@ -40,6 +41,7 @@ public class TestData {
                                                  .rating(5)
                                                  .text("Awesome")
                                                  .authorId(USER_ID)
+                                                 .ratingCounted(true)
                                                  .build();
 
     public static final String MOVIE_ID = "movieId-1234";
@@ -60,7 +62,14 @@ public class TestData {
                                                      .genre("test genre")
                                                      .year(2020)
                                                      .director("Test director")
-                                                     .commentIds(Collections.emptyList())
                                                      .canComment(false)
                                                      .build();
+
+    public static final MovieSummaryDto MOVIE_SUMMARY = MovieSummaryDto.builder()
+                                                                       .id(MOVIE_ID)
+                                                                       .title("Test title")
+                                                                       .genre("test genre")
+                                                                       .year(2020)
+                                                                       .director("Test director")
+                                                                       .build();
 }
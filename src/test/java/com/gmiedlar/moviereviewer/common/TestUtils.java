@@ -3,12 +3,46 @@ package com.gmiedlar.moviereviewer.common;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 
+import com.gmiedlar.moviereviewer.domain.SigningKey;
+import com.gmiedlar.moviereviewer.repository.SigningKeyRepository;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
 
 public class TestUtils {
 
     public static String readFile(String filename) throws IOException {
         return Files.readString(Paths.get(new ClassPathResource(filename).getURI()));
     }
+
+    // Signing keys held in a list, standing in for the signing_key collection shared by several instances.
+    public static SigningKeyRepository signingKeyRepository(List<SigningKey> collection) {
+        SigningKeyRepository repository = mock(SigningKeyRepository.class, withSettings().lenient());
+        willAnswer(invocation -> {
+            SigningKey key = invocation.getArgument(0);
+            if(collection.stream().anyMatch(stored -> stored.getId().equals(key.getId())))
+                throw new DuplicateKeyException(key.getId());
+            collection.add(key);
+            return key;
+        }).given(repository).insert(any(SigningKey.class));
+        willAnswer(invocation -> collection
+            .stream()
+            .filter(key -> key.getExpiresAt().after(invocation.getArgument(0)))
+            .collect(Collectors.toList())
+        ).given(repository).findByExpiresAtAfter(any(Date.class));
+        return repository;
+    }
+
+    public static SigningKeyRepository signingKeyRepository() {
+        return signingKeyRepository(new CopyOnWriteArrayList<>());
+    }
 }
@@ -0,0 +1,173 @@
+package com.gmiedlar.moviereviewer.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gmiedlar.moviereviewer.domain.SigningKey;
+import com.gmiedlar.moviereviewer.service.TokenRevocationList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import static com.gmiedlar.moviereviewer.common.TestData.ENABLED_USER;
+import static com.gmiedlar.moviereviewer.common.TestUtils.signingKeyRepository;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class JwtTokenProviderTest {
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private TokenRevocationList revocationList;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private VerifiedTokenCache tokenCache;
+
+    private SigningKeyRing keyRing;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tokenCache = new VerifiedTokenCache(meterRegistry, 100);
+        keyRing = new SigningKeyRing(signingKeyRepository(), new SigningKeyCipher(""), 3600000, 60000);
+        keyRing.load();
+    }
+
+    @Test
+    public void shouldAuthenticateFromClaimsWithoutLoadingUser() {
+        //given
+        JwtTokenProvider provider = new JwtTokenProvider(userDetailsService, keyRing, revocationList, tokenCache, 60000, "claims");
+        String token = provider.generateToken(ENABLED_USER);
+
+        //when
+        Authentication authentication = provider.getAuthentication(token);
+
+        //then
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        assertEquals(ENABLED_USER.getUsername(), ((UserDetails) authentication.getPrincipal()).getUsername());
+        assertEquals(new SimpleGrantedAuthority(ENABLED_USER.getRole()), authentication.getAuthorities().iterator().next());
+    }
+
+    @Test
+    public void shouldLoadUserInDatabaseMode() {
+        //given
+        JwtTokenProvider provider = new JwtTokenProvider(userDetailsService, keyRing, revocationList, tokenCache, 60000, "database");
+        String token = provider.generateToken(ENABLED_USER);
+        UserDetails user = User.withUsername(ENABLED_USER.getUsername()).password("hash").authorities("ADMIN").build();
+        given(userDetailsService.loadUserByUsername(ENABLED_USER.getUsername())).willReturn(user);
+
+        //when
+        Authentication authentication = provider.getAuthentication(token);
+
+        //then
+        verify(userDetailsService, times(1)).loadUserByUsername(ENABLED_USER.getUsername());
+        assertEquals(user, authentication.getPrincipal());
+    }
+
+    @Test
+    public void shouldRejectRevokedToken() {
+        //given
+        JwtTokenProvider provider = new JwtTokenProvider(userDetailsService, keyRing, revocationList, tokenCache, 60000, "claims");
+        String token = provider.generateToken(ENABLED_USER);
+        given(revocationList.isRevoked(eq(ENABLED_USER.getUsername()), anyString(), any())).willReturn(true);
+
+        Throwable exception = assertThrows(
+            RuntimeException.class,
+            //when
+            () -> provider.getAuthentication(token)
+        );
+
+        //then
+        assertEquals("Expired or invalid JWT token", exception.getMessage());
+    }
+
+    @Test
+    public void shouldRejectTokenSignedWithAnotherKey() {
+        //given
+        JwtTokenProvider provider = new JwtTokenProvider(userDetailsService, keyRing, revocationList, tokenCache, 60000, "claims");
+        SigningKeyRing otherKeyRing = new SigningKeyRing(signingKeyRepository(), new SigningKeyCipher(""), 3600000, 60000);
+        otherKeyRing.load();
+        String token = new JwtTokenProvider(userDetailsService, otherKeyRing, revocationList, tokenCache, 60000, "claims").generateToken(ENABLED_USER);
+
+        assertThrows(
+            RuntimeException.class,
+            //when
+            () -> provider.getAuthentication(token)
+        );
+
+        //then
+        verify(revocationList, never()).isRevoked(anyString(), any(), any());
+    }
+
+    @Test
+    public void shouldServeRepeatedTokenFromCache() {
+        //given
+        JwtTokenProvider provider = new JwtTokenProvider(userDetailsService, keyRing, revocationList, tokenCache, 60000, "claims");
+        String token = provider.generateToken(ENABLED_USER);
+        Authentication first = provider.getAuthentication(token);
+
+        //when
+        Authentication second = provider.getAuthentication(token);
+
+        //then
+        assertSame(first, second);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "tokens").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    public void shouldRejectCachedTokenOnceRevoked() {
+        //given
+        JwtTokenProvider provider = new JwtTokenProvider(userDetailsService, keyRing, revocationList, tokenCache, 60000, "claims");
+        String token = provider.generateToken(ENABLED_USER);
+        provider.getAuthentication(token);
+        given(revocationList.isRevoked(eq(ENABLED_USER.getUsername()), anyString(), any())).willReturn(true);
+
+        assertThrows(
+            RuntimeException.class,
+            //when
+            () -> provider.getAuthentication(token)
+        );
+
+        //then
+        verify(revocationList, times(2)).isRevoked(eq(ENABLED_USER.getUsername()), anyString(), any());
+    }
+
+    @Test
+    public void shouldAcceptTokenIssuedByAnotherInstance() {
+        //given
+        List<SigningKey> collection = new ArrayList<>();
+        SigningKeyRing issuingKeyRing = new SigningKeyRing(signingKeyRepository(collection), new SigningKeyCipher(""), 3600000, 60000);
+        SigningKeyRing verifyingKeyRing = new SigningKeyRing(signingKeyRepository(collection), new SigningKeyCipher(""), 3600000, 60000);
+        issuingKeyRing.load();
+        verifyingKeyRing.load();
+        String token = new JwtTokenProvider(userDetailsService, issuingKeyRing, revocationList, tokenCache, 60000, "claims").generateToken(ENABLED_USER);
+        JwtTokenProvider provider = new JwtTokenProvider(userDetailsService, verifyingKeyRing, revocationList,
+            new VerifiedTokenCache(new SimpleMeterRegistry(), 100), 60000, "claims");
+
+        //when
+        Authentication authentication = provider.getAuthentication(token);
+
+        //then
+        assertEquals(ENABLED_USER.getUsername(), ((UserDetails) authentication.getPrincipal()).getUsername());
+    }
+}
@@ -0,0 +1,136 @@
+package com.gmiedlar.moviereviewer.config;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import com.gmiedlar.moviereviewer.domain.SigningKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.gmiedlar.moviereviewer.common.TestUtils.signingKeyRepository;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SigningKeyRingTest {
+
+    private static final long ROTATION_PERIOD = 3600000;
+
+    private static final long TOKEN_LIFETIME = 60000;
+
+    private static final long NOW = 100 * ROTATION_PERIOD + 1000;
+
+    private static final String ENCRYPTION_KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private List<SigningKey> collection;
+
+    private SigningKeyRing keyRing;
+
+    @BeforeEach
+    void setUp() {
+        collection = new ArrayList<>();
+        keyRing = new SigningKeyRing(signingKeyRepository(collection), new SigningKeyCipher(ENCRYPTION_KEY), ROTATION_PERIOD, TOKEN_LIFETIME);
+    }
+
+    @Test
+    public void shouldCreateCurrentAndNextKey() {
+        //when
+        keyRing.refresh(NOW);
+
+        //then
+        assertEquals(2, collection.size());
+        assertEquals("key-100", keyRing.getCurrentKeyId());
+        assertNotNull(keyRing.getKey("key-101"));
+    }
+
+    @Test
+    public void shouldShareKeysBetweenInstances() {
+        //given
+        SigningKeyRing otherInstance = new SigningKeyRing(signingKeyRepository(collection), new SigningKeyCipher(ENCRYPTION_KEY), ROTATION_PERIOD, TOKEN_LIFETIME);
+        keyRing.refresh(NOW);
+
+        //when
+        otherInstance.refresh(NOW);
+
+        //then
+        assertEquals(2, collection.size());
+        assertEquals(keyRing.getCurrentKeyId(), otherInstance.getCurrentKeyId());
+        assertEquals(keyRing.getKey("key-100"), otherInstance.getKey("key-100"));
+    }
+
+    @Test
+    public void shouldRotateAndKeepPreviousKeyForTokenLifetime() {
+        //given
+        keyRing.refresh(NOW);
+
+        //when
+        keyRing.refresh(NOW + ROTATION_PERIOD);
+
+        //then
+        assertEquals("key-101", keyRing.getCurrentKeyId());
+        assertNotEquals(keyRing.getKey("key-100"), keyRing.getKey("key-101"));
+        assertNotNull(keyRing.getKey("key-102"));
+    }
+
+    @Test
+    public void shouldDropPreviousKeyAfterTokenLifetime() {
+        //given
+        keyRing.refresh(NOW);
+
+        keyRing.refresh(101 * ROTATION_PERIOD + TOKEN_LIFETIME);
+
+        Throwable exception = assertThrows(
+            RuntimeException.class,
+            //when
+            () -> keyRing.getKey("key-100")
+        );
+
+        //then
+        assertEquals("Unknown signing key", exception.getMessage());
+    }
+
+    @Test
+    public void shouldStoreKeysEncrypted() {
+        //when
+        keyRing.refresh(NOW);
+
+        //then
+        SigningKey stored = collection.get(0);
+        assertTrue(stored.isEncrypted());
+        assertNotEquals(Base64.getEncoder().encodeToString(keyRing.getKey(stored.getId()).getEncoded()), stored.getSecret());
+        assertArrayEquals(keyRing.getKey(stored.getId()).getEncoded(), new SigningKeyCipher(ENCRYPTION_KEY).decrypt(stored.getId(), stored.getSecret()));
+    }
+
+    @Test
+    public void shouldReadKeysStoredInPlainText() {
+        //given
+        new SigningKeyRing(signingKeyRepository(collection), new SigningKeyCipher(""), ROTATION_PERIOD, TOKEN_LIFETIME).refresh(NOW);
+
+        //when
+        keyRing.refresh(NOW);
+
+        //then
+        assertEquals(2, collection.size());
+        assertEquals(Base64.getEncoder().encodeToString(keyRing.getKey("key-100").getEncoded()), collection.get(0).getSecret());
+    }
+
+    @Test
+    public void shouldNotLoadKeyEncryptedForAnotherKeyId() {
+        //given
+        keyRing.refresh(NOW);
+        collection.get(1).setSecret(collection.get(0).getSecret());
+
+        Throwable exception = assertThrows(
+            IllegalStateException.class,
+            //when
+            () -> keyRing.refresh(NOW)
+        );
+
+        //then
+        assertEquals("Cannot decrypt signing key key-101!", exception.getMessage());
+    }
+}
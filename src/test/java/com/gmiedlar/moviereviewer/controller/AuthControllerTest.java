@@ -1,6 +1,8 @@
 package com.gmiedlar.moviereviewer.controller;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import javax.mail.MessagingException;
 
 import com.gmiedlar.moviereviewer.dto.UserLoginDto;
@@ -15,6 +17,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import static com.gmiedlar.moviereviewer.common.TestData.DISABLED_USER;
 import static com.gmiedlar.moviereviewer.common.TestUtils.readFile;
@@ -22,10 +25,13 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -41,11 +47,15 @@ class AuthControllerTest {
 
     @Test
     public void shouldReturnSuccessMessageWhenAccountCreated() throws Exception {
-        given(service.registerUser(any(UserRegisterDto.class))).willReturn(DISABLED_USER);
+        given(service.registerUser(any(UserRegisterDto.class))).willReturn(CompletableFuture.completedFuture(DISABLED_USER));
 
-        mockMvc.perform(post("/auth/register")
+        MvcResult result = mockMvc.perform(post("/auth/register")
             .content(readFile("requests/user.json"))
             .contentType(APPLICATION_JSON))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                .andExpect(status().isCreated())
                .andExpect(content().string("Account successfully created"));
     }
@@ -55,9 +65,13 @@ class AuthControllerTest {
         Exception expectedException = new IllegalArgumentException("User with this email already exists!");
         given(service.registerUser(any(UserRegisterDto.class))).willThrow(expectedException);
 
-        mockMvc.perform(post("/auth/register")
+        MvcResult result = mockMvc.perform(post("/auth/register")
             .content(readFile("requests/user.json"))
             .contentType(APPLICATION_JSON))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                .andExpect(status().isConflict())
                .andExpect(content().string(expectedException.getMessage()));
     }
@@ -65,11 +79,15 @@ class AuthControllerTest {
     @Test
     public void shouldReturnBadGatewayWhenVerificationEmailCannotBeSent() throws Exception {
         Exception expectedException = new MessagingException("Failed to send verification e-mail!");
-        given(service.registerUser(any(UserRegisterDto.class))).willThrow(expectedException);
+        given(service.registerUser(any(UserRegisterDto.class))).willReturn(CompletableFuture.failedFuture(expectedException));
 
-        mockMvc.perform(post("/auth/register")
+        MvcResult result = mockMvc.perform(post("/auth/register")
             .content(readFile("requests/user.json"))
             .contentType(APPLICATION_JSON))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                .andExpect(status().isBadGateway())
                .andExpect(content().string(expectedException.getMessage()));
     }
@@ -77,11 +95,15 @@ class AuthControllerTest {
     @Test
     public void shouldReturnTokenWhenUserSuccessfullyLoggedIn() throws Exception {
         Map<String,String> response = Map.of("tokenType", "Bearer", "token", "testJsonWebToken");
-        given(service.loginUser(any(UserLoginDto.class))).willReturn(response);
+        given(service.loginUser(any(UserLoginDto.class))).willReturn(CompletableFuture.completedFuture(response));
 
-        mockMvc.perform(post("/auth/login")
+        MvcResult result = mockMvc.perform(post("/auth/login")
             .content(readFile("requests/login.json"))
             .contentType(APPLICATION_JSON))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                .andExpect(status().isOk())
                .andExpect(jsonPath("$.tokenType").value("Bearer"))
                .andExpect(jsonPath("$.token").value("testJsonWebToken"));
@@ -92,13 +114,32 @@ class AuthControllerTest {
         Exception expectedException = new UsernameNotFoundException("No user with that email or username exists!");
         given(service.loginUser(any(UserLoginDto.class))).willThrow(expectedException);
 
-        mockMvc.perform(post("/auth/login")
+        MvcResult result = mockMvc.perform(post("/auth/login")
             .content(readFile("requests/login.json"))
             .contentType(APPLICATION_JSON))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                .andExpect(status().isUnauthorized())
                .andExpect(content().string(expectedException.getMessage()));
     }
 
+    @Test
+    public void shouldReturnServiceUnavailableWhenPasswordHashingIsSaturated() throws Exception {
+        given(service.loginUser(any(UserLoginDto.class))).willThrow(new RejectedExecutionException());
+
+        MvcResult result = mockMvc.perform(post("/auth/login")
+            .content(readFile("requests/login.json"))
+            .contentType(APPLICATION_JSON))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isServiceUnavailable())
+               .andExpect(header().string("Retry-After", "1"));
+    }
+
     @Test
     public void shouldReturnSuccessMessageWhenAccountVerified() throws Exception {
         String expectedMessage = "Account successfully verified.";
@@ -153,4 +194,10 @@ class AuthControllerTest {
                .andExpect(status().isBadGateway())
                .andExpect(content().string(expectedException.getMessage()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldRejectLogoutWithoutToken() throws Exception {
+        mockMvc.perform(post("/auth/logout"))
+               .andExpect(status().isForbidden());
+    }
+}
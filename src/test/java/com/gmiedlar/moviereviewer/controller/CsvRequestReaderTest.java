@@ -0,0 +1,61 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.gmiedlar.moviereviewer.dto.MovieImportDto;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CsvRequestReaderTest {
+
+    private final CsvRequestReader csvReader = new CsvRequestReader();
+
+    @Test
+    public void shouldRejectMalformedRowAndKeepReading() throws Exception {
+        //given
+        String csv = "title,genre,year,director\n"
+            + "Heat,crime,1995,Michael Mann\n"
+            + "Alien,horror,not a year,Ridley Scott\n"
+            + "Ronin,action,1998,John Frankenheimer\n";
+        List<RequestLine<MovieImportDto>> lines = new ArrayList<>();
+
+        //when
+        csvReader.read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), MovieImportDto.class, 2, lines::addAll);
+
+        //then
+        assertEquals(3, lines.size());
+        assertEquals("Heat", lines.get(0).getValue().getTitle());
+        assertEquals(3, lines.get(1).getNumber());
+        assertEquals("Malformed row!", lines.get(1).getError());
+        assertEquals("Ronin", lines.get(2).getValue().getTitle());
+    }
+
+    @Test
+    public void shouldRejectRestOfFileThatCannotBeTokenized() throws Exception {
+        //given
+        byte[] readable = "title,genre,year,director\nHeat,crime,1995,Michael Mann\n".getBytes(StandardCharsets.UTF_8);
+        InputStream body = new SequenceInputStream(new ByteArrayInputStream(readable), new InputStream() {
+            @Override
+            public int read() throws JsonParseException {
+                throw new JsonParseException(null, "Unexpected character");
+            }
+        });
+        List<RequestLine<MovieImportDto>> lines = new ArrayList<>();
+
+        //when
+        csvReader.read(body, MovieImportDto.class, 10, lines::addAll);
+
+        //then
+        RequestLine<MovieImportDto> last = lines.get(lines.size() - 1);
+        assertNull(last.getValue());
+        assertEquals(CsvRequestReader.UNREADABLE_ROW_MESSAGE, last.getError());
+    }
+}
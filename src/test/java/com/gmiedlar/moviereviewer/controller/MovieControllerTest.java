@@ -2,11 +2,21 @@ package com.gmiedlar.moviereviewer.controller;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 import com.gmiedlar.moviereviewer.domain.Comment;
 import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.CursorPageDto;
+import com.gmiedlar.moviereviewer.dto.FacetCountDto;
+import com.gmiedlar.moviereviewer.dto.MovieCatalogFilter;
 import com.gmiedlar.moviereviewer.dto.MovieDto;
+import com.gmiedlar.moviereviewer.dto.MovieFacetsDto;
+import com.gmiedlar.moviereviewer.dto.MovieSuggestionDto;
+import com.gmiedlar.moviereviewer.dto.MovieSummaryDto;
+import com.gmiedlar.moviereviewer.dto.TopMovieDto;
+import com.gmiedlar.moviereviewer.dto.TrendingMovieDto;
 import com.gmiedlar.moviereviewer.service.MovieService;
 import com.gmiedlar.moviereviewer.service.ReviewService;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,28 +26,41 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import static com.gmiedlar.moviereviewer.common.TestData.COMMENT;
 import static com.gmiedlar.moviereviewer.common.TestData.COMMENT_ID;
 import static com.gmiedlar.moviereviewer.common.TestData.MOVIE;
 import static com.gmiedlar.moviereviewer.common.TestData.MOVIE_DTO;
 import static com.gmiedlar.moviereviewer.common.TestData.MOVIE_ID;
+import static com.gmiedlar.moviereviewer.common.TestData.MOVIE_SUMMARY;
 import static com.gmiedlar.moviereviewer.common.TestData.UNIQUE_USERNAME;
 import static com.gmiedlar.moviereviewer.common.TestData.USER_ID;
 import static com.gmiedlar.moviereviewer.common.TestUtils.readFile;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -96,7 +119,7 @@ class MovieControllerTest {
 
     @Test
     public void shouldReturnAllMovies() throws Exception {
-        given(service.getAllMovies()).willReturn(List.of(MOVIE));
+        given(service.getAllMovies()).willReturn(List.of(MOVIE_SUMMARY));
 
         mockMvc.perform(get("/movie/all"))
                .andExpect(status().isOk())
@@ -106,13 +129,138 @@ class MovieControllerTest {
                .andExpect(jsonPath("$[0].genre").value("test genre"))
                .andExpect(jsonPath("$[0].year").value(2020))
                .andExpect(jsonPath("$[0].director").value("Test director"))
-               .andExpect(jsonPath("$[0].userId").value(USER_ID));
+               .andExpect(jsonPath("$[0].reviewCount").value(0))
+               .andExpect(jsonPath("$[0].commentIds").doesNotExist());
+    }
+
+    @Test
+    public void shouldStreamAllMoviesAsNdjson() throws Exception {
+        given(service.streamAllMovies()).willReturn(Stream.of(MOVIE_SUMMARY));
+
+        MvcResult result = mockMvc.perform(get("/movie/all").accept(NdjsonResponseWriter.APPLICATION_NDJSON_VALUE))
+                                  .andExpect(request().asyncStarted())
+                                  .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isOk())
+               .andExpect(content().contentType(NdjsonResponseWriter.APPLICATION_NDJSON_VALUE))
+               .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+               .andExpect(content().string(containsString("\"id\":\"" + MOVIE_ID + "\"")))
+               .andExpect(content().string(endsWith("}\n")));
+    }
+
+    @Test
+    public void shouldReturnMovieCatalogPage() throws Exception {
+        MovieCatalogFilter filter = MovieCatalogFilter.builder().genre("drama").yearFrom(1990).minRating(7.5).build();
+        CursorPageDto<MovieSummaryDto> page = CursorPageDto.<MovieSummaryDto>builder().content(List.of(MOVIE_SUMMARY)).nextCursor("next").build();
+        given(service.getMovieCatalogPage(filter, "year,asc", null, 20)).willReturn(page);
+
+        mockMvc.perform(get("/movie/catalog?genre=drama&yearFrom=1990&minRating=7.5&sort=year,asc"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content.length()").value(1))
+               .andExpect(jsonPath("$.content[0].id").value(MOVIE_ID))
+               .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenCatalogSortInvalid() throws Exception {
+        Exception expectedException = new IllegalArgumentException("Invalid sort order!");
+        given(service.getMovieCatalogPage(any(MovieCatalogFilter.class), anyString(), any(), anyInt())).willThrow(expectedException);
+
+        mockMvc.perform(get("/movie/catalog?sort=commentIds,asc"))
+               .andExpect(status().isBadRequest())
+               .andExpect(content().string(expectedException.getMessage()));
+    }
+
+    @Test
+    public void shouldReturnMovieFacets() throws Exception {
+        MovieCatalogFilter filter = MovieCatalogFilter.builder().genre("drama").yearTo(2000).build();
+        MovieFacetsDto facets = MovieFacetsDto.builder()
+                                              .genres(List.of(new FacetCountDto("drama", 3)))
+                                              .decades(List.of(new FacetCountDto("1990", 2), new FacetCountDto("1980", 1)))
+                                              .directors(List.of(new FacetCountDto("David Fincher", 2)))
+                                              .build();
+        given(service.getMovieFacets(filter)).willReturn(facets);
+
+        mockMvc.perform(get("/movie/facets?genre=drama&yearTo=2000"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.genres[0].value").value("drama"))
+               .andExpect(jsonPath("$.genres[0].count").value(3))
+               .andExpect(jsonPath("$.decades.length()").value(2))
+               .andExpect(jsonPath("$.directors[0].value").value("David Fincher"));
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenFacetMinRatingInvalid() throws Exception {
+        Exception expectedException = new IllegalArgumentException("Minimum rating must be between 0 and 10!");
+        given(service.getMovieFacets(any(MovieCatalogFilter.class))).willThrow(expectedException);
+
+        mockMvc.perform(get("/movie/facets?minRating=11"))
+               .andExpect(status().isBadRequest())
+               .andExpect(content().string(expectedException.getMessage()));
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenTooManyMovieDetailsRequested() throws Exception {
+        Exception expectedException = new IllegalArgumentException("At most 100 movie ids can be requested at once!");
+        given(service.getMoviesDetails(any(), anyList())).willThrow(expectedException);
+
+        mockMvc.perform(get("/movie/details?ids=" + MOVIE_ID))
+               .andExpect(status().isBadRequest())
+               .andExpect(content().string(expectedException.getMessage()));
+    }
+
+    @Test
+    public void shouldReturnTopRatedMovies() throws Exception {
+        TopMovieDto topMovie = TopMovieDto.builder().id(MOVIE_ID).title("Test title").avgRating(8.5).ratingCount(40).score(8.1).build();
+        given(service.getTopRatedMovies(5, 10, "drama")).willReturn(List.of(topMovie));
+
+        mockMvc.perform(get("/movie/top?limit=5&minReviews=10&genre=drama"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(1))
+               .andExpect(jsonPath("$[0].id").value(MOVIE_ID))
+               .andExpect(jsonPath("$[0].ratingCount").value(40))
+               .andExpect(jsonPath("$[0].score").value(8.1));
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenTopRatedLimitInvalid() throws Exception {
+        Exception expectedException = new IllegalArgumentException("Limit must be between 1 and 100!");
+        given(service.getTopRatedMovies(1000, 1, null)).willThrow(expectedException);
+
+        mockMvc.perform(get("/movie/top?limit=1000"))
+               .andExpect(status().isBadRequest())
+               .andExpect(content().string(expectedException.getMessage()));
+    }
+
+    @Test
+    public void shouldReturnTrendingMovies() throws Exception {
+        TrendingMovieDto trendingMovie = TrendingMovieDto.builder().id(MOVIE_ID).title("Test title").reviewCount(12).build();
+        given(service.getTrendingMovies("1h", 10)).willReturn(List.of(trendingMovie));
+
+        mockMvc.perform(get("/movie/trending?window=1h"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(1))
+               .andExpect(jsonPath("$[0].id").value(MOVIE_ID))
+               .andExpect(jsonPath("$[0].reviewCount").value(12));
+    }
+
+    @Test
+    public void shouldReturnMovieSuggestions() throws Exception {
+        MovieSuggestionDto suggestion = MovieSuggestionDto.builder().id(MOVIE_ID).title("Test title").reviewCount(3).build();
+        given(service.suggestMovies("tes", 10)).willReturn(List.of(suggestion));
+
+        mockMvc.perform(get("/movie/search/suggest?prefix=tes"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(1))
+               .andExpect(jsonPath("$[0].id").value(MOVIE_ID))
+               .andExpect(jsonPath("$[0].reviewCount").value(3));
     }
 
     @Test
     @WithMockUser(username = UNIQUE_USERNAME)
     public void shouldReturnAllUserMovies() throws Exception {
-        given(service.getAllUserMovies(UNIQUE_USERNAME)).willReturn(List.of(MOVIE));
+        given(service.getAllUserMovies(UNIQUE_USERNAME)).willReturn(List.of(MOVIE_SUMMARY));
 
         mockMvc.perform(get("/movie"))
                .andExpect(status().isOk())
@@ -122,15 +270,22 @@ class MovieControllerTest {
                .andExpect(jsonPath("$[0].genre").value("test genre"))
                .andExpect(jsonPath("$[0].year").value(2020))
                .andExpect(jsonPath("$[0].director").value("Test director"))
-               .andExpect(jsonPath("$[0].userId").value(USER_ID));
+               .andExpect(jsonPath("$[0].reviewCount").value(0))
+               .andExpect(jsonPath("$[0].commentIds").doesNotExist());
     }
 
     @Test
     public void shouldReturnMovieWhenIdExist() throws Exception {
+        given(service.getMovieVersion(MOVIE_ID)).willReturn(Movie.builder().id(MOVIE_ID).revision(3).updatedAt(new Date(1600000000000L)).build());
         given(service.getMovieDetails(null, MOVIE_ID)).willReturn(MOVIE_DTO);
 
         mockMvc.perform(get("/movie/" + MOVIE_ID))
                .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"3-0\""))
+               .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, 1600000000000L))
+               .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=0, public, s-maxage=60"))
+               .andExpect(result -> assertTrue(result.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.AUTHORIZATION)))
+               .andExpect(header().string(HttpCacheHeaders.SURROGATE_KEY, "movie-" + MOVIE_ID))
                .andExpect(jsonPath("$.id").value(MOVIE_ID))
                .andExpect(jsonPath("$.title").value("Test title"))
                .andExpect(jsonPath("$.genre").value("test genre"))
@@ -139,10 +294,36 @@ class MovieControllerTest {
                .andExpect(jsonPath("$.canComment").value(false));
     }
 
+    @Test
+    public void shouldReturnNotModifiedWithoutLoadingMovieWhenETagMatches() throws Exception {
+        given(service.getMovieVersion(MOVIE_ID)).willReturn(Movie.builder().id(MOVIE_ID).revision(3).build());
+
+        mockMvc.perform(get("/movie/" + MOVIE_ID).header(HttpHeaders.IF_NONE_MATCH, "\"3-0\""))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"3-0\""))
+               .andExpect(header().string(HttpCacheHeaders.SURROGATE_KEY, "movie-" + MOVIE_ID))
+               .andExpect(content().string(""));
+
+        verify(service, never()).getMovieDetails(any(), anyString());
+    }
+
+    @Test
+    @WithMockUser(username = UNIQUE_USERNAME)
+    public void shouldReturnPrivateMovieResponseForAuthenticatedUser() throws Exception {
+        given(service.getMovieVersion(MOVIE_ID)).willReturn(Movie.builder().id(MOVIE_ID).revision(3).build());
+        given(service.getMovieDetails(UNIQUE_USERNAME, MOVIE_ID)).willReturn(MOVIE_DTO);
+
+        mockMvc.perform(get("/movie/" + MOVIE_ID).header(HttpHeaders.IF_NONE_MATCH, "\"3-0\""))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+               .andExpect(header().doesNotExist(HttpCacheHeaders.SURROGATE_KEY))
+               .andExpect(jsonPath("$.canComment").value(false));
+    }
+
     @Test
     public void shouldReturnBadRequestWhenIdNotExist() throws Exception {
         Exception expectedException = new IllegalArgumentException("No movie with that id exists!");
-        given(service.getMovieDetails(null, MOVIE_ID)).willThrow(expectedException);
+        given(service.getMovieVersion(MOVIE_ID)).willThrow(expectedException);
 
         mockMvc.perform(get("/movie/" + MOVIE_ID))
                .andExpect(status().isBadRequest())
@@ -0,0 +1,94 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.util.List;
+
+import com.gmiedlar.moviereviewer.dto.MovieImportDto;
+import com.gmiedlar.moviereviewer.dto.MovieImportResultDto;
+import com.gmiedlar.moviereviewer.service.MovieService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.gmiedlar.moviereviewer.common.TestData.MOVIE_ID;
+import static com.gmiedlar.moviereviewer.common.TestData.UNIQUE_USERNAME;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class MovieImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private MovieService service;
+
+    @Test
+    @WithMockUser(username = UNIQUE_USERNAME, authorities = "ADMIN")
+    public void shouldImportCsvAndReportRejectedRows() throws Exception {
+        given(service.importMovies(eq(UNIQUE_USERNAME), argThat((List<MovieImportDto> movies) -> movies.size() == 2)))
+            .willReturn(List.of(
+                MovieImportResultDto.builder().line(2).movieId(MOVIE_ID).build(),
+                MovieImportResultDto.builder().line(5).error("Movie with this title and year already exists!").build()
+            ));
+
+        String body = "title,genre,year,director\n"
+            + "Heat,Crime,1995,Michael Mann\n"
+            + "Untitled,Drama,,Someone\n"
+            + "Broken,Drama,next year,Someone\n"
+            + "heat,Crime,1995,Michael Mann\n";
+
+        mockMvc.perform(post("/movie/import")
+            .content(body)
+            .contentType(CsvRequestReader.TEXT_CSV_VALUE))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.created").value(1))
+               .andExpect(jsonPath("$.rejected").value(3))
+               .andExpect(jsonPath("$.results.length()").value(3))
+               .andExpect(jsonPath("$.results[0].line").value(3))
+               .andExpect(jsonPath("$.results[0].error").value("year must not be null"))
+               .andExpect(jsonPath("$.results[1].line").value(4))
+               .andExpect(jsonPath("$.results[1].error").value("Malformed row!"))
+               .andExpect(jsonPath("$.results[2].line").value(5));
+    }
+
+    @Test
+    @WithMockUser(username = UNIQUE_USERNAME, authorities = "ADMIN")
+    public void shouldImportNdjson() throws Exception {
+        given(service.importMovies(eq(UNIQUE_USERNAME), argThat((List<MovieImportDto> movies) -> movies.size() == 1)))
+            .willReturn(List.of(MovieImportResultDto.builder().line(1).movieId(MOVIE_ID).build()));
+
+        mockMvc.perform(post("/movie/import")
+            .content("{\"title\":\"Heat\",\"genre\":\"Crime\",\"year\":1995,\"director\":\"Michael Mann\"}\n")
+            .contentType(NdjsonResponseWriter.APPLICATION_NDJSON_VALUE))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.created").value(1))
+               .andExpect(jsonPath("$.rejected").value(0));
+    }
+
+    @Test
+    @WithMockUser(username = UNIQUE_USERNAME)
+    public void shouldForbidImportToNonAdmins() throws Exception {
+        mockMvc.perform(post("/movie/import")
+            .content("title,genre,year,director\n")
+            .contentType(CsvRequestReader.TEXT_CSV_VALUE))
+               .andExpect(status().isForbidden());
+
+        verify(service, never()).importMovies(eq(UNIQUE_USERNAME), anyList());
+    }
+}
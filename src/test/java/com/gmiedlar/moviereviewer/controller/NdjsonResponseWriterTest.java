@@ -0,0 +1,63 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.util.stream.Stream;
+import javax.servlet.http.HttpServletRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class NdjsonResponseWriterTest {
+
+    private final NdjsonResponseWriter ndjsonWriter = new NdjsonResponseWriter(new ObjectMapper(), 900000);
+
+    @Test
+    public void shouldWriteThroughEtagFilterWithoutBuffering() throws Exception {
+        //given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/movie/all");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        StringBuilder writtenBeforeCompletion = new StringBuilder();
+
+        //when
+        new ShallowEtagHeaderFilter().doFilter(request, response, (filteredRequest, filteredResponse) -> {
+            ndjsonWriter.write((HttpServletRequest) filteredRequest, () -> Stream.of("first", "second"))
+                        .writeTo(filteredResponse.getOutputStream());
+            writtenBeforeCompletion.append(response.getContentAsString());
+        });
+
+        //then
+        assertEquals("\"first\"\n\"second\"\n", writtenBeforeCompletion.toString());
+        assertEquals("\"first\"\n\"second\"\n", response.getContentAsString());
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void shouldGiveOnlyStreamsTheirOwnTimeout() throws Exception {
+        //given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/movie/all");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+        StreamingResponseBody body = ndjsonWriter.write(request, Stream::empty);
+
+        //when
+        asyncManager.startCallableProcessing(() -> {
+            body.writeTo(response.getOutputStream());
+            return null;
+        });
+
+        //then
+        assertEquals(900000, request.getAsyncContext().getTimeout());
+    }
+}
@@ -3,9 +3,12 @@ package com.gmiedlar.moviereviewer.controller;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 import com.gmiedlar.moviereviewer.domain.Comment;
 import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.CursorPageDto;
+import com.gmiedlar.moviereviewer.dto.RatingHistogramDto;
 import com.gmiedlar.moviereviewer.service.MovieService;
 import com.gmiedlar.moviereviewer.service.ReviewService;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,25 +18,32 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import static com.gmiedlar.moviereviewer.common.TestData.COMMENT;
 import static com.gmiedlar.moviereviewer.common.TestData.COMMENT_ID;
 import static com.gmiedlar.moviereviewer.common.TestData.MOVIE_ID;
 import static com.gmiedlar.moviereviewer.common.TestData.UNIQUE_USERNAME;
 import static com.gmiedlar.moviereviewer.common.TestData.USER_ID;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -79,6 +89,70 @@ class ReviewControllerTest {
                .andExpect(jsonPath("$[0].authorId").value(USER_ID));
     }
 
+    @Test
+    public void shouldStreamMovieCommentsAsNdjson() throws Exception {
+        given(service.streamMovieComments(MOVIE_ID)).willReturn(Stream.of(COMMENT, COMMENT));
+
+        MvcResult result = mockMvc.perform(get("/review/" + MOVIE_ID).accept(NdjsonResponseWriter.APPLICATION_NDJSON_VALUE))
+                                  .andExpect(request().asyncStarted())
+                                  .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isOk())
+               .andExpect(content().contentType(NdjsonResponseWriter.APPLICATION_NDJSON_VALUE))
+               .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+               .andExpect(content().string(containsString("\"id\":\"" + COMMENT_ID + "\"")))
+               .andExpect(content().string(endsWith("}\n")));
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenStreamingCommentsOfUnknownMovie() throws Exception {
+        Exception expectedException = new IllegalArgumentException("No movie with that id exists!");
+        given(service.streamMovieComments(MOVIE_ID)).willThrow(expectedException);
+
+        MvcResult result = mockMvc.perform(get("/review/" + MOVIE_ID).accept(NdjsonResponseWriter.APPLICATION_NDJSON_VALUE))
+                                  .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isBadRequest())
+               .andExpect(content().string(expectedException.getMessage()));
+    }
+
+    @Test
+    public void shouldReturnPageOfMovieComments() throws Exception {
+        CursorPageDto<Comment> page = CursorPageDto.<Comment>builder()
+                                                   .content(List.of(COMMENT))
+                                                   .nextCursor("cursor-1234")
+                                                   .build();
+        given(service.getMovieCommentsPage(MOVIE_ID, "highest", null, 1)).willReturn(page);
+
+        mockMvc.perform(get("/review/" + MOVIE_ID + "/page?sort=highest&size=1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content.length()").value(1))
+               .andExpect(jsonPath("$.content[0].id").value(COMMENT_ID))
+               .andExpect(jsonPath("$.nextCursor").value("cursor-1234"));
+    }
+
+    @Test
+    public void shouldReturnMovieRatingHistogram() throws Exception {
+        RatingHistogramDto histogram = RatingHistogramDto.builder()
+                                                         .movieId(MOVIE_ID)
+                                                         .counts(List.of(0L, 0L, 0L, 0L, 1L, 0L, 0L, 0L, 0L, 0L))
+                                                         .total(1)
+                                                         .avgRating(5)
+                                                         .median(5)
+                                                         .build();
+        given(service.getMovieRatingHistogram(MOVIE_ID)).willReturn(histogram);
+
+        mockMvc.perform(get("/review/" + MOVIE_ID + "/histogram"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.movieId").value(MOVIE_ID))
+               .andExpect(jsonPath("$.counts.length()").value(10))
+               .andExpect(jsonPath("$.counts[4]").value(1))
+               .andExpect(jsonPath("$.total").value(1))
+               .andExpect(jsonPath("$.median").value(5.0));
+    }
+
     @Test
     @WithMockUser(username = UNIQUE_USERNAME)
     public void shouldReturnMovieWithNewCommentWhenSuccessfullyAdded() throws Exception {
@@ -96,6 +170,19 @@ class ReviewControllerTest {
                .andExpect(jsonPath("$.commentIds[1]").value(newCommentID));
     }
 
+    @Test
+    @WithMockUser(username = UNIQUE_USERNAME)
+    public void shouldReturnConflictWhenUserAlreadyReviewedMovie() throws Exception {
+        Exception expectedException = new IllegalStateException("You have already reviewed this movie!");
+        given(service.addMovieComment(anyString(), anyString(), any(Comment.class))).willThrow(expectedException);
+
+        mockMvc.perform(post("/review/" + MOVIE_ID)
+            .content("{\"rating\": 5,\"text\": \"Awesome\"}")
+            .contentType(APPLICATION_JSON))
+               .andExpect(status().isConflict())
+               .andExpect(content().string(expectedException.getMessage()));
+    }
+
     @Test
     @WithMockUser(username = UNIQUE_USERNAME)
     public void shouldReturnBadRequestWhenInvalidCommentContent() throws Exception {
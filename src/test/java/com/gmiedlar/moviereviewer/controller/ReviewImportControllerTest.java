@@ -0,0 +1,83 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.util.List;
+
+import com.gmiedlar.moviereviewer.dto.BulkReviewDto;
+import com.gmiedlar.moviereviewer.dto.BulkReviewResultDto;
+import com.gmiedlar.moviereviewer.service.MovieService;
+import com.gmiedlar.moviereviewer.service.ReviewService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.gmiedlar.moviereviewer.common.TestData.COMMENT_ID;
+import static com.gmiedlar.moviereviewer.common.TestData.MOVIE_ID;
+import static com.gmiedlar.moviereviewer.common.TestData.UNIQUE_USERNAME;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReviewImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private MovieService movieService;
+
+    @MockBean
+    private ReviewService service;
+
+    @Test
+    @WithMockUser(username = UNIQUE_USERNAME, authorities = "ADMIN")
+    public void shouldReturnPerLineImportReport() throws Exception {
+        given(service.importMovieComments(argThat((List<BulkReviewDto> reviews) -> reviews.size() == 2)))
+            .willReturn(List.of(
+                BulkReviewResultDto.builder().line(1).movieId(MOVIE_ID).commentId(COMMENT_ID).build(),
+                BulkReviewResultDto.builder().line(4).movieId(MOVIE_ID).error("No user with that username exists!").build()
+            ));
+
+        String body = "{\"movieId\":\"" + MOVIE_ID + "\",\"username\":\"" + UNIQUE_USERNAME + "\",\"rating\":8,\"text\":\"Great\"}\n"
+            + "{not json\n"
+            + "\n"
+            + "{\"movieId\":\"" + MOVIE_ID + "\",\"username\":\"unknown\",\"rating\":5}\n";
+
+        mockMvc.perform(post("/review/bulk")
+            .content(body)
+            .contentType(NdjsonResponseWriter.APPLICATION_NDJSON_VALUE))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.created").value(1))
+               .andExpect(jsonPath("$.rejected").value(2))
+               .andExpect(jsonPath("$.results.length()").value(3))
+               .andExpect(jsonPath("$.results[0].commentId").value(COMMENT_ID))
+               .andExpect(jsonPath("$.results[0].created").value(true))
+               .andExpect(jsonPath("$.results[1].line").value(2))
+               .andExpect(jsonPath("$.results[1].error").value("Malformed JSON!"))
+               .andExpect(jsonPath("$.results[2].line").value(4));
+    }
+
+    @Test
+    @WithMockUser(username = UNIQUE_USERNAME)
+    public void shouldForbidImportToNonAdmins() throws Exception {
+        mockMvc.perform(post("/review/bulk")
+            .content("{}\n")
+            .contentType(NdjsonResponseWriter.APPLICATION_NDJSON_VALUE))
+               .andExpect(status().isForbidden());
+
+        verify(service, never()).importMovieComments(anyList());
+    }
+}
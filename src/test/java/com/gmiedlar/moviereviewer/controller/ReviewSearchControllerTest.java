@@ -0,0 +1,63 @@
+package com.gmiedlar.moviereviewer.controller;
+
+import java.util.List;
+
+import com.gmiedlar.moviereviewer.dto.ReviewSearchHitDto;
+import com.gmiedlar.moviereviewer.dto.SearchPageDto;
+import com.gmiedlar.moviereviewer.service.CommentService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.gmiedlar.moviereviewer.common.TestData.COMMENT_ID;
+import static com.gmiedlar.moviereviewer.common.TestData.MOVIE_ID;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReviewSearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CommentService service;
+
+    @Test
+    public void shouldReturnRankedSearchHits() throws Exception {
+        ReviewSearchHitDto hit = ReviewSearchHitDto.builder()
+                                                   .commentId(COMMENT_ID)
+                                                   .movieId(MOVIE_ID)
+                                                   .score(3.2)
+                                                   .snippet("a <em>stunning</em> score")
+                                                   .build();
+        given(service.searchComments("stunning", MOVIE_ID, 1, 5))
+            .willReturn(SearchPageDto.<ReviewSearchHitDto>builder().content(List.of(hit)).page(1).size(5).totalHits(6).build());
+
+        mockMvc.perform(get("/review/search?q=stunning&movieId=" + MOVIE_ID + "&page=1&size=5"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.totalHits").value(6))
+               .andExpect(jsonPath("$.content[0].commentId").value(COMMENT_ID))
+               .andExpect(jsonPath("$.content[0].snippet").value("a <em>stunning</em> score"));
+    }
+
+    @Test
+    public void shouldReturnBadRequestWhenQueryEmpty() throws Exception {
+        Exception expectedException = new IllegalArgumentException("Search query must not be empty!");
+        given(service.searchComments(" ", null, 0, 20)).willThrow(expectedException);
+
+        mockMvc.perform(get("/review/search?q= "))
+               .andExpect(status().isBadRequest())
+               .andExpect(content().string(expectedException.getMessage()));
+    }
+}
@@ -1,5 +1,7 @@
 package com.gmiedlar.moviereviewer.controller;
 
+import java.util.concurrent.CompletableFuture;
+
 import com.gmiedlar.moviereviewer.dto.PasswordDto;
 import com.gmiedlar.moviereviewer.dto.UserDto;
 import com.gmiedlar.moviereviewer.service.UserService;
@@ -12,17 +14,20 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import static com.gmiedlar.moviereviewer.common.TestData.UNIQUE_USERNAME;
 import static com.gmiedlar.moviereviewer.common.TestData.USER_ID;
 import static com.gmiedlar.moviereviewer.common.TestUtils.readFile;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -67,11 +72,15 @@ class UserControllerTest {
         String oldPassword = "pass";
         String newPassword = "newPass";
         PasswordDto passwordDto = new PasswordDto(oldPassword, newPassword, newPassword);
-        given(service.updateUserPassword(UNIQUE_USERNAME, passwordDto)).willReturn("Password successfully changed");
+        given(service.updateUserPassword(UNIQUE_USERNAME, passwordDto)).willReturn(CompletableFuture.completedFuture("Password successfully changed"));
 
-        mockMvc.perform(put("/user/me/password")
+        MvcResult result = mockMvc.perform(put("/user/me/password")
             .content(readFile("requests/password.json"))
             .contentType(APPLICATION_JSON))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                .andExpect(status().isOk())
                .andExpect(content().string("Password successfully changed"));
     }
@@ -83,11 +92,15 @@ class UserControllerTest {
         String newPassword = "newPass";
         PasswordDto passwordDto = new PasswordDto(oldPassword, newPassword, newPassword);
         Exception expectedException = new IllegalArgumentException("Wrong password!");
-        given(service.updateUserPassword(UNIQUE_USERNAME, passwordDto)).willThrow(expectedException);
+        given(service.updateUserPassword(UNIQUE_USERNAME, passwordDto)).willReturn(CompletableFuture.failedFuture(expectedException));
 
-        mockMvc.perform(put("/user/me/password")
+        MvcResult result = mockMvc.perform(put("/user/me/password")
             .content(readFile("requests/password-invalid.json"))
             .contentType(APPLICATION_JSON))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                .andExpect(status().isBadRequest())
                .andExpect(content().string(expectedException.getMessage()));
     }
@@ -97,11 +110,15 @@ class UserControllerTest {
     public void shouldReturnSuccessMessageWhenPasswordReset() throws Exception {
         String newPassword = "newPass";
         PasswordDto passwordDto = new PasswordDto(null, newPassword, newPassword);
-        given(service.resetUserPassword(USER_ID, passwordDto)).willReturn("Password successfully changed");
+        given(service.resetUserPassword(USER_ID, passwordDto)).willReturn(CompletableFuture.completedFuture("Password successfully changed"));
 
-        mockMvc.perform(put("/user/"+USER_ID+"/password")
+        MvcResult result = mockMvc.perform(put("/user/"+USER_ID+"/password")
             .content("{\"newPassword\": \"newPass\",\"passwordConfirmation\": \"newPass\"}")
             .contentType(APPLICATION_JSON))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                .andExpect(status().isOk())
                .andExpect(content().string("Password successfully changed"));
     }
@@ -114,9 +131,13 @@ class UserControllerTest {
         PasswordDto passwordDto = new PasswordDto(null, newPassword, newPassword);
         given(service.resetUserPassword("1234", passwordDto)).willThrow(expectedException);
 
-        mockMvc.perform(put("/user/1234/password")
+        MvcResult result = mockMvc.perform(put("/user/1234/password")
             .content("{\"newPassword\": \"newPass\",\"passwordConfirmation\": \"newPass\"}")
             .contentType(APPLICATION_JSON))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                .andExpect(status().isBadRequest())
                .andExpect(content().string(expectedException.getMessage()));
     }
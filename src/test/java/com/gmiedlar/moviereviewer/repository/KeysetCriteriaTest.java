@@ -0,0 +1,33 @@
+package com.gmiedlar.moviereviewer.repository;
+
+import java.util.List;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.MovieSort;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeysetCriteriaTest {
+
+    private final MongoMappingContext mappingContext = new MongoMappingContext();
+
+    @Test
+    public void shouldMatchDocumentsAfterLastOneOfPage() {
+        //given
+        Movie after = Movie.builder().id("movieId-1234").avgRating(7.5).build();
+
+        //when
+        Criteria criteria = KeysetCriteria.after(mappingContext, MovieSort.AVG_RATING_DESC.getSort(), after);
+
+        //then
+        Document expected = new Document("$or", List.of(
+            new Document("$and", List.of(new Document("avgRating", new Document("$lt", 7.5)))),
+            new Document("$and", List.of(new Document("avgRating", 7.5), new Document("id", new Document("$lt", "movieId-1234"))))
+        ));
+        assertEquals(expected, criteria.getCriteriaObject());
+    }
+}
@@ -0,0 +1,95 @@
+package com.gmiedlar.moviereviewer.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static com.gmiedlar.moviereviewer.common.TestData.MOVIE_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs the counter updates against a real MongoDB, in a database of its own.
+@ExtendWith(SpringExtension.class)
+@DataMongoTest(properties = "spring.data.mongodb.database=MovieReviewerTest")
+class MovieRepositoryImplTest {
+
+    @Autowired
+    private MovieRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteById(MOVIE_ID);
+        repository.save(Movie.builder()
+                             .id(MOVIE_ID)
+                             .title("Test title")
+                             .genre("test genre")
+                             .year(2020)
+                             .director("Test director")
+                             .build());
+    }
+
+    @Test
+    public void shouldNotLoseRatingUpdatesWhenManyUsersReviewConcurrently() throws Exception {
+        //given
+        int reviewers = 400;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for(int i = 0; i < reviewers; i++) {
+            int rating = i % 10 + 1;
+            results.add(executor.submit(() -> {
+                start.await();
+                // Every other reviewer changes their mind right away, from their rating to the next one up.
+                repository.addRating(MOVIE_ID, rating);
+                if(rating % 2 == 0 && rating < 10)
+                    repository.changeRating(MOVIE_ID, rating, rating + 1);
+                return null;
+            }));
+        }
+
+        //when
+        start.countDown();
+        for(Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then
+        Movie movie = repository.findById(MOVIE_ID).orElseThrow();
+        int perRating = reviewers / 10;
+        assertEquals(reviewers, movie.getRatingCount());
+        // 2, 4, 6 and 8 moved up by one each.
+        assertEquals(perRating * (55 + 4), movie.getRatingSum());
+        assertEquals(0L, movie.getRatingHistogram().getOrDefault("2", 0L));
+        assertEquals(2L * perRating, movie.getRatingHistogram().get("3"));
+        assertEquals(perRating, movie.getRatingHistogram().get("10"));
+        assertEquals(reviewers, movie.getRatingHistogram().values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(reviewers + perRating * 4, movie.getRevision());
+    }
+
+    @Test
+    public void shouldStoreAverageOnlyForTheCountersItWasComputedFrom() {
+        //given
+        Movie afterFirstReview = repository.addRating(MOVIE_ID, 8).orElseThrow();
+        repository.addRating(MOVIE_ID, 2);
+
+        //when
+        repository.storeAvgRating(afterFirstReview);
+
+        //then
+        assertEquals(0.0, repository.findById(MOVIE_ID).orElseThrow().getAvgRating());
+        repository.refreshAvgRating(MOVIE_ID);
+        assertEquals(5.0, repository.findById(MOVIE_ID).orElseThrow().getAvgRating());
+    }
+}
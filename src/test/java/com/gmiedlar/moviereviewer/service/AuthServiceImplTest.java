@@ -1,7 +1,9 @@
 package com.gmiedlar.moviereviewer.service;
 
+import java.util.Date;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 import javax.mail.MessagingException;
 import javax.mail.Session;
 import javax.mail.internet.MimeMessage;
@@ -13,12 +15,15 @@ import com.gmiedlar.moviereviewer.dto.EmailDto;
 import com.gmiedlar.moviereviewer.dto.UserLoginDto;
 import com.gmiedlar.moviereviewer.dto.UserRegisterDto;
 import com.gmiedlar.moviereviewer.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -31,6 +36,7 @@ import static com.gmiedlar.moviereviewer.common.TestData.USER_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
@@ -44,9 +50,6 @@ class AuthServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
-    @Mock
-    private AuthenticationManager authenticationManager;
-
     @Mock
     private PasswordEncoder passwordEncoder;
 
@@ -59,6 +62,9 @@ class AuthServiceImplTest {
     @Mock
     private EmailSenderService emailSenderService;
 
+    @Mock
+    private TokenRevocationList revocationList;
+
     private AuthServiceImpl authServiceImpl;
 
     private UserRegisterDto userRegisterDto;
@@ -67,7 +73,9 @@ class AuthServiceImplTest {
 
     @BeforeEach
     public void setUp() {
-        authServiceImpl = new AuthServiceImpl(userRepository, authenticationManager, passwordEncoder, tokenProvider, confirmationTokenService, emailSenderService);
+        PasswordHasher passwordHasher = new PasswordHasher(passwordEncoder, new SimpleMeterRegistry(), 1, 10, 1, 10);
+        authServiceImpl = new AuthServiceImpl(userRepository, passwordHasher, tokenProvider, confirmationTokenService, emailSenderService,
+            new InMemoryInvalidationBus(new SimpleMeterRegistry()), revocationList);
 
         userRegisterDto = UserRegisterDto.builder()
                                          .email(UNIQUE_EMAIL)
@@ -92,7 +100,7 @@ class AuthServiceImplTest {
         given(emailSenderService.createMimeMessage(any(EmailDto.class))).willReturn(new MimeMessage((Session) null));
 
         //when
-        CustomUser result = authServiceImpl.registerUser(userRegisterDto);
+        CustomUser result = authServiceImpl.registerUser(userRegisterDto).join();
 
         //then
         verify(userRepository, times(1)).existsByEmail(anyString());
@@ -157,10 +165,10 @@ class AuthServiceImplTest {
         given(userRepository.save(any(CustomUser.class))).willReturn(DISABLED_USER);
         given(confirmationTokenService.createToken(any(CustomUser.class))).willReturn(null);
 
-        assertThrows(
-            NullPointerException.class,
+        Throwable exception = assertThrows(
+            CompletionException.class,
             //when
-            () -> authServiceImpl.registerUser(userRegisterDto)
+            () -> authServiceImpl.registerUser(userRegisterDto).join()
         );
 
         //then
@@ -170,6 +178,7 @@ class AuthServiceImplTest {
         verify(confirmationTokenService, times(1)).createToken(any(CustomUser.class));
         verify(emailSenderService, never()).createMimeMessage(any(EmailDto.class));
         verify(emailSenderService, never()).sendEmail(any(MimeMessage.class));
+        assertTrue(exception.getCause() instanceof NullPointerException);
     }
 
     @Test
@@ -181,10 +190,10 @@ class AuthServiceImplTest {
         given(confirmationTokenService.createToken(any(CustomUser.class))).willReturn(new ConfirmationToken("token", DISABLED_USER));
         given(emailSenderService.createMimeMessage(any(EmailDto.class))).willThrow(MessagingException.class);
 
-        assertThrows(
-            MessagingException.class,
+        Throwable exception = assertThrows(
+            CompletionException.class,
             //when
-            () -> authServiceImpl.registerUser(userRegisterDto)
+            () -> authServiceImpl.registerUser(userRegisterDto).join()
         );
 
         //then
@@ -195,15 +204,18 @@ class AuthServiceImplTest {
         verify(emailSenderService, times(1)).createMimeMessage(any(EmailDto.class));
         verify(emailSenderService, never()).sendEmail(any(MimeMessage.class));
         verify(userRepository, times(1)).delete(any(CustomUser.class));
+        assertTrue(exception.getCause() instanceof MessagingException);
     }
 
     @Test
     public void shouldLoginUser(){
+        //given
         given(userRepository.findByUsername(UNIQUE_USERNAME)).willReturn(Optional.of(ENABLED_USER));
+        given(passwordEncoder.matches("pass", ENABLED_USER.getPassword())).willReturn(true);
         given(tokenProvider.generateToken(ENABLED_USER)).willReturn(CONFIRMATION_TOKEN);
 
         //when
-        Map<String,String> result = authServiceImpl.loginUser(userLoginDto);
+        Map<String,String> result = authServiceImpl.loginUser(userLoginDto).join();
 
         //then
         verify(userRepository, times(1)).findByUsername(anyString());
@@ -216,17 +228,37 @@ class AuthServiceImplTest {
     public void shouldThrowDisabledExceptionWhenUserDisabled(){
         //given
         given(userRepository.findByUsername(UNIQUE_USERNAME)).willReturn(Optional.of(DISABLED_USER));
+        given(passwordEncoder.matches("pass", DISABLED_USER.getPassword())).willReturn(true);
 
         Throwable exception = assertThrows(
-            DisabledException.class,
+            CompletionException.class,
             //when
-            () -> authServiceImpl.loginUser(userLoginDto)
+            () -> authServiceImpl.loginUser(userLoginDto).join()
         );
 
         //then
         verify(userRepository, times(1)).findByUsername(anyString());
         verify(tokenProvider, never()).generateToken(any(CustomUser.class));
-        assertEquals("User account is locked!", exception.getMessage());
+        assertTrue(exception.getCause() instanceof DisabledException);
+        assertEquals("User account is locked!", exception.getCause().getMessage());
+    }
+
+    @Test
+    public void shouldThrowBadCredentialsExceptionWhenPasswordDoesNotMatch(){
+        //given
+        given(userRepository.findByUsername(UNIQUE_USERNAME)).willReturn(Optional.of(ENABLED_USER));
+        given(passwordEncoder.matches("pass", ENABLED_USER.getPassword())).willAnswer(invocation ->
+            !Thread.currentThread().getName().startsWith("password-hashing-"));
+
+        Throwable exception = assertThrows(
+            CompletionException.class,
+            //when
+            () -> authServiceImpl.loginUser(userLoginDto).join()
+        );
+
+        //then
+        verify(tokenProvider, never()).generateToken(any(CustomUser.class));
+        assertTrue(exception.getCause() instanceof BadCredentialsException);
     }
 
     @Test
@@ -313,4 +345,36 @@ class AuthServiceImplTest {
         verify(userRepository, times(1)).findByEmail(anyString());
         assertEquals("User with that email not exists!", exception.getMessage());
     }
+
+    @Test
+    public void shouldRevokeTokenOnLogout() {
+        //given
+        Date expiration = new Date(System.currentTimeMillis() / 1000 * 1000 + 60000);
+        Claims claims = Jwts.claims().setSubject(UNIQUE_USERNAME).setId("tokenId-1234").setExpiration(expiration);
+        given(tokenProvider.getValidClaims("token")).willReturn(claims);
+
+        //when
+        String result = authServiceImpl.logoutUser("token");
+
+        //then
+        verify(revocationList, times(1)).revokeToken(UNIQUE_USERNAME, "tokenId-1234", expiration);
+        assertEquals("Successfully logged out", result);
+    }
+
+    @Test
+    public void shouldThrowIllegalArgumentExceptionWhenTokenHasNoId() {
+        //given
+        Claims claims = Jwts.claims().setSubject(UNIQUE_USERNAME).setExpiration(new Date(System.currentTimeMillis() + 60000));
+        given(tokenProvider.getValidClaims("token")).willReturn(claims);
+
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> authServiceImpl.logoutUser("token")
+        );
+
+        //then
+        verify(revocationList, never()).revokeToken(anyString(), anyString(), any(Date.class));
+        assertEquals("Token cannot be revoked!", exception.getMessage());
+    }
 }
\ No newline at end of file
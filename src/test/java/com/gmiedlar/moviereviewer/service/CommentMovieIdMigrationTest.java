@@ -0,0 +1,144 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import com.gmiedlar.moviereviewer.domain.MigrationState;
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.repository.CommentRepository;
+import com.gmiedlar.moviereviewer.repository.MigrationStateRepository;
+import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CommentMovieIdMigrationTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private MigrationStateRepository stateRepository;
+
+    private CommentMovieIdMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        migration = new CommentMovieIdMigration(movieRepository, commentRepository, stateRepository,
+            new InMemoryInvalidationBus(new SimpleMeterRegistry()), new SimpleMeterRegistry(), true, 2, 0);
+    }
+
+    @Test
+    public void shouldBackfillMovieIdInBatchesAndPullMigratedReferences() throws Exception {
+        //given
+        Movie movie = legacyMovie("movieId-1", "c1", "c2", "c3");
+        given(stateRepository.findById(CommentMovieIdMigration.MIGRATION_ID)).willReturn(Optional.empty());
+        given(movieRepository.findLegacyCommentRefsAfter(isNull(), eq(2))).willReturn(List.of(movie));
+        given(movieRepository.findLegacyCommentRefsAfter(eq("movieId-1"), eq(2))).willReturn(List.of());
+
+        //when
+        migration.run();
+
+        //then
+        verify(commentRepository, times(1)).assignMovieId("movieId-1", List.of("c1", "c2"));
+        verify(commentRepository, times(1)).assignMovieId("movieId-1", List.of("c3"));
+        verify(movieRepository, times(1)).pullLegacyCommentRefs("movieId-1", List.of("c1", "c2"));
+        verify(movieRepository, times(1)).pullLegacyCommentRefs("movieId-1", List.of("c3"));
+        MigrationState state = migration.getState();
+        assertTrue(state.isCompleted());
+        assertEquals(1, state.getMigratedMovies());
+        assertEquals(3, state.getMigratedComments());
+        assertEquals("movieId-1", state.getLastMovieId());
+    }
+
+    @Test
+    public void shouldResumeAfterCheckpointedMovie() throws Exception {
+        //given
+        MigrationState checkpoint = MigrationState.builder()
+                                                  .id(CommentMovieIdMigration.MIGRATION_ID)
+                                                  .lastMovieId("movieId-1")
+                                                  .migratedMovies(1)
+                                                  .migratedComments(3)
+                                                  .build();
+        Movie movie = legacyMovie("movieId-2", "c4");
+        given(stateRepository.findById(CommentMovieIdMigration.MIGRATION_ID)).willReturn(Optional.of(checkpoint));
+        given(movieRepository.findLegacyCommentRefsAfter(eq("movieId-1"), anyInt())).willReturn(List.of(movie));
+        given(movieRepository.findLegacyCommentRefsAfter(eq("movieId-2"), anyInt())).willReturn(List.of());
+
+        //when
+        migration.run();
+
+        //then
+        verify(movieRepository, never()).findLegacyCommentRefsAfter(isNull(), anyInt());
+        assertEquals(2, migration.getState().getMigratedMovies());
+        assertEquals(4, migration.getState().getMigratedComments());
+    }
+
+    @Test
+    public void shouldLeaveDuplicateReviewsInLegacyArray() throws Exception {
+        //given
+        Movie movie = legacyMovie("movieId-1", "c1", "duplicate");
+        given(stateRepository.findById(CommentMovieIdMigration.MIGRATION_ID)).willReturn(Optional.empty());
+        given(movieRepository.findLegacyCommentRefsAfter(isNull(), anyInt())).willReturn(List.of(movie));
+        given(movieRepository.findLegacyCommentRefsAfter(eq("movieId-1"), anyInt())).willReturn(List.of());
+        willAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(1);
+            if(ids.contains("duplicate"))
+                throw new DuplicateKeyException("E11000 duplicate key error");
+            return null;
+        }).given(commentRepository).assignMovieId(eq("movieId-1"), any());
+
+        //when
+        migration.run();
+
+        //then
+        verify(movieRepository, times(1)).pullLegacyCommentRefs("movieId-1", List.of("c1"));
+        assertEquals(1, migration.getState().getMigratedComments());
+        assertEquals(1, migration.getState().getConflictingComments());
+    }
+
+    @Test
+    public void shouldNotRunAgainOnceCompleted() throws Exception {
+        //given
+        MigrationState completed = MigrationState.builder().id(CommentMovieIdMigration.MIGRATION_ID).completed(true).build();
+        given(stateRepository.findById(CommentMovieIdMigration.MIGRATION_ID)).willReturn(Optional.of(completed));
+
+        //when
+        migration.run();
+
+        //then
+        verify(movieRepository, never()).findLegacyCommentRefsAfter(any(), anyInt());
+        verify(stateRepository, never()).save(any(MigrationState.class));
+        verify(commentRepository, never()).assignMovieId(anyString(), any());
+    }
+
+    private Movie legacyMovie(String id, String... commentIds) {
+        return Movie.builder()
+                    .id(id)
+                    .commentIds(new ArrayList<>(List.of(commentIds)))
+                    .build();
+    }
+}
@@ -1,27 +1,51 @@
 package com.gmiedlar.moviereviewer.service;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import com.gmiedlar.moviereviewer.domain.Comment;
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.CursorPageDto;
+import com.gmiedlar.moviereviewer.dto.ReviewSearchHitDto;
+import com.gmiedlar.moviereviewer.dto.ReviewSort;
+import com.gmiedlar.moviereviewer.dto.SearchPageDto;
 import com.gmiedlar.moviereviewer.repository.CommentRepository;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import static com.gmiedlar.moviereviewer.common.TestData.COMMENT;
 import static com.gmiedlar.moviereviewer.common.TestData.COMMENT_ID;
 import static com.gmiedlar.moviereviewer.common.TestData.ENABLED_USER;
+import static com.gmiedlar.moviereviewer.common.TestData.MOVIE;
+import static com.gmiedlar.moviereviewer.common.TestData.MOVIE_ID;
 import static com.gmiedlar.moviereviewer.common.TestData.UNIQUE_USERNAME;
 import static com.gmiedlar.moviereviewer.common.TestData.USER_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -36,13 +60,18 @@ class CommentServiceImplTest {
     @Mock
     private UserFinderService userFinderService;
 
+    private ReviewSearchIndex searchIndex;
+
     private CommentService commentService;
 
     private Comment comment;
 
     @BeforeEach
     public void setUp() {
-        commentService = new CommentServiceImpl(repository, userFinderService);
+        InvalidationBus invalidationBus = new InMemoryInvalidationBus(new SimpleMeterRegistry());
+        searchIndex = new ReviewSearchIndex(repository, invalidationBus);
+        commentService = new CommentServiceImpl(repository, userFinderService, searchIndex,
+            new CommentNearCache(new SimpleMeterRegistry(), invalidationBus, 100, 60000), invalidationBus);
 
         comment = Comment.builder()
                          .rating(5)
@@ -50,6 +79,74 @@ class CommentServiceImplTest {
                          .build();
     }
 
+    @Test
+    public void shouldAddCommentsWithSingleBulkInsert() {
+        //given
+        Comment first = Comment.builder().movieId(MOVIE_ID).authorId(USER_ID).rating(5).build();
+        Comment second = Comment.builder().movieId(MOVIE_ID).authorId("other").rating(7).build();
+        Comment third = Comment.builder().movieId(MOVIE_ID).authorId("third").rating(9).build();
+        given(repository.insertUnordered(List.of(first, second, third))).willReturn(List.of(
+            new BulkWriteError(11000, "E11000 duplicate key error", new BasicDBObject(), 1),
+            new BulkWriteError(2, "Bad value", new BasicDBObject(), 2)
+        ));
+
+        //when
+        Map<Integer, String> result = commentService.addComments(List.of(first, second, third));
+
+        //then
+        verify(repository, times(1)).insertUnordered(anyList());
+        verify(repository, never()).save(any(Comment.class));
+        assertEquals(Map.of(1, "You have already reviewed this movie!", 2, "Bad value"), result);
+        assertNotNull(first.getId());
+        assertNotNull(first.getAddDate());
+    }
+
+    @Test
+    public void shouldSearchIndexedCommentsWithHighlightedSnippets() {
+        //given
+        Comment matching = Comment.builder().id("c1").movieId(MOVIE_ID).authorId(USER_ID).rating(9)
+                                  .text("A <bold> soundtrack and a stunning score.").build();
+        Comment other = Comment.builder().id("c2").movieId(MOVIE_ID).authorId("other").rating(4)
+                               .text("Dull plot.").build();
+        given(repository.save(any(Comment.class))).willAnswer(invocation -> invocation.getArgument(0));
+        given(userFinderService.findUserByUsername(anyString())).willReturn(ENABLED_USER);
+        commentService.addComment(UNIQUE_USERNAME, matching);
+        commentService.addComment(UNIQUE_USERNAME, other);
+        given(repository.findByIdIn(List.of("c1"))).willReturn(List.of(matching));
+
+        //when
+        SearchPageDto<ReviewSearchHitDto> result = commentService.searchComments("Soundtrack", null, 0, 10);
+
+        //then
+        assertEquals(1, result.getTotalHits());
+        assertEquals(1, result.getContent().size());
+        assertEquals("c1", result.getContent().get(0).getCommentId());
+        assertEquals("A &lt;bold&gt; <em>soundtrack</em> and a stunning score.", result.getContent().get(0).getSnippet());
+    }
+
+    @Test
+    public void shouldRemoveDeletedCommentsFromSearch() {
+        //given
+        searchIndex.index(Comment.builder().id(COMMENT_ID).movieId(MOVIE_ID).text("Stunning visuals").build());
+        given(repository.removeMovieComment(MOVIE_ID, COMMENT_ID)).willReturn(Optional.of(COMMENT));
+
+        //when
+        commentService.deleteComment(MOVIE_ID, COMMENT_ID);
+
+        //then
+        assertEquals(0, commentService.searchComments("stunning", null, 0, 10).getTotalHits());
+        verify(repository, never()).findByIdIn(anyCollection());
+    }
+
+    @Test
+    public void shouldNotSearchWithBlankQuery() {
+        assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> commentService.searchComments("  ", null, 0, 10)
+        );
+    }
+
     @Test
     public void shouldAddComment() {
         //given
@@ -80,6 +177,137 @@ class CommentServiceImplTest {
         verify(repository, never()).save(any(Comment.class));
     }
 
+    @Test
+    public void shouldNotAddSecondCommentOfSameUserToMovie() {
+        //given
+        given(userFinderService.findUserByUsername(anyString())).willReturn(ENABLED_USER);
+        given(repository.save(any(Comment.class))).willThrow(DuplicateKeyException.class);
+
+        Throwable exception = assertThrows(
+            IllegalStateException.class,
+            //when
+            () -> commentService.addComment(UNIQUE_USERNAME, comment)
+        );
+
+        //then
+        assertEquals("You have already reviewed this movie!", exception.getMessage());
+    }
+
+    @Test
+    public void shouldGetFirstPageOfMovieCommentsWithNextCursor() {
+        //given
+        Comment newest = Comment.builder().id("commentId-3").rating(8).addDate(new Date(3000)).build();
+        Comment middle = Comment.builder().id("commentId-2").rating(6).addDate(new Date(2000)).build();
+        Comment oldest = Comment.builder().id("commentId-1").rating(4).addDate(new Date(1000)).build();
+        given(repository.findMovieCommentsAfter(MOVIE_ID, ReviewSort.NEWEST, null, 3))
+            .willReturn(new ArrayList<>(List.of(newest, middle, oldest)));
+
+        //when
+        CursorPageDto<Comment> result = commentService.getMovieCommentsPage(MOVIE_ID, ReviewSort.NEWEST, null, 2);
+
+        //then
+        verify(repository, times(1)).findMovieCommentsAfter(anyString(), any(ReviewSort.class), isNull(), anyInt());
+        assertEquals(List.of(newest, middle), result.getContent());
+        assertNotNull(result.getNextCursor());
+    }
+
+    @Test
+    public void shouldContinueFromCursorOfPreviousPage() {
+        //given
+        Comment middle = Comment.builder().id("commentId-2").rating(6).addDate(new Date(2000)).build();
+        Comment oldest = Comment.builder().id("commentId-1").rating(4).addDate(new Date(1000)).build();
+        given(repository.findMovieCommentsAfter(eq(MOVIE_ID), eq(ReviewSort.NEWEST), any(), eq(2)))
+            .willReturn(new ArrayList<>(List.of(middle, oldest)))
+            .willReturn(new ArrayList<>(List.of(oldest)));
+        String cursor = commentService.getMovieCommentsPage(MOVIE_ID, ReviewSort.NEWEST, null, 1).getNextCursor();
+
+        //when
+        CursorPageDto<Comment> result = commentService.getMovieCommentsPage(MOVIE_ID, ReviewSort.NEWEST, cursor, 1);
+
+        //then
+        ArgumentCaptor<Comment> after = ArgumentCaptor.forClass(Comment.class);
+        verify(repository, times(2)).findMovieCommentsAfter(anyString(), any(ReviewSort.class), after.capture(), anyInt());
+        assertEquals(middle.getId(), after.getValue().getId());
+        assertEquals(middle.getRating(), after.getValue().getRating());
+        assertEquals(middle.getAddDate(), after.getValue().getAddDate());
+        assertEquals(List.of(oldest), result.getContent());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    public void shouldThrowIllegalArgumentExceptionWhenInvalidCursor() {
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> commentService.getMovieCommentsPage(MOVIE_ID, ReviewSort.NEWEST, "not-a-cursor", 10)
+        );
+
+        //then
+        verify(repository, never()).findMovieCommentsAfter(anyString(), any(ReviewSort.class), any(), anyInt());
+        assertEquals("Invalid cursor!", exception.getMessage());
+    }
+
+    @Test
+    public void shouldCheckIfUserHasCommentedMovie() {
+        //given
+        given(repository.existsByMovieIdAndAuthorId(MOVIE_ID, USER_ID)).willReturn(true);
+
+        //when
+        boolean result = commentService.hasUserCommented(USER_ID, MOVIE);
+
+        //then
+        verify(repository, times(1)).existsByMovieIdAndAuthorId(anyString(), anyString());
+        verify(repository, never()).existsByIdInAndAuthorId(anyCollection(), anyString());
+        assertTrue(result);
+    }
+
+    @Test
+    public void shouldFindLegacyCommentOfUser() {
+        //given
+        Movie legacyMovie = Movie.builder().id(MOVIE_ID).commentIds(List.of(COMMENT_ID)).build();
+        given(repository.existsByMovieIdAndAuthorId(MOVIE_ID, USER_ID)).willReturn(false);
+        given(repository.existsByIdInAndAuthorId(List.of(COMMENT_ID), USER_ID)).willReturn(true);
+
+        //when
+        boolean result = commentService.hasUserCommented(USER_ID, legacyMovie);
+
+        //then
+        assertTrue(result);
+    }
+
+    @Test
+    public void shouldGetCommentedMovieIds() {
+        //given
+        Comment projection = Comment.builder()
+                                    .movieId(MOVIE_ID)
+                                    .build();
+        Movie otherMovie = Movie.builder().id("movieId-5678").build();
+        given(repository.findByAuthorIdAndMovieIdIn(USER_ID, Set.of(MOVIE_ID, otherMovie.getId()))).willReturn(List.of(projection));
+
+        //when
+        Set<String> result = commentService.getCommentedMovieIds(USER_ID, List.of(MOVIE, otherMovie));
+
+        //then
+        verify(repository, times(1)).findByAuthorIdAndMovieIdIn(anyString(), anyCollection());
+        verify(repository, never()).findByIdInAndAuthorId(anyCollection(), anyString());
+        assertEquals(Set.of(MOVIE_ID), result);
+    }
+
+    @Test
+    public void shouldGetCommentedMovieIdsFromLegacyComments() {
+        //given
+        Movie legacyMovie = Movie.builder().id("movieId-5678").commentIds(List.of(COMMENT_ID, "commentId-5678")).build();
+        given(repository.findByAuthorIdAndMovieIdIn(USER_ID, Set.of(MOVIE_ID, legacyMovie.getId()))).willReturn(List.of());
+        given(repository.findByIdInAndAuthorId(Set.of(COMMENT_ID, "commentId-5678"), USER_ID))
+            .willReturn(List.of(Comment.builder().id("commentId-5678").build()));
+
+        //when
+        Set<String> result = commentService.getCommentedMovieIds(USER_ID, List.of(MOVIE, legacyMovie));
+
+        //then
+        assertEquals(Set.of(legacyMovie.getId()), result);
+    }
+
     @Test
     public void shouldGetCommentById() {
         //given
@@ -94,6 +322,39 @@ class CommentServiceImplTest {
         assertEquals(COMMENT, result);
     }
 
+    @Test
+    public void shouldServeRepeatedCommentLookupsFromNearCache() {
+        //given
+        given(repository.findById(COMMENT_ID)).willReturn(Optional.ofNullable(COMMENT));
+        commentService.getCommentById(COMMENT_ID);
+
+        //when
+        Comment result = commentService.getCommentById(COMMENT_ID);
+
+        //then
+        verify(repository, times(1)).findById(anyString());
+        assertEquals(COMMENT, result);
+    }
+
+    @Test
+    public void shouldReloadCommentAfterItWasDeleted() {
+        //given
+        given(repository.findById(COMMENT_ID)).willReturn(Optional.ofNullable(COMMENT)).willReturn(Optional.empty());
+        given(repository.removeMovieComment(MOVIE_ID, COMMENT_ID)).willReturn(Optional.of(COMMENT));
+        commentService.getCommentById(COMMENT_ID);
+        commentService.deleteComment(MOVIE_ID, COMMENT_ID);
+
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> commentService.getCommentById(COMMENT_ID)
+        );
+
+        //then
+        verify(repository, times(2)).findById(anyString());
+        assertEquals("No comment with that id exists!", exception.getMessage());
+    }
+
     @Test
     public void shouldThrowIllegalArgumentExceptionWhenInvalidCommentId() {
         //given
@@ -113,41 +374,166 @@ class CommentServiceImplTest {
     }
 
     @Test
-    public void shouldUpdateComment() {
+    public void shouldGetCommentsByIdsInRequestedOrder() {
+        //given
+        Comment otherComment = Comment.builder()
+                                      .id("commentId-5678")
+                                      .rating(7)
+                                      .text("Nice")
+                                      .authorId(USER_ID)
+                                      .build();
+        List<String> ids = List.of(otherComment.getId(), COMMENT_ID);
+        given(repository.findByIdIn(ids)).willReturn(List.of(COMMENT, otherComment));
+
+        //when
+        List<Comment> result = commentService.getCommentsByIds(ids);
+
+        //then
+        verify(repository, times(1)).findByIdIn(anyCollection());
+        verify(repository, never()).findById(anyString());
+        assertEquals(List.of(otherComment, COMMENT), result);
+    }
+
+    @Test
+    public void shouldNotQueryWhenNoCommentIds() {
+        //when
+        List<Comment> result = commentService.getCommentsByIds(List.of());
+
+        //then
+        verify(repository, never()).findByIdIn(anyCollection());
+        assertEquals(0, result.size());
+    }
+
+    @Test
+    public void shouldThrowIllegalArgumentExceptionWhenOneOfCommentIdsInvalid() {
+        //given
+        List<String> ids = List.of(COMMENT_ID, "invalidId-1234");
+        given(repository.findByIdIn(ids)).willReturn(List.of(COMMENT));
+
+        //when
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> commentService.getCommentsByIds(ids)
+        );
+
+        //then
+        assertEquals("No comment with that id exists!", exception.getMessage());
+    }
+
+    @Test
+    public void shouldUpdateCommentAndReturnPreviousVersion() {
         //given
         comment.setText("Updated comment");
-        Comment commentUpdate = Comment.builder()
-                                       .id(COMMENT_ID)
-                                       .rating(5)
-                                       .text("Updated comment")
-                                       .authorId(USER_ID)
-                                       .build();
+        Comment previous = Comment.builder()
+                                  .id(COMMENT_ID)
+                                  .rating(7)
+                                  .text("Awesome")
+                                  .authorId(USER_ID)
+                                  .movieId(MOVIE_ID)
+                                  .build();
 
-        given(repository.findById(COMMENT_ID)).willReturn(Optional.ofNullable(COMMENT));
-        given(repository.save(any(Comment.class))).willReturn(commentUpdate);
+        given(repository.updateMovieComment(MOVIE_ID, COMMENT_ID, comment)).willReturn(Optional.of(previous));
 
         //when
-        Comment result = commentService.updateComment(COMMENT_ID, comment);
+        Comment result = commentService.updateComment(MOVIE_ID, COMMENT_ID, comment);
 
         //then
-        verify(repository, times(1)).findById(anyString());
-        verify(repository, times(1)).save(any(Comment.class));
-        assertNotNull(result);
-        assertEquals(commentUpdate, result);
+        verify(repository, times(1)).updateMovieComment(anyString(), anyString(), any(Comment.class));
+        verify(repository, never()).findById(anyString());
+        verify(repository, never()).save(any(Comment.class));
+        assertEquals(previous, result);
+        assertEquals(COMMENT_ID, comment.getId());
+        assertEquals(USER_ID, comment.getAuthorId());
+        assertEquals(MOVIE_ID, comment.getMovieId());
+        assertNotNull(comment.getUpdatedAt());
     }
 
     @Test
-    public void shouldDeleteComment() {
+    public void shouldNotChangeCommentWhenUpdateIsIdentical() {
         //given
-        given(repository.existsById(COMMENT_ID)).willReturn(true);
+        given(repository.updateMovieComment(MOVIE_ID, COMMENT_ID, comment)).willReturn(Optional.empty());
+        given(repository.findById(COMMENT_ID)).willReturn(Optional.of(COMMENT));
 
         //when
-        String result = commentService.deleteComment(COMMENT_ID);
+        Comment result = commentService.updateComment(MOVIE_ID, COMMENT_ID, comment);
 
         //then
-        verify(repository, times(1)).existsById(anyString());
-        verify(repository, times(1)).deleteById(anyString());
-        assertNotNull(result);
-        assertEquals(result, "Comment successfully deleted");
+        verify(repository, never()).save(any(Comment.class));
+        assertEquals(COMMENT, result);
+        assertEquals(COMMENT, comment);
+    }
+
+    @Test
+    public void shouldNotUpdateCommentOfAnotherMovie() {
+        //given
+        Comment otherMovieComment = Comment.builder().id(COMMENT_ID).rating(5).movieId("movieId-5678").build();
+        given(repository.updateMovieComment(MOVIE_ID, COMMENT_ID, comment)).willReturn(Optional.empty());
+        given(repository.findById(COMMENT_ID)).willReturn(Optional.of(otherMovieComment));
+
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> commentService.updateComment(MOVIE_ID, COMMENT_ID, comment)
+        );
+
+        //then
+        assertEquals("No comment with that id exists!", exception.getMessage());
+    }
+
+    @Test
+    public void shouldDeleteCommentAndReturnRemovedVersion() {
+        //given
+        given(repository.removeMovieComment(MOVIE_ID, COMMENT_ID)).willReturn(Optional.of(COMMENT));
+
+        //when
+        Comment result = commentService.deleteComment(MOVIE_ID, COMMENT_ID);
+
+        //then
+        verify(repository, times(1)).removeMovieComment(anyString(), anyString());
+        verify(repository, never()).deleteById(anyString());
+        assertEquals(COMMENT, result);
+    }
+
+    @Test
+    public void shouldThrowIllegalArgumentExceptionWhenDeletedCommentIsGone() {
+        //given
+        given(repository.removeMovieComment(MOVIE_ID, COMMENT_ID)).willReturn(Optional.empty());
+
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> commentService.deleteComment(MOVIE_ID, COMMENT_ID)
+        );
+
+        //then
+        assertEquals("No comment with that id exists!", exception.getMessage());
+    }
+
+    @Test
+    public void shouldDeleteCommentsInSingleQuery() {
+        //given
+        List<String> ids = List.of(COMMENT_ID, "commentId-5678");
+
+        //when
+        String result = commentService.deleteComments(ids);
+
+        //then
+        verify(repository, times(1)).deleteByIdIn(ids);
+        verify(repository, never()).deleteById(anyString());
+        assertEquals("Comments successfully deleted", result);
+    }
+
+    @Test
+    public void shouldDeleteCommentsOwnedByMovie() {
+        //given
+        Comment projection = Comment.builder().id(COMMENT_ID).build();
+        given(repository.findIdsByMovieId(MOVIE_ID)).willReturn(List.of(projection));
+
+        //when
+        commentService.deleteMovieComments(MOVIE_ID);
+
+        //then
+        verify(repository, times(1)).deleteByIdIn(List.of(COMMENT_ID));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,175 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.gmiedlar.moviereviewer.event.CacheInvalidation;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryInvalidationBusTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private InMemoryInvalidationBus localBus;
+
+    private InMemoryInvalidationBus remoteBus;
+
+    private NearCache<String> localCache;
+
+    private NearCache<String> remoteCache;
+
+    private AtomicInteger loads;
+
+    private Function<String, Optional<String>> loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        localBus = new InMemoryInvalidationBus(new SimpleMeterRegistry());
+        remoteBus = new InMemoryInvalidationBus(meterRegistry);
+        localBus.connect(remoteBus);
+
+        localCache = new NearCache<>("local", 100, 60000, new SimpleMeterRegistry());
+        remoteCache = new NearCache<>("remote", 100, 60000, new SimpleMeterRegistry());
+        localBus.subscribe(InvalidationTarget.MOVIE, localCache);
+        remoteBus.subscribe(InvalidationTarget.MOVIE, remoteCache);
+
+        loads = new AtomicInteger();
+        loader = id -> Optional.of("document " + id + " v" + loads.incrementAndGet());
+    }
+
+    @Test
+    public void shouldInvalidateLocalAndRemoteCaches() {
+        //given
+        localCache.get("1", loader);
+        remoteCache.get("1", loader);
+
+        //when
+        localBus.publish(InvalidationTarget.MOVIE, "1");
+
+        //then
+        assertEquals(Optional.of("document 1 v3"), localCache.get("1", loader));
+        assertEquals(Optional.of("document 1 v4"), remoteCache.get("1", loader));
+        assertEquals(1.0, meterRegistry.get("cache.invalidation.received").counter().count());
+        assertEquals(1L, meterRegistry.get("cache.invalidation.lag").timer().count());
+    }
+
+    @Test
+    public void shouldOnlyInvalidateSubscribersOfTarget() {
+        //given
+        remoteCache.get("1", loader);
+
+        //when
+        localBus.publish(InvalidationTarget.COMMENT, "1");
+
+        //then
+        assertEquals(Optional.of("document 1 v1"), remoteCache.get("1", loader));
+    }
+
+    @Test
+    public void shouldIgnoreOwnInvalidations() {
+        //given
+        CacheInvalidation invalidation = CacheInvalidation.builder()
+                                                          .target(InvalidationTarget.MOVIE)
+                                                          .ids(List.of("1"))
+                                                          .origin(remoteBus.getNodeId())
+                                                          .publishedAt(new Date())
+                                                          .build();
+
+        //when
+        remoteBus.receive(invalidation);
+
+        //then
+        assertEquals(0.0, meterRegistry.get("cache.invalidation.received").counter().count());
+    }
+
+    @Test
+    public void shouldMeasureLagFromPublishTime() {
+        //given
+        CacheInvalidation invalidation = CacheInvalidation.builder()
+                                                          .target(InvalidationTarget.MOVIE)
+                                                          .ids(List.of("1"))
+                                                          .origin(localBus.getNodeId())
+                                                          .publishedAt(new Date(System.currentTimeMillis() - 500))
+                                                          .build();
+
+        //when
+        remoteBus.receive(invalidation);
+
+        //then
+        assertTrue(meterRegistry.get("cache.invalidation.lag").timer().max(TimeUnit.MILLISECONDS) >= 500);
+    }
+
+    @Test
+    public void shouldDropWholeCachesOnFlush() {
+        //given
+        remoteCache.get("1", loader);
+        remoteCache.get("2", loader);
+
+        //when
+        remoteBus.flushAll();
+
+        //then
+        assertEquals(Optional.of("document 1 v3"), remoteCache.get("1", loader));
+        assertEquals(Optional.of("document 2 v4"), remoteCache.get("2", loader));
+        assertEquals(1.0, meterRegistry.get("cache.invalidation.flushes").counter().count());
+    }
+
+    @Test
+    public void shouldInvalidateRemoteSubscribersOnlyFromOtherInstances() {
+        //given
+        RecordingListener listener = new RecordingListener();
+        localBus.subscribeRemote(InvalidationTarget.MOVIE, listener);
+
+        //when
+        localBus.publish(InvalidationTarget.MOVIE, "1");
+        remoteBus.publish(InvalidationTarget.MOVIE, "2");
+        localBus.flushAll();
+
+        //then
+        assertEquals(List.of("2"), listener.ids);
+        assertEquals(0, listener.flushes);
+    }
+
+    @Test
+    public void shouldInvalidateRemoteSubscribersWhenResynchronized() {
+        //given
+        RecordingListener listener = new RecordingListener();
+        localBus.subscribeRemote(InvalidationTarget.COMMENT, listener);
+
+        //when
+        localBus.resynchronize();
+
+        //then
+        assertEquals(1, listener.flushes);
+    }
+
+    private static class RecordingListener implements InvalidationListener {
+
+        private final List<String> ids = new ArrayList<>();
+
+        private int flushes;
+
+        @Override
+        public void invalidateAll(Collection<String> ids) {
+            this.ids.addAll(ids);
+        }
+
+        @Override
+        public void invalidateAll() {
+            flushes++;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.FacetCountDto;
+import com.gmiedlar.moviereviewer.dto.MovieCatalogFilter;
+import com.gmiedlar.moviereviewer.dto.MovieFacetsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovieFacetCacheTest {
+
+    private static final MovieCatalogFilter DRAMAS = MovieCatalogFilter.builder().genre("drama").build();
+
+    private MovieFacetCache cache;
+
+    private AtomicInteger loads;
+
+    private Function<MovieCatalogFilter, MovieFacetsDto> loader;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MovieFacetCache(60000, 2);
+        loads = new AtomicInteger();
+        loader = filter -> facets(loads.incrementAndGet());
+    }
+
+    @Test
+    public void shouldShareEntryBetweenEquivalentFilters() {
+        //given
+        cache.get(MovieCatalogFilter.builder().genre("  drama ").director(" ").build(), loader);
+
+        //when
+        MovieFacetsDto result = cache.get(DRAMAS, loader);
+
+        //then
+        assertEquals(1, loads.get());
+        assertEquals(facets(1), result);
+    }
+
+    @Test
+    public void shouldInvalidateWhenGenreChanges() {
+        //given
+        cache.get(DRAMAS, loader);
+
+        //when
+        cache.movieChanged(movie("drama", 1999), movie("comedy", 1999));
+        MovieFacetsDto result = cache.get(DRAMAS, loader);
+
+        //then
+        assertEquals(2, loads.get());
+        assertEquals(facets(2), result);
+    }
+
+    @Test
+    public void shouldKeepEntriesWhenFacetFieldsDoNotChange() {
+        //given
+        Movie updated = movie("drama", 1999);
+        updated.setTitle("Updated title");
+        cache.get(DRAMAS, loader);
+
+        //when
+        cache.movieChanged(movie("drama", 1999), updated);
+        cache.get(DRAMAS, loader);
+
+        //then
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void shouldNotCacheResultComputedAcrossInvalidation() {
+        //given
+        Function<MovieCatalogFilter, MovieFacetsDto> racingLoader = filter -> {
+            MovieFacetsDto stale = loader.apply(filter);
+            cache.invalidate();
+            return stale;
+        };
+        cache.get(DRAMAS, racingLoader);
+
+        //when
+        MovieFacetsDto result = cache.get(DRAMAS, loader);
+
+        //then
+        assertEquals(2, loads.get());
+        assertEquals(facets(2), result);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedFilter() {
+        //given
+        MovieCatalogFilter comedies = MovieCatalogFilter.builder().genre("comedy").build();
+        MovieCatalogFilter nineties = MovieCatalogFilter.builder().yearFrom(1990).yearTo(1999).build();
+        cache.get(DRAMAS, loader);
+        cache.get(comedies, loader);
+        cache.get(DRAMAS, loader);
+
+        //when
+        cache.get(nineties, loader);
+        cache.get(DRAMAS, loader);
+        cache.get(comedies, loader);
+
+        //then
+        assertEquals(4, loads.get());
+    }
+
+    private static Movie movie(String genre, int year) {
+        return Movie.builder().id("movieId").genre(genre).year(year).director("David Fincher").build();
+    }
+
+    private static MovieFacetsDto facets(long count) {
+        return MovieFacetsDto.builder()
+                             .genres(List.of(new FacetCountDto("drama", count)))
+                             .decades(List.of())
+                             .directors(List.of())
+                             .build();
+    }
+}
@@ -3,18 +3,50 @@ package com.gmiedlar.moviereviewer.service;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import com.gmiedlar.moviereviewer.domain.Comment;
+import com.gmiedlar.moviereviewer.domain.CustomUser;
 import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.BulkReviewDto;
+import com.gmiedlar.moviereviewer.dto.BulkReviewResultDto;
+import com.gmiedlar.moviereviewer.dto.CursorPageDto;
+import com.gmiedlar.moviereviewer.dto.MovieCatalogFilter;
+import com.gmiedlar.moviereviewer.dto.FacetCountDto;
 import com.gmiedlar.moviereviewer.dto.MovieDto;
+import com.gmiedlar.moviereviewer.dto.MovieFacetsDto;
+import com.gmiedlar.moviereviewer.dto.MovieImportDto;
+import com.gmiedlar.moviereviewer.dto.MovieImportResultDto;
+import com.gmiedlar.moviereviewer.dto.MovieSort;
+import com.gmiedlar.moviereviewer.dto.MovieSuggestionDto;
+import com.gmiedlar.moviereviewer.dto.MovieSummaryDto;
+import com.gmiedlar.moviereviewer.dto.RatingHistogramDto;
+import com.gmiedlar.moviereviewer.dto.ReviewSort;
+import com.gmiedlar.moviereviewer.dto.TopMovieDto;
+import com.gmiedlar.moviereviewer.dto.TrendingMovieDto;
+import com.gmiedlar.moviereviewer.dto.TrendingWindow;
+import com.gmiedlar.moviereviewer.event.MovieDeletedEvent;
+import com.gmiedlar.moviereviewer.event.MovieUpdatedEvent;
+import com.gmiedlar.moviereviewer.event.ReviewAddedEvent;
 import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import static com.gmiedlar.moviereviewer.common.TestData.COMMENT;
@@ -23,13 +55,23 @@ import static com.gmiedlar.moviereviewer.common.TestData.ENABLED_USER;
 import static com.gmiedlar.moviereviewer.common.TestData.MOVIE;
 import static com.gmiedlar.moviereviewer.common.TestData.MOVIE_DTO;
 import static com.gmiedlar.moviereviewer.common.TestData.MOVIE_ID;
+import static com.gmiedlar.moviereviewer.common.TestData.MOVIE_SUMMARY;
 import static com.gmiedlar.moviereviewer.common.TestData.UNIQUE_USERNAME;
 import static com.gmiedlar.moviereviewer.common.TestData.USER_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -47,7 +89,19 @@ class MovieServiceImplTest {
     @Mock
     private UserFinderService userFinderService;
 
-    private ModelMapper mapper;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TopRatedMovieIndex topRatedMovieIndex;
+
+    @Mock
+    private TrendingMovieIndex trendingMovieIndex;
+
+    @Mock
+    private MovieSuggestIndex suggestIndex;
+
+    private final ModelMapper mapper = new ModelMapper();
 
     private MovieServiceImpl movieService;
 
@@ -57,7 +111,10 @@ class MovieServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        movieService = new MovieServiceImpl(repository, commentService, userFinderService, mapper);
+        InvalidationBus invalidationBus = new InMemoryInvalidationBus(new SimpleMeterRegistry());
+        movieService = new MovieServiceImpl(repository, commentService, userFinderService, mapper, eventPublisher, topRatedMovieIndex, trendingMovieIndex,
+            new RatingAggregationPipeline(repository, eventPublisher, invalidationBus, new SimpleMeterRegistry(), "sync", 0, 0), suggestIndex,
+            new MovieFacetCache(60000, 100), new MovieNearCache(new SimpleMeterRegistry(), invalidationBus, 100, 60000), invalidationBus);
 
         movie = Movie.builder()
                      .title("Test title")
@@ -89,6 +146,7 @@ class MovieServiceImplTest {
 
         //then
         verify(repository, times(1)).save(any(Movie.class));
+        verify(eventPublisher, times(1)).publishEvent(new MovieUpdatedEvent(MOVIE));
         assertNotNull(result);
         assertEquals(MOVIE, result);
     }
@@ -108,33 +166,233 @@ class MovieServiceImplTest {
         verify(repository, never()).save(any(Movie.class));
     }
 
+    @Test
+    public void shouldNotAddMovieWhenSameTitleAndYearExists() {
+        //given
+        given(userFinderService.findUserByUsername(anyString())).willReturn(ENABLED_USER);
+        given(repository.save(any(Movie.class))).willThrow(new DuplicateKeyException("E11000"));
+
+        Throwable exception = assertThrows(
+            IllegalStateException.class,
+            //when
+            () -> movieService.addMovie(UNIQUE_USERNAME, movie)
+        );
+
+        //then
+        verify(eventPublisher, never()).publishEvent(any(MovieUpdatedEvent.class));
+        assertEquals("Movie with this title and year already exists!", exception.getMessage());
+    }
+
+    @Test
+    public void shouldImportMoviesWithNormalizedCatalogKeys() {
+        //given
+        List<MovieImportDto> movies = List.of(
+            MovieImportDto.builder().line(2).title("  The   HEAT ").genre("Crime").year(1995).director("Michael Mann").build(),
+            MovieImportDto.builder().line(3).title("The Heat").genre("Crime").year(1995).director("Michael Mann").build()
+        );
+        given(userFinderService.findUserByUsername(UNIQUE_USERNAME)).willReturn(ENABLED_USER);
+        List<Movie> inserted = new ArrayList<>();
+        given(repository.insertUnordered(anyList())).willAnswer(invocation -> {
+            inserted.addAll(invocation.getArgument(0));
+            return List.of(new BulkWriteError(11000, "E11000 duplicate key error", new BasicDBObject(), 1));
+        });
+
+        //when
+        List<MovieImportResultDto> results = movieService.importMovies(UNIQUE_USERNAME, movies);
+
+        //then
+        verify(userFinderService, times(1)).findUserByUsername(UNIQUE_USERNAME);
+        verify(repository, times(1)).insertUnordered(anyList());
+        verify(repository, never()).save(any(Movie.class));
+        verify(eventPublisher, times(1)).publishEvent(new MovieUpdatedEvent(inserted.get(0)));
+        assertEquals("the heat|1995", inserted.get(0).getCatalogKey());
+        assertEquals("the heat|1995", inserted.get(1).getCatalogKey());
+        assertEquals(ENABLED_USER.getId(), inserted.get(0).getUserId());
+        assertEquals(inserted.get(0).getId(), results.get(0).getMovieId());
+        assertEquals(2, results.get(0).getLine());
+        assertTrue(results.get(0).isCreated());
+        assertEquals(3, results.get(1).getLine());
+        assertEquals("Movie with this title and year already exists!", results.get(1).getError());
+    }
+
     @Test
     public void shouldGetAllMovies() {
         //given
-        given(repository.findAll()).willReturn(List.of(MOVIE));
+        given(repository.findAllSummaries()).willReturn(List.of(MOVIE));
 
         //when
-        List<Movie> movies = movieService.getAllMovies();
+        List<MovieSummaryDto> movies = movieService.getAllMovies();
 
         //then
-        verify(repository, times(1)).findAll();
+        verify(repository, times(1)).findAllSummaries();
         assertEquals(1, movies.size());
-        assertEquals(MOVIE, movies.get(0));
+        assertEquals(MOVIE_SUMMARY, movies.get(0));
+    }
+
+    @Test
+    public void shouldGetFirstCatalogPage() {
+        //given
+        MovieCatalogFilter filter = MovieCatalogFilter.builder().genre("drama").yearFrom(1990).build();
+        Movie best = Movie.builder().id("movieId-2").avgRating(9.5).ratingCount(4).build();
+        Movie second = Movie.builder().id("movieId-1").avgRating(8.25).build();
+        Movie third = Movie.builder().id("movieId-3").avgRating(7.0).build();
+        given(repository.findCatalogPage(filter, MovieSort.AVG_RATING_DESC, null, 3))
+            .willReturn(new ArrayList<>(List.of(best, second, third)));
+
+        //when
+        CursorPageDto<MovieSummaryDto> result = movieService.getMovieCatalogPage(filter, "avgRating,desc", null, 2);
+
+        //then
+        verify(repository, times(1)).findCatalogPage(any(MovieCatalogFilter.class), any(MovieSort.class), isNull(), anyInt());
+        assertEquals(2, result.getContent().size());
+        assertEquals(best.getId(), result.getContent().get(0).getId());
+        assertEquals(best.getAvgRating(), result.getContent().get(0).getAvgRating());
+        assertEquals(best.getRatingCount(), result.getContent().get(0).getReviewCount());
+        assertEquals(second.getId(), result.getContent().get(1).getId());
+        assertNotNull(result.getNextCursor());
+    }
+
+    @Test
+    public void shouldContinueCatalogFromCursorOfPreviousPage() {
+        //given
+        MovieCatalogFilter filter = new MovieCatalogFilter();
+        Movie first = Movie.builder().id("movieId-1").title("Alien: Resurrection").build();
+        Movie second = Movie.builder().id("movieId-2").title("Brazil").build();
+        given(repository.findCatalogPage(eq(filter), eq(MovieSort.TITLE_ASC), any(), eq(2)))
+            .willReturn(new ArrayList<>(List.of(first, second)))
+            .willReturn(new ArrayList<>(List.of(second)));
+        String cursor = movieService.getMovieCatalogPage(filter, "title,asc", null, 1).getNextCursor();
+
+        //when
+        CursorPageDto<MovieSummaryDto> result = movieService.getMovieCatalogPage(filter, "title,asc", cursor, 1);
+
+        //then
+        ArgumentCaptor<Movie> after = ArgumentCaptor.forClass(Movie.class);
+        verify(repository, times(2)).findCatalogPage(any(MovieCatalogFilter.class), any(MovieSort.class), after.capture(), anyInt());
+        assertEquals(first.getId(), after.getValue().getId());
+        assertEquals(first.getTitle(), after.getValue().getTitle());
+        assertEquals(1, result.getContent().size());
+        assertEquals(second.getTitle(), result.getContent().get(0).getTitle());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    public void shouldNotAcceptCatalogCursorIssuedForAnotherSort() {
+        //given
+        MovieCatalogFilter filter = new MovieCatalogFilter();
+        Movie first = Movie.builder().id("movieId-1").year(1999).build();
+        given(repository.findCatalogPage(filter, MovieSort.YEAR_DESC, null, 2))
+            .willReturn(new ArrayList<>(List.of(first, MOVIE)));
+        String cursor = movieService.getMovieCatalogPage(filter, "year,desc", null, 1).getNextCursor();
+
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> movieService.getMovieCatalogPage(filter, "title,asc", cursor, 1)
+        );
+
+        //then
+        verify(repository, times(1)).findCatalogPage(any(MovieCatalogFilter.class), any(MovieSort.class), any(), anyInt());
+        assertEquals("Invalid cursor!", exception.getMessage());
+    }
+
+    @Test
+    public void shouldNotGetCatalogPageWhenSortInvalid() {
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> movieService.getMovieCatalogPage(new MovieCatalogFilter(), "commentIds,asc", null, 20)
+        );
+
+        //then
+        verify(repository, never()).findCatalogPage(any(MovieCatalogFilter.class), any(MovieSort.class), any(), anyInt());
+        assertTrue(exception.getMessage().startsWith("Invalid sort order!"));
+    }
+
+    @Test
+    public void shouldServeRepeatedFacetRequestsFromCache() {
+        //given
+        MovieFacetsDto facets = MovieFacetsDto.builder()
+                                              .genres(List.of(new FacetCountDto("drama", 3)))
+                                              .decades(List.of(new FacetCountDto("1990", 3)))
+                                              .directors(List.of(new FacetCountDto("David Fincher", 2)))
+                                              .build();
+        MovieCatalogFilter normalized = MovieCatalogFilter.builder().genre("drama").build();
+        given(repository.aggregateFacets(normalized, 50)).willReturn(facets);
+
+        //when
+        MovieFacetsDto first = movieService.getMovieFacets(MovieCatalogFilter.builder().genre(" drama ").director("").build());
+        MovieFacetsDto second = movieService.getMovieFacets(normalized);
+
+        //then
+        verify(repository, times(1)).aggregateFacets(any(MovieCatalogFilter.class), anyInt());
+        assertEquals(facets, first);
+        assertEquals(facets, second);
+    }
+
+    @Test
+    public void shouldKeepCachedFacetsWhenRatingChanges() {
+        //given
+        MovieCatalogFilter dramas = MovieCatalogFilter.builder().genre("drama").build();
+        Comment comment = Comment.builder().rating(5).build();
+        given(repository.aggregateFacets(dramas, 50)).willReturn(MovieFacetsDto.builder().build());
+        given(repository.existsById(MOVIE_ID)).willReturn(true);
+        given(commentService.addComment(UNIQUE_USERNAME, comment)).willReturn(COMMENT);
+        given(repository.addRating(MOVIE_ID, 5)).willReturn(Optional.of(movieWithComments));
+        movieService.getMovieFacets(dramas);
+
+        //when
+        movieService.addMovieComment(UNIQUE_USERNAME, MOVIE_ID, comment);
+        movieService.getMovieFacets(dramas);
+
+        //then
+        verify(repository, times(1)).aggregateFacets(any(MovieCatalogFilter.class), anyInt());
+    }
+
+    @Test
+    public void shouldReloadFacetsWhenMovieGenreChanges() {
+        //given
+        MovieCatalogFilter dramas = MovieCatalogFilter.builder().genre("drama").build();
+        Movie movieUpdate = Movie.builder().title("Test title").genre("drama").year(2020).director("Test director").build();
+        given(repository.aggregateFacets(dramas, 50)).willReturn(MovieFacetsDto.builder().build());
+        given(repository.findById(MOVIE_ID)).willReturn(Optional.ofNullable(MOVIE));
+        given(repository.updateMovieDetails(anyString(), any(Movie.class))).willReturn(Optional.of(movieUpdate));
+        movieService.getMovieFacets(dramas);
+
+        //when
+        movieService.updateMovie(MOVIE_ID, movieUpdate);
+        movieService.getMovieFacets(dramas);
+
+        //then
+        verify(repository, times(2)).aggregateFacets(any(MovieCatalogFilter.class), anyInt());
+    }
+
+    @Test
+    public void shouldNotGetFacetsWhenMinRatingOutOfRange() {
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> movieService.getMovieFacets(MovieCatalogFilter.builder().minRating(11.0).build())
+        );
+
+        //then
+        verify(repository, never()).aggregateFacets(any(MovieCatalogFilter.class), anyInt());
+        assertEquals("Minimum rating must be between 0 and 10!", exception.getMessage());
     }
 
     @Test
     public void shouldGetAllUserMovies() {
         //given
         given(userFinderService.findUserByUsername(anyString())).willReturn(ENABLED_USER);
-        given(repository.findByUserId(anyString())).willReturn(List.of(MOVIE));
+        given(repository.findSummariesByUserId(anyString())).willReturn(List.of(MOVIE));
 
         //when
-        List<Movie> movies = movieService.getAllUserMovies(UNIQUE_USERNAME);
+        List<MovieSummaryDto> movies = movieService.getAllUserMovies(UNIQUE_USERNAME);
 
         //then
-        verify(repository, times(1)).findByUserId(anyString());
+        verify(repository, times(1)).findSummariesByUserId(anyString());
         assertEquals(1, movies.size());
-        assertEquals(MOVIE, movies.get(0));
+        assertEquals(MOVIE_SUMMARY, movies.get(0));
     }
 
     @Test
@@ -151,6 +409,83 @@ class MovieServiceImplTest {
         assertEquals(MOVIE_DTO, result);
     }
 
+    @Test
+    public void shouldNotGetMovieVersionWhenIdNotExist() {
+        //given
+        given(repository.findVersionById(MOVIE_ID)).willReturn(Optional.empty());
+
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> movieService.getMovieVersion(MOVIE_ID)
+        );
+
+        //then
+        verify(repository, never()).findById(anyString());
+        assertEquals("No movie with that id exists!", exception.getMessage());
+    }
+
+    @Test
+    public void shouldCheckCanCommentWithSingleExistenceQuery() {
+        //given
+        given(repository.findById(MOVIE_ID)).willReturn(Optional.of(movieWithComments));
+        given(userFinderService.findUserByUsername(UNIQUE_USERNAME)).willReturn(ENABLED_USER);
+        given(commentService.hasUserCommented(USER_ID, movieWithComments)).willReturn(true);
+
+        //when
+        MovieDto result = movieService.getMovieDetails(UNIQUE_USERNAME, MOVIE_ID);
+
+        //then
+        verify(commentService, times(1)).hasUserCommented(anyString(), any(Movie.class));
+        verify(commentService, never()).getCommentsByIds(anyList());
+        assertFalse(result.isCanComment());
+    }
+
+    @Test
+    public void shouldGetMoviesDetailsWithCanCommentInSingleQuery() {
+        //given
+        Movie otherMovie = Movie.builder()
+                                .id("movieId-5678")
+                                .title("Other title")
+                                .genre("test genre")
+                                .year(2019)
+                                .director("Test director")
+                                .commentIds(Collections.emptyList())
+                                .build();
+        List<String> ids = List.of(otherMovie.getId(), MOVIE_ID, "invalidId-1234");
+        given(repository.findAllById(ids)).willReturn(List.of(movieWithComments, otherMovie));
+        given(userFinderService.findUserByUsername(UNIQUE_USERNAME)).willReturn(ENABLED_USER);
+        given(commentService.getCommentedMovieIds(eq(USER_ID), anyCollection())).willReturn(Set.of(MOVIE_ID));
+
+        //when
+        List<MovieDto> result = movieService.getMoviesDetails(UNIQUE_USERNAME, ids);
+
+        //then
+        verify(commentService, times(1)).getCommentedMovieIds(anyString(), anyCollection());
+        verify(commentService, never()).hasUserCommented(anyString(), any(Movie.class));
+        assertEquals(2, result.size());
+        assertEquals(otherMovie.getId(), result.get(0).getId());
+        assertTrue(result.get(0).isCanComment());
+        assertEquals(MOVIE_ID, result.get(1).getId());
+        assertFalse(result.get(1).isCanComment());
+    }
+
+    @Test
+    public void shouldNotGetDetailsOfTooManyMovies() {
+        //given
+        List<String> ids = IntStream.range(0, 101).mapToObj(i -> "movieId-" + i).collect(Collectors.toList());
+
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> movieService.getMoviesDetails(UNIQUE_USERNAME, ids)
+        );
+
+        //then
+        verify(repository, never()).findAllById(anyIterable());
+        assertEquals("At most 100 movie ids can be requested at once!", exception.getMessage());
+    }
+
     @Test
     public void shouldThrowIllegalArgumentExceptionWhenInvalidMovieId() {
         //given
@@ -184,14 +519,15 @@ class MovieServiceImplTest {
                                  .build();
 
         given(repository.findById(MOVIE_ID)).willReturn(Optional.ofNullable(MOVIE));
-        given(repository.save(any(Movie.class))).willReturn(movieUpdate);
+        given(repository.updateMovieDetails(anyString(), any(Movie.class))).willReturn(Optional.of(movieUpdate));
 
         //when
         Movie result = movieService.updateMovie(MOVIE_ID, movie);
 
         //then
         verify(repository, times(1)).findById(anyString());
-        verify(repository, times(1)).save(any(Movie.class));
+        verify(repository, times(1)).updateMovieDetails(anyString(), any(Movie.class));
+        verify(repository, never()).save(any(Movie.class));
         assertNotNull(result);
         assertEquals(movieUpdate, result);
     }
@@ -208,32 +544,169 @@ class MovieServiceImplTest {
         //then
         verify(repository, times(1)).existsById(anyString());
         verify(repository, times(1)).deleteById(anyString());
-        verify(commentService, times(1)).deleteComment(anyString());
+        verify(commentService, times(1)).deleteComments(List.of(COMMENT_ID));
+        verify(commentService, times(1)).deleteMovieComments(MOVIE_ID);
+        verify(commentService, never()).deleteComment(anyString(), anyString());
+        verify(eventPublisher, times(1)).publishEvent(new MovieDeletedEvent(MOVIE_ID));
         assertNotNull(result);
         assertEquals("Movie successfully deleted", result);
     }
 
+    @Test
+    public void shouldGetTopRatedMovies() {
+        //given
+        TopMovieDto topMovie = TopMovieDto.builder().id(MOVIE_ID).avgRating(8.0).ratingCount(20).score(7.5).build();
+        given(topRatedMovieIndex.getTopMovies(10, 5, "drama")).willReturn(List.of(topMovie));
+
+        //when
+        List<TopMovieDto> result = movieService.getTopRatedMovies(10, 5, "drama");
+
+        //then
+        assertEquals(List.of(topMovie), result);
+    }
+
+    @Test
+    public void shouldGetTrendingMovies() {
+        //given
+        TrendingMovieDto trendingMovie = TrendingMovieDto.builder().id(MOVIE_ID).reviewCount(42).build();
+        given(trendingMovieIndex.getTrendingMovies(TrendingWindow.HOUR, 5)).willReturn(List.of(trendingMovie));
+
+        //when
+        List<TrendingMovieDto> result = movieService.getTrendingMovies("1h", 5);
+
+        //then
+        assertEquals(List.of(trendingMovie), result);
+    }
+
+    @Test
+    public void shouldNotGetTrendingMoviesWhenWindowInvalid() {
+        assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> movieService.getTrendingMovies("2w", 5)
+        );
+
+        //then
+        verify(trendingMovieIndex, never()).getTrendingMovies(any(), anyInt());
+    }
+
+    @Test
+    public void shouldSuggestMovies() {
+        //given
+        MovieSuggestionDto suggestion = MovieSuggestionDto.builder().id(MOVIE_ID).title("Test title").build();
+        given(suggestIndex.suggest("tes", 5)).willReturn(List.of(suggestion));
+
+        //when
+        List<MovieSuggestionDto> result = movieService.suggestMovies("tes", 5);
+
+        //then
+        assertEquals(List.of(suggestion), result);
+    }
+
+    @Test
+    public void shouldNotGetTopRatedMoviesWhenLimitOutOfRange() {
+        assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> movieService.getTopRatedMovies(101, 1, null)
+        );
+
+        //then
+        verify(topRatedMovieIndex, never()).getTopMovies(anyInt(), anyInt(), any());
+    }
+
     @Test
     public void shouldGetAllMovieComments() {
         //given
+        Comment linked = Comment.builder().id("commentId-5678").rating(7).movieId(MOVIE_ID).build();
+        given(repository.findById(MOVIE_ID)).willReturn(Optional.of(MOVIE));
+        given(commentService.getMovieComments(MOVIE_ID)).willReturn(List.of(linked));
+
+        //when
+        List<Comment> movieComments = movieService.getMovieComments(MOVIE_ID);
+
+        //then
+        verify(commentService, times(1)).getMovieComments(anyString());
+        verify(commentService, never()).getCommentsByIds(anyList());
+        assertEquals(List.of(linked), movieComments);
+    }
+
+    @Test
+    public void shouldMergeLegacyCommentIdsWithLinkedCommentsBeforeMigration() {
+        //given
+        Comment linked = Comment.builder().id("commentId-5678").rating(7).movieId(MOVIE_ID).build();
+        movieWithComments.getCommentIds().add(linked.getId());
         given(repository.findById(MOVIE_ID)).willReturn(Optional.of(movieWithComments));
-        given(commentService.getCommentById(COMMENT_ID)).willReturn(COMMENT);
+        given(commentService.getMovieComments(MOVIE_ID)).willReturn(List.of(linked));
+        given(commentService.getCommentsByIds(List.of(COMMENT_ID))).willReturn(List.of(COMMENT));
 
         //when
         List<Comment> movieComments = movieService.getMovieComments(MOVIE_ID);
 
         //then
         verify(repository, times(1)).findById(anyString());
-        verify(commentService, times(1)).getCommentById(anyString());
-        assertEquals(1, movieComments.size());
-        assertEquals(COMMENT, movieComments.get(0));
+        verify(commentService, times(1)).getCommentsByIds(anyList());
+        verify(commentService, never()).getCommentById(anyString());
+        assertEquals(List.of(COMMENT, linked), movieComments);
+    }
+
+    @Test
+    public void shouldStreamLegacyCommentsBeforeLinkedComments() {
+        //given
+        Comment linked = Comment.builder().id("commentId-5678").rating(7).movieId(MOVIE_ID).build();
+        movieWithComments.getCommentIds().add(linked.getId());
+        given(repository.findById(MOVIE_ID)).willReturn(Optional.of(movieWithComments));
+        given(commentService.getCommentsByIds(movieWithComments.getCommentIds())).willReturn(List.of(COMMENT, linked));
+        given(commentService.streamMovieComments(MOVIE_ID)).willReturn(Stream.of(linked));
+
+        //when
+        List<Comment> movieComments = movieService.streamMovieComments(MOVIE_ID).collect(Collectors.toList());
+
+        //then
+        assertEquals(List.of(COMMENT, linked), movieComments);
+    }
+
+    @Test
+    public void shouldNotStreamCommentsOfUnknownMovie() {
+        //given
+        given(repository.findById(MOVIE_ID)).willReturn(Optional.empty());
+
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> movieService.streamMovieComments(MOVIE_ID)
+        );
+
+        //then
+        verify(commentService, never()).streamMovieComments(anyString());
+        assertEquals("No movie with that id exists!", exception.getMessage());
+    }
+
+    @Test
+    public void shouldParseReviewSortRegardlessOfDefaultLocale() {
+        //given
+        CursorPageDto<Comment> page = CursorPageDto.<Comment>builder().content(List.of(COMMENT)).build();
+        given(commentService.getMovieCommentsPage(MOVIE_ID, ReviewSort.HIGHEST, null, 10)).willReturn(page);
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+
+        //when
+        CursorPageDto<Comment> result;
+        try {
+            result = movieService.getMovieCommentsPage(MOVIE_ID, "highest", null, 10);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+
+        //then
+        assertEquals(page, result);
     }
 
     @Test
     public void shouldNotGetMovieCommentsWhenIllegalArgumentException() {
         //given
         given(repository.findById(MOVIE_ID)).willReturn(Optional.of(movieWithComments));
-        given(commentService.getCommentById(COMMENT_ID)).willThrow(IllegalArgumentException.class);
+        given(commentService.getCommentsByIds(List.of(COMMENT_ID))).willThrow(IllegalArgumentException.class);
 
         assertThrows(
             IllegalArgumentException.class,
@@ -243,7 +716,65 @@ class MovieServiceImplTest {
 
         //then
         verify(repository, times(1)).findById(anyString());
-        verify(commentService, times(1)).getCommentById(anyString());
+        verify(commentService, times(1)).getCommentsByIds(anyList());
+    }
+
+    @Test
+    public void shouldGetMovieRatingHistogram() {
+        //given
+        Movie ratings = Movie.builder()
+                             .id(MOVIE_ID)
+                             .avgRating(6.25)
+                             .ratingCount(4)
+                             .ratingHistogram(Map.of("3", 1L, "7", 2L, "8", 1L))
+                             .build();
+        given(repository.findRatingsById(MOVIE_ID)).willReturn(Optional.of(ratings));
+
+        //when
+        RatingHistogramDto result = movieService.getMovieRatingHistogram(MOVIE_ID);
+
+        //then
+        verify(repository, never()).findById(anyString());
+        verify(commentService, never()).getCommentsByIds(anyList());
+        assertEquals(List.of(0L, 0L, 1L, 0L, 0L, 0L, 2L, 1L, 0L, 0L), result.getCounts());
+        assertEquals(4, result.getTotal());
+        assertEquals(6.25, result.getAvgRating());
+        assertEquals(7.0, result.getMedian());
+    }
+
+    @Test
+    public void shouldGetEmptyRatingHistogramForMovieWithoutReviews() {
+        //given
+        given(repository.findRatingsById(MOVIE_ID)).willReturn(Optional.of(MOVIE));
+
+        //when
+        RatingHistogramDto result = movieService.getMovieRatingHistogram(MOVIE_ID);
+
+        //then
+        assertEquals(10, result.getCounts().size());
+        assertEquals(0, result.getTotal());
+        assertEquals(0.0, result.getMedian());
+    }
+
+    @Test
+    public void shouldReloadCachedMovieAfterRatingChange() {
+        //given
+        Movie rated = Movie.builder().id(MOVIE_ID).title("Test title").year(2020).ratingSum(5).ratingCount(1).build();
+        Comment comment = Comment.builder().rating(5).build();
+        given(repository.findById(MOVIE_ID)).willReturn(Optional.ofNullable(MOVIE)).willReturn(Optional.of(rated));
+        given(repository.existsById(MOVIE_ID)).willReturn(true);
+        given(commentService.addComment(UNIQUE_USERNAME, comment)).willReturn(COMMENT);
+        given(repository.addRating(MOVIE_ID, 5)).willReturn(Optional.of(rated));
+        movieService.getMovieDetails(null, MOVIE_ID);
+        movieService.getMovieDetails(null, MOVIE_ID);
+        movieService.addMovieComment(UNIQUE_USERNAME, MOVIE_ID, comment);
+
+        //when
+        MovieDto result = movieService.getMovieDetails(null, MOVIE_ID);
+
+        //then
+        verify(repository, times(2)).findById(anyString());
+        assertEquals(1, result.getRatingCount());
     }
 
     @Test
@@ -254,21 +785,114 @@ class MovieServiceImplTest {
                                  .text("Awesome")
                                  .build();
 
+        movieWithComments.setRatingSum(10);
+        movieWithComments.setRatingCount(2);
+
+        given(repository.existsById(MOVIE_ID)).willReturn(true);
         given(commentService.addComment(UNIQUE_USERNAME, comment)).willReturn(COMMENT);
-        given(repository.findById(MOVIE_ID)).willReturn(Optional.of(movieWithComments));
-        given(commentService.getCommentById(COMMENT_ID)).willReturn(COMMENT);
+        given(repository.addRating(MOVIE_ID, 5)).willReturn(Optional.of(movieWithComments));
 
         //when
         Movie result = movieService.addMovieComment(UNIQUE_USERNAME, MOVIE_ID, comment);
 
         //then
         verify(commentService, times(1)).addComment(anyString(), any(Comment.class));
-        verify(repository, times(1)).findById(anyString());
-        verify(commentService, times(2)).getCommentById(anyString());
-        assertEquals(2, result.getCommentIds().size());
+        verify(repository, times(1)).addRating(anyString(), anyInt());
+        verify(commentService, never()).getCommentById(anyString());
+        verify(repository, never()).save(any(Movie.class));
+        verify(repository, times(1)).storeAvgRating(movieWithComments);
+        verify(eventPublisher, times(1)).publishEvent(new MovieUpdatedEvent(movieWithComments));
+        verify(eventPublisher, times(1)).publishEvent(new ReviewAddedEvent(MOVIE_ID, COMMENT.getAddDate()));
+        assertEquals(MOVIE_ID, comment.getMovieId());
+        assertEquals(2, result.getRatingCount());
         assertEquals(5, result.getAvgRating());
     }
 
+    @Test
+    public void shouldImportMovieCommentsWithOneAggregateUpdatePerMovie() {
+        //given
+        String otherMovieId = "movieId-5678";
+        List<BulkReviewDto> reviews = List.of(
+            bulkReview(1, MOVIE_ID, UNIQUE_USERNAME, 8),
+            bulkReview(2, MOVIE_ID, "second", 6),
+            bulkReview(3, MOVIE_ID, "second", 11),
+            bulkReview(4, "missing", UNIQUE_USERNAME, 5),
+            bulkReview(5, MOVIE_ID, "unknown", 5),
+            bulkReview(6, MOVIE_ID, UNIQUE_USERNAME, 3),
+            bulkReview(7, otherMovieId, UNIQUE_USERNAME, 4)
+        );
+        CustomUser secondUser = CustomUser.builder().id("userId-2").username("second").build();
+        given(userFinderService.findUsersByUsernames(anyCollection())).willReturn(List.of(ENABLED_USER, secondUser));
+        given(repository.findIdsByIdIn(anyCollection())).willReturn(List.of(movieWithComments, Movie.builder().id(otherMovieId).build()));
+        given(commentService.addComments(anyList())).willAnswer(invocation -> {
+            List<Comment> comments = invocation.getArgument(0);
+            for(int i = 0; i < comments.size(); i++)
+                comments.get(i).setId("imported-" + i);
+            return Map.of(2, "You have already reviewed this movie!");
+        });
+        given(repository.addRatings(MOVIE_ID, Map.of(8, 1L, 6, 1L)))
+            .willReturn(Optional.of(movieWithComments));
+
+        //when
+        List<BulkReviewResultDto> results = movieService.importMovieComments(reviews);
+
+        //then
+        verify(repository, times(1)).addRatings(anyString(), any());
+        verify(repository, never()).addRating(anyString(), anyInt());
+        verify(commentService, never()).addComment(anyString(), any(Comment.class));
+        verify(eventPublisher, times(2)).publishEvent(any(ReviewAddedEvent.class));
+        assertEquals(7, results.size());
+        assertEquals("imported-0", results.get(0).getCommentId());
+        assertEquals("imported-1", results.get(1).getCommentId());
+        assertEquals("Rating must be between 1 and 10!", results.get(2).getError());
+        assertEquals("No movie with that id exists!", results.get(3).getError());
+        assertEquals("No user with that username exists!", results.get(4).getError());
+        assertEquals("You have already reviewed this movie!", results.get(5).getError());
+        assertEquals("You have already reviewed this movie!", results.get(6).getError());
+        assertEquals(7, results.get(6).getLine());
+    }
+
+    @Test
+    public void shouldRollBackImportedCommentsWhenMovieDeletedMeanwhile() {
+        //given
+        given(userFinderService.findUsersByUsernames(anyCollection())).willReturn(List.of(ENABLED_USER));
+        given(repository.findIdsByIdIn(anyCollection())).willReturn(List.of(movieWithComments));
+        given(commentService.addComments(anyList())).willAnswer(invocation -> {
+            List<Comment> comments = invocation.getArgument(0);
+            comments.get(0).setId(COMMENT_ID);
+            return Map.of();
+        });
+        given(repository.addRatings(eq(MOVIE_ID), any())).willReturn(Optional.empty());
+
+        //when
+        List<BulkReviewResultDto> results = movieService.importMovieComments(List.of(bulkReview(1, MOVIE_ID, UNIQUE_USERNAME, 8)));
+
+        //then
+        verify(commentService, times(1)).deleteComments(List.of(COMMENT_ID));
+        assertFalse(results.get(0).isCreated());
+        assertEquals("No movie with that id exists!", results.get(0).getError());
+    }
+
+    @Test
+    public void shouldNotAddMovieCommentWhenMovieNotFound() {
+        //given
+        Comment comment = Comment.builder()
+                                 .rating(5)
+                                 .text("Awesome")
+                                 .build();
+        given(repository.existsById(MOVIE_ID)).willReturn(false);
+
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> movieService.addMovieComment(UNIQUE_USERNAME, MOVIE_ID, comment)
+        );
+
+        //then
+        verify(commentService, never()).addComment(anyString(), any(Comment.class));
+        assertEquals("No movie with that id exists!", exception.getMessage());
+    }
+
     @Test
     public void shouldNotAddMovieCommentWhenUsernameNotFoundException() {
         //given
@@ -276,6 +900,7 @@ class MovieServiceImplTest {
                                  .rating(5)
                                  .text("Awesome")
                                  .build();
+        given(repository.existsById(MOVIE_ID)).willReturn(true);
         given(commentService.addComment(UNIQUE_USERNAME, comment)).willThrow(UsernameNotFoundException.class);
 
         assertThrows(
@@ -286,8 +911,7 @@ class MovieServiceImplTest {
 
         //then
         verify(commentService, times(1)).addComment(anyString(), any(Comment.class));
-        verify(repository, never()).findById(anyString());
-        verify(commentService, never()).getCommentById(anyString());
+        verify(repository, never()).addRating(anyString(), anyInt());
     }
 
     @Test
@@ -298,49 +922,125 @@ class MovieServiceImplTest {
                                  .rating(4)
                                  .text("Awesome")
                                  .build();
+        Comment cached = Comment.builder().id(COMMENT_ID).rating(5).movieId(MOVIE_ID).build();
+        Comment stored = Comment.builder().id(COMMENT_ID).rating(7).movieId(MOVIE_ID).ratingCounted(true).build();
 
         given(repository.existsById(MOVIE_ID)).willReturn(true);
-        given(commentService.updateComment(anyString(), any(Comment.class))).willReturn(comment);
-        given(repository.findById(MOVIE_ID)).willReturn(Optional.of(movieWithComments));
-        given(commentService.getCommentById(COMMENT_ID)).willReturn(comment);
-        given(repository.save(any(Movie.class))).willReturn(movieWithComments);
+        given(commentService.getCommentById(COMMENT_ID)).willReturn(cached);
+        given(commentService.updateComment(MOVIE_ID, COMMENT_ID, comment)).willReturn(stored);
+        given(repository.changeRating(MOVIE_ID, 7, 4)).willReturn(Optional.of(movieWithComments));
 
         //when
         Comment result = movieService.updateMovieComment(MOVIE_ID, COMMENT_ID, comment);
 
         //then
         verify(repository, times(1)).existsById(anyString());
-        verify(commentService, times(1)).updateComment(anyString(), any(Comment.class));
-        verify(repository, times(1)).findById(anyString());
-        verify(commentService, times(1)).getCommentById(anyString());
-        verify(repository, times(1)).save(any(Movie.class));
+        verify(commentService, times(1)).updateComment(anyString(), anyString(), any(Comment.class));
+        verify(repository, times(1)).changeRating(MOVIE_ID, 7, 4);
+        verify(repository, never()).save(any(Movie.class));
         assertEquals(comment.getRating(), result.getRating());
         assertEquals(comment.getText(), result.getText());
     }
 
+    @Test
+    public void shouldNotChangeRatingsWhenUpdatedCommentKeepsItsRating() {
+        //given
+        Comment comment = Comment.builder().rating(5).text("Updated").build();
+        given(repository.existsById(MOVIE_ID)).willReturn(true);
+        given(commentService.getCommentById(COMMENT_ID)).willReturn(COMMENT);
+        given(repository.existsByIdAndCommentIds(MOVIE_ID, COMMENT_ID)).willReturn(true);
+        given(commentService.updateComment(MOVIE_ID, COMMENT_ID, comment)).willReturn(COMMENT);
+
+        //when
+        movieService.updateMovieComment(MOVIE_ID, COMMENT_ID, comment);
+
+        //then
+        verify(repository, never()).changeRating(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void shouldNotUpdateCommentOfAnotherMovie() {
+        //given
+        Comment comment = Comment.builder().id(COMMENT_ID).rating(5).movieId("movieId-5678").build();
+        given(repository.existsById(MOVIE_ID)).willReturn(true);
+        given(commentService.getCommentById(COMMENT_ID)).willReturn(comment);
+
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> movieService.updateMovieComment(MOVIE_ID, COMMENT_ID, Comment.builder().rating(4).build())
+        );
+
+        //then
+        verify(commentService, never()).updateComment(anyString(), anyString(), any(Comment.class));
+        verify(repository, never()).changeRating(anyString(), anyInt(), anyInt());
+        assertEquals("No comment with that id exists!", exception.getMessage());
+    }
+
     @Test
     public void shouldDeleteMovieComment() {
         //given
+        Comment comment = Comment.builder().id(COMMENT_ID).rating(5).movieId(MOVIE_ID).build();
+        Comment removed = Comment.builder().id(COMMENT_ID).rating(7).movieId(MOVIE_ID).ratingCounted(true).build();
         given(repository.existsById(MOVIE_ID)).willReturn(true);
-        given(commentService.deleteComment(COMMENT_ID)).willReturn("Comment successfully deleted");
-        given(repository.findById(MOVIE_ID)).willReturn(Optional.of(movieWithComments));
+        given(commentService.getCommentById(COMMENT_ID)).willReturn(comment);
+        given(commentService.deleteComment(MOVIE_ID, COMMENT_ID)).willReturn(removed);
+        given(repository.removeRating(MOVIE_ID, COMMENT_ID, 7)).willReturn(Optional.of(MOVIE));
 
         //when
         Movie result = movieService.deleteMovieComment(MOVIE_ID, COMMENT_ID);
 
         //then
         verify(repository, times(1)).existsById(anyString());
-        verify(commentService, times(1)).deleteComment(anyString());
-        verify(repository, times(1)).findById(anyString());
-        assertEquals(0, result.getCommentIds().size());
+        verify(repository, never()).existsByIdAndCommentIds(anyString(), anyString());
+        verify(repository, times(1)).removeRating(MOVIE_ID, COMMENT_ID, 7);
+        verify(commentService, times(1)).deleteComment(anyString(), anyString());
+        verify(repository, never()).save(any(Movie.class));
+        assertEquals(0, result.getRatingCount());
         assertEquals(0.0, result.getAvgRating());
     }
 
+    @Test
+    public void shouldDeleteLegacyMovieCommentLinkedOnlyThroughCommentIds() {
+        //given
+        given(repository.existsById(MOVIE_ID)).willReturn(true);
+        given(commentService.getCommentById(COMMENT_ID)).willReturn(COMMENT);
+        given(repository.existsByIdAndCommentIds(MOVIE_ID, COMMENT_ID)).willReturn(true);
+        given(commentService.deleteComment(MOVIE_ID, COMMENT_ID)).willReturn(COMMENT);
+        given(repository.removeRating(MOVIE_ID, COMMENT_ID, 5)).willReturn(Optional.of(MOVIE));
+
+        //when
+        movieService.deleteMovieComment(MOVIE_ID, COMMENT_ID);
+
+        //then
+        verify(repository, times(1)).removeRating(anyString(), anyString(), anyInt());
+        verify(commentService, times(1)).deleteComment(MOVIE_ID, COMMENT_ID);
+    }
+
+    @Test
+    public void shouldNotDeleteCommentOfAnotherMovie() {
+        //given
+        Comment comment = Comment.builder().id(COMMENT_ID).rating(5).movieId("movieId-5678").build();
+        given(repository.existsById(MOVIE_ID)).willReturn(true);
+        given(commentService.getCommentById(COMMENT_ID)).willReturn(comment);
+
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> movieService.deleteMovieComment(MOVIE_ID, COMMENT_ID)
+        );
+
+        //then
+        verify(repository, never()).removeRating(anyString(), anyString(), anyInt());
+        verify(commentService, never()).deleteComment(anyString(), anyString());
+        assertEquals("No comment with that id exists!", exception.getMessage());
+    }
+
     @Test
     public void shouldNotDeleteMovieCommentWhenCommentNotFound() {
         //given
         given(repository.existsById(MOVIE_ID)).willReturn(true);
-        given(commentService.deleteComment(COMMENT_ID)).willThrow(IllegalArgumentException.class);
+        given(commentService.getCommentById(COMMENT_ID)).willThrow(IllegalArgumentException.class);
 
         assertThrows(
             IllegalArgumentException.class,
@@ -350,7 +1050,72 @@ class MovieServiceImplTest {
 
         //then
         verify(repository, times(1)).existsById(anyString());
-        verify(commentService, times(1)).deleteComment(anyString());
-        verify(repository, never()).findById(anyString());
+        verify(repository, never()).removeRating(anyString(), anyString(), anyInt());
+        verify(commentService, never()).deleteComment(anyString(), anyString());
+    }
+
+    @Test
+    public void shouldNotChangeRatingsWhenCommentWasAlreadyDeleted() {
+        //given
+        Comment comment = Comment.builder().id(COMMENT_ID).rating(5).movieId(MOVIE_ID).build();
+        given(repository.existsById(MOVIE_ID)).willReturn(true);
+        given(commentService.getCommentById(COMMENT_ID)).willReturn(comment);
+        given(commentService.deleteComment(MOVIE_ID, COMMENT_ID))
+            .willThrow(new IllegalArgumentException("No comment with that id exists!"));
+
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> movieService.deleteMovieComment(MOVIE_ID, COMMENT_ID)
+        );
+
+        //then
+        verify(repository, never()).removeRating(anyString(), anyString(), anyInt());
+        assertEquals("No comment with that id exists!", exception.getMessage());
+    }
+
+    @Test
+    public void shouldLeaveCountersOfReviewNotBackfilledYetOnUpdate() {
+        //given
+        Comment comment = Comment.builder().rating(4).text("Updated").build();
+        Comment uncounted = Comment.builder().id(COMMENT_ID).rating(7).movieId(MOVIE_ID).build();
+        given(repository.existsById(MOVIE_ID)).willReturn(true);
+        given(commentService.getCommentById(COMMENT_ID)).willReturn(uncounted);
+        given(commentService.updateComment(MOVIE_ID, COMMENT_ID, comment)).willReturn(uncounted);
+
+        //when
+        movieService.updateMovieComment(MOVIE_ID, COMMENT_ID, comment);
+
+        //then
+        verify(repository, never()).changeRating(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void shouldLeaveCountersOfReviewNotBackfilledYetOnDelete() {
+        //given
+        Comment uncounted = Comment.builder().id(COMMENT_ID).rating(7).build();
+        given(repository.existsById(MOVIE_ID)).willReturn(true);
+        given(commentService.getCommentById(COMMENT_ID)).willReturn(uncounted);
+        given(repository.existsByIdAndCommentIds(MOVIE_ID, COMMENT_ID)).willReturn(true);
+        given(commentService.deleteComment(MOVIE_ID, COMMENT_ID)).willReturn(uncounted);
+        given(repository.findById(MOVIE_ID)).willReturn(Optional.of(movieWithComments));
+
+        //when
+        Movie result = movieService.deleteMovieComment(MOVIE_ID, COMMENT_ID);
+
+        //then
+        verify(repository, never()).removeRating(anyString(), anyString(), anyInt());
+        verify(repository, times(1)).pullLegacyCommentRefs(MOVIE_ID, List.of(COMMENT_ID));
+        assertEquals(movieWithComments, result);
+    }
+
+    private BulkReviewDto bulkReview(int line, String movieId, String username, int rating) {
+        return BulkReviewDto.builder()
+                            .line(line)
+                            .movieId(movieId)
+                            .username(username)
+                            .rating(rating)
+                            .text("Imported")
+                            .build();
     }
-}
\ No newline at end of file
+}
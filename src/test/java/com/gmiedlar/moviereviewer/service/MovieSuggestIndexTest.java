@@ -0,0 +1,159 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.MovieSuggestionDto;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import com.gmiedlar.moviereviewer.event.MovieDeletedEvent;
+import com.gmiedlar.moviereviewer.event.MovieUpdatedEvent;
+import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class MovieSuggestIndexTest {
+
+    @Mock
+    private MovieRepository repository;
+
+    private InMemoryInvalidationBus invalidationBus;
+
+    private MovieSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        invalidationBus = new InMemoryInvalidationBus(new SimpleMeterRegistry());
+        index = new MovieSuggestIndex(repository, invalidationBus);
+        index.update(movie("godfather", "The Godfather", "Francis Ford Coppola", 500, 1));
+        index.update(movie("godzilla", "Godzilla", "Gareth Edwards", 120, 1));
+        index.update(movie("gone", "Gone Girl", "David Fincher", 300, 1));
+        index.update(movie("amelie", "Le Fabuleux Destin d'Amélie Poulain", "Jean-Pierre Jeunet", 80, 1));
+    }
+
+    @Test
+    public void shouldSuggestByPrefixRankedByReviewCount() {
+        //when
+        List<MovieSuggestionDto> result = index.suggest("go", 10);
+
+        //then
+        assertEquals(List.of("godfather", "gone", "godzilla"), ids(result));
+    }
+
+    @Test
+    public void shouldMatchDirectorAndMultipleWords() {
+        //when
+        List<MovieSuggestionDto> byDirector = index.suggest("finch", 10);
+        List<MovieSuggestionDto> byTwoWords = index.suggest("francis cop", 10);
+
+        //then
+        assertEquals(List.of("gone"), ids(byDirector));
+        assertEquals(List.of("godfather"), ids(byTwoWords));
+    }
+
+    @Test
+    public void shouldIgnoreCaseAndDiacritics() {
+        //when
+        List<MovieSuggestionDto> result = index.suggest("AMEL", 10);
+
+        //then
+        assertEquals(List.of("amelie"), ids(result));
+    }
+
+    @Test
+    public void shouldTolerateTypos() {
+        //when
+        List<MovieSuggestionDto> swapped = index.suggest("godafther", 10);
+        List<MovieSuggestionDto> substituted = index.suggest("fimcher", 10);
+
+        //then
+        assertEquals("godfather", swapped.get(0).getId());
+        assertEquals(List.of("gone"), ids(substituted));
+    }
+
+    @Test
+    public void shouldFollowRenamesReviewCountsAndDeletes() {
+        //when
+        index.onMovieUpdated(new MovieUpdatedEvent(movie("godzilla", "Godzilla Minus One", "Takashi Yamazaki", 900, 2)));
+        index.onMovieUpdated(new MovieUpdatedEvent(movie("godzilla", "Godzilla", "Gareth Edwards", 120, 1)));
+        index.onMovieDeleted(new MovieDeletedEvent("gone"));
+
+        //then
+        assertEquals(List.of("godzilla", "godfather"), ids(index.suggest("go", 10)));
+        assertTrue(index.suggest("gareth", 10).isEmpty());
+        assertEquals(List.of("godzilla"), ids(index.suggest("yamaz", 10)));
+    }
+
+    @Test
+    public void shouldFallBackToPopularityWalkForBroadPrefixes() {
+        //given
+        for(int i = 0; i < 300; i++)
+            index.update(movie("m" + i, "Movie " + i, "Director " + i, i, 1));
+
+        //when
+        List<MovieSuggestionDto> result = index.suggest("m", 3);
+
+        //then
+        assertEquals(List.of("m299", "m298", "m297"), ids(result));
+    }
+
+    @Test
+    public void shouldReloadMoviesWrittenOnOtherInstances() {
+        //given
+        InMemoryInvalidationBus remoteBus = new InMemoryInvalidationBus(new SimpleMeterRegistry());
+        invalidationBus.connect(remoteBus);
+        given(repository.findAllById(List.of("godzilla", "gone")))
+            .willReturn(List.of(movie("godzilla", "Godzilla Minus One", "Takashi Yamazaki", 900, 2)));
+
+        //when
+        remoteBus.publish(InvalidationTarget.MOVIE, List.of("godzilla", "gone"));
+
+        //then
+        assertEquals(List.of("godzilla", "godfather"), ids(index.suggest("go", 10)));
+        assertEquals(List.of("godzilla"), ids(index.suggest("yamaz", 10)));
+    }
+
+    @Test
+    public void shouldMatchCapitalIRegardlessOfDefaultLocale() {
+        //given
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+
+        //when
+        List<MovieSuggestionDto> result;
+        try {
+            index.update(movie("inception", "Inception", "Christopher Nolan", 400, 1));
+            result = index.suggest("incep", 10);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+
+        //then
+        assertEquals(List.of("inception"), ids(result));
+    }
+
+    private Movie movie(String id, String title, String director, int ratingCount, long revision) {
+        return Movie.builder()
+                    .id(id)
+                    .title(title)
+                    .director(director)
+                    .year(2000)
+                    .ratingCount(ratingCount)
+                    .revision(revision)
+                    .build();
+    }
+
+    private List<String> ids(List<MovieSuggestionDto> suggestions) {
+        return suggestions.stream().map(MovieSuggestionDto::getId).collect(Collectors.toList());
+    }
+}
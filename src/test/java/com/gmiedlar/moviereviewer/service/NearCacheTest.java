@@ -0,0 +1,111 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class NearCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private NearCache<String> cache;
+
+    private AtomicInteger loads;
+
+    private Function<String, Optional<String>> loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new NearCache<>("documents", 100, 60000, meterRegistry);
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            return id.startsWith("missing") ? Optional.empty() : Optional.of("document " + id);
+        };
+    }
+
+    @Test
+    public void shouldLoadOnceAndRecordHitsAndMisses() {
+        //given
+        cache.get("1", loader);
+
+        //when
+        Optional<String> result = cache.get("1", loader);
+
+        //then
+        assertEquals(Optional.of("document 1"), result);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "documents").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "documents").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    public void shouldNotCacheMissingDocuments() {
+        //given
+        cache.get("missing", loader);
+
+        //when
+        Optional<String> result = cache.get("missing", loader);
+
+        //then
+        assertFalse(result.isPresent());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void shouldReloadInvalidatedDocument() {
+        //given
+        cache.get("1", loader);
+        cache.get("2", loader);
+
+        //when
+        cache.invalidateAll(List.of("1", "2"));
+        cache.get("1", loader);
+        cache.get("2", loader);
+
+        //then
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void shouldLoadOnlyUncachedIdsInBulk() {
+        //given
+        cache.get("1", loader);
+        AtomicInteger bulkLoads = new AtomicInteger();
+
+        //when
+        Map<String, String> result = cache.getAll(List.of("1", "2", "missing"), ids -> {
+            bulkLoads.incrementAndGet();
+            assertEquals(List.of("2", "missing"), ids.stream().sorted().collect(Collectors.toList()));
+            return Map.of("2", "document 2");
+        });
+
+        //then
+        assertEquals(1, bulkLoads.get());
+        assertEquals(Map.of("1", "document 1", "2", "document 2"), result);
+    }
+
+    @Test
+    public void shouldNotCacheBulkLoadedDocuments() {
+        //given
+        cache.getAll(List.of("1"), ids -> Map.of("1", "stale document 1"));
+
+        //when
+        Optional<String> result = cache.get("1", loader);
+
+        //then
+        assertEquals(Optional.of("document 1"), result);
+        assertEquals(1, loads.get());
+    }
+}
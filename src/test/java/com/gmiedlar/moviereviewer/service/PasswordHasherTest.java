@@ -0,0 +1,102 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class PasswordHasherTest {
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PasswordHasher passwordHasher;
+
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        passwordHasher = new PasswordHasher(passwordEncoder, meterRegistry, 1, 1, 1, 1);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordHasher.stop();
+    }
+
+    @Test
+    public void shouldHashOffCallerThreadAndRecordTime() {
+        //given
+        given(passwordEncoder.encode("pass")).willAnswer(invocation -> Thread.currentThread().getName());
+
+        //when
+        String result = passwordHasher.encode("pass").join();
+
+        //then
+        assertTrue(result.startsWith("password-hashing-"));
+        assertEquals(1L, meterRegistry.get("password.hashing.time").tag("operation", "encode").timer().count());
+    }
+
+    @Test
+    public void shouldCompleteOnItsOwnCompletionThreads() {
+        //given
+        given(passwordEncoder.matches("pass", "hash")).willReturn(true);
+
+        //when
+        String completedOn = passwordHasher.matches("pass", "hash")
+                                           .thenApply(matches -> Thread.currentThread().getName())
+                                           .join();
+
+        //then
+        assertTrue(completedOn.startsWith("password-completion-"));
+    }
+
+    @Test
+    public void shouldRejectWhenQueueIsFull() throws InterruptedException {
+        //given
+        CountDownLatch started = new CountDownLatch(1);
+        passwordHasher.submit("block", () -> {
+            started.countDown();
+            awaitRelease();
+            return null;
+        });
+        started.await();
+        passwordHasher.submit("queued", () -> null);
+
+        assertThrows(
+            RejectedExecutionException.class,
+            //when
+            () -> passwordHasher.submit("rejected", () -> null)
+        );
+
+        //then
+        assertEquals(1.0, meterRegistry.get("password.hashing.queue").gauge().value());
+        assertEquals(1.0, meterRegistry.get("password.hashing.rejected").counter().count());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
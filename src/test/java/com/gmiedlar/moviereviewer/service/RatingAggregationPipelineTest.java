@@ -0,0 +1,103 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.event.MovieUpdatedEvent;
+import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static com.gmiedlar.moviereviewer.common.TestData.MOVIE_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RatingAggregationPipelineTest {
+
+    @Mock
+    private MovieRepository repository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RatingAggregationPipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.stop();
+    }
+
+    @Test
+    public void shouldStoreAverageOnRequestThreadInSyncMode() {
+        //given
+        pipeline = pipeline("sync");
+        Movie movie = Movie.builder().id(MOVIE_ID).ratingSum(16).ratingCount(2).avgRating(8.0).build();
+
+        //when
+        Movie result = pipeline.ratingsChanged(movie);
+
+        //then
+        verify(repository, times(1)).storeAvgRating(movie);
+        verify(eventPublisher, times(1)).publishEvent(new MovieUpdatedEvent(movie));
+        verify(repository, never()).refreshAvgRating(anyString());
+        assertEquals(movie, result);
+    }
+
+    @Test
+    public void shouldCoalesceRepeatedChangesIntoSingleRefresh() throws InterruptedException {
+        //given
+        pipeline = pipeline("async");
+        Movie refreshed = Movie.builder().id(MOVIE_ID).ratingSum(500).ratingCount(100).avgRating(5.0).build();
+        given(repository.refreshAvgRating(MOVIE_ID)).willReturn(Optional.of(refreshed));
+
+        //when
+        for(int i = 0; i < 100; i++)
+            pipeline.ratingsChanged(Movie.builder().id(MOVIE_ID).ratingCount(i + 1).build());
+        double pending = meterRegistry.get("movie.rating.aggregation.pending").gauge().value();
+        boolean idle = pipeline.awaitIdle(5, TimeUnit.SECONDS);
+
+        //then
+        assertEquals(1.0, pending);
+        assertTrue(idle);
+        verify(repository, times(1)).refreshAvgRating(MOVIE_ID);
+        verify(repository, never()).storeAvgRating(any(Movie.class));
+        verify(eventPublisher, times(1)).publishEvent(new MovieUpdatedEvent(refreshed));
+        assertEquals(0.0, meterRegistry.get("movie.rating.aggregation.pending").gauge().value());
+        assertEquals(0.0, meterRegistry.get("movie.rating.aggregation.lag").gauge().value());
+    }
+
+    @Test
+    public void shouldReportLagOfOldestPendingChange() throws InterruptedException {
+        //given
+        pipeline = new RatingAggregationPipeline(repository, eventPublisher, new InMemoryInvalidationBus(meterRegistry), meterRegistry, "async", 60000, 1);
+
+        //when
+        pipeline.ratingsChanged(Movie.builder().id(MOVIE_ID).build());
+        Thread.sleep(20);
+
+        //then
+        assertTrue(pipeline.getLagMillis() >= 20);
+        assertTrue(meterRegistry.get("movie.rating.aggregation.lag").gauge().value() >= 20);
+    }
+
+    private RatingAggregationPipeline pipeline(String mode) {
+        RatingAggregationPipeline pipeline = new RatingAggregationPipeline(repository, eventPublisher, new InMemoryInvalidationBus(meterRegistry), meterRegistry, mode, 50, 2);
+        pipeline.start();
+        return pipeline;
+    }
+}
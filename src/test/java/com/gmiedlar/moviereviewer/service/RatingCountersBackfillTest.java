@@ -0,0 +1,126 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.gmiedlar.moviereviewer.domain.Comment;
+import com.gmiedlar.moviereviewer.domain.MigrationState;
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.repository.CommentRepository;
+import com.gmiedlar.moviereviewer.repository.MigrationStateRepository;
+import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RatingCountersBackfillTest {
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private MigrationStateRepository stateRepository;
+
+    private RatingCountersBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        backfill = new RatingCountersBackfill(movieRepository, commentRepository, stateRepository,
+            new InMemoryInvalidationBus(new SimpleMeterRegistry()), new SimpleMeterRegistry(), true, 2, 0);
+    }
+
+    @Test
+    public void shouldCountLegacyAndLinkedReviewsOnce() throws Exception {
+        //given
+        Movie movie = movie("movieId-1", "c1", "c2");
+        given(stateRepository.findById(RatingCountersBackfill.MIGRATION_ID)).willReturn(Optional.empty());
+        given(movieRepository.findCommentRefsAfter(isNull(), eq(2))).willReturn(List.of(movie));
+        given(movieRepository.findCommentRefsAfter(eq("movieId-1"), eq(2))).willReturn(List.of());
+        given(commentRepository.findUncountedIdsByMovieId("movieId-1"))
+            .willReturn(List.of(Comment.builder().id("c2").build(), Comment.builder().id("c3").build()));
+        given(commentRepository.markRatingCounted("c1")).willReturn(Optional.of(Comment.builder().id("c1").rating(4).build()));
+        given(commentRepository.markRatingCounted("c2")).willReturn(Optional.of(Comment.builder().id("c2").rating(9).build()));
+        // Counted by a concurrent write in the meantime.
+        given(commentRepository.markRatingCounted("c3")).willReturn(Optional.empty());
+
+        //when
+        backfill.run();
+
+        //then
+        verify(commentRepository, times(3)).markRatingCounted(anyString());
+        verify(movieRepository, times(1)).addRating("movieId-1", 4);
+        verify(movieRepository, times(1)).addRating("movieId-1", 9);
+        verify(movieRepository, times(1)).refreshAvgRating("movieId-1");
+        MigrationState state = backfill.getState();
+        assertTrue(state.isCompleted());
+        assertEquals(1, state.getMigratedMovies());
+        assertEquals(2, state.getMigratedComments());
+        assertEquals("movieId-1", state.getLastMovieId());
+    }
+
+    @Test
+    public void shouldResumeAfterCheckpointedMovie() throws Exception {
+        //given
+        MigrationState checkpoint = MigrationState.builder()
+                                                  .id(RatingCountersBackfill.MIGRATION_ID)
+                                                  .lastMovieId("movieId-1")
+                                                  .migratedMovies(1)
+                                                  .migratedComments(3)
+                                                  .build();
+        given(stateRepository.findById(RatingCountersBackfill.MIGRATION_ID)).willReturn(Optional.of(checkpoint));
+        given(movieRepository.findCommentRefsAfter(eq("movieId-1"), anyInt())).willReturn(List.of(movie("movieId-2")));
+        given(movieRepository.findCommentRefsAfter(eq("movieId-2"), anyInt())).willReturn(List.of());
+        given(commentRepository.findUncountedIdsByMovieId("movieId-2")).willReturn(List.of());
+
+        //when
+        backfill.run();
+
+        //then
+        verify(movieRepository, never()).findCommentRefsAfter(isNull(), anyInt());
+        verify(movieRepository, never()).refreshAvgRating(anyString());
+        assertEquals(2, backfill.getState().getMigratedMovies());
+        assertEquals(3, backfill.getState().getMigratedComments());
+    }
+
+    @Test
+    public void shouldNotRunAgainOnceCompleted() throws Exception {
+        //given
+        MigrationState completed = MigrationState.builder().id(RatingCountersBackfill.MIGRATION_ID).completed(true).build();
+        given(stateRepository.findById(RatingCountersBackfill.MIGRATION_ID)).willReturn(Optional.of(completed));
+
+        //when
+        backfill.run();
+
+        //then
+        verify(movieRepository, never()).findCommentRefsAfter(any(), anyInt());
+        verify(stateRepository, never()).save(any(MigrationState.class));
+        verify(movieRepository, never()).addRating(anyString(), anyInt());
+    }
+
+    private Movie movie(String id, String... commentIds) {
+        return Movie.builder()
+                    .id(id)
+                    .commentIds(commentIds.length > 0 ? new ArrayList<>(List.of(commentIds)) : null)
+                    .build();
+    }
+}
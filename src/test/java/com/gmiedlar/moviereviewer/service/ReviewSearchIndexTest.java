@@ -0,0 +1,194 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.gmiedlar.moviereviewer.domain.Comment;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import com.gmiedlar.moviereviewer.repository.CommentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewSearchIndexTest {
+
+    @Mock
+    private CommentRepository repository;
+
+    private InMemoryInvalidationBus invalidationBus;
+
+    private ReviewSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        invalidationBus = new InMemoryInvalidationBus(new SimpleMeterRegistry());
+        index = new ReviewSearchIndex(repository, invalidationBus);
+    }
+
+    @Test
+    public void shouldRankRareTermsAndShortDocumentsHigher() {
+        //given
+        index.index(comment("long", "m1", "great acting but the soundtrack was a long and winding and forgettable affair overall"));
+        index.index(comment("short", "m1", "great soundtrack"));
+        index.index(comment("common", "m2", "great acting"));
+        index.index(comment("other", "m2", "great fun"));
+
+        //when
+        ReviewSearchIndex.SearchResult result = index.search("great soundtrack", null, 0, 10);
+
+        //then
+        assertEquals(4, result.getTotalHits());
+        assertEquals(List.of("short", "long", "common", "other"), ids(result));
+        assertTrue(result.getHits().get(0).getScore() > result.getHits().get(1).getScore());
+    }
+
+    @Test
+    public void shouldFilterByMovie() {
+        //given
+        index.index(comment("first", "m1", "stunning visuals"));
+        index.index(comment("second", "m2", "stunning cast"));
+
+        //when
+        ReviewSearchIndex.SearchResult result = index.search("stunning", "m2", 0, 10);
+
+        //then
+        assertEquals(List.of("second"), ids(result));
+    }
+
+    @Test
+    public void shouldPageThroughRankedHits() {
+        //given
+        IntStream.range(0, 25).forEach(i -> index.index(comment("c" + i, "m1", "plot " + "twist ".repeat(i + 1))));
+
+        //when
+        ReviewSearchIndex.SearchResult firstPage = index.search("twist", null, 0, 10);
+        ReviewSearchIndex.SearchResult lastPage = index.search("twist", null, 20, 10);
+
+        //then
+        assertEquals(25, firstPage.getTotalHits());
+        assertEquals(10, firstPage.getHits().size());
+        assertEquals(5, lastPage.getHits().size());
+        assertEquals("c24", firstPage.getHits().get(0).getCommentId());
+        assertEquals("c0", lastPage.getHits().get(4).getCommentId());
+    }
+
+    @Test
+    public void shouldReindexUpdatedAndForgetRemovedComments() {
+        //given
+        index.index(comment("updated", "m1", "boring"));
+        index.index(comment("removed", "m1", "thrilling"));
+
+        //when
+        index.index(comment("updated", "m1", "thrilling"));
+        index.remove(List.of("removed"));
+
+        //then
+        assertEquals(0, index.search("boring", null, 0, 10).getTotalHits());
+        assertEquals(List.of("updated"), ids(index.search("thrilling", null, 0, 10)));
+    }
+
+    @Test
+    public void shouldKeepResultsAfterCompaction() {
+        //given
+        IntStream.range(0, 20).forEach(i -> index.index(comment("c" + i, "m" + (i % 2), "heist movie " + i)));
+
+        //when
+        index.remove(IntStream.range(0, 10).mapToObj(i -> "c" + i).collect(Collectors.toList()));
+
+        //then
+        assertEquals(10, index.search("heist", null, 0, 100).getTotalHits());
+        assertEquals(List.of("c15"), ids(index.search("15", "m1", 0, 10)));
+        assertEquals(5, index.search("heist", "m0", 0, 100).getTotalHits());
+    }
+
+    @Test
+    public void shouldKeepWritesMadeWhileCompacting() {
+        //given
+        // Few enough removals to stay below the threshold of a background compaction.
+        IntStream.range(0, 20).forEach(i -> index.index(comment("c" + i, "m1", "heist movie " + i)));
+        ReviewSearchIndex.Compaction compaction = index.startCompaction();
+        index.remove(List.of("c0", "c1"));
+        index.index(comment("c2", "m1", "caper movie"));
+        index.index(comment("c20", "m2", "heist movie 20"));
+
+        //when
+        index.finishCompaction(compaction);
+
+        //then
+        assertEquals(18, index.search("heist", null, 0, 100).getTotalHits());
+        assertEquals(List.of("c2"), ids(index.search("caper", null, 0, 10)));
+        assertEquals(List.of("c20"), ids(index.search("heist", "m2", 0, 10)));
+        assertEquals(0, index.search("0", null, 0, 10).getTotalHits());
+        index.index(comment("c3", "m1", "caper movie"));
+        assertEquals(List.of("c2", "c3"), ids(index.search("caper", null, 0, 10)));
+    }
+
+    @Test
+    public void shouldHighlightMatchesInsideSnippetWindow() {
+        //given
+        String text = "Intro ".repeat(20) + "the ending is brilliant & unexpected " + "outro ".repeat(40);
+
+        //when
+        String snippet = index.highlight(text, "BRILLIANT ending");
+
+        //then
+        assertTrue(snippet.startsWith("..."));
+        assertTrue(snippet.endsWith("..."));
+        assertTrue(snippet.contains("<em>ending</em> is <em>brilliant</em> &amp; unexpected"));
+    }
+
+    @Test
+    public void shouldReloadCommentsWrittenOnOtherInstances() {
+        //given
+        InMemoryInvalidationBus remoteBus = new InMemoryInvalidationBus(new SimpleMeterRegistry());
+        invalidationBus.connect(remoteBus);
+        index.index(comment("updated", "m1", "boring"));
+        index.index(comment("deleted", "m1", "boring heist"));
+        given(repository.findAllById(List.of("updated", "deleted", "created")))
+            .willReturn(List.of(comment("updated", "m1", "thrilling heist"), comment("created", "m2", "heist")));
+
+        //when
+        remoteBus.publish(InvalidationTarget.COMMENT, List.of("updated", "deleted", "created"));
+
+        //then
+        assertEquals(List.of("created", "updated"), ids(index.search("heist", null, 0, 10)));
+        assertEquals(0, index.search("boring", null, 0, 10).getTotalHits());
+    }
+
+    @Test
+    public void shouldMatchCapitalIRegardlessOfDefaultLocale() {
+        //given
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+
+        //when
+        ReviewSearchIndex.SearchResult result;
+        try {
+            index.index(comment("first", "m1", "BEST FILM OF THE YEAR"));
+            result = index.search("film", null, 0, 10);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+
+        //then
+        assertEquals(List.of("first"), ids(result));
+    }
+
+    private Comment comment(String id, String movieId, String text) {
+        return Comment.builder().id(id).movieId(movieId).text(text).build();
+    }
+
+    private List<String> ids(ReviewSearchIndex.SearchResult result) {
+        return result.getHits().stream().map(ReviewSearchIndex.Hit::getCommentId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,131 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.Date;
+import java.util.List;
+
+import com.gmiedlar.moviereviewer.domain.TokenRevocation;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import com.gmiedlar.moviereviewer.repository.TokenRevocationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static com.gmiedlar.moviereviewer.common.TestData.UNIQUE_USERNAME;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationListTest {
+
+    @Mock
+    private TokenRevocationRepository repository;
+
+    private InMemoryInvalidationBus invalidationBus;
+
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        invalidationBus = new InMemoryInvalidationBus(new SimpleMeterRegistry());
+        revocationList = new TokenRevocationList(repository, invalidationBus, 60000);
+    }
+
+    @Test
+    public void shouldRevokeTokensIssuedBeforeUserChanged() {
+        //given
+        Date issuedAt = new Date(System.currentTimeMillis() - 5000);
+
+        //when
+        invalidationBus.publish(InvalidationTarget.USER, UNIQUE_USERNAME);
+
+        //then
+        assertTrue(revocationList.isRevoked(UNIQUE_USERNAME, null, issuedAt));
+        assertFalse(revocationList.isRevoked("other", null, issuedAt));
+    }
+
+    @Test
+    public void shouldAcceptTokensIssuedAfterUserChanged() {
+        //given
+        invalidationBus.publish(InvalidationTarget.USER, UNIQUE_USERNAME);
+
+        //when
+        boolean revoked = revocationList.isRevoked(UNIQUE_USERNAME, null, new Date(System.currentTimeMillis() / 1000 * 1000));
+
+        //then
+        assertFalse(revoked);
+    }
+
+    @Test
+    public void shouldForgetRevocationsOlderThanTokenLifetime() {
+        //given
+        TokenRevocationList shortLived = new TokenRevocationList(repository, invalidationBus, -1000);
+        invalidationBus.publish(InvalidationTarget.USER, UNIQUE_USERNAME);
+
+        //when
+        shortLived.purge();
+
+        //then
+        assertFalse(shortLived.isRevoked(UNIQUE_USERNAME, null, new Date(0)));
+        assertTrue(revocationList.isRevoked(UNIQUE_USERNAME, null, new Date(0)));
+    }
+
+    @Test
+    public void shouldRevokeSingleTokenOnEveryInstance() {
+        //given
+        InMemoryInvalidationBus remoteBus = new InMemoryInvalidationBus(new SimpleMeterRegistry());
+        invalidationBus.connect(remoteBus);
+        TokenRevocationList remoteList = new TokenRevocationList(repository, remoteBus, 60000);
+        Date issuedAt = new Date(System.currentTimeMillis() - 5000);
+
+        //when
+        revocationList.revokeToken(UNIQUE_USERNAME, "tokenId-1", new Date(System.currentTimeMillis() + 60000));
+
+        //then
+        verify(repository, times(1)).save(any(TokenRevocation.class));
+        assertTrue(revocationList.isRevoked(UNIQUE_USERNAME, "tokenId-1", issuedAt));
+        assertTrue(remoteList.isRevoked(UNIQUE_USERNAME, "tokenId-1", issuedAt));
+        assertFalse(remoteList.isRevoked(UNIQUE_USERNAME, "tokenId-2", issuedAt));
+    }
+
+    @Test
+    public void shouldReloadStoredRevocationsWhenInvalidationsWereMissed() {
+        //given
+        long now = System.currentTimeMillis();
+        given(repository.findByExpiresAtAfter(any(Date.class))).willReturn(List.of(
+            TokenRevocation.builder().username("other").tokenId("tokenId-1").expiresAt(new Date(now + 60000)).build(),
+            TokenRevocation.builder().username(UNIQUE_USERNAME).notBefore(new Date(now - 1000)).expiresAt(new Date(now + 60000)).build()
+        ));
+
+        //when
+        invalidationBus.flushAll();
+
+        //then
+        assertTrue(revocationList.isRevoked("other", "tokenId-1", new Date(now)));
+        assertTrue(revocationList.isRevoked(UNIQUE_USERNAME, "tokenId-2", new Date(now - 5000)));
+        assertFalse(revocationList.isRevoked(UNIQUE_USERNAME, "tokenId-2", new Date(now)));
+    }
+
+    @Test
+    public void shouldUseStoredChangeTimeWhenInvalidationArrivesLate() {
+        //given
+        long changedAt = System.currentTimeMillis() / 1000 * 1000 - 10000;
+        given(repository.findAllById(anyIterable())).willReturn(List.of(
+            TokenRevocation.builder().id("user:" + UNIQUE_USERNAME).username(UNIQUE_USERNAME).notBefore(new Date(changedAt)).build()
+        ));
+
+        //when
+        invalidationBus.publish(InvalidationTarget.USER, UNIQUE_USERNAME);
+
+        //then
+        assertTrue(revocationList.isRevoked(UNIQUE_USERNAME, null, new Date(changedAt - 1000)));
+        assertFalse(revocationList.isRevoked(UNIQUE_USERNAME, null, new Date(changedAt + 5000)));
+    }
+}
@@ -0,0 +1,195 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.TopMovieDto;
+import com.gmiedlar.moviereviewer.event.InvalidationTarget;
+import com.gmiedlar.moviereviewer.event.MovieDeletedEvent;
+import com.gmiedlar.moviereviewer.event.MovieUpdatedEvent;
+import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TopRatedMovieIndexTest {
+
+    @Mock
+    private MovieRepository repository;
+
+    private InMemoryInvalidationBus invalidationBus;
+
+    private TopRatedMovieIndex index;
+
+    @BeforeEach
+    void setUp() {
+        invalidationBus = new InMemoryInvalidationBus(new SimpleMeterRegistry());
+        index = new TopRatedMovieIndex(repository, invalidationBus, 10);
+    }
+
+    @Test
+    public void shouldRankManyGoodReviewsAboveSinglePerfectOne() {
+        //given
+        index.update(movie("single", "drama", 10, 1, 1));
+        index.update(movie("popular", "drama", 900, 100, 1));
+        index.update(movie("average", "drama", 600, 100, 1));
+        index.rerank();
+
+        //when
+        List<TopMovieDto> result = index.getTopMovies(10, 1, null);
+
+        //then
+        assertEquals(List.of("popular", "single", "average"), ids(result));
+        assertTrue(result.get(0).getScore() < 9.0);
+    }
+
+    @Test
+    public void shouldFilterByGenreAndMinReviews() {
+        //given
+        index.update(movie("drama", "Drama", 450, 50, 1));
+        index.update(movie("comedy", "comedy", 500, 50, 1));
+        index.update(movie("fresh", "drama ", 20, 3, 1));
+        index.rerank();
+
+        //when
+        List<TopMovieDto> dramas = index.getTopMovies(10, 1, "DRAMA");
+        List<TopMovieDto> established = index.getTopMovies(10, 10, null);
+
+        //then
+        assertEquals(List.of("drama", "fresh"), ids(dramas));
+        assertEquals(List.of("comedy", "drama"), ids(established));
+    }
+
+    @Test
+    public void shouldLimitResults() {
+        //given
+        index.update(movie("first", "drama", 90, 10, 1));
+        index.update(movie("second", "drama", 80, 10, 1));
+        index.update(movie("third", "drama", 70, 10, 1));
+
+        //when
+        List<TopMovieDto> result = index.getTopMovies(2, 1, null);
+
+        //then
+        assertEquals(List.of("first", "second"), ids(result));
+    }
+
+    @Test
+    public void shouldIgnoreStaleUpdates() {
+        //given
+        index.onMovieUpdated(new MovieUpdatedEvent(movie("movie", "drama", 90, 10, 5)));
+
+        //when
+        index.onMovieUpdated(new MovieUpdatedEvent(movie("movie", "drama", 10, 1, 4)));
+
+        //then
+        List<TopMovieDto> result = index.getTopMovies(10, 1, "drama");
+        assertEquals(1, result.size());
+        assertEquals(10, result.get(0).getRatingCount());
+    }
+
+    @Test
+    public void shouldMoveMovieBetweenGenresOnUpdate() {
+        //given
+        index.update(movie("movie", "drama", 90, 10, 1));
+
+        //when
+        index.update(movie("movie", "comedy", 90, 10, 2));
+
+        //then
+        assertTrue(index.getTopMovies(10, 1, "drama").isEmpty());
+        assertEquals(List.of("movie"), ids(index.getTopMovies(10, 1, "comedy")));
+    }
+
+    @Test
+    public void shouldRemoveDeletedMovie() {
+        //given
+        index.update(movie("movie", "drama", 90, 10, 1));
+
+        //when
+        index.onMovieDeleted(new MovieDeletedEvent("movie"));
+
+        //then
+        assertTrue(index.getTopMovies(10, 0, null).isEmpty());
+        assertTrue(index.getTopMovies(10, 0, "drama").isEmpty());
+    }
+
+    @Test
+    public void shouldReloadMoviesWrittenOnOtherInstances() {
+        //given
+        InMemoryInvalidationBus remoteBus = new InMemoryInvalidationBus(new SimpleMeterRegistry());
+        invalidationBus.connect(remoteBus);
+        index.update(movie("rated", "drama", 90, 10, 1));
+        index.update(movie("deleted", "drama", 50, 10, 1));
+        given(repository.findAllById(List.of("rated", "deleted", "created")))
+            .willReturn(List.of(movie("rated", "drama", 100, 11, 2), movie("created", "comedy", 0, 0, 0)));
+
+        //when
+        remoteBus.publish(InvalidationTarget.MOVIE, List.of("rated", "deleted", "created"));
+
+        //then
+        assertEquals(List.of("rated"), ids(index.getTopMovies(10, 1, null)));
+        assertEquals(11, index.getTopMovies(10, 1, null).get(0).getRatingCount());
+        assertEquals(List.of("created"), ids(index.getTopMovies(10, 0, "comedy")));
+    }
+
+    @Test
+    public void shouldNotReloadMoviesWrittenOnThisInstance() {
+        //when
+        invalidationBus.publish(InvalidationTarget.MOVIE, "movie");
+
+        //then
+        verify(repository, never()).findAllById(any());
+    }
+
+    @Test
+    public void shouldFilterByGenreRegardlessOfDefaultLocale() {
+        //given
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+
+        //when
+        List<TopMovieDto> result;
+        try {
+            index.update(movie("indie", "Indie", 450, 50, 1));
+            index.rerank();
+            result = index.getTopMovies(10, 1, "indie");
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+
+        //then
+        assertEquals(List.of("indie"), ids(result));
+    }
+
+    private Movie movie(String id, String genre, long ratingSum, int ratingCount, long revision) {
+        return Movie.builder()
+                    .id(id)
+                    .title("Title " + id)
+                    .genre(genre)
+                    .year(2020)
+                    .director("Director")
+                    .ratingSum(ratingSum)
+                    .ratingCount(ratingCount)
+                    .avgRating((double) ratingSum / ratingCount)
+                    .revision(revision)
+                    .build();
+    }
+
+    private List<String> ids(List<TopMovieDto> movies) {
+        return movies.stream().map(TopMovieDto::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,173 @@
+package com.gmiedlar.moviereviewer.service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.gmiedlar.moviereviewer.domain.Comment;
+import com.gmiedlar.moviereviewer.domain.Movie;
+import com.gmiedlar.moviereviewer.dto.TrendingMovieDto;
+import com.gmiedlar.moviereviewer.dto.TrendingWindow;
+import com.gmiedlar.moviereviewer.event.MovieDeletedEvent;
+import com.gmiedlar.moviereviewer.repository.CommentRepository;
+import com.gmiedlar.moviereviewer.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class TrendingMovieIndexTest {
+
+    private static final long NOW = TimeUnit.DAYS.toMillis(20000);
+
+    @Mock
+    private MovieRepository movieRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    private TrendingMovieIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrendingMovieIndex(movieRepository, commentRepository, 2);
+    }
+
+    @Test
+    public void shouldCountReviewsPerWindow() {
+        //given
+        givenMovies("recent", "daily", "weekly");
+        record("recent", 3, TimeUnit.MINUTES.toMillis(5));
+        record("daily", 5, TimeUnit.HOURS.toMillis(3));
+        record("weekly", 7, TimeUnit.DAYS.toMillis(3));
+        record("weekly", 1, TimeUnit.DAYS.toMillis(8));
+
+        //when
+        index.refresh(NOW);
+
+        //then
+        assertEquals(List.of("recent"), ids(index.getTrendingMovies(TrendingWindow.HOUR, 10)));
+        assertEquals(List.of("daily", "recent"), ids(index.getTrendingMovies(TrendingWindow.DAY, 10)));
+        List<TrendingMovieDto> week = index.getTrendingMovies(TrendingWindow.WEEK, 10);
+        assertEquals(List.of("weekly", "daily"), ids(week));
+        assertEquals(7, week.get(0).getReviewCount());
+    }
+
+    @Test
+    public void shouldLimitResults() {
+        //given
+        givenMovies("first", "second");
+        record("first", 2, 0);
+        record("second", 1, 0);
+
+        //when
+        index.refresh(NOW);
+
+        //then
+        assertEquals(List.of("first"), ids(index.getTrendingMovies(TrendingWindow.HOUR, 1)));
+    }
+
+    @Test
+    public void shouldReuseBucketsOnceTheyRollOver() {
+        //given
+        givenMovies("movie");
+        record("movie", 4, TimeUnit.HOURS.toMillis(1));
+        record("movie", 1, 0);
+
+        //when
+        index.refresh(NOW);
+
+        //then
+        assertEquals(1, index.getTrendingMovies(TrendingWindow.HOUR, 10).get(0).getReviewCount());
+        assertEquals(5, index.getTrendingMovies(TrendingWindow.DAY, 10).get(0).getReviewCount());
+    }
+
+    @Test
+    public void shouldSkipDeletedMovies() {
+        //given
+        givenMovies("kept");
+        record("kept", 1, 0);
+        record("deleted", 5, 0);
+        index.onMovieDeleted(new MovieDeletedEvent("deleted"));
+
+        //when
+        index.refresh(NOW);
+
+        //then
+        assertEquals(List.of("kept"), ids(index.getTrendingMovies(TrendingWindow.HOUR, 10)));
+    }
+
+    @Test
+    public void shouldNotLoseConcurrentReviews() throws Exception {
+        //given
+        givenMovies("movie");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        //when
+        for(int i = 0; i < 8; i++)
+            executor.submit(() -> record("movie", 1000, 0));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        index.refresh(NOW);
+
+        //then
+        assertEquals(8000, index.getTrendingMovies(TrendingWindow.HOUR, 10).get(0).getReviewCount());
+    }
+
+    @Test
+    public void shouldReloadReviewsWrittenOnOtherInstances() {
+        //given
+        givenMovies("local", "remote");
+        long now = System.currentTimeMillis();
+        index.record("local", now - 1000);
+        index.record("local", now - 1000);
+        given(commentRepository.streamMovieIdsByAddDateAfter(any(Date.class))).willReturn(Stream.of(
+            review("local", now - 1000), review("local", now - 1000),
+            review("remote", now - 2000), review("remote", now - 2000), review("remote", now - 3000)
+        ));
+
+        //when
+        index.rebuild();
+
+        //then
+        List<TrendingMovieDto> trending = index.getTrendingMovies(TrendingWindow.HOUR, 10);
+        assertEquals(List.of("remote", "local"), ids(trending));
+        assertEquals(3, trending.get(0).getReviewCount());
+        assertEquals(2, trending.get(1).getReviewCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenMovies(String... ids) {
+        given(movieRepository.findAllById(anySet())).willAnswer(invocation -> ((Set<String>) invocation.getArgument(0))
+            .stream()
+            .filter(id -> Stream.of(ids).anyMatch(id::equals))
+            .map(id -> Movie.builder().id(id).title("Title " + id).build())
+            .collect(Collectors.toList()));
+    }
+
+    private void record(String movieId, int reviews, long ageMillis) {
+        for(int i = 0; i < reviews; i++)
+            index.record(movieId, NOW - ageMillis);
+    }
+
+    private Comment review(String movieId, long addDate) {
+        return Comment.builder().movieId(movieId).addDate(new Date(addDate)).build();
+    }
+
+    private List<String> ids(List<TrendingMovieDto> movies) {
+        return movies.stream().map(TrendingMovieDto::getId).collect(Collectors.toList());
+    }
+}
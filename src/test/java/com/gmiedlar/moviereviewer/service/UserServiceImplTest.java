@@ -1,11 +1,13 @@
 package com.gmiedlar.moviereviewer.service;
 
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 import com.gmiedlar.moviereviewer.domain.CustomUser;
 import com.gmiedlar.moviereviewer.dto.PasswordDto;
 import com.gmiedlar.moviereviewer.dto.UserDto;
 import com.gmiedlar.moviereviewer.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,6 +22,7 @@ import static com.gmiedlar.moviereviewer.common.TestData.USER_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
@@ -36,11 +39,15 @@ class UserServiceImplTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private TokenRevocationList revocationList;
+
     private UserService userService;
 
     @BeforeEach
     public void setUp() {
-        userService = new UserServiceImpl(userRepository, passwordEncoder);
+        PasswordHasher passwordHasher = new PasswordHasher(passwordEncoder, new SimpleMeterRegistry(), 1, 10, 1, 10);
+        userService = new UserServiceImpl(userRepository, passwordHasher, revocationList);
     }
 
     @Test
@@ -113,13 +120,14 @@ class UserServiceImplTest {
         given(passwordEncoder.matches(passwordDto.getOldPassword(), ENABLED_USER.getPassword())).willReturn(true);
 
         //when
-        String result = userService.updateUserPassword(UNIQUE_USERNAME, passwordDto);
+        String result = userService.updateUserPassword(UNIQUE_USERNAME, passwordDto).join();
 
         //then
         verify(userRepository, times(1)).findByUsername(anyString());
         verify(passwordEncoder, times(1)).matches(anyString(), anyString());
         verify(passwordEncoder, times(1)).encode(anyString());
         verify(userRepository, times(1)).save(any(CustomUser.class));
+        verify(revocationList, times(1)).revokeAllTokens(UNIQUE_USERNAME);
         assertNotNull(result);
         assertEquals(result, "Password successfully changed");
     }
@@ -135,9 +143,9 @@ class UserServiceImplTest {
 
 
         Throwable exception = assertThrows(
-            IllegalArgumentException.class,
+            CompletionException.class,
             //when
-            () -> userService.updateUserPassword(UNIQUE_USERNAME, passwordDto)
+            () -> userService.updateUserPassword(UNIQUE_USERNAME, passwordDto).join()
         );
 
         //then
@@ -145,7 +153,9 @@ class UserServiceImplTest {
         verify(passwordEncoder, times(1)).matches(passwordDto.getOldPassword(), ENABLED_USER.getPassword());
         verify(passwordEncoder, never()).encode(anyString());
         verify(userRepository, never()).save(any(CustomUser.class));
-        assertEquals("Wrong password!", exception.getMessage());
+        verify(revocationList, never()).revokeAllTokens(anyString());
+        assertTrue(exception.getCause() instanceof IllegalArgumentException);
+        assertEquals("Wrong password!", exception.getCause().getMessage());
     }
 
     @Test
@@ -155,7 +165,6 @@ class UserServiceImplTest {
         String newPassword = "newPass";
         PasswordDto passwordDto = new PasswordDto(oldPassword, newPassword, "invalidConfirmation");
         given(userRepository.findByUsername(UNIQUE_USERNAME)).willReturn(Optional.of(ENABLED_USER));
-        given(passwordEncoder.matches(passwordDto.getOldPassword(), ENABLED_USER.getPassword())).willReturn(true);
 
         Throwable exception = assertThrows(
             IllegalArgumentException.class,
@@ -165,7 +174,7 @@ class UserServiceImplTest {
 
         //then
         verify(userRepository, times(1)).findByUsername(anyString());
-        verify(passwordEncoder, times(1)).matches(anyString(), anyString());
+        verify(passwordEncoder, never()).matches(anyString(), anyString());
         verify(passwordEncoder, never()).encode(anyString());
         verify(userRepository, never()).save(any(CustomUser.class));
         assertEquals("The Password confirmation must match New password!", exception.getMessage());
@@ -179,12 +188,14 @@ class UserServiceImplTest {
         given(userRepository.findById(USER_ID)).willReturn(Optional.of(ENABLED_USER));
 
         //when
-        String result = userService.resetUserPassword(USER_ID, passwordDto);
+        String result = userService.resetUserPassword(USER_ID, passwordDto).join();
 
         //then
         verify(userRepository, times(1)).findById(anyString());
         verify(passwordEncoder, times(1)).encode(anyString());
         verify(userRepository, times(1)).save(any(CustomUser.class));
+        verify(revocationList, times(1)).revokeAllTokens(ENABLED_USER.getUsername());
+        verify(revocationList, times(1)).revokeAllTokens(UNIQUE_USERNAME);
         assertNotNull(result);
         assertEquals(result, "Password successfully changed");
     }
@@ -200,7 +211,37 @@ class UserServiceImplTest {
         //then
         verify(userRepository, times(1)).findByUsername(anyString());
         verify(userRepository, times(1)).delete(any(CustomUser.class));
+        verify(revocationList, times(1)).revokeAllTokens(UNIQUE_USERNAME);
         assertNotNull(result);
         assertEquals(result, "Account successfully deleted");
     }
+
+    @Test
+    public void shouldRevokeAllSessionsOfUser() {
+        //given
+        given(userRepository.findById(USER_ID)).willReturn(Optional.of(ENABLED_USER));
+
+        //when
+        String result = userService.revokeUserSessions(USER_ID);
+
+        //then
+        verify(revocationList, times(1)).revokeAllTokens(UNIQUE_USERNAME);
+        assertEquals(result, "All sessions successfully revoked");
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenRevokingSessionsOfUnknownUser() {
+        //given
+        given(userRepository.findById(USER_ID)).willReturn(Optional.empty());
+
+        Throwable exception = assertThrows(
+            IllegalArgumentException.class,
+            //when
+            () -> userService.revokeUserSessions(USER_ID)
+        );
+
+        //then
+        verify(revocationList, never()).revokeAllTokens(anyString());
+        assertEquals("No user with that id exists!", exception.getMessage());
+    }
 }
\ No newline at end of file